@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks of this package with a fixed configuration and writes the results as JSON, by default in
+ * target/jmh-result.json, so that the results of two runs can be compared. Any JMH command line option, for example
+ * a regular expression that selects the benchmarks or "-rff other.json", overrides the defaults.
+ */
+public final class BenchmarkRunner {
+
+	// Attributes
+	public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	// Constructor
+	private BenchmarkRunner() {
+	}
+
+	// Methods
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+		if (!commandLineOptions.getForkCount().hasValue()) {
+			builder.forks(1);
+		}
+		if (!commandLineOptions.getWarmupIterations().hasValue()) {
+			builder.warmupIterations(5);
+		}
+		if (!commandLineOptions.getWarmupTime().hasValue()) {
+			builder.warmupTime(TimeValue.seconds(1));
+		}
+		if (!commandLineOptions.getMeasurementIterations().hasValue()) {
+			builder.measurementIterations(5);
+		}
+		if (!commandLineOptions.getMeasurementTime().hasValue()) {
+			builder.measurementTime(TimeValue.seconds(1));
+		}
+		if (!commandLineOptions.getTimeUnit().hasValue()) {
+			builder.timeUnit(TimeUnit.MICROSECONDS);
+		}
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			builder.result(DEFAULT_RESULT_FILE);
+		}
+		if (!commandLineOptions.shouldFailOnError().hasValue()) {
+			builder.shouldFailOnError(true);
+		}
+		Options options = builder.parent(commandLineOptions).build();
+		new Runner(options).run();
+	}
+}
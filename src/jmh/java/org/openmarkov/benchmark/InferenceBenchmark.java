@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.benchmark;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.StrategyTree;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.inference.variableElimination.tasks.VEEvaluation;
+import org.openmarkov.inference.variableElimination.tasks.VEOptimalIntervention;
+import org.openmarkov.inference.variableElimination.tasks.VEPropagation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Variable elimination tasks on the AID-HF model and on synthetic influence diagrams, without evidence.
+ */
+@State(Scope.Thread) public class InferenceBenchmark {
+
+	// Attributes
+	@Param({ SyntheticNetworks.AID_HF, "synthetic-10", "synthetic-20", "synthetic-30" }) public String network;
+
+	private ProbNet probNet;
+
+	private List<Variable> chanceVariables;
+
+	// Methods
+	@Setup public void setUp() throws IOException, ParserException {
+		probNet = SyntheticNetworks.load(network);
+		chanceVariables = new ArrayList<>();
+		for (Node node : probNet.getNodes(NodeType.CHANCE)) {
+			chanceVariables.add(node.getVariable());
+		}
+	}
+
+	@Benchmark public TablePotential veEvaluation()
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		return new VEEvaluation(probNet).getUtility();
+	}
+
+	@Benchmark public HashMap<Variable, TablePotential> vePropagation()
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		VEPropagation vePropagation = new VEPropagation(probNet);
+		vePropagation.setVariablesOfInterest(chanceVariables);
+		return vePropagation.getPosteriorValues();
+	}
+
+	@Benchmark public StrategyTree veOptimalIntervention()
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		return new VEOptimalIntervention(probNet).getOptimalIntervention();
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.benchmark;
+
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.exception.WriterException;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.io.probmodel.reader.PGMXReader_0_2;
+import org.openmarkov.io.probmodel.reader.PGMXStAXReader;
+import org.openmarkov.io.probmodel.reader.ProbNetSnapshotReader;
+import org.openmarkov.io.probmodel.writer.ProbNetSnapshotWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Parse time of {@link PGMXReader_0_2} and {@link PGMXStAXReader}. The file is read into memory beforehand, so disk access is not measured.
+ * The load time of the same network from a snapshot file written by {@link ProbNetSnapshotWriter} is measured for comparison.
+ */
+@State(Scope.Thread) public class PGMXReaderBenchmark {
+
+	// Attributes
+	@Param({ SyntheticNetworks.AID_HF, "synthetic-30" }) public String network;
+
+	private byte[] pgmx;
+
+	private File snapshot;
+
+	// Methods
+	@Setup public void setUp() throws IOException, ParserException, WriterException {
+		pgmx = SyntheticNetworks.getPGMX(network);
+		snapshot = File.createTempFile("benchmark", "." + ProbNetSnapshotWriter.EXTENSION);
+		new ProbNetSnapshotWriter().writeProbNet(snapshot.getPath(), SyntheticNetworks.load(network));
+	}
+
+	@TearDown public void tearDown() {
+		snapshot.delete();
+	}
+
+	@Benchmark public ProbNet loadProbNet() throws ParserException {
+		return new PGMXReader_0_2().loadProbNet(network, new ByteArrayInputStream(pgmx));
+	}
+
+	@Benchmark public ProbNet loadProbNetStAX() throws ParserException {
+		return new PGMXStAXReader().loadProbNet(network, new ByteArrayInputStream(pgmx));
+	}
+
+	@Benchmark public ProbNet loadProbNetSnapshot() throws ParserException {
+		return new ProbNetSnapshotReader().loadProbNet(snapshot.getPath());
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.benchmark;
+
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.io.probmodel.reader.PGMXReader_0_2;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Networks used by the benchmarks: the AID-HF model and influence diagrams generated at random with a fixed seed.
+ * <p>
+ * A synthetic network is named "synthetic-n", where n is its number of chance variables. It has the shape of the
+ * AID-HF model: a layer of hidden chance variables, some of which are observed before a decision, an outcome that
+ * depends on the decision, and two utilities, one on the decision and one on the outcome.
+ */
+public final class SyntheticNetworks {
+
+	// Attributes
+	public static final String AID_HF = "AID-HF";
+
+	/**
+	 * System property with the path of the AID-HF model; by default it is read from the working directory
+	 */
+	public static final String MODEL_FILE_PROPERTY = "benchmark.model-file";
+
+	private static final String DEFAULT_MODEL_FILE = "20220203 - AID-HF.pgmx";
+
+	private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+	private static final int MAX_PARENTS = 3;
+
+	private static final int MAX_STATES = 4;
+
+	private static final int NUM_OBSERVED_VARIABLES = 3;
+
+	private static final long SEED = 20220203L;
+
+	// Constructor
+	private SyntheticNetworks() {
+	}
+
+	// Methods
+
+	/**
+	 * @param network {@link #AID_HF} or "synthetic-n"
+	 * @return The PGMX encoding of the network
+	 * @throws IOException if the AID-HF model cannot be read
+	 */
+	public static byte[] getPGMX(String network) throws IOException {
+		if (AID_HF.equals(network)) {
+			return Files.readAllBytes(new File(System.getProperty(MODEL_FILE_PROPERTY, DEFAULT_MODEL_FILE)).toPath());
+		}
+		if (network.startsWith(SYNTHETIC_PREFIX)) {
+			int numChanceVariables = Integer.parseInt(network.substring(SYNTHETIC_PREFIX.length()));
+			return generateInfluenceDiagram(numChanceVariables, new Random(SEED + numChanceVariables))
+					.getBytes(StandardCharsets.UTF_8);
+		}
+		throw new IllegalArgumentException("Unknown network " + network);
+	}
+
+	/**
+	 * @param network {@link #AID_HF} or "synthetic-n"
+	 * @return The network
+	 * @throws IOException     if the AID-HF model cannot be read
+	 * @throws ParserException if the network cannot be parsed
+	 */
+	public static ProbNet load(String network) throws IOException, ParserException {
+		return new PGMXReader_0_2().loadProbNet(network, new ByteArrayInputStream(getPGMX(network)));
+	}
+
+	private static String generateInfluenceDiagram(int numChanceVariables, Random random) {
+		int[] numStates = new int[numChanceVariables];
+		List<List<Integer>> parents = new ArrayList<>(numChanceVariables);
+		for (int i = 0; i < numChanceVariables; i++) {
+			numStates[i] = 2 + random.nextInt(MAX_STATES - 1);
+			List<Integer> variableParents = new ArrayList<>();
+			int numParents = Math.min(i, random.nextInt(MAX_PARENTS + 1));
+			while (variableParents.size() < numParents) {
+				Integer parent = random.nextInt(i);
+				if (!variableParents.contains(parent)) {
+					variableParents.add(parent);
+				}
+			}
+			parents.add(variableParents);
+		}
+		int numObserved = Math.min(NUM_OBSERVED_VARIABLES, numChanceVariables);
+		int outcomeParent = random.nextInt(numChanceVariables);
+
+		StringBuilder pgmx = new StringBuilder();
+		pgmx.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		pgmx.append("<ProbModelXML formatVersion=\"0.2.0\">\n");
+		pgmx.append("  <ProbNet type=\"InfluenceDiagram\">\n");
+		pgmx.append("    <DecisionCriteria>\n      <Criterion name=\"---\" unit=\"---\" />\n    </DecisionCriteria>\n");
+		pgmx.append("    <Variables>\n");
+		for (int i = 0; i < numChanceVariables; i++) {
+			appendFiniteStatesVariable(pgmx, "C" + i, "chance", numStates[i]);
+		}
+		appendFiniteStatesVariable(pgmx, "Decision", "decision", 3);
+		appendFiniteStatesVariable(pgmx, "Outcome", "chance", 2);
+		appendUtilityVariable(pgmx, "Cost");
+		appendUtilityVariable(pgmx, "Health");
+		pgmx.append("    </Variables>\n");
+
+		pgmx.append("    <Links>\n");
+		for (int i = 0; i < numChanceVariables; i++) {
+			for (int parent : parents.get(i)) {
+				appendLink(pgmx, "C" + parent, "C" + i);
+			}
+		}
+		for (int i = numChanceVariables - numObserved; i < numChanceVariables; i++) {
+			appendLink(pgmx, "C" + i, "Decision");
+		}
+		appendLink(pgmx, "Decision", "Outcome");
+		appendLink(pgmx, "C" + outcomeParent, "Outcome");
+		appendLink(pgmx, "Decision", "Cost");
+		appendLink(pgmx, "Outcome", "Health");
+		pgmx.append("    </Links>\n");
+
+		pgmx.append("    <Potentials>\n");
+		for (int i = 0; i < numChanceVariables; i++) {
+			List<String> variables = new ArrayList<>();
+			int numParentConfigurations = 1;
+			variables.add("C" + i);
+			for (int parent : parents.get(i)) {
+				variables.add("C" + parent);
+				numParentConfigurations *= numStates[parent];
+			}
+			appendTablePotential(pgmx, null, variables,
+					getConditionalProbabilities(numStates[i], numParentConfigurations, random));
+		}
+		List<String> outcomeVariables = new ArrayList<>();
+		outcomeVariables.add("Outcome");
+		outcomeVariables.add("Decision");
+		outcomeVariables.add("C" + outcomeParent);
+		appendTablePotential(pgmx, null, outcomeVariables,
+				getConditionalProbabilities(2, 3 * numStates[outcomeParent], random));
+		List<String> costVariables = new ArrayList<>();
+		costVariables.add("Decision");
+		appendTablePotential(pgmx, "Cost", costVariables, new double[] { -2.0, 0.0, -0.5 });
+		List<String> healthVariables = new ArrayList<>();
+		healthVariables.add("Outcome");
+		appendTablePotential(pgmx, "Health", healthVariables, new double[] { 0.0, -10.0 });
+		pgmx.append("    </Potentials>\n");
+		pgmx.append("  </ProbNet>\n");
+		pgmx.append("</ProbModelXML>\n");
+		return pgmx.toString();
+	}
+
+	/**
+	 * @return A table in which the first variable varies fastest and each column sums 1
+	 */
+	private static double[] getConditionalProbabilities(int numStates, int numParentConfigurations, Random random) {
+		double[] values = new double[numStates * numParentConfigurations];
+		for (int configuration = 0; configuration < numParentConfigurations; configuration++) {
+			double sum = 0;
+			for (int state = 0; state < numStates; state++) {
+				values[configuration * numStates + state] = 0.05 + random.nextDouble();
+				sum += values[configuration * numStates + state];
+			}
+			for (int state = 0; state < numStates; state++) {
+				values[configuration * numStates + state] /= sum;
+			}
+		}
+		return values;
+	}
+
+	private static void appendFiniteStatesVariable(StringBuilder pgmx, String name, String role, int numStates) {
+		pgmx.append("      <Variable name=\"").append(name).append("\" type=\"finiteStates\" role=\"").append(role)
+				.append("\">\n        <States>\n");
+		for (int state = 0; state < numStates; state++) {
+			pgmx.append("          <State name=\"s").append(state).append("\" />\n");
+		}
+		pgmx.append("        </States>\n      </Variable>\n");
+	}
+
+	private static void appendUtilityVariable(StringBuilder pgmx, String name) {
+		pgmx.append("      <Variable name=\"").append(name).append("\" type=\"numeric\" role=\"utility\">\n")
+				.append("        <Unit />\n        <Precision>0.01</Precision>\n        <Criterion name=\"---\" />\n")
+				.append("      </Variable>\n");
+	}
+
+	private static void appendLink(StringBuilder pgmx, String parent, String child) {
+		pgmx.append("      <Link directed=\"true\">\n        <Variable name=\"").append(parent)
+				.append("\" />\n        <Variable name=\"").append(child).append("\" />\n      </Link>\n");
+	}
+
+	private static void appendTablePotential(StringBuilder pgmx, String utilityVariable, List<String> variables,
+			double[] values) {
+		pgmx.append("      <Potential type=\"Table\" role=\"conditionalProbability\">\n");
+		if (utilityVariable != null) {
+			pgmx.append("        <UtilityVariable name=\"").append(utilityVariable).append("\" />\n");
+		}
+		pgmx.append("        <Variables>\n");
+		for (String variable : variables) {
+			pgmx.append("          <Variable name=\"").append(variable).append("\" />\n");
+		}
+		pgmx.append("        </Variables>\n        <Values>");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				pgmx.append(' ');
+			}
+			pgmx.append(String.format(Locale.ROOT, "%.6f", values[i]));
+		}
+		pgmx.append("</Values>\n      </Potential>\n");
+	}
+}
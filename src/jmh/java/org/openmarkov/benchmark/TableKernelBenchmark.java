@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.benchmark;
+
+import org.openmarkov.core.exception.NormalizeNullVectorException;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Table kernels of {@link DiscretePotentialOperations} on two potentials of {@code arity} variables with
+ * {@code numStates} states each, which share all their variables but one.
+ */
+@State(Scope.Thread) public class TableKernelBenchmark {
+
+	// Attributes
+	@Param({ "2", "4", "6" }) public int arity;
+
+	@Param({ "2", "3", "5" }) public int numStates;
+
+	private TablePotential first;
+
+	private TablePotential second;
+
+	/**
+	 * Marginal of {@code first} on all its variables but the first one, used as denominator
+	 */
+	private TablePotential marginal;
+
+	private List<TablePotential> potentials;
+
+	private List<Variable> variablesToKeep;
+
+	private List<Variable> variablesToEliminate;
+
+	private Variable variableToMaximize;
+
+	// Methods
+	@Setup public void setUp() {
+		Random random = new Random(arity * 31L + numStates);
+		List<Variable> variables = new ArrayList<>(arity + 1);
+		for (int i = 0; i <= arity; i++) {
+			variables.add(new Variable("V" + i, numStates));
+		}
+		first = createPotential(variables.subList(0, arity), random);
+		second = createPotential(variables.subList(1, arity + 1), random);
+		potentials = new ArrayList<>(Arrays.asList(first, second));
+		variablesToKeep = new ArrayList<>(variables.subList(1, arity + 1));
+		variablesToEliminate = Collections.singletonList(variables.get(0));
+		variableToMaximize = variables.get(0);
+		marginal = DiscretePotentialOperations.marginalize(first, variables.get(0));
+	}
+
+	@Benchmark public TablePotential multiply() {
+		return DiscretePotentialOperations.multiply(potentials);
+	}
+
+	@Benchmark public TablePotential multiplyAndMarginalize() {
+		return DiscretePotentialOperations.multiplyAndMarginalize(potentials, variablesToKeep, variablesToEliminate);
+	}
+
+	@Benchmark public TablePotential divide() {
+		return DiscretePotentialOperations.divide(first, marginal);
+	}
+
+	@Benchmark public Object[] multiplyAndMaximize() {
+		return DiscretePotentialOperations.multiplyAndMaximize(potentials, variableToMaximize);
+	}
+
+	/**
+	 * The table is normalized in place; normalizing it again takes the same work
+	 */
+	@Benchmark public TablePotential normalize() throws NormalizeNullVectorException {
+		return DiscretePotentialOperations.normalize(first);
+	}
+
+	private static TablePotential createPotential(List<Variable> variables, Random random) {
+		TablePotential potential = new TablePotential(new ArrayList<>(variables),
+				PotentialRole.CONDITIONAL_PROBABILITY);
+		for (int i = 0; i < potential.values.length; i++) {
+			potential.values[i] = 0.05 + random.nextDouble();
+		}
+		return potential;
+	}
+}
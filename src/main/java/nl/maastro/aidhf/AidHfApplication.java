@@ -2,8 +2,10 @@ package nl.maastro.aidhf;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AidHfApplication {
 
 	public static void main(String[] args) {
@@ -2,17 +2,21 @@ package nl.maastro.aidhf.controllers;
 
 import nl.maastro.aidhf.domain.models.BNInput;
 import nl.maastro.aidhf.services.AdviceService;
+import nl.maastro.aidhf.services.BatchAdviceService;
 import org.openmarkov.core.exception.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,8 +28,11 @@ public class AdviceController {
 
 	private final AdviceService adviceService;
 
-	public AdviceController(AdviceService adviceService) {
+	private final BatchAdviceService batchAdviceService;
+
+	public AdviceController(AdviceService adviceService, BatchAdviceService batchAdviceService) {
 		this.adviceService = adviceService;
+		this.batchAdviceService = batchAdviceService;
 	}
 
 	@PostMapping
@@ -35,14 +42,31 @@ public class AdviceController {
 
 		try {
 			response = adviceService.calculateAdvice(bnInput);
-		} catch (FileNotFoundException | ParserException | NodeNotFoundException | IncompatibleEvidenceException |
-				InvalidStateException | NotEvaluableNetworkException | UnexpectedInferenceException e) {
+		} catch (IncompatibleEvidenceException | InvalidStateException | NotEvaluableNetworkException |
+				UnexpectedInferenceException e) {
 			logger.error("Failed to calculate advice", e);
 			return ResponseEntity.internalServerError().build();
 		}
 		return ResponseEntity.ok().body(response);
 	}
 
+	/**
+	 * Accepts a JSON array or newline-delimited JSON of inputs and streams back the results in the same order and
+	 * format.
+	 */
+	@PostMapping(path = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<StreamingResponseBody> calculateAdvices(InputStream inputStream,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+		logger.info("REST request to calculate a batch of advices");
+		boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+
+		StreamingResponseBody responseBody = outputStream -> batchAdviceService
+				.calculateAdvices(inputStream, outputStream, ndjson);
+		return ResponseEntity.ok()
+				.contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+				.body(responseBody);
+	}
+
 
 	@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
 	@ExceptionHandler(MethodArgumentNotValidException.class)
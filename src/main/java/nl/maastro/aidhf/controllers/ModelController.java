@@ -0,0 +1,24 @@
+package nl.maastro.aidhf.controllers;
+
+import nl.maastro.aidhf.domain.models.ModelMetrics;
+import nl.maastro.aidhf.services.ModelRegistry;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/model")
+public class ModelController {
+
+	private final ModelRegistry modelRegistry;
+
+	public ModelController(ModelRegistry modelRegistry) {
+		this.modelRegistry = modelRegistry;
+	}
+
+	@GetMapping("/metrics")
+	public ModelMetrics getMetrics() {
+		return modelRegistry.getMetrics();
+	}
+
+}
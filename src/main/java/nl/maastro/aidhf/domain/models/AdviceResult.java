@@ -0,0 +1,37 @@
+package nl.maastro.aidhf.domain.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * The outcome for one input of a batch: either the advice or the errors that prevented calculating it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AdviceResult {
+
+	private final String advice;
+
+	private final Map<String, String> errors;
+
+	private AdviceResult(String advice, Map<String, String> errors) {
+		this.advice = advice;
+		this.errors = errors;
+	}
+
+	public static AdviceResult ofAdvice(String advice) {
+		return new AdviceResult(advice, null);
+	}
+
+	public static AdviceResult ofErrors(Map<String, String> errors) {
+		return new AdviceResult(null, errors);
+	}
+
+	public String getAdvice() {
+		return advice;
+	}
+
+	public Map<String, String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,50 @@
+package nl.maastro.aidhf.domain.models;
+
+import nl.maastro.aidhf.domain.enums.GradeEnum;
+import nl.maastro.aidhf.domain.enums.SyncopeEnum;
+
+/**
+ * The advice for every possible {@link BNInput}. Inputs are numbered in mixed radix, with the syncope as the least
+ * significant digit and orthopnea as the most significant one.
+ */
+public final class AdviceTable {
+
+	private static final GradeEnum[] GRADES = GradeEnum.values();
+	private static final SyncopeEnum[] SYNCOPE_VALUES = SyncopeEnum.values();
+
+	public static final int SIZE = GRADES.length * GRADES.length * GRADES.length * GRADES.length
+			* SYNCOPE_VALUES.length;
+
+	private final String[] advices;
+
+	public AdviceTable(String[] advices) {
+		if (advices.length != SIZE) {
+			throw new IllegalArgumentException("Expected " + SIZE + " advices, got " + advices.length);
+		}
+		this.advices = advices.clone();
+	}
+
+	public String get(BNInput input) {
+		return advices[index(input)];
+	}
+
+	public static int index(BNInput input) {
+		int index = input.getOrthopnea().ordinal();
+		index = index * GRADES.length + input.getCough().ordinal();
+		index = index * GRADES.length + input.getEdema().ordinal();
+		index = index * GRADES.length + input.getDizziness().ordinal();
+		return index * SYNCOPE_VALUES.length + input.getSyncope().ordinal();
+	}
+
+	public static BNInput input(int index) {
+		SyncopeEnum syncope = SYNCOPE_VALUES[index % SYNCOPE_VALUES.length];
+		index /= SYNCOPE_VALUES.length;
+		GradeEnum dizziness = GRADES[index % GRADES.length];
+		index /= GRADES.length;
+		GradeEnum edema = GRADES[index % GRADES.length];
+		index /= GRADES.length;
+		GradeEnum cough = GRADES[index % GRADES.length];
+		index /= GRADES.length;
+		return new BNInput(GRADES[index], cough, edema, dizziness, syncope);
+	}
+}
@@ -0,0 +1,114 @@
+package nl.maastro.aidhf.domain.models;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+/**
+ * A parsed and validated AID-HF network, shared by all requests. The network itself must not be edited: the
+ * inference tasks work on their own copy of it.
+ */
+public final class CompiledModel {
+
+	private final ProbNet probNet;
+
+	private final Variable orthopnea;
+	private final Variable cough;
+	private final Variable edema;
+	private final Variable dizziness;
+	private final Variable syncope;
+
+	// State index in the network for every constant of GradeEnum / SyncopeEnum, indexed by ordinal.
+	private final int[] gradeStates;
+	private final int[] syncopeStates;
+
+	private final long lastModified;
+	private final long parseTimeMillis;
+	private final long compileTimeMillis;
+	private final long loadedAt;
+
+	// Precomputed advice for every input, or null when the table is disabled
+	private final AdviceTable adviceTable;
+	private final long adviceTableTimeMillis;
+
+	public CompiledModel(ProbNet probNet, Variable orthopnea, Variable cough, Variable edema, Variable dizziness,
+			Variable syncope, int[] gradeStates, int[] syncopeStates, long lastModified, long parseTimeMillis,
+			long compileTimeMillis) {
+		this.probNet = probNet;
+		this.orthopnea = orthopnea;
+		this.cough = cough;
+		this.edema = edema;
+		this.dizziness = dizziness;
+		this.syncope = syncope;
+		this.gradeStates = gradeStates.clone();
+		this.syncopeStates = syncopeStates.clone();
+		this.lastModified = lastModified;
+		this.parseTimeMillis = parseTimeMillis;
+		this.compileTimeMillis = compileTimeMillis;
+		this.loadedAt = System.currentTimeMillis();
+		this.adviceTable = null;
+		this.adviceTableTimeMillis = 0L;
+	}
+
+	private CompiledModel(CompiledModel model, AdviceTable adviceTable, long adviceTableTimeMillis) {
+		this.probNet = model.probNet;
+		this.orthopnea = model.orthopnea;
+		this.cough = model.cough;
+		this.edema = model.edema;
+		this.dizziness = model.dizziness;
+		this.syncope = model.syncope;
+		this.gradeStates = model.gradeStates;
+		this.syncopeStates = model.syncopeStates;
+		this.lastModified = model.lastModified;
+		this.parseTimeMillis = model.parseTimeMillis;
+		this.compileTimeMillis = model.compileTimeMillis;
+		this.loadedAt = model.loadedAt;
+		this.adviceTable = adviceTable;
+		this.adviceTableTimeMillis = adviceTableTimeMillis;
+	}
+
+	public CompiledModel withAdviceTable(AdviceTable adviceTable, long adviceTableTimeMillis) {
+		return new CompiledModel(this, adviceTable, adviceTableTimeMillis);
+	}
+
+	public EvidenceCase createEvidence(BNInput input) throws InvalidStateException, IncompatibleEvidenceException {
+		EvidenceCase evidence = new EvidenceCase();
+		evidence.addFinding(new Finding(orthopnea, gradeStates[input.getOrthopnea().ordinal()]));
+		evidence.addFinding(new Finding(cough, gradeStates[input.getCough().ordinal()]));
+		evidence.addFinding(new Finding(edema, gradeStates[input.getEdema().ordinal()]));
+		evidence.addFinding(new Finding(dizziness, gradeStates[input.getDizziness().ordinal()]));
+		evidence.addFinding(new Finding(syncope, syncopeStates[input.getSyncope().ordinal()]));
+		return evidence;
+	}
+
+	public ProbNet getProbNet() {
+		return probNet;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public long getParseTimeMillis() {
+		return parseTimeMillis;
+	}
+
+	public long getCompileTimeMillis() {
+		return compileTimeMillis;
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	public AdviceTable getAdviceTable() {
+		return adviceTable;
+	}
+
+	public long getAdviceTableTimeMillis() {
+		return adviceTableTimeMillis;
+	}
+}
@@ -0,0 +1,57 @@
+package nl.maastro.aidhf.domain.models;
+
+public class ModelMetrics {
+
+	private final String modelFile;
+
+	private final long loadedAt;
+
+	private final long parseTimeMillis;
+
+	private final long compileTimeMillis;
+
+	private final long adviceTableTimeMillis;
+
+	private final int reloadCount;
+
+	private final int failedReloadCount;
+
+	public ModelMetrics(String modelFile, long loadedAt, long parseTimeMillis, long compileTimeMillis,
+			long adviceTableTimeMillis, int reloadCount, int failedReloadCount) {
+		this.modelFile = modelFile;
+		this.loadedAt = loadedAt;
+		this.parseTimeMillis = parseTimeMillis;
+		this.compileTimeMillis = compileTimeMillis;
+		this.adviceTableTimeMillis = adviceTableTimeMillis;
+		this.reloadCount = reloadCount;
+		this.failedReloadCount = failedReloadCount;
+	}
+
+	public String getModelFile() {
+		return modelFile;
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	public long getParseTimeMillis() {
+		return parseTimeMillis;
+	}
+
+	public long getCompileTimeMillis() {
+		return compileTimeMillis;
+	}
+
+	public long getAdviceTableTimeMillis() {
+		return adviceTableTimeMillis;
+	}
+
+	public int getReloadCount() {
+		return reloadCount;
+	}
+
+	public int getFailedReloadCount() {
+		return failedReloadCount;
+	}
+}
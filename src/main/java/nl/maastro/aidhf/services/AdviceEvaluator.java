@@ -0,0 +1,54 @@
+package nl.maastro.aidhf.services;
+
+import nl.maastro.aidhf.domain.models.BNInput;
+import nl.maastro.aidhf.domain.models.CompiledModel;
+import org.openmarkov.core.exception.*;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.potential.StrategyTree;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
+import org.openmarkov.inference.variableElimination.tasks.VEOptimalIntervention;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Runs the optimal intervention task on a compiled model. It only reads the model, so it can be called concurrently.
+ */
+@Component
+public class AdviceEvaluator {
+	private static final Logger logger = LoggerFactory.getLogger(AdviceEvaluator.class);
+
+	public String evaluate(CompiledModel model, BNInput input) throws IncompatibleEvidenceException,
+			InvalidStateException, NotEvaluableNetworkException, UnexpectedInferenceException {
+		EvidenceCase evidence = model.createEvidence(input);
+
+		VEOptimalIntervention optimalInterventionCalculator = new VEOptimalIntervention(model.getProbNet(), evidence);
+		StrategyTree optimalIntervention = optimalInterventionCalculator.getOptimalIntervention();
+
+		return extractStateFromStrategyTree(optimalIntervention);
+	}
+
+	private String extractStateFromStrategyTree(StrategyTree optimalIntervention) {
+		StringBuilder strBuffer = new StringBuilder();
+		List<TreeADDBranch> branches = optimalIntervention.getBranches();
+
+		int stateCounter = 0;
+		for (TreeADDBranch branch : branches) {
+			for (State state : branch.getStates()) {
+				stateCounter++;
+				strBuffer.append(state);
+			}
+		}
+
+		// There should only be one advice per request, but it is not technically limited and in theory it could be
+		// multiple.
+		if (stateCounter > 1) {
+			logger.warn("Multiple advices have been found.");
+		}
+
+		return strBuffer.toString();
+	}
+}
@@ -0,0 +1,133 @@
+package nl.maastro.aidhf.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import nl.maastro.aidhf.domain.models.AdviceResult;
+import nl.maastro.aidhf.domain.models.AdviceTable;
+import nl.maastro.aidhf.domain.models.BNInput;
+import nl.maastro.aidhf.domain.models.CompiledModel;
+import org.openmarkov.core.exception.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calculates the advice for a stream of inputs, given either as a JSON array or as newline-delimited JSON. Inputs are
+ * read and results written one at a time, in the same order, so the memory used does not depend on the batch size.
+ * All inputs of a batch are evaluated against the same model, and each distinct input is evaluated only once.
+ */
+@Service
+public class BatchAdviceService {
+	private static final Logger logger = LoggerFactory.getLogger(BatchAdviceService.class);
+
+	private static final int FLUSH_INTERVAL = 1000;
+
+	private final ModelRegistry modelRegistry;
+
+	private final AdviceService adviceService;
+
+	private final ObjectMapper objectMapper;
+
+	private final Validator validator;
+
+	public BatchAdviceService(ModelRegistry modelRegistry, AdviceService adviceService, ObjectMapper objectMapper,
+			Validator validator) {
+		this.modelRegistry = modelRegistry;
+		this.adviceService = adviceService;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+	}
+
+	public void calculateAdvices(InputStream inputStream, OutputStream outputStream, boolean ndjson)
+			throws IOException {
+		CompiledModel model = modelRegistry.getModel();
+		// Advices already calculated in this batch, indexed like the advice table
+		String[] advices = new String[AdviceTable.SIZE];
+		int count = 0;
+
+		ObjectReader reader = objectMapper.readerFor(BNInput.class);
+		try (JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+				JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			if (!ndjson) {
+				generator.writeStartArray();
+			}
+			boolean malformed = false;
+			boolean wrapped = false;
+			boolean first = true;
+			while (!malformed) {
+				AdviceResult result;
+				try {
+					JsonToken token = parser.nextToken();
+					if (first && token == JsonToken.START_ARRAY) {
+						// The inputs are the elements of a JSON array
+						wrapped = true;
+						token = parser.nextToken();
+					}
+					first = false;
+					if (token == null || wrapped && token == JsonToken.END_ARRAY) {
+						break;
+					}
+					BNInput input = token == JsonToken.VALUE_NULL ? null : reader.<BNInput>readValue(parser);
+					result = calculateAdvice(model, input, advices);
+				} catch (JsonProcessingException e) {
+					// The rest of the stream cannot be trusted after malformed input
+					malformed = true;
+					result = AdviceResult.ofErrors(Collections.singletonMap("input", e.getOriginalMessage()));
+				}
+				generator.writeObject(result);
+				if (ndjson) {
+					generator.writeRaw('\n');
+				}
+				if (++count % FLUSH_INTERVAL == 0) {
+					generator.flush();
+				}
+			}
+			if (!ndjson) {
+				generator.writeEndArray();
+			}
+		}
+		logger.info("Calculated a batch of {} advices", count);
+	}
+
+	private AdviceResult calculateAdvice(CompiledModel model, BNInput input, String[] advices) {
+		if (input == null) {
+			return AdviceResult.ofErrors(Collections.singletonMap("input", "must not be null"));
+		}
+		Set<ConstraintViolation<BNInput>> violations = validator.validate(input);
+		if (!violations.isEmpty()) {
+			Map<String, String> errors = new HashMap<>();
+			for (ConstraintViolation<BNInput> violation : violations) {
+				errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+			}
+			return AdviceResult.ofErrors(errors);
+		}
+
+		int index = AdviceTable.index(input);
+		if (advices[index] == null) {
+			try {
+				advices[index] = adviceService.calculateAdvice(model, input);
+			} catch (IncompatibleEvidenceException | InvalidStateException | NotEvaluableNetworkException |
+					UnexpectedInferenceException e) {
+				logger.error("Failed to calculate advice", e);
+				return AdviceResult.ofErrors(Collections.singletonMap("advice", "Failed to calculate advice"));
+			}
+		}
+		return AdviceResult.ofAdvice(advices[index]);
+	}
+}
@@ -0,0 +1,169 @@
+package nl.maastro.aidhf.services;
+
+import nl.maastro.aidhf.domain.enums.GradeEnum;
+import nl.maastro.aidhf.domain.enums.SyncopeEnum;
+import nl.maastro.aidhf.domain.models.AdviceTable;
+import nl.maastro.aidhf.domain.models.CompiledModel;
+import nl.maastro.aidhf.domain.models.ModelMetrics;
+import org.openmarkov.core.exception.*;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.inference.variableElimination.tasks.VEEvaluation;
+import org.openmarkov.io.probmodel.reader.PGMXReader_0_2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the AID-HF network parsed and validated in memory, so requests do not have to read the PGMX file. The file is
+ * polled for changes and reloaded when it is modified; a model that fails to load never replaces the current one.
+ * <p>
+ * Unless disabled, loading also evaluates every possible input once and stores the answers in an {@link AdviceTable}.
+ */
+@Service
+public class ModelRegistry {
+	private static final Logger logger = LoggerFactory.getLogger(ModelRegistry.class);
+
+	private final String modelFilePath;
+
+	private final boolean adviceTableEnabled;
+
+	private final AdviceEvaluator adviceEvaluator;
+
+	private volatile CompiledModel model;
+
+	private final AtomicInteger reloadCount = new AtomicInteger();
+	private final AtomicInteger failedReloadCount = new AtomicInteger();
+
+	public ModelRegistry(@Value("${aid-hf.model-file}") String modelFilePath,
+			@Value("${aid-hf.advice-table:true}") boolean adviceTableEnabled, AdviceEvaluator adviceEvaluator) {
+		this.modelFilePath = modelFilePath;
+		this.adviceTableEnabled = adviceTableEnabled;
+		this.adviceEvaluator = adviceEvaluator;
+	}
+
+	@PostConstruct
+	public void initialize() throws IOException, ParserException, NodeNotFoundException, InvalidStateException,
+			NotEvaluableNetworkException, UnexpectedInferenceException {
+		model = load();
+		logger.info("Loaded model {} (parse {} ms, compile {} ms, advice table {} ms)", modelFilePath,
+				model.getParseTimeMillis(), model.getCompileTimeMillis(), model.getAdviceTableTimeMillis());
+	}
+
+	@Scheduled(fixedDelayString = "${aid-hf.model-reload-interval:10000}",
+			initialDelayString = "${aid-hf.model-reload-interval:10000}")
+	public void reloadIfModified() {
+		long lastModified = new File(modelFilePath).lastModified();
+		if (lastModified == 0L || lastModified == model.getLastModified()) {
+			return;
+		}
+		try {
+			model = load();
+			reloadCount.incrementAndGet();
+			logger.info("Reloaded model {} (parse {} ms, compile {} ms, advice table {} ms)", modelFilePath,
+					model.getParseTimeMillis(), model.getCompileTimeMillis(), model.getAdviceTableTimeMillis());
+		} catch (IOException | ParserException | NodeNotFoundException | InvalidStateException |
+				NotEvaluableNetworkException | UnexpectedInferenceException e) {
+			failedReloadCount.incrementAndGet();
+			logger.error("Failed to reload model {}, keeping the previous one", modelFilePath, e);
+		}
+	}
+
+	public CompiledModel getModel() {
+		return model;
+	}
+
+	public ModelMetrics getMetrics() {
+		CompiledModel current = model;
+		return new ModelMetrics(modelFilePath, current.getLoadedAt(), current.getParseTimeMillis(),
+				current.getCompileTimeMillis(), current.getAdviceTableTimeMillis(), reloadCount.get(),
+				failedReloadCount.get());
+	}
+
+	private CompiledModel load() throws IOException, ParserException, NodeNotFoundException, InvalidStateException,
+			NotEvaluableNetworkException, UnexpectedInferenceException {
+		File file = new File(modelFilePath);
+		long lastModified = file.lastModified();
+
+		long start = System.currentTimeMillis();
+		ProbNet probNet;
+		try (InputStream stream = new FileInputStream(file)) {
+			probNet = new PGMXReader_0_2().loadProbNet("AID-HF", stream);
+		}
+		long parsed = System.currentTimeMillis();
+
+		// Checks the network type and the constraints required by variable elimination
+		new VEEvaluation(probNet);
+
+		Variable orthopnea = probNet.getVariable("Orthopnea");
+		Variable cough = probNet.getVariable("Cough");
+		Variable edema = probNet.getVariable("Edema");
+		Variable dizziness = probNet.getVariable("Dizziness");
+		Variable syncope = probNet.getVariable("Syncope");
+
+		GradeEnum[] grades = GradeEnum.values();
+		int[] gradeStates = new int[grades.length];
+		for (GradeEnum grade : grades) {
+			// All graded symptoms must share the same states
+			gradeStates[grade.ordinal()] = orthopnea.getStateIndex(grade.value);
+			for (Variable variable : new Variable[] { cough, edema, dizziness }) {
+				if (variable.getStateIndex(grade.value) != gradeStates[grade.ordinal()]) {
+					throw new InvalidStateException(
+							"State " + grade.value + " of " + variable.getName() + " does not match Orthopnea");
+				}
+			}
+		}
+		SyncopeEnum[] syncopeValues = SyncopeEnum.values();
+		int[] syncopeStates = new int[syncopeValues.length];
+		for (SyncopeEnum value : syncopeValues) {
+			syncopeStates[value.ordinal()] = syncope.getStateIndex(value.value);
+		}
+		long compiled = System.currentTimeMillis();
+
+		CompiledModel compiledModel = new CompiledModel(probNet, orthopnea, cough, edema, dizziness, syncope,
+				gradeStates, syncopeStates, lastModified, parsed - start, compiled - parsed);
+		if (!adviceTableEnabled) {
+			return compiledModel;
+		}
+		AdviceTable adviceTable = buildAdviceTable(compiledModel);
+		return compiledModel.withAdviceTable(adviceTable, System.currentTimeMillis() - compiled);
+	}
+
+	private AdviceTable buildAdviceTable(CompiledModel compiledModel) throws UnexpectedInferenceException {
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			List<Future<String>> futures = new ArrayList<>(AdviceTable.SIZE);
+			for (int i = 0; i < AdviceTable.SIZE; i++) {
+				final int index = i;
+				futures.add(executor.submit(() -> adviceEvaluator.evaluate(compiledModel, AdviceTable.input(index))));
+			}
+			String[] advices = new String[AdviceTable.SIZE];
+			for (int i = 0; i < AdviceTable.SIZE; i++) {
+				advices[i] = futures.get(i).get();
+			}
+			return new AdviceTable(advices);
+		} catch (ExecutionException e) {
+			throw new UnexpectedInferenceException("Failed to build the advice table", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnexpectedInferenceException("Interrupted while building the advice table", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -237,8 +237,9 @@ import java.util.*;
         List<TablePotential> utilityChildrenPotentials = new ArrayList<>();
         try {
             for (Node child : oldUtilityChildren) {
-                // Change the variable of the component potentials to the merged variable
-                TablePotential componentPotential = child.getPotentials().get(0).getCPT();
+                // Change the variable of a copy of the component potentials to the merged variable, because
+                // getCPT may return the potential stored in the child, which is still in the network
+                TablePotential componentPotential = new TablePotential(child.getPotentials().get(0).getCPT());
                 componentPotential.replaceVariable(componentPotential.getVariable(0), mergedVariable);
                 // Add the potential to the list to be summed
                 utilityChildrenPotentials.add(componentPotential);
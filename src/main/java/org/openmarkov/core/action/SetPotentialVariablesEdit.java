@@ -10,6 +10,7 @@ package org.openmarkov.core.action;
 import org.openmarkov.core.exception.DoEditException;
 import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.Potential;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,10 +29,23 @@ import java.util.List;
 	}
 
 	@Override public void doEdit() throws DoEditException {
-		node.getPotentials().get(0).setVariables(newVariables);
+		setVariables(newVariables);
 	}
 
 	public void undoEdit() throws DoEditException {
-		node.getPotentials().get(0).setVariables(oldVariables);
+		setVariables(oldVariables);
+	}
+
+	/**
+	 * Sets the variables of the first potential of the node. The potentials are removed from the node and added
+	 * again so that the network updates the potentials of each variable.
+	 *
+	 * @param variables new variables of the potential
+	 */
+	private void setVariables(List<Variable> variables) {
+		List<Potential> potentials = node.getPotentials();
+		node.setPotentials(null);
+		potentials.get(0).setVariables(variables);
+		node.setPotentials(potentials);
 	}
 }
\ No newline at end of file
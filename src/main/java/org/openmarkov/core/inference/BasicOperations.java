@@ -50,7 +50,7 @@ public class BasicOperations {
 		
 		List<TablePotential> tablePotentials = new ArrayList<>();
 		List<Variable> parentVariable = new ArrayList<>();
-		for (Node parent:node.getParents()) {
+		for (Node parent:node.getParentsView()) {
 			TablePotential auxTablePot = null;
 			try {
 				auxTablePot = parent.getPotentials().get(0).tableProject(evidence, null).get(0);
@@ -123,7 +123,7 @@ public class BasicOperations {
 	}
 
 	private static boolean hasNumericChildren(ProbNet network, Variable v) {
-		List<Node> children = network.getChildren(network.getNode(v));
+		List<Node> children = network.getChildrenView(network.getNode(v));
 		return children.stream().anyMatch(x -> isNumeric(x.getVariable()));
 	}
 
@@ -183,7 +183,7 @@ public class BasicOperations {
 	 * @return true iff the node has parents and are all observable
 	 */
 	public static boolean haveParentsAndAreAllAbsorbable(Node node) {
-		return !node.getParents().isEmpty() && areAllItsParentsAbsorbable(node);
+		return node.getNumParents() > 0 && areAllItsParentsAbsorbable(node);
 	}
 
 	
@@ -257,7 +257,7 @@ public class BasicOperations {
 			removed = (isSumSuperValueNode(sourceProbNet, auxVar));
 			if (removed) {
 				nodesToKeep.remove(auxVar);
-				List<Node> parentNodes = sourceProbNet.getParents(sourceProbNet.getNode(auxVar));
+				List<Node> parentNodes = sourceProbNet.getParentsView(sourceProbNet.getNode(auxVar));
 				nodesToKeep.addAll(ProbNet.getVariables(parentNodes));
 			}
 		}
@@ -278,13 +278,13 @@ public class BasicOperations {
 
 		if (areAbsorbable) {
 			// Verify condition 2)
-			List<Node> parents = node.getParents();
+			List<Node> parents = node.getParentsView();
 			areAbsorbable = areAllVariablesOfType(parents, VariableType.NUMERIC);
 
 			if (areAbsorbable) {
 				// Verify condition 3)
 				Set<Node> grandParents = new HashSet<>();
-				parents.forEach(x -> grandParents.addAll(x.getParents()));
+				parents.forEach(x -> grandParents.addAll(x.getParentsView()));
 				List<Node> grandParentsList = new ArrayList<>();
 				grandParentsList.addAll(grandParents);
 				areAbsorbable = areAllVariablesOfType(grandParentsList, VariableType.FINITE_STATES);
@@ -364,7 +364,7 @@ public class BasicOperations {
 			List<Node> parentDecisionNodes = new ArrayList<>();
 			List<Node> parentsCandidates;
 			if (probNet.getNetworkType() != DecisionAnalysisNetworkType.getUniqueInstance()) {
-				parentsCandidates = probNet.getParents(decisionNode);
+				parentsCandidates = probNet.getParentsView(decisionNode);
 			} else {
 				parentsCandidates = (i == 0) ? ProbNetOperations.getAlwaysObservedVariables(probNet)
 						: getVariablesRevealedTransitivelyByVariable(decisionsList.get(i - 1), probNet);
@@ -408,7 +408,7 @@ public class BasicOperations {
 	private static List<Node> getVariablesRevealedTransitivelyByVariable(Variable variable, ProbNet probNet) {
 		Node variableNode = probNet.getNode(variable);
 		List<Node> revealed = new ArrayList<>();
-		List<Node> children = probNet.getChildren(variableNode);
+		List<Node> children = probNet.getChildrenView(variableNode);
 		for (Node child : children) {
 			Link<Node> link = probNet.getLink(variableNode, child, true);
 			if (link.getRevealingStates().toArray().length == variable.getStates().length) {
@@ -674,7 +674,7 @@ public class BasicOperations {
 			Node decisionNode = probNet.getNode(decision);
 			// Get nodes of the decision parents
 			List<Node> parentDecisionNodes = new ArrayList<>();
-			for (Node parent : probNet.getParents(decisionNode)) {
+			for (Node parent : probNet.getParentsView(decisionNode)) {
 				if (parent.getNodeType() != NodeType.DECISION) {
 					if (chanceVariables.contains(parent.getVariable())) {
 						parentDecisionNodes.add(parent);
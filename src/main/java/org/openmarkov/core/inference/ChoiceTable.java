@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference;
+
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The optimal states of a decision for each configuration of other variables, as computed when the decision is
+ * maximized out. The first optimal state of each configuration is stored in an array of {@code int} and the other
+ * optimal states, in case of draw, in a {@code BitSet} that is only created when there are draws. The
+ * {@link Choice}s and the policy are created when they are requested.
+ * <p>
+ * The configurations are numbered as the positions of a {@code TablePotential} of {@code variables}.
+ */
+public class ChoiceTable {
+
+	// Attributes
+	private final Variable variable;
+
+	private final List<Variable> variables;
+
+	private final int numStates;
+
+	/**
+	 * First optimal state of each configuration or -1 if the configuration has no optimal state
+	 */
+	private final int[] optimalStates;
+
+	/**
+	 * Bit {@code configuration * numStates + state} is set when {@code state} is optimal in {@code configuration}
+	 * and it is not the first optimal state. {@code null} when there are no draws.
+	 */
+	private BitSet draws;
+
+	// Constructor
+
+	/**
+	 * Creates a table without optimal states.
+	 *
+	 * @param variable  decision variable
+	 * @param variables variables of the configurations
+	 */
+	public ChoiceTable(Variable variable, List<Variable> variables) {
+		this.variable = variable;
+		this.variables = new ArrayList<>(variables);
+		this.numStates = variable.getNumStates();
+		this.optimalStates = new int[TablePotential.computeTableSize(variables)];
+		Arrays.fill(optimalStates, -1);
+	}
+
+	// Methods
+
+	/**
+	 * Makes {@code state} the only optimal state of {@code configuration}.
+	 *
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @param state         index of a state of the variable
+	 */
+	public void setOptimalState(int configuration, int state) {
+		optimalStates[configuration] = state;
+		if (draws != null) {
+			draws.clear(configuration * numStates, (configuration + 1) * numStates);
+		}
+	}
+
+	/**
+	 * Adds an optimal state to {@code configuration}; it is the first one if the configuration has none.
+	 *
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @param state         index of a state of the variable, greater than the optimal states already added
+	 */
+	public void addOptimalState(int configuration, int state) {
+		if (optimalStates[configuration] == -1) {
+			optimalStates[configuration] = state;
+		} else {
+			if (draws == null) {
+				draws = new BitSet(optimalStates.length * numStates);
+			}
+			draws.set(configuration * numStates + state);
+		}
+	}
+
+	/**
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @return The first optimal state of {@code configuration} or -1 if it has none
+	 */
+	public int getOptimalState(int configuration) {
+		return optimalStates[configuration];
+	}
+
+	/**
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @return The optimal states of {@code configuration} in increasing order
+	 */
+	public int[] getOptimalStates(int configuration) {
+		int[] states = new int[getNumOptimalStates(configuration)];
+		if (states.length > 0) {
+			states[0] = optimalStates[configuration];
+			int firstBit = configuration * numStates;
+			int bit = firstBit;
+			for (int i = 1; i < states.length; i++) {
+				bit = draws.nextSetBit(bit + 1);
+				states[i] = bit - firstBit;
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @param state         index of a state of the variable
+	 * @return {@code true} if {@code state} is optimal in {@code configuration}
+	 */
+	public boolean isOptimal(int configuration, int state) {
+		return optimalStates[configuration] == state || (draws != null && draws
+				.get(configuration * numStates + state));
+	}
+
+	/**
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @return Number of optimal states of {@code configuration}
+	 */
+	public int getNumOptimalStates(int configuration) {
+		if (optimalStates[configuration] == -1) {
+			return 0;
+		}
+		int numOptimalStates = 1;
+		if (draws != null) {
+			int lastBit = (configuration + 1) * numStates;
+			for (int bit = draws.nextSetBit(configuration * numStates);
+				 bit >= 0 && bit < lastBit; bit = draws.nextSetBit(bit + 1)) {
+				numOptimalStates++;
+			}
+		}
+		return numOptimalStates;
+	}
+
+	/**
+	 * @return {@code true} if some configuration has more than one optimal state
+	 */
+	public boolean hasDraws() {
+		return draws != null && !draws.isEmpty();
+	}
+
+	/**
+	 * @return Number of configurations
+	 */
+	public int getNumConfigurations() {
+		return optimalStates.length;
+	}
+
+	/**
+	 * @return The decision variable
+	 */
+	public Variable getVariable() {
+		return variable;
+	}
+
+	/**
+	 * @return The variables of the configurations
+	 */
+	public List<Variable> getVariables() {
+		return new ArrayList<>(variables);
+	}
+
+	/**
+	 * @param configuration position in a {@code TablePotential} of the variables
+	 * @return A new {@code Choice} with the optimal states of {@code configuration}
+	 */
+	public Choice getChoice(int configuration) {
+		return new Choice(variable, getOptimalStates(configuration));
+	}
+
+	/**
+	 * @param role role of the potential
+	 * @return A {@code GTablePotential} of the variables with the {@code Choice} of each configuration
+	 */
+	public GTablePotential<Choice> getChoicePotential(PotentialRole role) {
+		GTablePotential<Choice> choicePotential = new GTablePotential<>(variables, role);
+		// The constructor of GTablePotential does not keep the role
+		choicePotential.setPotentialRole(role);
+		for (int configuration = 0; configuration < optimalStates.length; configuration++) {
+			choicePotential.elementTable.add(getChoice(configuration));
+		}
+		return choicePotential;
+	}
+
+	/**
+	 * @return A policy whose variables are the decision followed by the variables of the configurations, that
+	 * distributes the probability uniformly among the optimal states of each configuration
+	 */
+	public TablePotential getPolicy() {
+		List<Variable> policyVariables = new ArrayList<>(variables.size() + 1);
+		policyVariables.add(variable);
+		policyVariables.addAll(variables);
+		double[] policyValues = new double[TablePotential.computeTableSize(policyVariables)];
+		for (int configuration = 0; configuration < optimalStates.length; configuration++) {
+			int numOptimalStates = getNumOptimalStates(configuration);
+			if (numOptimalStates == 1) {
+				policyValues[configuration * numStates + optimalStates[configuration]] = 1.0;
+			} else if (numOptimalStates > 1) {
+				double probForOptimalStates = 1.0 / numOptimalStates;
+				for (int state : getOptimalStates(configuration)) {
+					policyValues[configuration * numStates + state] = probForOptimalStates;
+				}
+			}
+		}
+		return new TablePotential(policyVariables, PotentialRole.POLICY, policyValues);
+	}
+}
@@ -9,6 +9,7 @@ package org.openmarkov.core.inference;
 
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.GTablePotential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.TablePotential;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
 
@@ -54,22 +55,40 @@ public class Strategy {
 
 		GTablePotential potential;
 
-		@SuppressWarnings("unchecked") public Policy(Variable dec, TablePotential utilities) {
+		ChoiceTable choices;
+
+		/**
+		 * Role of the potential of {@code Choice}, the same as that of the maximized utilities
+		 */
+		PotentialRole role;
+
+		public Policy(Variable dec, TablePotential utilities) {
 			this();
-			potential = (GTablePotential) DiscretePotentialOperations.maximize(utilities, dec)[1];
+			Object[] maximized = DiscretePotentialOperations.maximize(utilities, dec);
+			role = ((TablePotential) maximized[0]).getPotentialRole();
+			choices = (ChoiceTable) maximized[1];
 		}
 
 		public Policy() {
 			// TODO Auto-generated constructor stub
 		}
 
+		/**
+		 * @return A {@code GTablePotential} of {@code Choice}, created the first time it is requested
+		 */
 		public GTablePotential getPotential() {
-
+			if (potential == null && choices != null) {
+				potential = choices.getChoicePotential(role);
+			}
 			return potential;
 		}
 
+		public ChoiceTable getChoices() {
+			return choices;
+		}
+
 		public List<Variable> getDomain() {
-			return potential.getVariables();
+			return choices != null ? choices.getVariables() : potential.getVariables();
 		}
 
 	}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.heuristic;
+
+import java.util.BitSet;
+
+/**
+ * Greedy criteria to choose the next variable to eliminate in an {@link EliminationGraph}: the variable with the
+ * lowest score is eliminated first.
+ */
+public enum EliminationCriterion {
+
+	/**
+	 * Number of neighbours of the variable
+	 */
+	MIN_NEIGHBOURS(false) {
+		@Override double getScore(EliminationGraph graph, int node) {
+			return graph.getNeighbours(node).cardinality();
+		}
+	},
+
+	/**
+	 * Number of configurations of the variable and its neighbours, i.e. the size of the table created by its
+	 * elimination
+	 */
+	MIN_WEIGHT(false) {
+		@Override double getScore(EliminationGraph graph, int node) {
+			return graph.getFamilyWeight(node);
+		}
+	},
+
+	/**
+	 * Number of links that its elimination adds between its neighbours
+	 */
+	MIN_FILL(true) {
+		@Override double getScore(EliminationGraph graph, int node) {
+			BitSet neighbours = graph.getNeighbours(node);
+			int fill = 0;
+			for (int i = neighbours.nextSetBit(0); i >= 0; i = neighbours.nextSetBit(i + 1)) {
+				BitSet missing = (BitSet) neighbours.clone();
+				missing.andNot(graph.getNeighbours(i));
+				missing.clear(0, i + 1);
+				fill += missing.cardinality();
+			}
+			return fill;
+		}
+	},
+
+	/**
+	 * Sum, for the links that its elimination adds, of the product of the number of states of their nodes
+	 */
+	WEIGHTED_MIN_FILL(true) {
+		@Override double getScore(EliminationGraph graph, int node) {
+			BitSet neighbours = graph.getNeighbours(node);
+			double fill = 0;
+			for (int i = neighbours.nextSetBit(0); i >= 0; i = neighbours.nextSetBit(i + 1)) {
+				BitSet missing = (BitSet) neighbours.clone();
+				missing.andNot(graph.getNeighbours(i));
+				missing.clear(0, i + 1);
+				for (int j = missing.nextSetBit(0); j >= 0; j = missing.nextSetBit(j + 1)) {
+					fill += (double) graph.getNumStates(i) * graph.getNumStates(j);
+				}
+			}
+			return fill;
+		}
+	};
+
+	private final boolean dependsOnSecondNeighbours;
+
+	EliminationCriterion(boolean dependsOnSecondNeighbours) {
+		this.dependsOnSecondNeighbours = dependsOnSecondNeighbours;
+	}
+
+	/**
+	 * @param graph elimination graph
+	 * @param node  index of a node not eliminated yet
+	 * @return The score of {@code node}; lower is better
+	 */
+	abstract double getScore(EliminationGraph graph, int node);
+
+	/**
+	 * @return True if the score of a node depends on the links between its neighbours, so that it must be updated
+	 * when a neighbour of a neighbour is eliminated
+	 */
+	boolean dependsOnSecondNeighbours() {
+		return dependsOnSecondNeighbours;
+	}
+}
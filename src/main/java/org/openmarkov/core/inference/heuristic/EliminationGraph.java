@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.heuristic;
+
+import org.openmarkov.core.model.graph.FrozenGraph;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Model of the undirected graph of a network in which variables are eliminated: eliminating a variable links all
+ * its neighbours and removes it. The variables to eliminate are kept in a priority queue for each set of the partial
+ * order, ordered by an {@link EliminationCriterion}; after each elimination only the scores of the nodes whose
+ * neighbourhood has changed are updated. Entries whose score is outdated are discarded when they reach the head of
+ * the queue.
+ */
+public class EliminationGraph {
+
+	// Attributes
+	private final EliminationCriterion criterion;
+
+	private final List<Variable> variables;
+
+	private final Map<Variable, Integer> indices;
+
+	private final int[] numStates;
+
+	private final BitSet[] neighbours;
+
+	private final BitSet eliminated;
+
+	/**
+	 * Index of the set of the partial order of each node, -1 for the nodes that are not eliminated
+	 */
+	private final int[] levels;
+
+	/**
+	 * Number of nodes not eliminated yet in each set of the partial order
+	 */
+	private final int[] remaining;
+
+	/**
+	 * Sets are eliminated from the last one to the first one
+	 */
+	private int currentLevel;
+
+	private final List<PriorityQueue<Entry>> queues;
+
+	/**
+	 * Version of the score of each node, to discard outdated entries of the queues
+	 */
+	private final int[] versions;
+
+	// Constructors
+
+	/**
+	 * @param probNet              network whose links define the graph
+	 * @param variablesToEliminate partial order of the variables to eliminate; the last set is eliminated first
+	 * @param criterion            criterion to choose the next variable
+	 */
+	public EliminationGraph(ProbNet probNet, List<List<Variable>> variablesToEliminate,
+			EliminationCriterion criterion) {
+		this.criterion = criterion;
+		FrozenGraph<Node> graph = probNet.freeze();
+		List<Node> nodes = graph.getNodes();
+		int numNodes = nodes.size();
+		variables = new ArrayList<>(numNodes);
+		indices = new HashMap<>();
+		numStates = new int[numNodes];
+		for (Node node : nodes) {
+			indices.put(node.getVariable(), variables.size());
+			numStates[variables.size()] = node.getVariable().getNumStates();
+			variables.add(node.getVariable());
+		}
+		neighbours = new BitSet[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			neighbours[i] = new BitSet(numNodes);
+			for (int j = 0; j < graph.getNumNeighbors(i); j++) {
+				neighbours[i].set(graph.getNeighbor(i, j));
+			}
+			neighbours[i].clear(i);
+		}
+		eliminated = new BitSet(numNodes);
+
+		levels = new int[numNodes];
+		Arrays.fill(levels, -1);
+		int numLevels = variablesToEliminate.size();
+		remaining = new int[numLevels];
+		queues = new ArrayList<>(numLevels);
+		versions = new int[numNodes];
+		for (int level = 0; level < numLevels; level++) {
+			queues.add(new PriorityQueue<>());
+			for (Variable variable : variablesToEliminate.get(level)) {
+				Integer index = indices.get(variable);
+				if (index != null && levels[index] == -1) {
+					levels[index] = level;
+					remaining[level]++;
+					updateScore(index);
+				}
+			}
+		}
+		currentLevel = numLevels - 1;
+		updateCurrentLevel();
+	}
+
+	/**
+	 * Copy constructor, used to simulate eliminations without modifying {@code graph}
+	 *
+	 * @param graph elimination graph
+	 */
+	public EliminationGraph(EliminationGraph graph) {
+		criterion = graph.criterion;
+		variables = graph.variables;
+		indices = graph.indices;
+		numStates = graph.numStates;
+		neighbours = new BitSet[graph.neighbours.length];
+		for (int i = 0; i < neighbours.length; i++) {
+			neighbours[i] = (BitSet) graph.neighbours[i].clone();
+		}
+		eliminated = (BitSet) graph.eliminated.clone();
+		levels = graph.levels;
+		remaining = graph.remaining.clone();
+		currentLevel = graph.currentLevel;
+		queues = new ArrayList<>(graph.queues.size());
+		for (PriorityQueue<Entry> queue : graph.queues) {
+			queues.add(new PriorityQueue<>(queue));
+		}
+		versions = graph.versions.clone();
+	}
+
+	// Methods
+
+	/**
+	 * @return The index of the node with the lowest score in the set of the partial order being eliminated, or -1
+	 * if all the variables have been eliminated
+	 */
+	public int getNextNode() {
+		if (currentLevel < 0) {
+			return -1;
+		}
+		PriorityQueue<Entry> queue = queues.get(currentLevel);
+		Entry head = queue.peek();
+		while (head != null && isOutdated(head)) {
+			queue.poll();
+			head = queue.peek();
+		}
+		return head == null ? -1 : head.node;
+	}
+
+	/**
+	 * @param maxNodes maximum number of nodes returned
+	 * @return The indices of the nodes with the lowest scores in the set of the partial order being eliminated,
+	 * from the best one
+	 */
+	public List<Integer> getBestNodes(int maxNodes) {
+		List<Integer> bestNodes = new ArrayList<>(maxNodes);
+		if (currentLevel < 0) {
+			return bestNodes;
+		}
+		PriorityQueue<Entry> queue = queues.get(currentLevel);
+		List<Entry> polled = new ArrayList<>(maxNodes);
+		while (bestNodes.size() < maxNodes && !queue.isEmpty()) {
+			Entry entry = queue.poll();
+			if (!isOutdated(entry)) {
+				bestNodes.add(entry.node);
+				polled.add(entry);
+			}
+		}
+		queue.addAll(polled);
+		return bestNodes;
+	}
+
+	/**
+	 * Links the neighbours of {@code node}, removes it and updates the scores of the affected nodes.
+	 *
+	 * @param node index of a node not eliminated yet
+	 * @return The number of configurations of the node and its neighbours before the elimination
+	 */
+	public double eliminate(int node) {
+		double familyWeight = getFamilyWeight(node);
+		BitSet nodeNeighbours = neighbours[node];
+		for (int i = nodeNeighbours.nextSetBit(0); i >= 0; i = nodeNeighbours.nextSetBit(i + 1)) {
+			neighbours[i].or(nodeNeighbours);
+			neighbours[i].clear(i);
+			neighbours[i].clear(node);
+		}
+		eliminated.set(node);
+		neighbours[node] = new BitSet();
+		if (levels[node] != -1) {
+			remaining[levels[node]]--;
+			versions[node]++;
+			updateCurrentLevel();
+		}
+
+		BitSet affected = (BitSet) nodeNeighbours.clone();
+		if (criterion.dependsOnSecondNeighbours()) {
+			for (int i = nodeNeighbours.nextSetBit(0); i >= 0; i = nodeNeighbours.nextSetBit(i + 1)) {
+				affected.or(neighbours[i]);
+			}
+		}
+		for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+			if (levels[i] != -1 && !eliminated.get(i)) {
+				updateScore(i);
+			}
+		}
+		return familyWeight;
+	}
+
+	/**
+	 * @param variable variable
+	 * @return The index of {@code variable}, or -1 if it is not in the graph
+	 */
+	public int getIndex(Variable variable) {
+		Integer index = indices.get(variable);
+		return index == null ? -1 : index;
+	}
+
+	public Variable getVariable(int node) {
+		return variables.get(node);
+	}
+
+	public boolean isEliminated(int node) {
+		return eliminated.get(node);
+	}
+
+	/**
+	 * @return The neighbours of {@code node}. The set must not be modified.
+	 */
+	BitSet getNeighbours(int node) {
+		return neighbours[node];
+	}
+
+	int getNumStates(int node) {
+		return numStates[node];
+	}
+
+	/**
+	 * @return The number of configurations of {@code node} and its neighbours
+	 */
+	public double getFamilyWeight(int node) {
+		double weight = numStates[node];
+		BitSet nodeNeighbours = neighbours[node];
+		for (int i = nodeNeighbours.nextSetBit(0); i >= 0; i = nodeNeighbours.nextSetBit(i + 1)) {
+			weight *= numStates[i];
+		}
+		return weight;
+	}
+
+	private void updateScore(int node) {
+		versions[node]++;
+		queues.get(levels[node]).add(new Entry(node, versions[node], criterion.getScore(this, node),
+				getFamilyWeight(node)));
+	}
+
+	private void updateCurrentLevel() {
+		while (currentLevel >= 0 && remaining[currentLevel] == 0) {
+			currentLevel--;
+		}
+	}
+
+	private boolean isOutdated(Entry entry) {
+		return eliminated.get(entry.node) || entry.version != versions[entry.node];
+	}
+
+	/**
+	 * Score of a node when it was added to the queue. Ties are broken by the size of the family and then by the
+	 * order of the nodes in the network.
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		private final int node;
+
+		private final int version;
+
+		private final double score;
+
+		private final double familyWeight;
+
+		private Entry(int node, int version, double score, double familyWeight) {
+			this.node = node;
+			this.version = version;
+			this.score = score;
+			this.familyWeight = familyWeight;
+		}
+
+		@Override public int compareTo(Entry other) {
+			int comparison = Double.compare(score, other.score);
+			if (comparison == 0) {
+				comparison = Double.compare(familyWeight, other.familyWeight);
+			}
+			return comparison != 0 ? comparison : Integer.compare(node, other.node);
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.heuristic;
+
+import org.openmarkov.core.exception.ConstraintViolationException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import javax.swing.event.UndoableEditEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the elimination orders computed by the heuristics. The order depends only on the structure of the network
+ * and on the variables to eliminate, which are determined by the evidence and the conditioning variables, so the
+ * key is a hash of the structure of the network plus the names of those variables and the
+ * {@link HeuristicFactory#getCacheKey() key} of the heuristic factory. The orders of the factories without a key are
+ * not cached.
+ * <p>
+ * On a hit the variables are eliminated in the cached order, by a {@link FixedOrderElimination}, without running the
+ * heuristic. On a miss the heuristic of the factory is used and the order it produces is stored when the elimination
+ * finishes. The least recently used orders are evicted when the cache is full.
+ */
+public class EliminationOrderCache {
+
+	// Attributes
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final EliminationOrderCache sharedInstance = new EliminationOrderCache(DEFAULT_CAPACITY);
+
+	private final int capacity;
+
+	private final Map<Key, List<String>> orders;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	// Constructor
+
+	/**
+	 * @param capacity maximum number of orders stored
+	 */
+	public EliminationOrderCache(final int capacity) {
+		this.capacity = capacity;
+		orders = new LinkedHashMap<Key, List<String>>(16, 0.75f, true) {
+			@Override protected boolean removeEldestEntry(Map.Entry<Key, List<String>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	// Methods
+
+	/**
+	 * @return The cache used by default by the variable elimination algorithms
+	 */
+	public static EliminationOrderCache getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * @param heuristicFactory      factory used when the order is not in the cache
+	 * @param probNet               network received by the heuristic
+	 * @param variablesToEliminate  partial order of the variables to eliminate
+	 * @param evidenceVariables     observed variables
+	 * @param conditioningVariables conditioning variables, may be null
+	 * @return A heuristic that follows the cached order, or the heuristic of the factory, whose order will be cached
+	 * if the factory has a cache key
+	 */
+	public EliminationHeuristic getHeuristic(HeuristicFactory heuristicFactory, ProbNet probNet,
+			List<List<Variable>> variablesToEliminate, Collection<Variable> evidenceVariables,
+			Collection<Variable> conditioningVariables) {
+		String factoryKey = heuristicFactory.getCacheKey();
+		if (factoryKey == null) {
+			return heuristicFactory.getHeuristic(probNet, variablesToEliminate);
+		}
+		Key key = new Key(factoryKey, getStructuralHash(probNet), variablesToEliminate, evidenceVariables,
+				conditioningVariables);
+		List<String> names;
+		synchronized (orders) {
+			names = orders.get(key);
+		}
+		if (names != null) {
+			List<Variable> order = getVariables(probNet, names);
+			if (order != null) {
+				hits.incrementAndGet();
+				return new FixedOrderElimination(probNet, variablesToEliminate, order);
+			}
+			synchronized (orders) {
+				orders.remove(key);
+			}
+		}
+		misses.incrementAndGet();
+		return new RecordingHeuristic(this, key, probNet, variablesToEliminate,
+				heuristicFactory.getHeuristic(probNet, variablesToEliminate));
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int size() {
+		synchronized (orders) {
+			return orders.size();
+		}
+	}
+
+	/**
+	 * Removes all the orders and resets the counters
+	 */
+	public void clear() {
+		synchronized (orders) {
+			orders.clear();
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/**
+	 * @param probNet network
+	 * @return A hash of the names, types and number of states of the nodes and of the links of {@code probNet}
+	 */
+	public static long getStructuralHash(ProbNet probNet) {
+		long hash = 1125899906842597L;
+		for (Node node : probNet.getNodes()) {
+			Variable variable = node.getVariable();
+			hash = mix(hash, variable.getName().hashCode());
+			hash = mix(hash, node.getNodeType().ordinal());
+			hash = mix(hash, variable.getNumStates());
+			for (Node parent : probNet.getParentsView(node)) {
+				hash = mix(hash, 1 + parent.getVariable().getName().hashCode());
+			}
+			for (Node sibling : probNet.getSiblingsView(node)) {
+				hash = mix(hash, 2 + sibling.getVariable().getName().hashCode());
+			}
+			hash = mix(hash, -1);
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, int value) {
+		hash ^= value;
+		hash *= 0x100000001b3L;
+		return hash ^ (hash >>> 29);
+	}
+
+	/**
+	 * @return The variables of {@code probNet} with the given names, or null if any of them is not in the network
+	 */
+	private static List<Variable> getVariables(ProbNet probNet, List<String> names) {
+		List<Variable> variables = new ArrayList<>(names.size());
+		for (String name : names) {
+			try {
+				variables.add(probNet.getVariable(name));
+			} catch (NodeNotFoundException e) {
+				return null;
+			}
+		}
+		return variables;
+	}
+
+	private void put(Key key, List<String> order) {
+		synchronized (orders) {
+			orders.put(key, Collections.unmodifiableList(order));
+		}
+	}
+
+	private static TreeSet<String> getNames(Collection<Variable> variables) {
+		TreeSet<String> names = new TreeSet<>();
+		if (variables != null) {
+			for (Variable variable : variables) {
+				names.add(variable.getName());
+			}
+		}
+		return names;
+	}
+
+	private static class Key {
+
+		private final String heuristicFactory;
+
+		private final long structuralHash;
+
+		private final List<TreeSet<String>> variablesToEliminate;
+
+		private final TreeSet<String> evidenceVariables;
+
+		private final TreeSet<String> conditioningVariables;
+
+		private final int hashCode;
+
+		private Key(String heuristicFactory, long structuralHash, List<List<Variable>> variablesToEliminate,
+				Collection<Variable> evidenceVariables, Collection<Variable> conditioningVariables) {
+			this.heuristicFactory = heuristicFactory;
+			this.structuralHash = structuralHash;
+			this.variablesToEliminate = new ArrayList<>(variablesToEliminate.size());
+			for (List<Variable> variables : variablesToEliminate) {
+				this.variablesToEliminate.add(getNames(variables));
+			}
+			this.evidenceVariables = getNames(evidenceVariables);
+			this.conditioningVariables = getNames(conditioningVariables);
+			hashCode = Objects.hash(heuristicFactory, structuralHash, this.variablesToEliminate,
+					this.evidenceVariables, this.conditioningVariables);
+		}
+
+		@Override public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) object;
+			return structuralHash == key.structuralHash && heuristicFactory.equals(key.heuristicFactory)
+					&& variablesToEliminate.equals(key.variablesToEliminate)
+					&& evidenceVariables.equals(key.evidenceVariables)
+					&& conditioningVariables.equals(key.conditioningVariables);
+		}
+
+		@Override public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Delegates in the heuristic of the factory and records the variables it eliminates. The order is stored in the
+	 * cache when the heuristic has no more variables to propose.
+	 */
+	private static class RecordingHeuristic extends EliminationHeuristic {
+
+		private final EliminationOrderCache cache;
+
+		private final Key key;
+
+		private final EliminationHeuristic heuristic;
+
+		private final List<String> order = new ArrayList<>();
+
+		private Variable lastProposed;
+
+		private boolean stored;
+
+		private RecordingHeuristic(EliminationOrderCache cache, Key key, ProbNet probNet,
+				List<List<Variable>> variablesToEliminate, EliminationHeuristic heuristic) {
+			super(probNet, variablesToEliminate);
+			this.cache = cache;
+			this.key = key;
+			this.heuristic = heuristic;
+		}
+
+		@Override public Variable getVariableToDelete() {
+			lastProposed = heuristic.getVariableToDelete();
+			if (lastProposed == null && !stored) {
+				cache.put(key, order);
+				stored = true;
+			}
+			return lastProposed;
+		}
+
+		@Override public void undoableEditHappened(UndoableEditEvent event) {
+			super.undoableEditHappened(event);
+			Variable removedVariable = getEventVariable(event);
+			if (removedVariable != null && removedVariable == lastProposed) {
+				order.add(removedVariable.getName());
+				lastProposed = null;
+			}
+			heuristic.undoableEditHappened(event);
+		}
+
+		@Override public void undoableEditWillHappen(UndoableEditEvent event)
+				throws ConstraintViolationException, NonProjectablePotentialException, WrongCriterionException {
+			heuristic.undoableEditWillHappen(event);
+		}
+
+		@Override public void undoEditHappened(UndoableEditEvent event) {
+			heuristic.undoEditHappened(event);
+		}
+	}
+}
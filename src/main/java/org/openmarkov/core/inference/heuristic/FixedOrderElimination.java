@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.heuristic;
+
+import org.openmarkov.core.exception.ConstraintViolationException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import javax.swing.event.UndoableEditEvent;
+import java.util.List;
+
+/**
+ * Eliminates the variables in an order given in advance, for example an order computed by another heuristic for
+ * the same network and stored in an {@link EliminationOrderCache}. The variables of the order that are not to be
+ * eliminated are skipped, and if the order is not compatible with the partial order, the first variable of the set
+ * being eliminated is chosen instead.
+ */
+public class FixedOrderElimination extends EliminationHeuristic {
+
+	// Attributes
+	private final List<Variable> order;
+
+	/**
+	 * Position in {@code order} of the next variable to eliminate
+	 */
+	private int position;
+
+	// Constructor
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 * @param order                order of elimination of the variables
+	 */
+	public FixedOrderElimination(ProbNet probNet, List<List<Variable>> variablesToEliminate, List<Variable> order) {
+		super(probNet, variablesToEliminate);
+		this.order = order;
+	}
+
+	// Methods
+	@Override public Variable getVariableToDelete() {
+		while (position < order.size() && !isToEliminate(order.get(position))) {
+			position++;
+		}
+		if (variablesToEliminate.isEmpty()) {
+			return null;
+		}
+		List<Variable> currentVariables = variablesToEliminate.get(variablesToEliminate.size() - 1);
+		if (position < order.size() && currentVariables.contains(order.get(position))) {
+			return order.get(position);
+		}
+		return currentVariables.get(0);
+	}
+
+	private boolean isToEliminate(Variable variable) {
+		for (List<Variable> variables : variablesToEliminate) {
+			if (variables.contains(variable)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override public void undoableEditWillHappen(UndoableEditEvent event)
+			throws ConstraintViolationException, NonProjectablePotentialException, WrongCriterionException {
+	}
+
+	@Override public void undoEditHappened(UndoableEditEvent event) {
+	}
+
+	public List<Variable> getOrder() {
+		return order;
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.heuristic;
+
+import org.openmarkov.core.exception.ConstraintViolationException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import javax.swing.event.UndoableEditEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Greedy heuristic that keeps a model of the graph of the network in an {@link EliminationGraph} and chooses the
+ * variable with the lowest score of an {@link EliminationCriterion}. The model is updated when the edit that removes
+ * a variable is notified, so choosing a variable does not scan all the remaining nodes.
+ * <p>
+ * The elimination is simulated when the heuristic is created, so the size of the largest table that will be built
+ * is known before eliminating any variable.
+ */
+public class GraphEliminationHeuristic extends EliminationHeuristic {
+
+	// Attributes
+	protected final EliminationGraph graph;
+
+	/**
+	 * Order in which the variables will be eliminated
+	 */
+	private List<Variable> predictedOrder;
+
+	private double predictedMaxCliqueSize;
+
+	private double predictedTotalCliqueSize;
+
+	// Constructor
+
+	/**
+	 * @param probNet              network, usually a Markov network
+	 * @param variablesToEliminate partial order of the variables to eliminate
+	 * @param criterion            criterion to choose the next variable
+	 */
+	public GraphEliminationHeuristic(ProbNet probNet, List<List<Variable>> variablesToEliminate,
+			EliminationCriterion criterion) {
+		super(probNet, variablesToEliminate);
+		graph = new EliminationGraph(probNet, this.variablesToEliminate, criterion);
+
+		EliminationGraph simulation = new EliminationGraph(graph);
+		List<Variable> order = new ArrayList<>();
+		double maxCliqueSize = 0;
+		double totalCliqueSize = 0;
+		int node;
+		while ((node = simulation.getNextNode()) != -1) {
+			double cliqueSize = simulation.eliminate(node);
+			maxCliqueSize = Math.max(maxCliqueSize, cliqueSize);
+			totalCliqueSize += cliqueSize;
+			order.add(simulation.getVariable(node));
+		}
+		setPrediction(order, maxCliqueSize, totalCliqueSize);
+	}
+
+	// Methods
+	@Override public Variable getVariableToDelete() {
+		int node = graph.getNextNode();
+		return node == -1 ? null : graph.getVariable(node);
+	}
+
+	@Override public void undoableEditHappened(UndoableEditEvent event) {
+		super.undoableEditHappened(event);
+		Variable removedVariable = getEventVariable(event);
+		if (removedVariable != null) {
+			int node = graph.getIndex(removedVariable);
+			if (node != -1 && !graph.isEliminated(node)) {
+				graph.eliminate(node);
+			}
+		}
+	}
+
+	@Override public void undoableEditWillHappen(UndoableEditEvent event)
+			throws ConstraintViolationException, NonProjectablePotentialException, WrongCriterionException {
+	}
+
+	@Override public void undoEditHappened(UndoableEditEvent event) {
+	}
+
+	/**
+	 * @return The order in which the variables will be eliminated
+	 */
+	public List<Variable> getPredictedOrder() {
+		return predictedOrder;
+	}
+
+	/**
+	 * @return The number of configurations of the largest table that the elimination will create
+	 */
+	public double getPredictedMaxCliqueSize() {
+		return predictedMaxCliqueSize;
+	}
+
+	/**
+	 * @return The sum of the number of configurations of the tables that the elimination will create, which
+	 * approximates the number of operations
+	 */
+	public double getPredictedTotalCliqueSize() {
+		return predictedTotalCliqueSize;
+	}
+
+	/**
+	 * Used by the subclasses that do not follow the greedy order
+	 *
+	 * @param order           order in which the variables will be eliminated
+	 * @param maxCliqueSize   number of configurations of the largest table
+	 * @param totalCliqueSize sum of the number of configurations of the tables
+	 */
+	protected void setPrediction(List<Variable> order, double maxCliqueSize, double totalCliqueSize) {
+		predictedOrder = Collections.unmodifiableList(order);
+		predictedMaxCliqueSize = maxCliqueSize;
+		predictedTotalCliqueSize = totalCliqueSize;
+	}
+
+}
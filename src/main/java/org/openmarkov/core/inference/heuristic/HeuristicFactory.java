@@ -15,4 +15,12 @@ import java.util.List;
 public interface HeuristicFactory {
 
 	EliminationHeuristic getHeuristic(ProbNet probNet, List<List<Variable>> variables);
+
+	/**
+	 * @return The key of the orders of this factory in an {@link EliminationOrderCache}, which must identify its
+	 * configuration too, or null if its orders must not be cached
+	 */
+	default String getCacheKey() {
+		return null;
+	}
 }
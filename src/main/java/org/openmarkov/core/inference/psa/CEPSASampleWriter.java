@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.psa;
+
+import org.openmarkov.core.model.network.CEP;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes the cost and the effectiveness of each intervention in each simulation to a binary stream, so that the
+ * raw samples of a long analysis can be kept without keeping them in memory.
+ * <p>
+ * The stream is written with {@link DataOutputStream}: the int {@link #MAGIC_NUMBER}, the int number of
+ * interventions and then, for each simulation in order, the cost and the effectiveness of each intervention as
+ * doubles. As in {@link CEPSAStatistics}, the first interval of each element is used.
+ */
+public class CEPSASampleWriter implements PSAResultSink, Closeable {
+
+	// Attributes
+	/**
+	 * "PSA1" in ASCII
+	 */
+	public static final int MAGIC_NUMBER = 0x50534131;
+
+	private final DataOutputStream output;
+
+	private int numInterventions = -1;
+
+	// Constructor
+
+	/**
+	 * @param output stream where the samples are written. It is closed by {@link #close()}.
+	 */
+	public CEPSASampleWriter(OutputStream output) {
+		this.output = new DataOutputStream(new BufferedOutputStream(output));
+	}
+
+	// Methods
+	@Override public void addSimulation(int simulationIndex, GTablePotential<CEP> simulationResult) {
+		List<CEP> interventions = simulationResult.elementTable;
+		try {
+			if (numInterventions == -1) {
+				numInterventions = interventions.size();
+				output.writeInt(MAGIC_NUMBER);
+				output.writeInt(numInterventions);
+			} else if (interventions.size() != numInterventions) {
+				throw new IllegalArgumentException(
+						"Simulation " + simulationIndex + " has " + interventions.size() + " interventions instead of "
+								+ numInterventions);
+			}
+			for (CEP cep : interventions) {
+				output.writeDouble(cep.getCost(0));
+				output.writeDouble(cep.getEffectiveness(0));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override public void close() throws IOException {
+		output.close();
+	}
+
+}
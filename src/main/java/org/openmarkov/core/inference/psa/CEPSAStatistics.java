@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.psa;
+
+import org.openmarkov.core.model.network.CEP;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+
+import java.util.List;
+
+/**
+ * Statistics of a cost-effectiveness probabilistic sensitivity analysis computed incrementally, so that the memory
+ * used does not depend on the number of simulations.
+ * <p>
+ * The interventions are the elements of the potentials of the simulations, usually the states of the decision
+ * variable of the analysis. For each of them, the mean and the variance of the cost and the effectiveness are
+ * computed with Welford's algorithm; when an element has several intervals, because no decision variable has been
+ * set, the cost and the effectiveness of its first interval are used. For each willingness to pay (lambda) of a grid,
+ * the cost-effectiveness acceptability curve (CEAC) and the expected value of perfect information (EVPI) are computed
+ * from the net monetary benefit of each intervention.
+ */
+public class CEPSAStatistics implements PSAResultSink {
+
+	// Attributes
+	private final double[] lambdas;
+
+	private int numSimulations;
+
+	private int numInterventions = -1;
+
+	private double[] meanCosts;
+
+	private double[] sumSquaredCostDeviations;
+
+	private double[] meanEffectivities;
+
+	private double[] sumSquaredEffectivenessDeviations;
+
+	/**
+	 * For each lambda and intervention, number of simulations in which the intervention has the highest net benefit
+	 */
+	private int[][] numTimesOptimal;
+
+	/**
+	 * For each lambda and intervention, sum of the net monetary benefits
+	 */
+	private double[][] sumNetBenefits;
+
+	/**
+	 * For each lambda, sum of the highest net monetary benefits of the simulations
+	 */
+	private double[] sumMaxNetBenefits;
+
+	private double[] netBenefits;
+
+	// Constructors
+
+	/**
+	 * @param lambdas willingness to pay values at which the CEAC and the EVPI are computed
+	 */
+	public CEPSAStatistics(double[] lambdas) {
+		this.lambdas = lambdas.clone();
+	}
+
+	/**
+	 * @param minLambda  lowest willingness to pay
+	 * @param maxLambda  highest willingness to pay
+	 * @param numLambdas number of willingness to pay values, evenly spaced between {@code minLambda} and
+	 *                   {@code maxLambda}
+	 */
+	public CEPSAStatistics(double minLambda, double maxLambda, int numLambdas) {
+		this(getGrid(minLambda, maxLambda, numLambdas));
+	}
+
+	// Methods
+	private static double[] getGrid(double minLambda, double maxLambda, int numLambdas) {
+		if (numLambdas < 1) {
+			throw new IllegalArgumentException("The number of lambdas must be positive: " + numLambdas);
+		}
+		double[] lambdas = new double[numLambdas];
+		double step = numLambdas == 1 ? 0 : (maxLambda - minLambda) / (numLambdas - 1);
+		for (int i = 0; i < numLambdas; i++) {
+			lambdas[i] = minLambda + i * step;
+		}
+		return lambdas;
+	}
+
+	@Override public void addSimulation(int simulationIndex, GTablePotential<CEP> simulationResult) {
+		List<CEP> interventions = simulationResult.elementTable;
+		if (numInterventions == -1) {
+			initialize(interventions.size());
+		} else if (interventions.size() != numInterventions) {
+			throw new IllegalArgumentException(
+					"Simulation " + simulationIndex + " has " + interventions.size() + " interventions instead of "
+							+ numInterventions);
+		}
+		numSimulations++;
+		for (int i = 0; i < numInterventions; i++) {
+			CEP cep = interventions.get(i);
+			double cost = cep.getCost(0);
+			double costDeviation = cost - meanCosts[i];
+			meanCosts[i] += costDeviation / numSimulations;
+			sumSquaredCostDeviations[i] += costDeviation * (cost - meanCosts[i]);
+			double effectiveness = cep.getEffectiveness(0);
+			double effectivenessDeviation = effectiveness - meanEffectivities[i];
+			meanEffectivities[i] += effectivenessDeviation / numSimulations;
+			sumSquaredEffectivenessDeviations[i] += effectivenessDeviation * (effectiveness - meanEffectivities[i]);
+		}
+		for (int l = 0; l < lambdas.length; l++) {
+			int optimal = 0;
+			for (int i = 0; i < numInterventions; i++) {
+				netBenefits[i] = interventions.get(i).getNetMonetaryBenefit(lambdas[l]);
+				sumNetBenefits[l][i] += netBenefits[i];
+				if (netBenefits[i] > netBenefits[optimal]) {
+					optimal = i;
+				}
+			}
+			numTimesOptimal[l][optimal]++;
+			sumMaxNetBenefits[l] += netBenefits[optimal];
+		}
+	}
+
+	private void initialize(int numInterventions) {
+		this.numInterventions = numInterventions;
+		meanCosts = new double[numInterventions];
+		sumSquaredCostDeviations = new double[numInterventions];
+		meanEffectivities = new double[numInterventions];
+		sumSquaredEffectivenessDeviations = new double[numInterventions];
+		numTimesOptimal = new int[lambdas.length][numInterventions];
+		sumNetBenefits = new double[lambdas.length][numInterventions];
+		sumMaxNetBenefits = new double[lambdas.length];
+		netBenefits = new double[numInterventions];
+	}
+
+	public int getNumSimulations() {
+		return numSimulations;
+	}
+
+	/**
+	 * @return Number of interventions, or 0 if no simulation has been added
+	 */
+	public int getNumInterventions() {
+		return Math.max(numInterventions, 0);
+	}
+
+	public double[] getLambdas() {
+		return lambdas.clone();
+	}
+
+	/**
+	 * @param intervention index of the intervention in the potentials of the simulations
+	 * @return Mean cost of the intervention
+	 * @throws IllegalStateException if no simulation has been added
+	 */
+	public double getMeanCost(int intervention) {
+		checkSimulations();
+		return meanCosts[intervention];
+	}
+
+	/**
+	 * @param intervention index of the intervention in the potentials of the simulations
+	 * @return Sample variance of the cost of the intervention
+	 * @throws IllegalStateException if no simulation has been added
+	 */
+	public double getCostVariance(int intervention) {
+		checkSimulations();
+		return numSimulations > 1 ? sumSquaredCostDeviations[intervention] / (numSimulations - 1) : 0;
+	}
+
+	/**
+	 * @param intervention index of the intervention in the potentials of the simulations
+	 * @return Mean effectiveness of the intervention
+	 * @throws IllegalStateException if no simulation has been added
+	 */
+	public double getMeanEffectiveness(int intervention) {
+		checkSimulations();
+		return meanEffectivities[intervention];
+	}
+
+	/**
+	 * @param intervention index of the intervention in the potentials of the simulations
+	 * @return Sample variance of the effectiveness of the intervention
+	 * @throws IllegalStateException if no simulation has been added
+	 */
+	public double getEffectivenessVariance(int intervention) {
+		checkSimulations();
+		return numSimulations > 1 ? sumSquaredEffectivenessDeviations[intervention] / (numSimulations - 1) : 0;
+	}
+
+	/**
+	 * @param intervention index of the intervention in the potentials of the simulations
+	 * @return For each lambda, probability that the intervention is the most cost-effective one
+	 * @throws IllegalStateException if no simulation has been added
+	 */
+	public double[] getAcceptabilityCurve(int intervention) {
+		checkSimulations();
+		double[] curve = new double[lambdas.length];
+		for (int l = 0; l < lambdas.length; l++) {
+			curve[l] = (double) numTimesOptimal[l][intervention] / numSimulations;
+		}
+		return curve;
+	}
+
+	private void checkSimulations() {
+		if (numSimulations == 0) {
+			throw new IllegalStateException("No simulation has been added");
+		}
+	}
+
+	/**
+	 * @return For each lambda, expected value of perfect information: the mean of the highest net monetary benefit
+	 * of each simulation minus the highest mean net monetary benefit
+	 */
+	public double[] getEVPI() {
+		double[] evpi = new double[lambdas.length];
+		if (numSimulations > 0) {
+			for (int l = 0; l < lambdas.length; l++) {
+				double maxSumNetBenefits = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < numInterventions; i++) {
+					maxSumNetBenefits = Math.max(maxSumNetBenefits, sumNetBenefits[l][i]);
+				}
+				evpi[l] = (sumMaxNetBenefits[l] - maxSumNetBenefits) / numSimulations;
+			}
+		}
+		return evpi;
+	}
+
+}
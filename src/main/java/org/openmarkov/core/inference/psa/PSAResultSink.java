@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference.psa;
+
+import org.openmarkov.core.model.network.CEP;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+
+/**
+ * Receives the result of each simulation of a probabilistic sensitivity analysis as soon as it is available, so that
+ * the results can be aggregated or written without keeping all of them in memory.
+ * <p>
+ * The simulations are received in the order of their indexes, one at a time, even when they are evaluated by
+ * several threads.
+ */
+public interface PSAResultSink {
+
+	/**
+	 * @param simulationIndex  index of the simulation, from 0 to the number of simulations minus one
+	 * @param simulationResult cost-effectiveness potential of the simulation
+	 */
+	void addSimulation(int simulationIndex, GTablePotential<CEP> simulationResult);
+
+}
@@ -10,6 +10,7 @@ package org.openmarkov.core.inference.tasks;
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.psa.PSAResultSink;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.GTablePotential;
 
@@ -23,5 +24,17 @@ public interface CE_PSA extends Task {
 	Collection<GTablePotential> getCEPPotentials()
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException;
 
+	/**
+	 * Runs the simulations passing the result of each one to the sinks instead of keeping it, so that the memory
+	 * used does not grow with the number of simulations.
+	 *
+	 * @param sinks receivers of the results of the simulations
+	 * @throws NotEvaluableNetworkException NotEvaluableNetworkException
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	void runSimulations(PSAResultSink... sinks)
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException;
+
 	void setDecisionVariable(Variable decisionSelected);
 }
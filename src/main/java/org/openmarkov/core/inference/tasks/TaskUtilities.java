@@ -284,28 +284,59 @@ public class TaskUtilities {
 	 */
 	public static ProbNet projectTablesAndBuildMarkovDecisionNetwork(ProbNet network, EvidenceCase evidence)
 			throws IncompatibleEvidenceException {
+		return projectTablesAndBuildMarkovDecisionNetwork(network, evidence, false);
+	}
+
+	/**
+	 * @param network    Network
+	 * @param evidence   Evidence
+	 * @param factorized Whether the potentials that can be decomposed are projected in factorized form, in which
+	 *                   case the Markov network may contain auxiliary chance variables that are not in
+	 *                   {@code network}
+	 * @return Projected network
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 */
+	public static ProbNet projectTablesAndBuildMarkovDecisionNetwork(ProbNet network, EvidenceCase evidence,
+			boolean factorized) throws IncompatibleEvidenceException {
+		return projectTablesAndBuildMarkovDecisionNetwork(network, evidence, factorized, false);
+	}
+
+	/**
+	 * @param network    Network
+	 * @param evidence   Evidence
+	 * @param factorized Whether the potentials that can be decomposed are projected in factorized form
+	 * @param compact    Whether the potentials that have a representation cheaper than a table keep it, in which
+	 *                   case the Markov network may contain potentials that are not {@code TablePotential}s
+	 * @return Projected network
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 * @see Potential#compactProject(EvidenceCase, org.openmarkov.core.inference.InferenceOptions)
+	 */
+	public static ProbNet projectTablesAndBuildMarkovDecisionNetwork(ProbNet network, EvidenceCase evidence,
+			boolean factorized, boolean compact) throws IncompatibleEvidenceException {
 		ProbNet markovNetworkInference = null;
-		List<TablePotential> returnedProjectedPotentials;
+		List<Potential> returnedProjectedPotentials;
 
 		try {
-			returnedProjectedPotentials = network.tableProjectPotentials(evidence);
+			returnedProjectedPotentials = network.projectPotentials(evidence, factorized, compact);
 		} catch (NonProjectablePotentialException | WrongCriterionException e1) {
 			throw new IncompatibleEvidenceException("Unexpected inference exception :" + e1.getMessage());
 		}
-		List<TablePotential> projectedPotentials = new ArrayList<>();
+		List<Potential> projectedPotentials = new ArrayList<>();
 
-		for (TablePotential potential : returnedProjectedPotentials) {
+		for (Potential potential : returnedProjectedPotentials) {
 			if (potential.getVariables().size() != 0) {
 				projectedPotentials.add(potential);
 			} else {
+				// The compact potentials always have variables
+				TablePotential tablePotential = (TablePotential) potential;
 				if (potential.isAdditive()) {
 					// It is a utility potential
-					if (potential.values[0] != 0) {
+					if (tablePotential.values[0] != 0) {
 						projectedPotentials.add(potential);
 					}
 				} else {
 					// It is a probability potential
-					if (potential.values[0] != 1) {
+					if (tablePotential.values[0] != 1) {
 						projectedPotentials.add(potential);
 					}
 				}
@@ -17,10 +17,13 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class is the manager of the format annotations. Detects the plugins with FormatType
@@ -33,6 +36,12 @@ import java.util.Map;
 public class FormatManager {
 	private static FormatManager instance = null;
 
+	/**
+	 * The files with these extensions are not XML, so their version can not be read from their formatVersion
+	 * attribute; each extension has only one reader and one writer, registered with the empty version.
+	 */
+	private static final Set<String> UNVERSIONED_EXTENSIONS = new HashSet<>(Arrays.asList("elv", "pgmxb"));
+
 	/**
 	 * The Reader role
 	 */
@@ -88,7 +97,7 @@ public class FormatManager {
             	*/
 				String extension = lAnnotation.extension();
 				String version = "";
-				if (!extension.equals("elv")) {
+				if (isVersioned(extension)) {
 					version = lAnnotation.version();
 				}
 				try {
@@ -109,7 +118,7 @@ public class FormatManager {
 
 				String extension = lAnnotation.extension();
 				String version = "";
-				if (!extension.equals("elv")) {
+				if (isVersioned(extension)) {
 					version = lAnnotation.version();
 				}
 				try {
@@ -124,6 +133,14 @@ public class FormatManager {
 		}
 	}
 
+	/**
+	 * @param extension file extension
+	 * @return false if the readers and writers of {@code extension} are registered with the empty version
+	 */
+	private static boolean isVersioned(String extension) {
+		return !UNVERSIONED_EXTENSIONS.contains(extension);
+	}
+
 	/**
 	 * Gets a FormatManager instance
 	 * @return FormatManager instance
@@ -179,7 +196,7 @@ public class FormatManager {
 	 * Gets the plugin with the "Writer" role, the extension and the version of the network.
 	 * If the extension is "elv" corresponding to Elvira enconding, fileFormat is the empty string
 	 *
-	 * @param extension  - the extension corresponding to the enconding of the file (elv, pgmx)
+	 * @param extension  - the extension corresponding to the enconding of the file (elv, pgmx, pgmxb)
 	 * @param fileFormat - format and version of the file
 	 * @return the ProbNetWriter corresponding to the selected extension and format of the file
 	 * @throws InstantiationException InstantiationException
@@ -189,7 +206,7 @@ public class FormatManager {
 			throws IllegalAccessException, InstantiationException {
 		ProbNetWriter instance = null;
 		String version = "";
-		if (!(fileFormat.equals("Elvira"))) {
+		if (!(fileFormat.equals("Elvira")) && isVersioned(extension)) {
 			version = fileFormat.substring(fileFormat.indexOf('.') + 1);
 		}
 
@@ -269,7 +286,7 @@ public class FormatManager {
 	public ProbNetReader getProbNetReader(String fileName) throws Exception {
 		String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
 		String fileVersion = "";
-		if (!fileExtension.equals("elv")) {
+		if (isVersioned(fileExtension)) {
 			DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
 			DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
 			Document doc = docBuilder.parse(new File(fileName));
@@ -292,7 +309,7 @@ public class FormatManager {
 		String fileName = url.getFile();
 		String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
 		String fileVersion = "";
-		if (!fileExtension.equals("elv")) {
+		if (isVersioned(fileExtension)) {
 			DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
 			DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
 			Document doc = docBuilder.parse(url.openStream());
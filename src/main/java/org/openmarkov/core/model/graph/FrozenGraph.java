@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the structure of a {@code Graph}, in which each node is identified by its position in
+ * {@link #getNodes()} and the children, parents and siblings of the nodes are stored in compressed sparse rows:
+ * the neighbors of node {@code i} of each kind are the positions {@code offsets[i]} to {@code offsets[i + 1] - 1}
+ * of an {@code int} array. The neighbors of each node keep the order they have in the graph.
+ * <p>
+ * It is created by {@link Graph#freeze()} and does not reflect later changes of the graph.
+ *
+ * @param <T> type of the nodes
+ */
+public class FrozenGraph<T> {
+
+	// Attributes
+	private final List<T> nodes;
+
+	private final Map<T, Integer> ids;
+
+	private final int[] childrenOffsets;
+
+	private final int[] children;
+
+	private final int[] parentsOffsets;
+
+	private final int[] parents;
+
+	private final int[] siblingsOffsets;
+
+	private final int[] siblings;
+
+	// Constructor
+	FrozenGraph(Graph<T> graph) {
+		List<T> graphNodes = graph.getNodes();
+		int numNodes = graphNodes.size();
+		nodes = Collections.unmodifiableList(new ArrayList<>(graphNodes));
+		ids = new HashMap<>(2 * numNodes);
+		for (int i = 0; i < numNodes; i++) {
+			ids.put(graphNodes.get(i), i);
+		}
+		childrenOffsets = new int[numNodes + 1];
+		parentsOffsets = new int[numNodes + 1];
+		siblingsOffsets = new int[numNodes + 1];
+		for (int i = 0; i < numNodes; i++) {
+			T node = graphNodes.get(i);
+			childrenOffsets[i + 1] = childrenOffsets[i] + countNodesInGraph(graph.getChildrenView(node));
+			parentsOffsets[i + 1] = parentsOffsets[i] + countNodesInGraph(graph.getParentsView(node));
+			siblingsOffsets[i + 1] = siblingsOffsets[i] + countNodesInGraph(graph.getSiblingsView(node));
+		}
+		children = new int[childrenOffsets[numNodes]];
+		parents = new int[parentsOffsets[numNodes]];
+		siblings = new int[siblingsOffsets[numNodes]];
+		for (int i = 0; i < numNodes; i++) {
+			T node = graphNodes.get(i);
+			fillIds(graph.getChildrenView(node), children, childrenOffsets[i]);
+			fillIds(graph.getParentsView(node), parents, parentsOffsets[i]);
+			fillIds(graph.getSiblingsView(node), siblings, siblingsOffsets[i]);
+		}
+	}
+
+	// Methods
+
+	/**
+	 * The adjacency lists of a node removed from the graph may still refer to it, so only the nodes that are in the
+	 * graph are counted.
+	 */
+	private int countNodesInGraph(List<T> neighbors) {
+		int numNeighbors = 0;
+		for (T neighbor : neighbors) {
+			if (ids.containsKey(neighbor)) {
+				numNeighbors++;
+			}
+		}
+		return numNeighbors;
+	}
+
+	private void fillIds(List<T> neighbors, int[] neighborIds, int offset) {
+		for (T neighbor : neighbors) {
+			Integer id = ids.get(neighbor);
+			if (id != null) {
+				neighborIds[offset++] = id;
+			}
+		}
+	}
+
+	/**
+	 * @return Number of nodes
+	 */
+	public int getNumNodes() {
+		return nodes.size();
+	}
+
+	/**
+	 * @return The nodes in the order of the graph. The list cannot be modified.
+	 */
+	public List<T> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param id identifier of a node
+	 * @return The node
+	 */
+	public T getNode(int id) {
+		return nodes.get(id);
+	}
+
+	/**
+	 * @param node node
+	 * @return The identifier of {@code node} or -1 if it was not in the graph
+	 */
+	public int getId(T node) {
+		Integer id = ids.get(node);
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * @param node identifier of a node
+	 * @return Number of children of the node
+	 */
+	public int getNumChildren(int node) {
+		return childrenOffsets[node + 1] - childrenOffsets[node];
+	}
+
+	/**
+	 * @param node  identifier of a node
+	 * @param index index of the child, between 0 and {@code getNumChildren(node) - 1}
+	 * @return Identifier of the child
+	 */
+	public int getChild(int node, int index) {
+		return children[childrenOffsets[node] + index];
+	}
+
+	/**
+	 * @param node identifier of a node
+	 * @return Number of parents of the node
+	 */
+	public int getNumParents(int node) {
+		return parentsOffsets[node + 1] - parentsOffsets[node];
+	}
+
+	/**
+	 * @param node  identifier of a node
+	 * @param index index of the parent, between 0 and {@code getNumParents(node) - 1}
+	 * @return Identifier of the parent
+	 */
+	public int getParent(int node, int index) {
+		return parents[parentsOffsets[node] + index];
+	}
+
+	/**
+	 * @param node identifier of a node
+	 * @return Number of siblings of the node
+	 */
+	public int getNumSiblings(int node) {
+		return siblingsOffsets[node + 1] - siblingsOffsets[node];
+	}
+
+	/**
+	 * @param node  identifier of a node
+	 * @param index index of the sibling, between 0 and {@code getNumSiblings(node) - 1}
+	 * @return Identifier of the sibling
+	 */
+	public int getSibling(int node, int index) {
+		return siblings[siblingsOffsets[node] + index];
+	}
+
+	/**
+	 * @param node identifier of a node
+	 * @return Number of children, parents and siblings of the node
+	 */
+	public int getNumNeighbors(int node) {
+		return getNumChildren(node) + getNumParents(node) + getNumSiblings(node);
+	}
+
+	/**
+	 * @param node  identifier of a node
+	 * @param index index of the neighbor, between 0 and {@code getNumNeighbors(node) - 1}. The children come
+	 *              first, then the parents and then the siblings, as in {@link Graph#getNeighbors(Object)}.
+	 * @return Identifier of the neighbor
+	 */
+	public int getNeighbor(int node, int index) {
+		int numChildren = getNumChildren(node);
+		if (index < numChildren) {
+			return getChild(node, index);
+		}
+		index -= numChildren;
+		int numParents = getNumParents(node);
+		return index < numParents ? getParent(node, index) : getSibling(node, index - numParents);
+	}
+}
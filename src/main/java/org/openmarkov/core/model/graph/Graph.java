@@ -7,13 +7,14 @@
 
 package org.openmarkov.core.model.graph;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 /**
  * This class implements the minimal set of methods for creating
@@ -49,6 +50,17 @@ public class Graph<T> {
 	private Map<T, List<T>> nodeParents;
 	private Map<T, List<T>> nodeSiblings;
 
+	/**
+	 * Number of changes of the nodes or the links, used to know whether {@code frozenGraph} is up to date
+	 */
+	private int numChanges;
+
+	/**
+	 * Last frozen graph together with the number of changes it reflects. Both are published at once, so a reader
+	 * never sees a graph with the stamp of another one.
+	 */
+	private volatile FrozenGraphStamp<T> frozenGraph;
+
 	// Constructor
 	public Graph() {
 		this.nodes = new ArrayList<>();
@@ -71,6 +83,61 @@ public class Graph<T> {
 		return (nodeSiblings.containsKey(node)) ? new ArrayList<>(nodeSiblings.get(node)) : new ArrayList<T>();
 	}
 
+	/**
+	 * Returns the children of {@code node} without copying them. The list cannot be modified and must not be used
+	 * after the links of the graph change.
+	 *
+	 * @param node Node
+	 * @return A read-only view of the children of {@code node}
+	 */
+	public List<T> getChildrenView(T node) {
+		return getView(nodeChildren, node);
+	}
+
+	/**
+	 * Returns the parents of {@code node} without copying them. The list cannot be modified and must not be used
+	 * after the links of the graph change.
+	 *
+	 * @param node Node
+	 * @return A read-only view of the parents of {@code node}
+	 */
+	public List<T> getParentsView(T node) {
+		return getView(nodeParents, node);
+	}
+
+	/**
+	 * Returns the siblings of {@code node} without copying them. The list cannot be modified and must not be used
+	 * after the links of the graph change.
+	 *
+	 * @param node Node
+	 * @return A read-only view of the siblings of {@code node}
+	 */
+	public List<T> getSiblingsView(T node) {
+		return getView(nodeSiblings, node);
+	}
+
+	private static <T> List<T> getView(Map<T, List<T>> adjacency, T node) {
+		List<T> nodes = adjacency.get(node);
+		return (nodes != null) ? Collections.unmodifiableList(nodes) : Collections.<T>emptyList();
+	}
+
+	/**
+	 * Returns a compact and immutable copy of the structure of this graph, in which the nodes are identified by
+	 * integers. The same object is returned until the nodes or the links of the graph change, so it is cheap for
+	 * networks that are no longer being edited.
+	 *
+	 * @return The frozen graph
+	 */
+	public FrozenGraph<T> freeze() {
+		FrozenGraphStamp<T> stamp = frozenGraph;
+		int currentNumChanges = numChanges;
+		if (stamp == null || stamp.numChanges != currentNumChanges) {
+			stamp = new FrozenGraphStamp<>(new FrozenGraph<>(this), currentNumChanges);
+			frozenGraph = stamp;
+		}
+		return stamp.graph;
+	}
+
 	public int getNumChildren(T node) {
 		return (nodeChildren.containsKey(node)) ? nodeChildren.get(node).size() : 0;
 	}
@@ -99,6 +166,33 @@ public class Graph<T> {
 		return neighbors;
 	}
 
+	/**
+	 * Returns the children, parents and siblings of {@code node}, in this order, without copying them. The list
+	 * cannot be modified and must not be used after the links of the graph change.
+	 *
+	 * @param node Node
+	 * @return A read-only view of the neighbors of {@code node}
+	 */
+	public List<T> getNeighborsView(T node) {
+		List<T> children = getChildrenView(node);
+		List<T> parents = getParentsView(node);
+		List<T> siblings = getSiblingsView(node);
+		return new AbstractList<T>() {
+
+			@Override public T get(int index) {
+				if (index < children.size()) {
+					return children.get(index);
+				}
+				index -= children.size();
+				return (index < parents.size()) ? parents.get(index) : siblings.get(index - parents.size());
+			}
+
+			@Override public int size() {
+				return children.size() + parents.size() + siblings.size();
+			}
+		};
+	}
+
 	/**
 	 * Returns if node1 is child of node2
 	 *
@@ -288,6 +382,7 @@ public class Graph<T> {
 	 * @param node {@code Node}
 	 */
 	public void removeLinks(T node) {
+		numChanges++;
 
 		if (explicitLinks) {
 			List<Link<T>> linksNode = new ArrayList<>();
@@ -376,29 +471,31 @@ public class Graph<T> {
 		if (node1 == node2) {
 			return true;
 		}
-		int numNodes = nodes.size();
-		boolean[] markedNodes = new boolean[numNodes];
-		Stack<T> nodesToExpand = new Stack<>();
-
-		for (int i = 0; i < numNodes; i++) {
-			markedNodes[i] = false;
+		FrozenGraph<T> graph = freeze();
+		int id1 = graph.getId(node1);
+		int id2 = graph.getId(node2);
+		if (id1 < 0 || id2 < 0) {
+			return false;
 		}
+		boolean[] markedNodes = new boolean[graph.getNumNodes()];
+		int[] nodesToExpand = new int[graph.getNumNodes()];
+		int numNodesToExpand = 0;
 
 		// Mark node1 and put it in the list of nodes to be expanded
-		nodesToExpand.push(node1);
-		markedNodes[nodes.indexOf(node1)] = true;
-
-		List<T> neighbors = new ArrayList<>();
-		while (!nodesToExpand.empty()) {
-			T expandableNode = nodesToExpand.pop(); // the top of the stack
-			neighbors = (directed) ? getChildren(expandableNode) : getNeighbors(expandableNode);
-			if (neighbors.indexOf(node2) != -1) {
-				return true; // node2 is in a path from node1
-			}
-			for (T neighborNode : neighbors) {
-				if (!markedNodes[nodes.indexOf(neighborNode)]) {
-					nodesToExpand.push(neighborNode);
-					markedNodes[nodes.indexOf(neighborNode)] = true;
+		nodesToExpand[numNodesToExpand++] = id1;
+		markedNodes[id1] = true;
+
+		while (numNodesToExpand > 0) {
+			int expandableNode = nodesToExpand[--numNodesToExpand]; // the top of the stack
+			int numNeighbors = directed ? graph.getNumChildren(expandableNode) : graph.getNumNeighbors(expandableNode);
+			for (int i = 0; i < numNeighbors; i++) {
+				int neighborNode = directed ? graph.getChild(expandableNode, i) : graph.getNeighbor(expandableNode, i);
+				if (neighborNode == id2) {
+					return true; // node2 is in a path from node1
+				}
+				if (!markedNodes[neighborNode]) {
+					nodesToExpand[numNodesToExpand++] = neighborNode;
+					markedNodes[neighborNode] = true;
 				}
 			}
 		}
@@ -431,6 +528,7 @@ public class Graph<T> {
 	public void removeNode(T node) {
 		removeLinks(node);
 		nodes.remove(node);
+		numChanges++;
 	}
 
 	/**
@@ -442,23 +540,24 @@ public class Graph<T> {
 	 *
 	 */
 	private void addImplicitLink(T node1, T node2, boolean directed) {
+		numChanges++;
 		if (directed) {
 			if (!isChild(node2, node1)) {
 				if (!nodeChildren.containsKey(node1))
-					nodeChildren.put(node1, new LinkedList<T>());
+					nodeChildren.put(node1, new ArrayList<T>());
 				nodeChildren.get(node1).add(node2);
 			}
 			if (!isParent(node1, node2)) {
 				if (!nodeParents.containsKey(node2))
-					nodeParents.put(node2, new LinkedList<T>());
+					nodeParents.put(node2, new ArrayList<T>());
 				nodeParents.get(node2).add(node1);
 			}
 		} else {
 			if (!isSibling(node1, node2)) {
 				if (!nodeSiblings.containsKey(node1))
-					nodeSiblings.put(node1, new LinkedList<T>());
+					nodeSiblings.put(node1, new ArrayList<T>());
 				if (!nodeSiblings.containsKey(node2))
-					nodeSiblings.put(node2, new LinkedList<T>());
+					nodeSiblings.put(node2, new ArrayList<T>());
 				nodeSiblings.get(node1).add(node2);
 				nodeSiblings.get(node2).add(node1);
 			}
@@ -474,6 +573,7 @@ public class Graph<T> {
 	 * @param directed {@code boolean}
 	 */
 	private void removeImplicitLink(T node1, T node2, boolean directed) {
+		numChanges++;
 		if (directed) {
 			nodeChildren.get(node1).remove(node2);
 			nodeParents.get(node2).remove(node1);
@@ -492,11 +592,62 @@ public class Graph<T> {
 	 */
 	public void addNode(T node) {
 		nodes.add(node);
+		numChanges++;
 		if (explicitLinks) {
 			nodeLinks.put(node, new LinkedList<Link<T>>());
 		}
 	}
 
+	/**
+	 * Adds to this graph the implicit links of {@code graph}, translating its nodes with {@code copies}. This graph
+	 * must contain the copies of the nodes of {@code graph} and no links; the nodes without copy and their links are
+	 * ignored. The adjacency lists are filled directly, in the order in which adding the links of each node of
+	 * {@code graph} one by one would leave them.
+	 *
+	 * @param graph  graph whose links are copied
+	 * @param copies copy in this graph of each node of {@code graph}
+	 */
+	protected void copyImplicitLinks(Graph<T> graph, Map<T, T> copies) {
+		numChanges++;
+		for (T node : graph.nodes) {
+			T copyNode = copies.get(node);
+			if (copyNode == null) {
+				continue;
+			}
+			List<T> siblings = graph.nodeSiblings.get(node);
+			if (siblings != null) {
+				for (T sibling : siblings) {
+					T copySibling = copies.get(sibling);
+					if (copySibling != null && !isSibling(copyNode, copySibling)) {
+						addToList(nodeSiblings, copyNode, copySibling);
+						addToList(nodeSiblings, copySibling, copyNode);
+					}
+				}
+			}
+			List<T> children = graph.nodeChildren.get(node);
+			if (children != null && !children.isEmpty()) {
+				List<T> copyChildren = new ArrayList<>(children.size());
+				for (T child : children) {
+					T copyChild = copies.get(child);
+					if (copyChild != null) {
+						copyChildren.add(copyChild);
+						addToList(nodeParents, copyChild, copyNode);
+					}
+				}
+				nodeChildren.put(copyNode, copyChildren);
+			}
+		}
+	}
+
+	private void addToList(Map<T, List<T>> lists, T key, T node) {
+		List<T> list = lists.get(key);
+		if (list == null) {
+			list = new ArrayList<>();
+			lists.put(key, list);
+		}
+		list.add(node);
+	}
+
 	//private addLink(Map<T,List<T>> link)
 
 	/**
@@ -537,4 +688,19 @@ public class Graph<T> {
 		return buffer.toString();
 	}
 
+	/**
+	 * Immutable pair of a frozen graph and the number of changes of the graph when it was frozen.
+	 */
+	private static final class FrozenGraphStamp<T> {
+
+		private final FrozenGraph<T> graph;
+
+		private final int numChanges;
+
+		private FrozenGraphStamp(FrozenGraph<T> graph, int numChanges) {
+			this.graph = graph;
+			this.numChanges = numChanges;
+		}
+	}
+
 }
@@ -167,7 +167,7 @@ public class Node {
 	 * @param potential {@code Potential}
 	 */
 	public void setPotential(Potential potential) {
-		this.potentials.clear();
+		clearPotentials();
 		addPotential(potential);
 	}
 
@@ -176,25 +176,48 @@ public class Node {
 	 */
 	public void addPotential(Potential potential) {
 		this.potentials.add(potential);
+		probNet.potentialAdded(this, potential);
 	}
 
 	/**
 	 * @param potentials {@code Potential}
 	 */
 	public void setPotentials(List<Potential> potentials) {
-		this.potentials.clear();
+		clearPotentials();
 		if (potentials != null) {
-			this.potentials.addAll(potentials);
+			for (Potential potential : potentials) {
+				addPotential(potential);
+			}
+		}
+	}
+
+	private void clearPotentials() {
+		for (Potential potential : potentials) {
+			probNet.potentialRemoved(this, potential);
 		}
+		potentials.clear();
 	}
 
 	/**
+	 * Removes {@code potential} or, if this node does not contain that object, the first potential equal to it.
+	 *
 	 * @param potential {@code Potential}
 	 * @return {@code true} if {@code potentialList} contained the
 	 * specified element; otherwise {@code false}.
 	 */
 	public boolean removePotential(Potential potential) {
-		return potentials.remove(potential);
+		int index = 0;
+		while (index < potentials.size() && potentials.get(index) != potential) {
+			index++;
+		}
+		if (index == potentials.size()) {
+			index = potentials.indexOf(potential);
+		}
+		if (index < 0) {
+			return false;
+		}
+		probNet.potentialRemoved(this, potentials.remove(index));
+		return true;
 	}
 
 	/**
@@ -262,6 +285,34 @@ public class Node {
 		return probNet.getNeighbors(this);
 	}
 
+	/**
+	 * @return A read-only view of the children, which must not be used after the links of the network change
+	 */
+	public List<Node> getChildrenView() {
+		return probNet.getChildrenView(this);
+	}
+
+	/**
+	 * @return A read-only view of the parents, which must not be used after the links of the network change
+	 */
+	public List<Node> getParentsView() {
+		return probNet.getParentsView(this);
+	}
+
+	/**
+	 * @return A read-only view of the siblings, which must not be used after the links of the network change
+	 */
+	public List<Node> getSiblingsView() {
+		return probNet.getSiblingsView(this);
+	}
+
+	/**
+	 * @return A read-only view of the neighbors, which must not be used after the links of the network change
+	 */
+	public List<Node> getNeighborsView() {
+		return probNet.getNeighborsView(this);
+	}
+
 	public int getNumChildren() {
 		return probNet.getNumChildren(this);
 	}
@@ -354,10 +405,10 @@ public class Node {
 			break;
 		}
 		out.append("): ");
-		List<Node> parents = getParents();
-		List<Node> children = getChildren();
-		List<Node> siblings = getSiblings();
-		List<Node> neighbors = getNeighbors();
+		List<Node> parents = getParentsView();
+		List<Node> children = getChildrenView();
+		List<Node> siblings = getSiblingsView();
+		List<Node> neighbors = getNeighborsView();
 		if (neighbors.isEmpty()) {
 			out.append("No neighbors - ");
 		} else {
@@ -427,7 +478,7 @@ public class Node {
 		double initialValue = Util.round(1 / (new Double(numOfCellsInTable)), "0.01");
 		// add now all the parents
 
-		for (Node parent : getParents()) {
+		for (Node parent : getParentsView()) {
 			//TODO Revisar, ¿Solo se agrega/elimina un padre a la vez?
 			//mpalacios
 			//the set of variables could be changed, so , have to be updated.
@@ -446,7 +497,7 @@ public class Node {
 		TablePotential tablePotential = new TablePotential(variables, PotentialRole.CONDITIONAL_PROBABILITY, table);
 		newListPotentials.add(tablePotential);
 
-		potentials = newListPotentials;
+		setPotentials(newListPotentials);
 
 	}
 
@@ -517,7 +568,10 @@ public class Node {
 	public void samplePotentials() {
 		for (int i = 0; i < potentials.size(); i++) {
 			Potential originalPotential = potentials.get(i);
-			potentials.set(i, originalPotential.sample());
+			Potential sampledPotential = originalPotential.sample();
+			potentials.set(i, sampledPotential);
+			probNet.potentialRemoved(this, originalPotential);
+			probNet.potentialAdded(this, sampledPotential);
 		}
 	}
 
@@ -546,7 +600,7 @@ public class Node {
 			} else {
 				double parentValues[];
 
-				List<Node> parents = getParents();
+				List<Node> parents = getParentsView();
 				parentValues = new double[parents.size()];
 				for (int i = 0; i < parents.size(); i++) {
 					parentValues[i] = parents.get(i).getApproximateMaxOrMinUtilityFunction(computeMax);
@@ -605,7 +659,7 @@ public class Node {
 			} else {
 				List<TablePotential> utilityFunctionsParents;
 				utilityFunctionsParents = new ArrayList<>();
-				for (Node node : getParents()) {
+				for (Node node : getParentsView()) {
 					utilityFunctionsParents.add(node.getUtilityFunction());
 				}
 				if (firstPotential instanceof SumPotential) {
@@ -629,7 +683,7 @@ public class Node {
 	public boolean isSuperValueNode() {
 		Node utilityNode = probNet.getNode(variable);
 		int numOfUtilityParents = 0;
-		for (Node parent : probNet.getParents(utilityNode)) {
+		for (Node parent : probNet.getParentsView(utilityNode)) {
 			if (parent.getNodeType() == NodeType.UTILITY) {
 				//if the node has two or more utility parents then is a super value node
 				if ((numOfUtilityParents++) >= 1) {
@@ -648,7 +702,7 @@ public class Node {
 	 */
 	public List<Node> getUtilityParents() {
 		List<Node> utilityParents = new ArrayList<>();
-		for (Node parent : getParents()) {
+		for (Node parent : getParentsView()) {
 			if (parent.getNodeType() == NodeType.UTILITY) {
 				utilityParents.add(parent);
 			}
@@ -660,7 +714,7 @@ public class Node {
 	 * @return true if a node has only utility parents
 	 */
 	public boolean checkOnlyUtilityparents() {
-		return getUtilityParents().size() == getParents().size() ? true : false;
+		return getUtilityParents().size() == getNumParents() ? true : false;
 	}
 
 	/**
@@ -670,7 +724,7 @@ public class Node {
 		List<Node> numericalParents = new ArrayList<>();
 		List<Node> finiteStatesOrDiscretizedParents = new ArrayList<>();
 
-		for (Node parent : getParents()) {
+		for (Node parent : getParentsView()) {
 			if (parent.getVariable().getVariableType() == VariableType.NUMERIC) {
 				numericalParents.add(parent);
 			} else if (parent.getVariable().getVariableType() == VariableType.FINITE_STATES
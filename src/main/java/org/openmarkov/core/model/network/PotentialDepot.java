@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network;
+
+import org.openmarkov.core.model.network.potential.Potential;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from each {@code Variable} to the potentials of the nodes of a {@code ProbNet} that contain it, together
+ * with the node in which each potential is stored. The potentials of each variable are kept in the order in which
+ * they were added.
+ * <p>
+ * The potentials are indexed by the variables they have when they are added, so the variables of a potential stored
+ * in a node of the network must not be changed in place with {@code Potential.setVariables} or
+ * {@code Potential.replaceVariable}. The potential has to be removed from the node and added again around the change,
+ * as {@code SetPotentialVariablesEdit} does. The lookups assert it when assertions are enabled.
+ */
+class PotentialDepot {
+
+	// Attributes
+	private final Map<Variable, List<NodePotential>> variablePotentials = new HashMap<>();
+
+	// Methods
+
+	/**
+	 * @param node      node in which {@code potential} is stored
+	 * @param potential potential
+	 */
+	void addPotential(Node node, Potential potential) {
+		NodePotential nodePotential = new NodePotential(node, potential);
+		for (Variable variable : nodePotential.variables) {
+			List<NodePotential> nodePotentials = variablePotentials.get(variable);
+			if (nodePotentials == null) {
+				nodePotentials = new ArrayList<>(4);
+				variablePotentials.put(variable, nodePotentials);
+			}
+			nodePotentials.add(nodePotential);
+		}
+	}
+
+	/**
+	 * @param node      node in which {@code potential} was stored
+	 * @param potential potential
+	 */
+	void removePotential(Node node, Potential potential) {
+		for (Variable variable : potential.getVariables()) {
+			List<NodePotential> nodePotentials = variablePotentials.get(variable);
+			if (nodePotentials != null) {
+				for (int i = nodePotentials.size() - 1; i >= 0; i--) {
+					NodePotential nodePotential = nodePotentials.get(i);
+					if (nodePotential.potential == potential && nodePotential.node == node) {
+						nodePotentials.remove(i);
+						break;
+					}
+				}
+				if (nodePotentials.isEmpty()) {
+					variablePotentials.remove(variable);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node node whose potentials are added
+	 */
+	void addPotentials(Node node) {
+		for (Potential potential : node.potentials) {
+			addPotential(node, potential);
+		}
+	}
+
+	/**
+	 * @param node node whose potentials are removed
+	 */
+	void removePotentials(Node node) {
+		for (Potential potential : node.potentials) {
+			removePotential(node, potential);
+		}
+	}
+
+	/**
+	 * @param variable variable
+	 * @return The potentials that contain {@code variable}. The list must not be modified.
+	 */
+	List<NodePotential> getPotentials(Variable variable) {
+		List<NodePotential> nodePotentials = variablePotentials.get(variable);
+		if (nodePotentials == null) {
+			return Collections.emptyList();
+		}
+		assert areUnchanged(nodePotentials) : "The variables of a potential of " + variable
+				+ " were changed while it was stored in the network";
+		return nodePotentials;
+	}
+
+	/**
+	 * @param nodePotentials potentials of the index
+	 * @return {@code true} if every potential still has the variables with which it was added
+	 */
+	private static boolean areUnchanged(List<NodePotential> nodePotentials) {
+		for (NodePotential nodePotential : nodePotentials) {
+			if (!nodePotential.potential.getVariables().equals(nodePotential.variables)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A potential and the node in which it is stored
+	 */
+	static class NodePotential {
+
+		final Node node;
+
+		final Potential potential;
+
+		/**
+		 * Variables of the potential when it was added
+		 */
+		final List<Variable> variables;
+
+		NodePotential(Node node, Potential potential) {
+			this.node = node;
+			this.potential = potential;
+			this.variables = potential.getVariables();
+		}
+	}
+}
@@ -18,6 +18,7 @@ import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.model.graph.Graph;
 import org.openmarkov.core.model.graph.Link;
 import org.openmarkov.core.model.network.Criterion.CECriterion;
+import org.openmarkov.core.model.network.PotentialDepot.NodePotential;
 import org.openmarkov.core.model.network.constraint.ConstraintManager;
 import org.openmarkov.core.model.network.constraint.OnlyAtemporalVariables;
 import org.openmarkov.core.model.network.constraint.OnlyChanceNodes;
@@ -36,9 +37,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.Vector;
+import java.util.function.Predicate;
 
 /**
  * A {@code ProbNet} stores {@code Node}s in a efficient manner.
@@ -110,6 +114,14 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 
 	private Set<TablePotential> constantPotentials;
 
+	/**
+	 * Index from each variable to the potentials that contain it. It is created by the first search of the
+	 * potentials of a variable and then updated when potentials or nodes are added or removed. Several threads may
+	 * search at the same time in a network that is not being changed, so the index is only assigned when it is
+	 * complete and the field is volatile.
+	 */
+	private volatile PotentialDepot potentialDepot;
+
 	// Constructors
 	public ProbNet(NetworkType networkType) {
 		this.pNESupport = new PNESupport(false);
@@ -473,6 +485,19 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 		return auxCopy(copyNet);
 	}
 
+	/**
+	 * Copies the subnetwork formed by {@code nodes} and the links between them. The result is the same as removing
+	 * the other nodes from {@link #copy()}, but the other nodes are never created, so pruning a large network
+	 * before an inference does not pay for copying the nodes that are pruned.
+	 *
+	 * @param nodes Nodes of this network to copy
+	 * @return The copy
+	 */
+	public ProbNet copy(Set<Node> nodes) {
+		ProbNet copyNet = new ProbNet(this.networkType);
+		return auxCopy(copyNet, nodes::contains);
+	}
+
 	/**
 	 * Auxiliary method for copy, which creates a low deep copy of {@code this ProbNet}: copy the
 	 * {@code graph} and the {@code nodes} but do not copy nor
@@ -481,6 +506,17 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 * @return {@code this probNet} copied.
 	 */
 	protected ProbNet auxCopy(ProbNet copyNet) {
+		return auxCopy(copyNet, node -> true);
+	}
+
+	/**
+	 * Same as {@link #auxCopy(ProbNet)}, but only copies the nodes accepted by {@code nodesToCopy} and the links
+	 * between them.
+	 * @param copyNet Network
+	 * @param nodesToCopy Nodes of this network to copy
+	 * @return {@code this probNet} copied.
+	 */
+	private ProbNet auxCopy(ProbNet copyNet, Predicate<Node> nodesToCopy) {
 		//ProbNet copyNet = new ProbNet(this.networkType);
 		copyNet.setName(name);
 		// copy constraints
@@ -493,11 +529,16 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 			}
 		}
 		List<Node> nodes = getNodes();
+		Map<Node, Node> copyNodes = new IdentityHashMap<>(2 * nodes.size());
 		// Adds variables and create corresponding nodes. Also add potentials
 		for (Node node : nodes) {
+			if (!nodesToCopy.test(node)) {
+				continue;
+			}
 			// Add variables and create corresponding nodes
 			Variable variable = node.getVariable();
 			Node newNode = copyNet.addNode(variable, node.getNodeType());
+			copyNodes.put(node, newNode);
 			newNode.setCoordinateX(node.getCoordinateX());
 			newNode.setCoordinateY(node.getCoordinateY());
 			newNode.setPotentials(node.getPotentials());
@@ -513,32 +554,21 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 		if (hasExplicitLinks()) {
 			copyNet.makeLinksExplicit(false);
 			for (Link<Node> originalLink : getLinks()) {
-				Node copyNode1 = copyNet.getNode(originalLink.getNode1().getVariable());
-				Node copyNode2 = copyNet.getNode(originalLink.getNode2().getVariable());
+				Node copyNode1 = copyNodes.get(originalLink.getNode1());
+				Node copyNode2 = copyNodes.get(originalLink.getNode2());
+				if (copyNode1 == null || copyNode2 == null) {
+					continue;
+				}
 				Link<Node> copyLink = copyNet.addLink(copyNode1, copyNode2, originalLink.isDirected());
 				copyLink.setRestrictionsPotential(originalLink.getRestrictionsPotential());
 				copyLink.setRevealingIntervals(originalLink.getRevealingIntervals());
 				copyLink.setRevealingStates(originalLink.getRevealingStates());
 			}
 		} else {
-			for (Node node : nodes) {
-				Node copyNode = copyNet.getNode(node.getVariable());
-				List<Node> siblings = getSiblings(node);
-				for (Node sibling : siblings) {
-					Node copySibling = copyNet.getNode(sibling.getVariable());
-					if (!copyNet.isSibling(copyNode, copySibling)) {
-						copyNet.addLink(copyNode, copySibling, false);
-					}
-				}
-				List<Node> children = getChildren(node);
-				for (Node child : children) {
-					Node copyChild = copyNet.getNode(child.getVariable());
-					copyNet.addLink(copyNode, copyChild, true);
-				}
-			}
+			copyNet.copyImplicitLinks(this, copyNodes);
 		}
-		// copy listeners
-		copyNet.getPNESupport().setListeners(pNESupport.getListeners());
+		// copy listeners. The copy has its own list, so the listeners added to it are not added to this network
+		copyNet.getPNESupport().setListeners(new Vector<>(pNESupport.getListeners()));
 		// Copy additionalProperties
 		Set<String> keys = additionalProperties.keySet();
 		LinkedHashMap<String, String> copyProperties = new LinkedHashMap<>();
@@ -642,18 +672,66 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 */
 	public List<TablePotential> tableProjectPotentials(EvidenceCase evidenceCase)
 			throws NonProjectablePotentialException, WrongCriterionException {
+		return tableProjectPotentials(evidenceCase, false);
+	}
+
+	/**
+	 * @param evidenceCase Evidence in that the potentials will be projected
+	 * @param factorized   When {@code true}, the potentials that can be decomposed, such as those of the ICI
+	 *                     families, are projected in factorized form, which introduces auxiliary variables that
+	 *                     are not in this network
+	 * @return The potentials of the network projected on the evidence
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException WrongCriterionException
+	 * @see Potential#tableProjectFactorized(EvidenceCase, InferenceOptions, List)
+	 */
+	public List<TablePotential> tableProjectPotentials(EvidenceCase evidenceCase, boolean factorized)
+			throws NonProjectablePotentialException, WrongCriterionException {
 		List<Potential> originalPotentials = getSortedPotentials();
 		List<TablePotential> projectedPotentials = new ArrayList<>();
 		// each original potential may yield several projected potentials;
 		List<TablePotential> potentials;
 		for (Potential potential : originalPotentials) {
 			InferenceOptions inferenceOptions = new InferenceOptions(this, null);
-			potentials = potential.tableProject(evidenceCase, inferenceOptions, projectedPotentials);
+			potentials = factorized ?
+					potential.tableProjectFactorized(evidenceCase, inferenceOptions, projectedPotentials) :
+					potential.tableProject(evidenceCase, inferenceOptions, projectedPotentials);
 			projectedPotentials.addAll(potentials);
 		}
 		return projectedPotentials;
 	}
 
+	/**
+	 * @param evidenceCase Evidence in that the potentials will be projected
+	 * @param factorized   When {@code true}, the potentials that can be decomposed are projected in factorized form
+	 * @param compact      When {@code true}, the potentials that have a representation cheaper than a table, such
+	 *                     as the trees, keep it
+	 * @return The potentials of the network projected on the evidence. They are {@code TablePotential}s unless
+	 * {@code compact} is {@code true}.
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException WrongCriterionException
+	 * @see Potential#compactProject(EvidenceCase, InferenceOptions)
+	 */
+	public List<Potential> projectPotentials(EvidenceCase evidenceCase, boolean factorized, boolean compact)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		List<TablePotential> projectedTablePotentials = new ArrayList<>();
+		List<Potential> projectedPotentials = new ArrayList<>();
+		for (Potential potential : getSortedPotentials()) {
+			InferenceOptions inferenceOptions = new InferenceOptions(this, null);
+			Potential compactPotential = compact ? potential.compactProject(evidenceCase, inferenceOptions) : null;
+			if (compactPotential != null) {
+				projectedPotentials.add(compactPotential);
+			} else {
+				List<TablePotential> potentials = factorized ?
+						potential.tableProjectFactorized(evidenceCase, inferenceOptions, projectedTablePotentials) :
+						potential.tableProject(evidenceCase, inferenceOptions, projectedTablePotentials);
+				projectedTablePotentials.addAll(potentials);
+				projectedPotentials.addAll(potentials);
+			}
+		}
+		return projectedPotentials;
+	}
+
 	/**
 	 * Get all the potentials in the network (constant or nodes potentials)
 	 *
@@ -746,22 +824,10 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 */
 	public List<Potential> getPotentials(Variable variable) {
 		List<Potential> potentials = new ArrayList<>();
-		Node node = getNode(variable);
-		// potentials associated to this node
-		if (node != null) { // Variable exists in this ProbNet
-			// potentials in neighbors that contains variable
-			Set<Node> semiNeighbors = new LinkedHashSet<Node>(getNeighbors(node));
-			semiNeighbors.add(node);
-			List<Node> children = getChildren(node);
-			for (Node child : children) {
-				semiNeighbors.addAll(child.getParents());
-			}
-			for (Node neighbor : semiNeighbors) {
-				List<Potential> nodePotentials = neighbor.getPotentials();
-				for (Potential potential : nodePotentials) {
-					if (potential.contains(variable)) {
-						potentials.add(potential);
-					}
+		if (getNode(variable) != null) { // Variable exists in this ProbNet
+			for (NodePotential nodePotential : getPotentialDepot().getPotentials(variable)) {
+				if (nodePotential.potential.contains(variable)) {
+					potentials.add(nodePotential.potential);
 				}
 			}
 		}
@@ -835,13 +901,10 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 * {@code variable}.
 	 */
 	public List<Potential> getProbPotentials(Variable variable) {
-		Node nodeVariable = getNode(variable);
-		List<Node> allNodes = getNeighbors(nodeVariable);
-		allNodes.add(nodeVariable);
 		List<Potential> potentialsVariable = new ArrayList<>();
-		for (Node node : allNodes) {
-			List<Potential> potentialsNode = node.getPotentials();
-			for (Potential potential : potentialsNode) {
+		if (getNode(variable) != null) {
+			for (NodePotential nodePotential : getPotentialDepot().getPotentials(variable)) {
+				Potential potential = nodePotential.potential;
 				if ((potential.getVariables().contains(variable))
 						&& potential.getVariable(0).getDecisionCriterion() == null
 						&& potential.getCriterion() == null) {
@@ -865,13 +928,11 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 * {@code variable}.
 	 */
 	public List<Potential> getUtilityPotentials(Variable variable) {
-		Node nodeVariable = getNode(variable);
-		List<Node> allNodes = getNeighbors(nodeVariable);
-		allNodes.add(nodeVariable);
 		List<Potential> potentialsVariable = new ArrayList<>();
-		for (Node node : allNodes) {
-			List<Potential> potentialsNode = node.getPotentials();
-			for (Potential potential : potentialsNode) {
+		if (getNode(variable) != null) {
+			for (NodePotential nodePotential : getPotentialDepot().getPotentials(variable)) {
+				Potential potential = nodePotential.potential;
+				Node node = nodePotential.node;
 				List<Variable> variables = potential.getVariables();
 				if (variables.contains(variable)
 						&& (potential.getCriterion() != null || (node.nodeType.equals(NodeType.UTILITY)
@@ -893,6 +954,15 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 */
 	public Node removePotential(Potential potential) {
 		List<Variable> variables = potential.getVariables();
+		if (variables.size() > 0) {
+			for (NodePotential nodePotential : getPotentialDepot().getPotentials(variables.get(0))) {
+				if (nodePotential.potential == potential) {
+					Node node = nodePotential.node;
+					node.removePotential(potential);
+					return node;
+				}
+			}
+		}
 		List<Node> candidateNodes = new ArrayList<>();
 		// gets nodes that could contain the potential
 		if (variables.size() == 0) {// Constant potentials can be in any
@@ -941,7 +1011,7 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 		Variable variable = node.getVariable();
 		nodes.add(node);
 		// and its siblings
-		nodes.addAll(getSiblings(node));
+		nodes.addAll(getSiblingsView(node));
 		// for each node extract its potentials ...
 		for (Node otherNode : nodes) {
 			List<Potential> potentialsNode = new ArrayList<>(otherNode.getPotentials());
@@ -991,8 +1061,12 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 * reinsert a Node that has been removed.
 	 */
 	@Override public void addNode(Node node) {
+		boolean isNewNode = !isNodeOfThisNet(node);
 		super.addNode(node);
 		nodeDepot.addNode(node);
+		if (potentialDepot != null && isNewNode) {
+			potentialDepot.addPotentials(node);
+		}
 	}
 
 	/**
@@ -1251,10 +1325,61 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 	 * @param node {@code Node}
 	 */
 	public void removeNode(Node node) {
+		if (potentialDepot != null && isNodeOfThisNet(node)) {
+			potentialDepot.removePotentials(node);
+		}
 		super.removeNode(node);
 		nodeDepot.removeNode(node);
 	}
 
+	/**
+	 * @param node {@code Node}
+	 * @return {@code true} if {@code node} is the node of its variable in this network
+	 */
+	private boolean isNodeOfThisNet(Node node) {
+		return nodeDepot.getNode(node.getNodeType(), node.getVariable()) == node;
+	}
+
+	/**
+	 * @return The index of the potentials of each variable, which is created when it is first requested
+	 */
+	private PotentialDepot getPotentialDepot() {
+		PotentialDepot depot = potentialDepot;
+		if (depot == null) {
+			// Concurrent readers may build it more than once, but each one only publishes a complete index
+			depot = new PotentialDepot();
+			for (Node node : getNodes()) {
+				depot.addPotentials(node);
+			}
+			potentialDepot = depot;
+		}
+		return depot;
+	}
+
+	/**
+	 * Called by {@code node} when {@code potential} is added to it.
+	 *
+	 * @param node      {@code Node}
+	 * @param potential {@code Potential}
+	 */
+	void potentialAdded(Node node, Potential potential) {
+		if (potentialDepot != null && isNodeOfThisNet(node)) {
+			potentialDepot.addPotential(node, potential);
+		}
+	}
+
+	/**
+	 * Called by {@code node} when {@code potential} is removed from it.
+	 *
+	 * @param node      {@code Node}
+	 * @param potential {@code Potential}
+	 */
+	void potentialRemoved(Node node, Potential potential) {
+		if (potentialDepot != null && isNodeOfThisNet(node)) {
+			potentialDepot.removePotential(node, potential);
+		}
+	}
+
 	/**
 	 * @param variable1 {@code Variable}
 	 * @param variable2 {@code Variable}
@@ -1486,7 +1611,7 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 
 		// Add new potentials and update list of neighbours
 		for (Node node : nodes) {
-			List<Node> neighbours = this.getNeighbors(node);
+			List<Node> neighbours = this.getNeighborsView(node);
 			for (Node neighbour : neighbours) {
 				try {
 					// TODO - Problem?
@@ -1541,14 +1666,14 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 			for (Node node : nodes) {
 				try {
 					Node copyNode = copyNet.getNode(node.getVariable().getName());
-					List<Node> siblings = getSiblings(node);
+					List<Node> siblings = getSiblingsView(node);
 					for (Node sibling : siblings) {
 						Node copySibling = copyNet.getNode(sibling.getVariable().getName());
 						if (!copyNet.isSibling(copyNode, copySibling)) {
 							copyNet.addLink(copyNode, copySibling, false);
 						}
 					}
-					List<Node> children = getChildren(node);
+					List<Node> children = getChildrenView(node);
 					for (Node child : children) {
 						Node copyChild = copyNet.getNode(child.getVariable().getName());
 						copyNet.addLink(copyNode, copyChild, true);
@@ -16,6 +16,7 @@ import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.inference.PartialOrderDAN;
+import org.openmarkov.core.model.graph.FrozenGraph;
 import org.openmarkov.core.model.graph.Link;
 import org.openmarkov.core.model.network.modelUncertainty.UncertainValue;
 import org.openmarkov.core.model.network.potential.Potential;
@@ -50,11 +51,12 @@ public class ProbNetOperations {
 	 * Performs prune operation in these steps:
 	 *
 	 * <ol>
-	 * <li>Copy the received {@code ProbNet}.
-	 * <li>Remove barren nodes from the copied {@code ProbNet}.
-	 * <li>Remove unreachable nodes from {@code variablesOfInterest} given
-	 * the {@code variablesOfEvidence}.
+	 * <li>Find the barren nodes of the received {@code ProbNet}.
+	 * <li>Find the nodes that are reachable from {@code variablesOfInterest}
+	 * given the {@code variablesOfEvidence} once the barren nodes are removed.
+	 * <li>Copy only the reachable nodes.
 	 * </ol>
+	 * The received {@code ProbNet} is not modified.
 	 *
 	 * @param probNet Network
 	 * @param evidence Evidence
@@ -63,12 +65,12 @@ public class ProbNetOperations {
 	 * connections
 	 */
 	public static ProbNet getPruned(ProbNet probNet, Collection<Variable> variablesOfInterest, EvidenceCase evidence) {
-		ProbNet prunedProbNet = probNet.copy();
 		HashSet<Variable> variablesOfInterest2 = new HashSet<>(variablesOfInterest);
 		HashSet<Variable> variablesOfEvidence2 = new HashSet<>(evidence.getVariables());
-		prunedProbNet = removeBarrenNodes(prunedProbNet, variablesOfInterest2, variablesOfEvidence2);
-		prunedProbNet = removeUnreachableNodes(prunedProbNet, variablesOfInterest2, variablesOfEvidence2);
-		return prunedProbNet;
+		// The nodes to keep are found in probNet itself, so only those nodes are copied
+		Set<Node> barrenNodes = getBarrenNodes(probNet, variablesOfInterest2, variablesOfEvidence2);
+		Set<Node> nodesToKeep = getReachableNodes(probNet, variablesOfInterest2, variablesOfEvidence2, barrenNodes);
+		return probNet.copy(nodesToKeep);
 	}
 
 	/**
@@ -114,9 +116,13 @@ public class ProbNetOperations {
 	 * other than those in {@code nodeList}
 	 */
 	public static boolean hasNeighborsOutside(ProbNet probNet, Node node, Collection<Node> nodes) {
-		boolean hasNeighborsOutside = false;
+		return hasNodesOutside(probNet.getChildrenView(node), nodes) || hasNodesOutside(probNet.getParentsView(node),
+				nodes) || hasNodesOutside(probNet.getSiblingsView(node), nodes);
+	}
+
+	private static boolean hasNodesOutside(List<Node> neighbors, Collection<Node> nodes) {
 		boolean neighborIsInList; // aux for the for-loop
-		for (Node neighbor : probNet.getNeighbors(node)) {
+		for (Node neighbor : neighbors) {
 			neighborIsInList = false;
 			for (Node cliqueNode : nodes) {
 				if (neighbor == cliqueNode) {
@@ -125,11 +131,10 @@ public class ProbNetOperations {
 				}
 			}
 			if (!neighborIsInList) {
-				hasNeighborsOutside = true;
-				break;
+				return true;
 			}
 		}
-		return hasNeighborsOutside;
+		return false;
 	}
 
 	/**
@@ -147,8 +152,22 @@ public class ProbNetOperations {
 	 */
 	public static ProbNet removeBarrenNodes(ProbNet prunedProbNet, Collection<Variable> variablesOfInterest,
 			HashSet<Variable> variablesOfEvidence) {
+		for (Node node : getBarrenNodes(prunedProbNet, variablesOfInterest, variablesOfEvidence)) {
+			prunedProbNet.removeNode(node);
+		}
+		return prunedProbNet;
+	}
+
+	/**
+	 * @param probNet             Network, which is not modified
+	 * @param variablesOfInterest Variables of interest
+	 * @param variablesOfEvidence Variables of evidence
+	 * @return The nodes that {@link #removeBarrenNodes(ProbNet, Collection, HashSet)} would remove
+	 */
+	private static Set<Node> getBarrenNodes(ProbNet probNet, Collection<Variable> variablesOfInterest,
+			HashSet<Variable> variablesOfEvidence) {
 		HashSet<Node> barrenNodes = new HashSet<>();
-		List<Node> nodes = prunedProbNet.getNodes();
+		List<Node> nodes = probNet.getNodes();
 		for (Node node : nodes) {
 			if (node.getNumChildren() == 0) {
 				Variable variable = node.getVariable();
@@ -164,12 +183,12 @@ public class ProbNetOperations {
 			List<Node> listNewBarrenNodes = new ArrayList<>(newBarrenNodes);
 			for (Node node : listNewBarrenNodes) {
 				newBarrenNodes.remove(node);
-				List<Node> parents = node.getParents();
+				List<Node> parents = node.getParentsView();
 				for (Node parent : parents) {
 					Variable parentVariable = parent.getVariable();
 					if (!variablesOfInterest.contains(parentVariable) && !variablesOfEvidence.contains(parentVariable)
 							&& !barrenNodes.contains(parent)) {
-						List<Node> childrenOfParent = parent.getChildren();
+						List<Node> childrenOfParent = parent.getChildrenView();
 						boolean allChildrenBarren = true;
 						int numChildren = childrenOfParent.size();
 						if (numChildren > 1) { // at least one children is
@@ -190,11 +209,7 @@ public class ProbNetOperations {
 				barrenNodes.addAll(newBarrenNodes);
 			}
 		}
-		// Remove barren nodes
-		for (Node node : barrenNodes) {
-			prunedProbNet.removeNode(node);
-		}
-		return prunedProbNet;
+		return barrenNodes;
 	}
 
 	/**
@@ -208,6 +223,32 @@ public class ProbNetOperations {
 	 */
 	public static ProbNet removeUnreachableNodes(ProbNet probNet, Collection<Variable> variablesOfInterest,
 			HashSet<Variable> variablesOfEvidence) {
+		Set<Node> nodesToKeep = getReachableNodes(probNet, variablesOfInterest, variablesOfEvidence,
+				Collections.<Node>emptySet());
+		// remove nodes that are not in nodesToKeep in prunedProbNet
+		List<Node> prunedNodes = probNet.getNodes();
+		for (Node node : prunedNodes) {
+			if (!nodesToKeep.contains(node)) {
+				probNet.removeNode(node);
+			}
+		}
+
+		return probNet;
+	}
+
+	/**
+	 * Finds the nodes that {@link #removeUnreachableNodes(ProbNet, Collection, HashSet)} would keep if
+	 * {@code removedNodes} had been removed before.
+	 *
+	 * @param probNet             Network, which is not modified
+	 * @param variablesOfInterest Variables of interest
+	 * @param variablesOfEvidence Variables of evidence
+	 * @param removedNodes        Nodes considered as removed, which can be neither of interest nor ancestors of the
+	 *                            evidence, as barren nodes
+	 * @return The nodes connected to the variables of interest
+	 */
+	private static Set<Node> getReachableNodes(ProbNet probNet, Collection<Variable> variablesOfInterest,
+			HashSet<Variable> variablesOfEvidence, Set<Node> removedNodes) {
 		// Gets nodes of interest and adds nodes connected to them
 		UniqueStack<Node> nodesToExplore = new UniqueStack<>();
 		Set<Node> nodesToKeep = new HashSet<>();
@@ -221,7 +262,7 @@ public class ProbNetOperations {
 		// nodesToExplore
 		HashSet<Node> nodesToKeepClon = new HashSet<>(nodesToKeep);
 		for (Node node : nodesToKeepClon) {
-			List<Node> neighbors = node.getNeighbors();
+			List<Node> neighbors = withoutNodes(node.getNeighborsView(), removedNodes);
 			for (Node neighbor : neighbors) {
 				if (!nodesToKeep.contains(neighbor)) {
 					nodesToKeep.add(neighbor);
@@ -241,7 +282,7 @@ public class ProbNetOperations {
 			// Find head to head connected nodes: X->Y<-Z and
 			// Y is evidence or Y has a descendent that is evidence
 			if (evidenceAndAncestors.contains(node)) {
-				List<Node> parents = node.getParents();
+				List<Node> parents = withoutNodes(node.getParentsView(), removedNodes);
 				int parentsSize = parents.size();
 				for (int i = 0; i < parentsSize - 1; i++) {
 					Node parentI = parents.get(i);
@@ -259,7 +300,7 @@ public class ProbNetOperations {
 				}
 			}
 			// X has a children Y that is part of the evidence
-			List<Node> xChildren = node.getChildren();
+			List<Node> xChildren = withoutNodes(node.getChildrenView(), removedNodes);
 			for (Node child : xChildren) {
 				if (evidenceAndAncestors.contains(child)) {
 					pushInExploreAndAddToKeep(child, nodesToExplore, nodesToKeep);
@@ -269,8 +310,8 @@ public class ProbNetOperations {
 			// Find not head to head connected nodes:
 			// X->Y->Z, X<-Y<-Z and X<-Y->Z
 			if (!hashEvidenceNodes.contains(node)) {
-				List<Node> children = node.getChildren();
-				List<Node> parents = node.getParents();
+				List<Node> children = withoutNodes(node.getChildrenView(), removedNodes);
+				List<Node> parents = withoutNodes(node.getParentsView(), removedNodes);
 				int numChildren = children.size();
 				for (int i = 0; i < numChildren; i++) {
 					Node child = children.get(i);
@@ -301,15 +342,25 @@ public class ProbNetOperations {
 			}
 		}
 
-		// remove nodes that are not in nodesToKeep in prunedProbNet
-		List<Node> prunedNodes = probNet.getNodes();
-		for (Node node : prunedNodes) {
-			if (!nodesToKeep.contains(node)) {
-				probNet.removeNode(node);
+		return nodesToKeep;
+	}
+
+	/**
+	 * @param nodes        Neighbors of a node
+	 * @param removedNodes Nodes considered as removed
+	 * @return {@code nodes} without {@code removedNodes}
+	 */
+	private static List<Node> withoutNodes(List<Node> nodes, Set<Node> removedNodes) {
+		if (removedNodes.isEmpty()) {
+			return nodes;
+		}
+		List<Node> remainingNodes = new ArrayList<>(nodes.size());
+		for (Node node : nodes) {
+			if (!removedNodes.contains(node)) {
+				remainingNodes.add(node);
 			}
 		}
-
-		return probNet;
+		return remainingNodes;
 	}
 
 	/**
@@ -351,7 +402,7 @@ public class ProbNetOperations {
 
 		while (!noExploredNodes.empty()) {
 			Node node = noExploredNodes.pop();
-			List<Node> parents = node.getParents();
+			List<Node> parents = node.getParentsView();
 			for (Node parent : parents) {
 				if (ancestors.add(parent)) {
 					noExploredNodes.push(parent);
@@ -386,37 +437,38 @@ public class ProbNetOperations {
 	 * @return List of variables sorted topologically
 	 */
 	public static List<Node> sortTopologically(ProbNet probNet) {
-		ProbNet graph = probNet.copy();
+		FrozenGraph<Node> graph = probNet.freeze();
+		int numNodes = graph.getNumNodes();
+		// Number of incoming edges not yet removed
+		int[] numParents = new int[numNodes];
 
 		// Empty list that will contain the sorted elements
-		Stack<Node> stackOrderedNodes = new Stack<>();
+		int[] stackOrderedNodes = new int[numNodes];
+		int stackSize = 0;
 		// Set of all nodes with no incoming edges
-		List<Node> noEdgesListOfNodes = new ArrayList<>();
+		List<Node> sortedNodes = new ArrayList<>(numNodes);
 		// Look for variables/nodes with no parents
-		for (Node node : graph.getNodes()) {
-			if (node.getParents().size() == 0) {
-				stackOrderedNodes.push(node);
+		for (int node = 0; node < numNodes; node++) {
+			numParents[node] = graph.getNumParents(node);
+			if (numParents[node] == 0) {
+				stackOrderedNodes[stackSize++] = node;
 			}
 		}
-		while (!stackOrderedNodes.isEmpty()) {
+		while (stackSize > 0) {
 			// remove a node from stack
-			Node nodeOrdered = stackOrderedNodes.pop();
+			int nodeOrdered = stackOrderedNodes[--stackSize];
 			// insert int into no edges list of nodes
-			noEdgesListOfNodes.add(nodeOrdered);
+			sortedNodes.add(graph.getNode(nodeOrdered));
 			// for each node  with an edge e from n to m do
-			for (Node childOfOrdered : nodeOrdered.getChildren()) {
-				// remove edges from childOfOrdered to its children
-				graph.removeLink(nodeOrdered, childOfOrdered, true);
-				// if the node has no other incoming edges then insert it into the stack of ordered nodes
-				if (childOfOrdered.getParents().isEmpty()) {
-					stackOrderedNodes.push(childOfOrdered);
+			for (int i = 0; i < graph.getNumChildren(nodeOrdered); i++) {
+				int childOfOrdered = graph.getChild(nodeOrdered, i);
+				// remove edges from childOfOrdered to its children and, if the node has no other incoming edges,
+				// insert it into the stack of ordered nodes
+				if (--numParents[childOfOrdered] == 0) {
+					stackOrderedNodes[stackSize++] = childOfOrdered;
 				}
 			}
 		}
-
-		List<Node> sortedNodes = new ArrayList<>();
-		for (Node node : noEdgesListOfNodes)
-			sortedNodes.add(probNet.getNode(node.getVariable()));
 		return sortedNodes;
 	}
 
@@ -775,7 +827,7 @@ public class ProbNetOperations {
 					parentNodes.push(decisionNode);
 					while (!hasParentDecisions && !parentNodes.isEmpty()) {
 						Node node = parentNodes.pop();
-						List<Node> parents = node.getParents();
+						List<Node> parents = node.getParentsView();
 						int i = 0;
 						while (i < parents.size() && !hasParentDecisions) {
 							Node parentNode = parents.get(i++);
@@ -847,7 +899,7 @@ public class ProbNetOperations {
 			Node nodeToProcess = probNet.getNode(variableToProcess);
 
 			//Process children in the graph
-			for (Node child : nodeToProcess.getChildren()) {
+			for (Node child : nodeToProcess.getChildrenView()) {
 				if (!observable.contains(child)) {
 					boolean isFound = false;
 					List<Link<Node>> links = probNet.getLinks();
@@ -865,7 +917,7 @@ public class ProbNetOperations {
 			if (nodeToProcess.getNodeType() == NodeType.DECISION) {
 				visitedDecisions.add(variableToProcess);
 				//Process the children of the decision in the partial order that we have not still visited
-				for (Node childNodeInOrder : order.getOrder().getNode(variableToProcess).getChildren()) {
+				for (Node childNodeInOrder : order.getOrder().getNode(variableToProcess).getChildrenView()) {
 					Variable varChild = childNodeInOrder.getVariable();
 					if (!visitedDecisions.contains(varChild)) {
 						variablesToProcess.add(varChild);
@@ -892,7 +944,7 @@ public class ProbNetOperations {
 			parentNodes.push(parent);
 			while (!hasParentDecisions && !parentNodes.isEmpty()) {
 				Node node = parentNodes.pop();
-				List<Node> parents = node.getParents();
+				List<Node> parents = node.getParentsView();
 				int i = 0;
 				while (i < parents.size() && !hasParentDecisions) {
 					Node parentNode = (Node) parents.get(i++);
@@ -937,7 +989,7 @@ public class ProbNetOperations {
 		while (!found && !predecessors.isEmpty()) {
 			Node predecessor = predecessors.pop();
 			found = !predecessor.equals(node) && predecessor.getNodeType() == NodeType.DECISION;
-			for (Node parent : predecessor.getParents()) {
+			for (Node parent : predecessor.getParentsView()) {
 				predecessors.push(parent);
 			}
 		}
@@ -955,7 +1007,7 @@ public class ProbNetOperations {
 		List<Node> predecessorDecisions = new ArrayList<>();
 		Stack<Node> predecessors = new Stack<>();
 		// push first the parents of node
-		for (Node parent : node.getParents()) {
+		for (Node parent : node.getParentsView()) {
 			predecessors.push(parent);
 		}
 		// loop until we have processed all predecessors
@@ -964,7 +1016,7 @@ public class ProbNetOperations {
 			if (predecessor.getNodeType() == NodeType.DECISION) {
 				predecessorDecisions.add(predecessor);
 			} else {
-				for (Node parent : predecessor.getParents()) {
+				for (Node parent : predecessor.getParentsView()) {
 					predecessors.push(parent);
 				}
 			}
@@ -1080,7 +1132,7 @@ public class ProbNetOperations {
 
 		while (!noExploredNodes.empty()) {
 			Node noExploredNode = noExploredNodes.pop();
-			List<Node> parents = noExploredNode.getParents();
+			List<Node> parents = noExploredNode.getParentsView();
 			for (Node parent : parents) {
 				if (ancestors.add(parent)) {
 					noExploredNodes.push(parent);
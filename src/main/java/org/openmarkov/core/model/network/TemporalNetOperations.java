@@ -148,9 +148,17 @@ public class TemporalNetOperations {
 	}
 
 	/**
+	 * Adds to the network a copy of the nodes of the last slice shifted one slice forward, with their potentials and
+	 * links, and appends the new slice to {@code classifiedNodes}. Only the last slice and the ones its potentials
+	 * refer to need to be in the network, so the earlier slices may have been removed.
 	 * Condition: extendedNet in this class must be a compact net
+	 *
+	 * @param probNet         Compact network
+	 * @param classifiedNodes Nodes of the network classified by slices, as returned by
+	 *                        {@link #compactNetwork(ProbNet)}
+	 * @return The nodes of the new slice
 	 */
-	private static void generateNextSlice(ProbNet probNet, List<List<Node>> classifiedNodes) {
+	public static List<Node> generateNextSlice(ProbNet probNet, List<List<Node>> classifiedNodes) {
 		List<Node> lastSliceNodes = classifiedNodes.get(classifiedNodes.size() - 1);
 		List<Node> newSliceNodes = new ArrayList<>();
 		// generates the new nodes
@@ -175,6 +183,7 @@ public class TemporalNetOperations {
 			}
 		}
 		classifiedNodes.add(newSliceNodes);
+		return newSliceNodes;
 	}
 
 	/**
@@ -206,7 +215,7 @@ public class TemporalNetOperations {
 		    // Create a blueprint potential
             List<Variable> variables = new ArrayList<>();
             variables.add(oldNode.getVariable());
-            for (Node parent : oldNode.getParents()) {
+            for (Node parent : oldNode.getParentsView()) {
                 variables.add(parent.getVariable());
             }
             TablePotential blueprint = new TablePotential(variables, PotentialRole.POLICY);
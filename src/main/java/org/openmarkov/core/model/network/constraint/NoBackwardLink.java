@@ -30,7 +30,7 @@ import java.util.List;
 				// If the node is temporal
 				if (probNet.getVariable(node.getName()).isTemporal()) {
 					// We retrieve its children
-					List<Node> children = probNet.getChildren(node);
+					List<Node> children = probNet.getChildrenView(node);
 					// and we iterate over them
 					for (Node child : children) {
 						// checking if there is any not allowed link
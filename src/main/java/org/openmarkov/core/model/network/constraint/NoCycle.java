@@ -23,7 +23,7 @@ import java.util.List;
 
 	@Override public boolean checkProbNet(ProbNet probNet) {
 		for (Node parent : probNet.getNodes()) {
-			List<Node> children = probNet.getChildren(parent);
+			List<Node> children = probNet.getChildrenView(parent);
 			for (Node child : children) {
 				if (probNet.existsPath(child, parent, true)) {
 					return false;
@@ -36,7 +36,7 @@ public class NoMixedParents extends PNConstraint {
 		int i = 0;
 		int numUtilityNodes = utilityNodes.size();
 		while (i < numUtilityNodes && metCondition) {
-			List<Node> parents = probNet.getParents(utilityNodes.get(i++));
+			List<Node> parents = probNet.getParentsView(utilityNodes.get(i++));
 			int numParents = parents.size();
 			boolean utilityParent = false;
 			boolean chanceOrDecisionParent = false;
@@ -91,7 +91,7 @@ public class NoMixedParents extends PNConstraint {
 		boolean chanceOrDecisionParent = parentNode.getNodeType() == NodeType.DECISION
 				|| parentNode.getNodeType() == NodeType.CHANCE;
 
-		for (Node parent : probNet.getParents(childNode)) {
+		for (Node parent : probNet.getParentsView(childNode)) {
 			NodeType parentNodeType = parent.getNodeType();
 			utilityParent |= parentNodeType == NodeType.UTILITY;
 			chanceOrDecisionParent |= parentNodeType == NodeType.CHANCE || parentNodeType == NodeType.DECISION;
@@ -25,7 +25,7 @@ import java.util.List;
 	@Override public boolean checkProbNet(ProbNet probNet) {
 		List<Node> utilityNodes = probNet.getNodes(NodeType.UTILITY);
 		for (Node utilNode : utilityNodes) {
-			List<Node> children = probNet.getChildren(utilNode);
+			List<Node> children = probNet.getChildrenView(utilNode);
 			for (Node child : children) {
 				if (child.getNodeType() != NodeType.UTILITY) {
 					return false;
@@ -8,6 +8,7 @@
 package org.openmarkov.core.model.network.modelUncertainty;
 
 import cern.jet.random.Gamma;
+import cern.jet.random.engine.RandomEngine;
 import org.apache.commons.math3.distribution.GammaDistribution;
 
 import java.util.Random;
@@ -29,7 +30,8 @@ public abstract class GammaAbstract extends ProbDensFunction {
 	}
 
 	@Override public final double getSample(Random randomGenerator) {
-		return Gamma.staticNextDouble(kAbstract, 1.0 / thetaAbstract);
+		// Colt's shared generator would make the sample independent of randomGenerator
+		return new Gamma(kAbstract, 1.0 / thetaAbstract, new RandomEngineAdapter(randomGenerator)).nextDouble();
 	}
 
 	public boolean isAnErlangFunction(double epsilon) {
@@ -47,4 +49,20 @@ public abstract class GammaAbstract extends ProbDensFunction {
 				auxGammaDist.inverseCumulativeProbability(0.5 + halfP));
 	}
 
+	/**
+	 * Colt random engine that draws its numbers from a {@code Random}
+	 */
+	@SuppressWarnings("serial") private static class RandomEngineAdapter extends RandomEngine {
+
+		private final Random randomGenerator;
+
+		RandomEngineAdapter(Random randomGenerator) {
+			this.randomGenerator = randomGenerator;
+		}
+
+		@Override public int nextInt() {
+			return randomGenerator.nextInt();
+		}
+	}
+
 }
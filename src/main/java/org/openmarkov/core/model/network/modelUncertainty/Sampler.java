@@ -138,17 +138,36 @@ public abstract class Sampler {
 
 	protected double[] generateSample(List<UncertainValue> uncertainValues, int numStates,
 			List<Class<? extends ProbDensFunction>> functionTypes) {
+		return generateSample(uncertainValues, numStates, functionTypes, createRandomGenerator());
+	}
+
+	/**
+	 * @param uncertainValues Uncertain values of a column
+	 * @param numStates       Number of elements in the column
+	 * @param functionTypes   Probability density function types sampled jointly
+	 * @param randomGenerator Random generator used to draw the sample
+	 * @return The sampled column
+	 */
+	protected double[] generateSample(List<UncertainValue> uncertainValues, int numStates,
+			List<Class<? extends ProbDensFunction>> functionTypes, Random randomGenerator) {
 		createSamplerUncertainValues(uncertainValues, functionTypes);
 		return generateSample(samplerUncertainValues.otherFamily, samplerUncertainValues.dirFamily,
 				samplerUncertainValues.complementFamily, samplerUncertainValues.indexesOther,
-				samplerUncertainValues.indexesDirichlet, samplerUncertainValues.indexesComplement, numStates);
+				samplerUncertainValues.indexesDirichlet, samplerUncertainValues.indexesComplement, numStates,
+				randomGenerator);
 
 	}
 
 	protected double[] generateSample(FamilyDistribution otherFamily, DirichletFamily dirFamily,
 			ComplementFamily complementFamily, int[] indexesOther, int[] indexesDirichlet, int[] indexesComplement,
 			int numStates) {
-		Random randomGenerator = createRandomGenerator();
+		return generateSample(otherFamily, dirFamily, complementFamily, indexesOther, indexesDirichlet,
+				indexesComplement, numStates, createRandomGenerator());
+	}
+
+	protected double[] generateSample(FamilyDistribution otherFamily, DirichletFamily dirFamily,
+			ComplementFamily complementFamily, int[] indexesOther, int[] indexesDirichlet, int[] indexesComplement,
+			int numStates, Random randomGenerator) {
 		double[] sampleOther;
 		double[] sampleDir;
 		double massForComp;
@@ -168,8 +168,10 @@ public class SystematicSampling extends Sampler {
 		for (ParameterAnalysisInformation parameter : parameters) {
 			uncertainParameter = parameter.uncertainParameter;
 			if (uncertainParameter != null) {
-				String iterationVariableName = parameter.iterationVariableName;
-				Variable iterVariable = new Variable(iterationVariableName, numPoints);
+				Variable iterVariable = parameter.iterationVariable;
+				if (iterVariable == null) {
+					iterVariable = new Variable(parameter.iterationVariableName, numPoints);
+				}
 				Potential originalPotential = uncertainParameter.potential;
 				Potential newPotential = originalPotential.copy();
 				Potential originalSubPotential = uncertainParameter.subPotential;
@@ -276,6 +278,28 @@ public class SystematicSampling extends Sampler {
 		return SystematicSampling.sampleNetwork(originalNet, parameters, numIntervals);
 	}
 
+	/**
+	 * Same as {@link #sampleNetwork(ProbNet, UncertainParameter, double, double, int, String)}, but conditioning on
+	 * a given variable, whose number of states is the number of points. The networks built for several parameters
+	 * of the same potential with the same iteration variable have the same structure, so their evaluations can
+	 * reuse the elimination order and the operation plans.
+	 *
+	 * @param originalNet        Original network
+	 * @param uncertainParameter Uncertain parameter
+	 * @param min                Min
+	 * @param max                Max
+	 * @param iterationVariable  Conditioned variable
+	 * @return The sampled network
+	 */
+	public static ProbNet sampleNetwork(ProbNet originalNet, UncertainParameter uncertainParameter, double min,
+			double max, Variable iterationVariable) {
+		ParameterAnalysisInformation parameter = new ParameterAnalysisInformation(uncertainParameter, min, max,
+				iterationVariable.getName());
+		parameter.iterationVariable = iterationVariable;
+		return SystematicSampling.sampleNetwork(originalNet, Collections.singletonList(parameter),
+				iterationVariable.getNumStates() - 1);
+	}
+
 	public static ProbNet sampleNetwork(ProbNet originalNet, UncertainParameter uncertainParameter1, double min1,
 			double max1, UncertainParameter uncertainParameter2, double min2, double max2, int numIntervals,
 			String iterationVariableName1, String iterationVariableName2) {
@@ -413,6 +437,7 @@ public class SystematicSampling extends Sampler {
 		double min;
 		double max;
 		String iterationVariableName;
+		Variable iterationVariable;
 
 		public ParameterAnalysisInformation(UncertainParameter uncertainParameter, double min, double max,
 				String iterationVariableName) {
@@ -35,6 +35,17 @@ public class TablePotentialSampler extends Sampler {
 	 * @return A sampled potential table
 	 */
 	public TablePotential sample(TablePotential inputTablePotential, boolean isInsideOfExactDistrPotential) {
+		return sample(inputTablePotential, isInsideOfExactDistrPotential, createRandomGenerator());
+	}
+
+	/**
+	 * @param inputTablePotential           Potential to sample
+	 * @param isInsideOfExactDistrPotential true if the potential is the table of an {@code ExactDistrPotential}
+	 * @param randomGenerator               Random generator used to draw the sample
+	 * @return A sampled potential table, or {@code inputTablePotential} if it has no uncertain values
+	 */
+	public TablePotential sample(TablePotential inputTablePotential, boolean isInsideOfExactDistrPotential,
+			Random randomGenerator) {
 		TablePotential sampledTablePotential = null;
 		int inputTableSize;
 		List<Class<? extends ProbDensFunction>> functionTypes = initializeTypeFunctions();
@@ -62,7 +73,7 @@ public class TablePotentialSampler extends Sampler {
 				uncertainValues = getUncertainValuesChance(uTable, configurationBasePosition, numStates);
 				hasUncertainty = uncertainValues.get(0) != null;
 				if (hasUncertainty) {
-					sampledConfigurationValues = generateSample(uncertainValues, numStates, functionTypes);
+					sampledConfigurationValues = generateSample(uncertainValues, numStates, functionTypes, randomGenerator);
 					// copies the auxiliary them in the auxiliary vector
 					// 'sampledConfigurationValues'
 					copyInArray(sampledValues, configurationBasePosition, sampledConfigurationValues);
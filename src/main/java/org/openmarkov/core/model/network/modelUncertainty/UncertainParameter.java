@@ -62,6 +62,13 @@ public class UncertainParameter {
 		return !isProbabilityParameter();
 	}
 
+	/**
+	 * @return The potential where the uncertain value appears
+	 */
+	public Potential getPotential() {
+		return potential;
+	}
+
 	public String getName() {
 		return uncertainValue.getName();
 	}
@@ -17,9 +17,32 @@ import java.util.Random;
 	public XORShiftRandom() {
 	}
 
+	/**
+	 * @param seed initial seed; generators created with the same seed produce the same sequence
+	 */
+	public XORShiftRandom(long seed) {
+		setSeed(seed);
+	}
+
+	/**
+	 * Derives the seed of one of several independent streams from a master seed, so that the numbers drawn in
+	 * stream {@code stream} do not depend on the order in which the streams are used (SplitMix64 finalizer).
+	 *
+	 * @param seed   master seed
+	 * @param stream index of the stream
+	 * @return seed of the stream
+	 */
+	public static long getStreamSeed(long seed, long stream) {
+		long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
     @Override
     public void setSeed(long seed) {
-        this.seed = seed;
+		// A zero state would only generate zeros
+        this.seed = (seed == 0) ? 0x9E3779B97F4A7C15L : seed;
     }
 
     protected int next(int nbits) {
@@ -0,0 +1,518 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential;
+
+import net.sourceforge.jeval.EvaluationException;
+import net.sourceforge.jeval.Evaluator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A covariate or function written in the syntax of jeval, in which the variable {@code #{vi}} is the {@code double}
+ * in position {@code i} of the array of values. The expression is parsed once by {@link #compile(String)} into a
+ * tree of operations on {@code double}s, so evaluating it for each configuration of the variables neither formats
+ * nor parses strings.
+ * <p>
+ * Only the arithmetic part of the syntax is compiled: numbers, variables, parentheses, the operators {@code +},
+ * {@code -}, {@code *}, {@code /} and {@code %} and the mathematical functions of jeval except {@code random}.
+ * The other expressions, for example those with strings or with relational or boolean operators, are evaluated by
+ * jeval, so every expression gives the same result as before.
+ * <p>
+ * An expression cannot be evaluated by several threads at the same time.
+ */
+public abstract class CovariateExpression {
+
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("#\\{([^}]*)\\}");
+
+	// Attributes
+	protected final String expression;
+
+	/**
+	 * Position of each variable of the expression in the array of values, or -1 if its name is not of the form
+	 * {@code vi}
+	 */
+	private final int[] slots;
+
+	// Constructor
+	private CovariateExpression(String expression) {
+		this.expression = expression;
+		List<Integer> slotList = new ArrayList<>();
+		Matcher matcher = VARIABLE_PATTERN.matcher(expression);
+		while (matcher.find()) {
+			slotList.add(getSlot(matcher.group(1)));
+		}
+		slots = new int[slotList.size()];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = slotList.get(i);
+		}
+	}
+
+	// Methods
+
+	/**
+	 * @param expression expression in the syntax of jeval
+	 * @return The compiled expression. If it uses a part of the syntax that is not compiled, the expression is
+	 * evaluated by jeval.
+	 */
+	public static CovariateExpression compile(String expression) {
+		Operation operation = new Parser(expression).parse();
+		return (operation != null) ? new CompiledExpression(expression, operation) : new JevalExpression(expression);
+	}
+
+	/**
+	 * @param expressions expressions in the syntax of jeval
+	 * @return The compiled expressions
+	 */
+	public static CovariateExpression[] compile(String[] expressions) {
+		CovariateExpression[] compiledExpressions = new CovariateExpression[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			compiledExpressions[i] = compile(expressions[i]);
+		}
+		return compiledExpressions;
+	}
+
+	/**
+	 * @param name name of a variable
+	 * @return The position of the variable {@code vi} or -1 if the name is not of that form
+	 */
+	private static int getSlot(String name) {
+		if (name.length() < 2 || name.charAt(0) != 'v') {
+			return -1;
+		}
+		for (int i = 1; i < name.length(); i++) {
+			if (!Character.isDigit(name.charAt(i))) {
+				return -1;
+			}
+		}
+		try {
+			return Integer.parseInt(name.substring(1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @param firstSlot first position with a value
+	 * @param numSlots  number of positions of the array of values
+	 * @return {@code true} if every variable of the expression is {@code vi} with {@code firstSlot <= i < numSlots}
+	 */
+	public boolean hasValuesFor(int firstSlot, int numSlots) {
+		for (int slot : slots) {
+			if (slot < firstSlot || slot >= numSlots) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param values value of each variable {@code vi} in position {@code i}
+	 * @return The value of the expression
+	 * @throws EvaluationException when jeval cannot evaluate the expression
+	 */
+	public abstract double evaluate(double[] values) throws EvaluationException;
+
+	/**
+	 * @return {@code true} if the expression has been compiled, {@code false} if it is evaluated by jeval
+	 */
+	public abstract boolean isCompiled();
+
+	@Override public String toString() {
+		return expression;
+	}
+
+	/**
+	 * Expression compiled into a tree of operations
+	 */
+	private static class CompiledExpression extends CovariateExpression {
+
+		private final Operation operation;
+
+		private CompiledExpression(String expression, Operation operation) {
+			super(expression);
+			this.operation = operation;
+		}
+
+		@Override public double evaluate(double[] values) {
+			return operation.evaluate(values);
+		}
+
+		@Override public boolean isCompiled() {
+			return true;
+		}
+	}
+
+	/**
+	 * Expression evaluated by jeval with the values converted into strings
+	 */
+	private static class JevalExpression extends CovariateExpression {
+
+		private final Evaluator evaluator = new Evaluator();
+
+		private final Map<String, String> variableValues = new HashMap<>();
+
+		private JevalExpression(String expression) {
+			super(expression);
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			for (int i = 0; i < values.length; i++) {
+				variableValues.put("v" + i, String.valueOf(values[i]));
+			}
+			evaluator.setVariables(variableValues);
+			try {
+				return Double.parseDouble(evaluator.evaluate(expression));
+			} catch (NumberFormatException e) {
+				throw new EvaluationException(e.getMessage(), e);
+			}
+		}
+
+		@Override public boolean isCompiled() {
+			return false;
+		}
+	}
+
+	/**
+	 * Node of the tree of a compiled expression
+	 */
+	private interface Operation {
+
+		double evaluate(double[] values);
+	}
+
+	private static class Constant implements Operation {
+
+		private final double value;
+
+		private Constant(double value) {
+			this.value = value;
+		}
+
+		@Override public double evaluate(double[] values) {
+			return value;
+		}
+	}
+
+	private static class Slot implements Operation {
+
+		private final int slot;
+
+		private Slot(int slot) {
+			this.slot = slot;
+		}
+
+		@Override public double evaluate(double[] values) {
+			return values[slot];
+		}
+	}
+
+	private static class UnaryOperation implements Operation {
+
+		private final char operator;
+
+		private final Operation operand;
+
+		private UnaryOperation(char operator, Operation operand) {
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override public double evaluate(double[] values) {
+			double value = operand.evaluate(values);
+			return (operator == '-') ? -value : value;
+		}
+	}
+
+	private static class BinaryOperation implements Operation {
+
+		private final char operator;
+
+		private final Operation left;
+
+		private final Operation right;
+
+		private BinaryOperation(char operator, Operation left, Operation right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override public double evaluate(double[] values) {
+			double leftValue = left.evaluate(values);
+			double rightValue = right.evaluate(values);
+			switch (operator) {
+			case '+':
+				return leftValue + rightValue;
+			case '-':
+				return leftValue - rightValue;
+			case '*':
+				return leftValue * rightValue;
+			case '/':
+				return leftValue / rightValue;
+			default: // '%'
+				return leftValue % rightValue;
+			}
+		}
+	}
+
+	private static class FunctionCall implements Operation {
+
+		private final String function;
+
+		private final Operation[] arguments;
+
+		private FunctionCall(String function, Operation[] arguments) {
+			this.function = function;
+			this.arguments = arguments;
+		}
+
+		/**
+		 * @param function name of a function of jeval
+		 * @return Number of arguments of the function or -1 if it is not compiled
+		 */
+		private static int getNumArguments(String function) {
+			switch (function) {
+			case "abs":
+			case "acos":
+			case "asin":
+			case "atan":
+			case "ceil":
+			case "cos":
+			case "exp":
+			case "floor":
+			case "log":
+			case "rint":
+			case "round":
+			case "sin":
+			case "sqrt":
+			case "tan":
+			case "toDegrees":
+			case "toRadians":
+				return 1;
+			case "atan2":
+			case "IEEEremainder":
+			case "max":
+			case "min":
+			case "pow":
+				return 2;
+			default:
+				return -1;
+			}
+		}
+
+		@Override public double evaluate(double[] values) {
+			double x = arguments[0].evaluate(values);
+			switch (function) {
+			case "abs":
+				return Math.abs(x);
+			case "acos":
+				return Math.acos(x);
+			case "asin":
+				return Math.asin(x);
+			case "atan":
+				return Math.atan(x);
+			case "ceil":
+				return Math.ceil(x);
+			case "cos":
+				return Math.cos(x);
+			case "exp":
+				return Math.exp(x);
+			case "floor":
+				return Math.floor(x);
+			case "log":
+				return Math.log(x);
+			case "rint":
+				return Math.rint(x);
+			case "round":
+				return Math.round(x);
+			case "sin":
+				return Math.sin(x);
+			case "sqrt":
+				return Math.sqrt(x);
+			case "tan":
+				return Math.tan(x);
+			case "toDegrees":
+				return Math.toDegrees(x);
+			case "toRadians":
+				return Math.toRadians(x);
+			}
+			double y = arguments[1].evaluate(values);
+			switch (function) {
+			case "atan2":
+				return Math.atan2(x, y);
+			case "IEEEremainder":
+				return Math.IEEEremainder(x, y);
+			case "max":
+				return Math.max(x, y);
+			case "min":
+				return Math.min(x, y);
+			default: // "pow"
+				return Math.pow(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Recursive descent parser with the precedences of jeval. A unary operator applies to the operand that follows
+	 * it. It fails on the operators that are not compiled.
+	 */
+	private static class Parser {
+
+		private static final String[] BINARY_OPERATORS = { "+-", "*/%" };
+
+		private final String expression;
+
+		private int position;
+
+		private Parser(String expression) {
+			this.expression = expression;
+		}
+
+		/**
+		 * @return The tree of the expression or {@code null} if it cannot be compiled
+		 */
+		private Operation parse() {
+			Operation operation = parseBinary(0);
+			skipSpaces();
+			return (operation != null && position == expression.length()) ? operation : null;
+		}
+
+		private Operation parseBinary(int level) {
+			if (level == BINARY_OPERATORS.length) {
+				return parseUnary();
+			}
+			Operation operation = parseBinary(level + 1);
+			skipSpaces();
+			while (operation != null && position < expression.length()
+					&& BINARY_OPERATORS[level].indexOf(expression.charAt(position)) >= 0) {
+				char operator = expression.charAt(position++);
+				Operation right = parseBinary(level + 1);
+				operation = (right != null) ? new BinaryOperation(operator, operation, right) : null;
+				skipSpaces();
+			}
+			return operation;
+		}
+
+		private Operation parseUnary() {
+			skipSpaces();
+			if (position < expression.length()) {
+				char c = expression.charAt(position);
+				if (c == '-' || c == '+') {
+					position++;
+					skipSpaces();
+					// jeval does not allow consecutive unary operators
+					if (position < expression.length() && "-+!".indexOf(expression.charAt(position)) >= 0) {
+						return null;
+					}
+					Operation operand = parsePrimary();
+					return (operand != null) ? new UnaryOperation(c, operand) : null;
+				}
+			}
+			return parsePrimary();
+		}
+
+		private Operation parsePrimary() {
+			skipSpaces();
+			if (position == expression.length()) {
+				return null;
+			}
+			char c = expression.charAt(position);
+			if (c == '(') {
+				position++;
+				Operation operation = parseBinary(0);
+				skipSpaces();
+				if (operation == null || !startsWith(")")) {
+					return null;
+				}
+				position++;
+				return operation;
+			} else if (startsWith("#{")) {
+				int end = expression.indexOf('}', position);
+				int slot = (end >= 0) ? getSlot(expression.substring(position + 2, end)) : -1;
+				if (slot < 0) {
+					return null;
+				}
+				position = end + 1;
+				return new Slot(slot);
+			} else if (Character.isDigit(c) || c == '.') {
+				return parseNumber();
+			} else if (Character.isLetter(c)) {
+				return parseFunctionCall();
+			}
+			return null;
+		}
+
+		/**
+		 * Only numbers made of digits and a decimal point are compiled
+		 */
+		private Operation parseNumber() {
+			int start = position;
+			while (position < expression.length() && (
+					Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.'
+			)) {
+				position++;
+			}
+			if (position < expression.length() && Character.isLetter(expression.charAt(position))) {
+				return null;
+			}
+			try {
+				return new Constant(Double.parseDouble(expression.substring(start, position)));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private Operation parseFunctionCall() {
+			int start = position;
+			while (position < expression.length() && Character.isLetterOrDigit(expression.charAt(position))) {
+				position++;
+			}
+			String function = expression.substring(start, position);
+			int numArguments = FunctionCall.getNumArguments(function);
+			if (numArguments < 0 || !startsWith("(")) {
+				return null;
+			}
+			position++;
+			Operation[] arguments = new Operation[numArguments];
+			for (int i = 0; i < numArguments; i++) {
+				if (i > 0) {
+					skipSpaces();
+					if (!startsWith(",")) {
+						return null;
+					}
+					position++;
+				}
+				arguments[i] = parseBinary(0);
+				if (arguments[i] == null) {
+					return null;
+				}
+			}
+			skipSpaces();
+			if (!startsWith(")")) {
+				return null;
+			}
+			position++;
+			return new FunctionCall(function, arguments);
+		}
+
+		private boolean startsWith(String prefix) {
+			return expression.startsWith(prefix, position);
+		}
+
+		private void skipSpaces() {
+			while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+				position++;
+			}
+		}
+	}
+}
@@ -22,6 +22,7 @@ import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /** Wrapper for TablePotential */
 @PotentialType(name = "Exact") public class ExactDistrPotential extends Potential {
@@ -86,9 +87,9 @@ import java.util.List;
 		return projectedPotentials;
 	}
 
-	@Override public Potential sample() {
+	@Override public Potential sample(Random randomGenerator) {
 		ExactDistrPotential sampled = (ExactDistrPotential) copy();
-		sampled.tablePotential = (TablePotential) tablePotential.sample(true);
+		sampled.tablePotential = (TablePotential) tablePotential.sample(randomGenerator, true);
 		return sampled;
 	}
 
@@ -6,8 +6,6 @@
  */
 package org.openmarkov.core.model.network.potential;
 
-import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.InferenceOptions;
@@ -22,7 +20,6 @@ import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @PotentialType(name = "Exponential", family = "GLM") public class ExponentialPotential extends GLMPotential {
 
@@ -61,9 +58,10 @@ import java.util.Map;
 
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		// Fill arrays numericValues and evidencelessVariables
 		int constantIndex = getConstantIndex(covariates);
+		CovariateExpression[] compiledCovariates = CovariateExpression.compile(covariates);
 
 		List<Variable> projectedPotentialVariables = new ArrayList<>(evidencelessVariables);
 		TablePotential projectedPotential = null;
@@ -74,31 +72,20 @@ import java.util.Map;
 		int parentFirstIndex = (conditionedVariable == projectedPotentialVariables.get(0)) ? 1 : 0;
 		int[] offsets = projectedPotential.getOffsets();
 		int[] dimensions = projectedPotential.getDimensions();
-		Evaluator evaluator = new Evaluator();
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = parentFirstIndex; j < projectedPotentialVariables.size(); ++j) {
+			stateValues[j] = getStateValues(projectedPotentialVariables.get(j));
+		}
 		for (int i = 0; i < projectedPotential.values.length; i += numStates) {
 			// Set the values of variables without evidence
 			for (int j = parentFirstIndex; j < projectedPotentialVariables.size(); ++j) {
-				Variable variable = projectedPotentialVariables.get(j);
 				int index = (i / offsets[j]) % dimensions[j];
-				double value = index;
-				try {
-					value = Double.parseDouble(variable.getStates()[index].getName());
-				} catch (NumberFormatException e) {
-					// ignore
-				}
-				variableValues.put("v" + j, String.valueOf(value));
+				variableValues[j] = stateValues[j][index];
 			}
-			evaluator.setVariables(variableValues);
 			double regression = coefficients[constantIndex];
 			for (int j = 0; j < coefficients.length; ++j) {
-				double covariateValue = 0.0;
 				if (j != constantIndex) {
-					try {
-						covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
-					} catch (NumberFormatException | EvaluationException e) {
-						throw new NonProjectablePotentialException(e.getMessage());
-					}
-					regression += covariateValue * coefficients[j];
+					regression += evaluateCovariate(compiledCovariates[j], variableValues) * coefficients[j];
 				}
 			}
 			projectedPotential.values[i] = Math.exp(regression);
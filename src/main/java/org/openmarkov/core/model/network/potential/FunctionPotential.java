@@ -128,7 +128,7 @@ import java.util.Map;
 	 */
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		throw new NonProjectablePotentialException("Function potential cannot be projected to a table");
 
 	}
@@ -216,6 +216,14 @@ import java.util.Map;
 		return evaluator.evaluate(this.processedCovariates[0]);
 	}
 
+	/**
+	 * @return The function compiled, in which the variable {@code #{vi}} is the value in position {@code i}. It
+	 * must be compiled again if the function changes.
+	 */
+	public CovariateExpression compileFunction() {
+		return CovariateExpression.compile(this.processedCovariates[0]);
+	}
+
 	@Override
 	public Potential reorder(List<Variable> newOrderOfVariables) {
 		// TODO Auto-generated method stub
@@ -6,6 +6,7 @@
  */
 package org.openmarkov.core.model.network.potential;
 
+import net.sourceforge.jeval.EvaluationException;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
@@ -13,15 +14,13 @@ import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.Finding;
 import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.State;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.modelUncertainty.NormalFunction;
-import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 /**
@@ -198,7 +197,7 @@ public abstract class GLMPotential extends Potential {
 			List<TablePotential> projectedPotentials) throws NonProjectablePotentialException, WrongCriterionException {
 		double[] coefficients = (sampledCoefficients == null) ? this.coefficients : this.sampledCoefficients;
 		List<Variable> evidencelessVariables = new ArrayList<>();
-		Map<String, String> variableValues = new HashMap<>();
+		double[] variableValues = new double[variables.size()];
 		int firstParentVariableIndex = 1;
 		for (int i = firstParentVariableIndex; i < variables.size(); ++i) {
 			Variable variable = variables.get(i);
@@ -208,7 +207,6 @@ public abstract class GLMPotential extends Potential {
 							"Can not project potential with numeric variable " + variable.getName());
 				}
 				evidencelessVariables.add(variable);
-				variableValues.put("v" + i, "0.0");
 			} else {
 				double numericValue = 0;
 				Finding finding = evidenceCase.getFinding(variable);
@@ -224,24 +222,73 @@ public abstract class GLMPotential extends Potential {
 						// ignore
 					}
 				}
-				variableValues.put("v" + i, String.valueOf(numericValue));
+				variableValues[i] = numericValue;
 			}
 		}
 		return tableProject(evidenceCase, inferenceOptions, coefficients, processedCovariates, evidencelessVariables,
 				variableValues);
 	}
 
+	/**
+	 * @param evidenceCase          evidence
+	 * @param inferenceOptions      inference options
+	 * @param coefficients          coefficients, sampled or not
+	 * @param covariates            processed covariates
+	 * @param evidencelessVariables parents without evidence
+	 * @param variableValues        value of the parent in position {@code i} of the variables of the potential,
+	 *                              which is the variable {@code #{vi}} of the covariates. The values of the
+	 *                              parents without evidence are set for each configuration.
+	 * @return The projected potential
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException WrongCriterionException
+	 */
 	protected abstract List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException;
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException;
 
-	@Override public Potential sample() {
-		if (choleskyDecomposition != null) {
-			if (this.sampledCoefficients == null) {
-				this.sampledCoefficients = new double[coefficients.length];
+	/**
+	 * @param variable variable
+	 * @return The value that the covariates give to each state of {@code variable}: the number in the name of the
+	 * state or, if the name is not a number, the index of the state
+	 */
+	protected static double[] getStateValues(Variable variable) {
+		State[] states = variable.getStates();
+		double[] stateValues = new double[states.length];
+		for (int i = 0; i < states.length; i++) {
+			stateValues[i] = i;
+			try {
+				stateValues[i] = Double.parseDouble(states[i].getName());
+			} catch (NumberFormatException e) {
+				// ignore
 			}
+		}
+		return stateValues;
+	}
 
-			Random randomGenerator = new XORShiftRandom();
+	/**
+	 * @param covariate      compiled covariate
+	 * @param variableValues value of the variable {@code #{vi}} in position {@code i}
+	 * @return The value of the covariate
+	 * @throws NonProjectablePotentialException if the covariate contains variables other than the parents or it
+	 *                                          cannot be evaluated
+	 */
+	protected static double evaluateCovariate(CovariateExpression covariate, double[] variableValues)
+			throws NonProjectablePotentialException {
+		if (!covariate.hasValuesFor(1, variableValues.length)) {
+			throw new NonProjectablePotentialException("Unknown variable in covariate " + covariate);
+		}
+		try {
+			return covariate.evaluate(variableValues);
+		} catch (EvaluationException e) {
+			throw new NonProjectablePotentialException(e.getMessage());
+		}
+	}
+
+	@Override public Potential sample(Random randomGenerator) {
+		if (choleskyDecomposition != null) {
+			// The sampled coefficients are set in a copy, so that the potential can be sampled concurrently
+			GLMPotential sampled = (GLMPotential) copy();
+			double[] sampledCoefficients = new double[coefficients.length];
 			NormalFunction normalDistribution = new NormalFunction(0, 1);
 			double[] normalSamples = new double[coefficients.length];
 			for (int i = 0; i < normalSamples.length; ++i) {
@@ -258,6 +305,8 @@ public abstract class GLMPotential extends Potential {
 				}
 				sampledCoefficients[i] = value + coefficients[i];
 			}
+			sampled.sampledCoefficients = sampledCoefficients;
+			return sampled;
 		}
 		return this;
 	}
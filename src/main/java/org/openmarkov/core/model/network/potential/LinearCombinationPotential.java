@@ -6,8 +6,6 @@
  */
 package org.openmarkov.core.model.network.potential;
 
-import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 import org.openmarkov.core.exception.InvalidStateException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
@@ -23,7 +21,6 @@ import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @PotentialType(name = "Linear combination", family = "GLM", altNames = {
 		"Linear regression" }) public class LinearCombinationPotential extends GLMPotential {
@@ -63,10 +60,10 @@ import java.util.Map;
 
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		Variable conditionedVariable = getConditionedVariable();
 		int numStates = conditionedVariable.getNumStates();
-		Evaluator evaluator = new Evaluator();
+		CovariateExpression[] compiledCovariates = CovariateExpression.compile(covariates);
 		// Fill arrays numericValues and evidencelessVariables
 
 		int constantIndex = getConstantIndex(covariates);
@@ -79,30 +76,23 @@ import java.util.Map;
 		int[] offsets = projectedPotential.getOffsets();
 		int[] dimensions = projectedPotential.getDimensions();
 		int firstParentIndex = 1;
+		int[] variableIndices = new int[projectedPotentialVariables.size()];
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = firstParentIndex; j < projectedPotentialVariables.size(); ++j) {
+			Variable variable = projectedPotentialVariables.get(j);
+			variableIndices[j] = variables.indexOf(variable);
+			stateValues[j] = getStateValues(variable);
+		}
 		for (int i = 0; i < projectedPotential.values.length; i += numStates) {
 			// Set the values of variables without evidence
 			for (int j = firstParentIndex; j < projectedPotentialVariables.size(); ++j) {
-				Variable variable = projectedPotentialVariables.get(j);
 				int index = (i / offsets[j]) % dimensions[j];
-				double value = index;
-				try {
-					value = Double.parseDouble(variable.getStates()[index].getName());
-				} catch (NumberFormatException e) {
-					// ignore
-				}
-				variableValues.put("v" + variables.indexOf(variable), String.valueOf(value));
+				variableValues[variableIndices[j]] = stateValues[j][index];
 			}
-			evaluator.setVariables(variableValues);
 			double regression = coefficients[constantIndex];
 			for (int j = 0; j < coefficients.length; ++j) {
-				double covariateValue = 0.0;
 				if (j != constantIndex) {
-					try {
-						covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
-					} catch (NumberFormatException | EvaluationException e) {
-						throw new NonProjectablePotentialException(e.getMessage());
-					}
-					regression += covariateValue * coefficients[j];
+					regression += evaluateCovariate(compiledCovariates[j], variableValues) * coefficients[j];
 				}
 			}
 			try {
@@ -21,6 +21,7 @@ import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.State;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
 
 import java.lang.reflect.InvocationTargetException;
@@ -191,6 +192,12 @@ public abstract class Potential {
 		return new ArrayList<>(variables);
 	}
 
+	/**
+	 * The potentials stored in a node of a {@code ProbNet} are indexed by their variables, so they must be removed
+	 * from the node before changing their variables and added again afterwards.
+	 *
+	 * @param variables new variables
+	 */
 	public void setVariables(List<Variable> variables) {
 		this.variables = variables;
 	}
@@ -203,6 +210,13 @@ public abstract class Potential {
 		return variables.get(position);
 	}
 
+	/**
+	 * Replaces a variable of this potential. As in {@link #setVariables(List)}, a potential stored in a node of a
+	 * {@code ProbNet} must be removed from the node before the replacement.
+	 *
+	 * @param variableToReplace variable of this potential
+	 * @param variable          new variable
+	 */
 	public void replaceVariable(Variable variableToReplace, Variable variable) {
 		// TODO - Check if OOPN and ConditionalGaussian potential are still running
 		//        if (variableToReplace.equals (utilityVariable))
@@ -254,6 +268,39 @@ public abstract class Potential {
 		return tableProject(evidenceCase, inferenceOptions, new ArrayList<TablePotential>());
 	}
 
+	/**
+	 * Projects the potential without joining the factors into which it can be decomposed. The product of the
+	 * resulting potentials, after summing out the auxiliary variables that are not in this potential, is the
+	 * result of {@link #tableProject(EvidenceCase, InferenceOptions, List)}, which is what this method returns
+	 * unless it is overridden.
+	 *
+	 * @param evidenceCase               {@code EvidenceCase}
+	 * @param inferenceOptions           Inference options
+	 * @param alreadyProjectedPotentials {@code List} of already projected potentials
+	 * @throws WrongCriterionException WrongCriterionException
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @return List of potentials resulting from the projection
+	 */
+	public List<TablePotential> tableProjectFactorized(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
+			List<TablePotential> alreadyProjectedPotentials)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		return tableProject(evidenceCase, inferenceOptions, alreadyProjectedPotentials);
+	}
+
+	/**
+	 * Projects the potential into a representation that is not a table, such as a decision diagram, when that
+	 * representation is cheaper than the table returned by
+	 * {@link #tableProject(EvidenceCase, InferenceOptions, List)}.
+	 *
+	 * @param evidenceCase     {@code EvidenceCase}
+	 * @param inferenceOptions Inference options
+	 * @return The compact projection, or {@code null} when the potential must be projected into a table, which is
+	 * what this method returns unless it is overridden
+	 */
+	public Potential compactProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions) {
+		return null;
+	}
+
 	public Potential project(EvidenceCase evidenceCase)
 			throws WrongCriterionException, NonProjectablePotentialException {
 		throw new UnsupportedOperationException();
@@ -460,6 +507,17 @@ public abstract class Potential {
 	 * TODO This method must be commented further
 	 */
 	public Potential sample() {
+		return sample(new XORShiftRandom());
+	}
+
+	/**
+	 * Samples the potential with the given random generator, so that the sample can be reproduced by seeding it.
+	 * The potential is not modified.
+	 *
+	 * @param randomGenerator random generator
+	 * @return A sampled potential. By default, itself, i.e., not sampled.
+	 */
+	public Potential sample(Random randomGenerator) {
 		return this; // By default
 	}
 
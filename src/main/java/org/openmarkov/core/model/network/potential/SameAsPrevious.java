@@ -19,6 +19,7 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author marias
@@ -82,7 +83,7 @@ import java.util.List;
 		return originalPotential;
 	}
 
-	public Potential sample() {
+	@Override public Potential sample(Random randomGenerator) {
 		throw new IllegalArgumentException("SameAsPrevious potentials cannot be sampled.");
 	}
 
@@ -17,11 +17,33 @@ import org.openmarkov.core.model.network.potential.treeadd.Threshold;
 import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
 import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 
-// TODO Documentar la clase
+/**
+ * The strategy trees built by the static methods of this class and by {@link #concatenate(StrategyTree)} are
+ * canonical: there is only one instance of each canonical tree, so equal interventions in different cells of a
+ * {@code TablePotential} share the same object. Canonical trees must not be modified.
+ */
 public class StrategyTree extends TreeADDPotential {
 
+	// Attributes
+	/**
+	 * Canonical strategy trees. The table does not prevent the garbage collection of the trees that are no longer
+	 * used.
+	 */
+	private static final CanonicalStrategyTrees canonicalStrategyTrees = new CanonicalStrategyTrees();
+
+	/**
+	 * True when this tree has been returned by {@link #intern(StrategyTree)}
+	 */
+	private boolean canonical;
+
+	/**
+	 * Hash code of a canonical tree
+	 */
+	private int hashCode;
+
 	// Constructors
 	public StrategyTree(List<Variable> variables, Variable topVariable) {
 		super(variables, topVariable, PotentialRole.UNSPECIFIED);
@@ -200,7 +222,7 @@ public class StrategyTree extends TreeADDPotential {
 					// All interventions are equals
 					strategyTree = selectedStrategyTrees.get(0);
 				} else {
-					strategyTree = new StrategyTree(chanceVariable, selectedStates, selectedStrategyTrees);
+					strategyTree = intern(new StrategyTree(chanceVariable, selectedStates, selectedStrategyTrees));
 				}
 			}
 		}
@@ -248,9 +270,9 @@ public class StrategyTree extends TreeADDPotential {
 		StrategyTree strategyTree = null;
 		boolean severalOptimalInterventions = optimalStrategyTrees.size() > 1;
 		if (!coalescedInterventions) {
-			strategyTree = severalOptimalInterventions ?
+			strategyTree = intern(severalOptimalInterventions ?
 					new StrategyTree(decisionVariable, optimalStates, optimalStrategyTrees) :
-					new StrategyTree(decisionVariable, optimalStates, optimalStrategyTrees.get(0));
+					new StrategyTree(decisionVariable, optimalStates, optimalStrategyTrees.get(0)));
 		} else {
 			strategyTree = severalOptimalInterventions ?
 					new SDAGStrategyTree(decisionVariable, optimalStates, optimalStrategyTrees) :
@@ -290,11 +312,11 @@ public class StrategyTree extends TreeADDPotential {
 		StrategyTree strategyTree = null;
 		if (optimalStrategyTree != null) {
 			strategyTree = (!coalescedInterventions) ?
-					new StrategyTree(decisionVariable, optimalStates, optimalStrategyTree) :
+					intern(new StrategyTree(decisionVariable, optimalStates, optimalStrategyTree)) :
 					new SDAGStrategyTree(decisionVariable, optimalStates, optimalStrategyTree);
 		} else {
 			strategyTree = (!coalescedInterventions) ?
-					new StrategyTree(decisionVariable, optimalStates) :
+					intern(new StrategyTree(decisionVariable, optimalStates)) :
 					new SDAGStrategyTree(decisionVariable, optimalStates);
 
 		}
@@ -335,7 +357,7 @@ public class StrategyTree extends TreeADDPotential {
 		} else {
 			strategyTree = new StrategyTree(decisionVariable, optimalStates);
 		}
-		return strategyTree;
+		return intern(strategyTree);
 	}
 
 	private static boolean areNullOptimalInterventions(List<StrategyTree> strategyTrees) {
@@ -383,11 +405,11 @@ public class StrategyTree extends TreeADDPotential {
 		StrategyTree strategyTree = null;
 		if (optimalStrategyTree != null) {
 			strategyTree = (!coalescedInterventions) ?
-					new StrategyTree(decisionVariable, optimalStates, optimalStrategyTree) :
+					intern(new StrategyTree(decisionVariable, optimalStates, optimalStrategyTree)) :
 					new SDAGStrategyTree(decisionVariable, optimalStates, optimalStrategyTree);
 		} else {
 			strategyTree = (!coalescedInterventions) ?
-					new StrategyTree(decisionVariable, optimalStates) :
+					intern(new StrategyTree(decisionVariable, optimalStates)) :
 					new SDAGStrategyTree(decisionVariable, optimalStates);
 
 		}
@@ -442,24 +464,75 @@ public class StrategyTree extends TreeADDPotential {
 	}
 
 	/**
-	 * Add {@code Intervention} to edges of this intervention
+	 * Add {@code Intervention} to edges of this intervention. Neither this tree nor {@code strategyTree} are
+	 * modified: the result is a new canonical tree.
 	 *
 	 * @param strategyTree Strategy tree
 	 * @return A concatenated Strategy tree
 	 */
 	public StrategyTree concatenate(StrategyTree strategyTree) {
-		//
-		StrategyTree oldStrategyTree;
-		for (TreeADDBranch branch : branches) {
-			oldStrategyTree = (StrategyTree) branch.getPotential();
-			if (oldStrategyTree == null) {
-				branch.setPotential(strategyTree);
-			} else {
+		return strategyTree == null ? this : concatenate(strategyTree, new IdentityHashMap<>());
+	}
+
+	/**
+	 * @param strategyTree Strategy tree
+	 * @param concatenatedTrees Trees already concatenated, because a subtree can be shared by several branches
+	 * @return A concatenated Strategy tree
+	 */
+	private StrategyTree concatenate(StrategyTree strategyTree, Map<StrategyTree, StrategyTree> concatenatedTrees) {
+		StrategyTree concatenatedTree = concatenatedTrees.get(this);
+		if (concatenatedTree == null) {
+			concatenatedTree = new StrategyTree(topVariable);
+			for (TreeADDBranch branch : branches) {
 				StrategyTree branchStrategyTree = (StrategyTree) branch.getPotential();
-				branchStrategyTree = branchStrategyTree.concatenate(strategyTree);
+				branchStrategyTree = (branchStrategyTree == null) ?
+						strategyTree :
+						branchStrategyTree.concatenate(strategyTree, concatenatedTrees);
+				concatenatedTree.addBranch(branch.isIntervalBranch() ?
+						new TreeADDBranch(branch.getLowerBound(), branch.getUpperBound(), topVariable,
+								branchStrategyTree, null) :
+						new TreeADDBranch(new ArrayList<>(branch.getStates()), topVariable, branchStrategyTree,
+								null));
+			}
+			concatenatedTree.ensureThatAllVariablesAreIncluded();
+			concatenatedTree = intern(concatenatedTree);
+			concatenatedTrees.put(this, concatenatedTree);
+		}
+		return concatenatedTree;
+	}
+
+	/**
+	 * Returns the canonical tree equal to {@code strategyTree}; when there is none, a copy of {@code strategyTree}
+	 * whose subtrees are canonical becomes canonical. Neither {@code strategyTree} nor its subtrees are modified.
+	 * Coalesced interventions and trees with interval branches are returned as they are.
+	 *
+	 * @param strategyTree Strategy tree
+	 * @return The canonical tree equal to {@code strategyTree}
+	 */
+	public static StrategyTree intern(StrategyTree strategyTree) {
+		if (strategyTree == null || strategyTree.canonical || strategyTree.getClass() != StrategyTree.class) {
+			return strategyTree;
+		}
+		for (TreeADDBranch branch : strategyTree.branches) {
+			if (!branch.isStatesBranch()) {
+				return strategyTree;
 			}
 		}
-		return this;
+		return canonicalStrategyTrees.intern(strategyTree);
+	}
+
+	/**
+	 * @return A copy of this tree with canonical subtrees, ready to become canonical
+	 */
+	private StrategyTree copyWithCanonicalSubtrees() {
+		StrategyTree copy = new StrategyTree(new ArrayList<>(variables), topVariable);
+		for (TreeADDBranch branch : branches) {
+			copy.addBranch(new TreeADDBranch(new ArrayList<>(branch.getStates()), topVariable,
+					intern((StrategyTree) branch.getPotential()), branch.getParentVariables()));
+		}
+		copy.ensureThatAllVariablesAreIncluded();
+		copy.hashCode = copy.computeHashCode();
+		return copy;
 	}
 
 	public boolean cehasCycle() {
@@ -506,6 +579,13 @@ public class StrategyTree extends TreeADDPotential {
 	 * @return True when {@code this} and {@code intervention} are equals.
 	 */
 	public boolean equals(StrategyTree strategyTree) {
+		if (strategyTree == this) {
+			return true;
+		}
+		if (strategyTree != null && canonical && strategyTree.canonical) {
+			// There is only one instance of each canonical tree
+			return false;
+		}
 		int numBranches = branches.size();
 		boolean stillEqual = strategyTree != null && strategyTree.topVariable == topVariable
 				&& strategyTree.branches.size() == numBranches;
@@ -515,11 +595,13 @@ public class StrategyTree extends TreeADDPotential {
 				TreeADDBranch branch = branches.get(i);
 				// Get the corresponding branch to "this.branches.get(i)" in the other "intervention"
 				List<State> states = branch.getStates();
-				// A branch always has at least one state
-				TreeADDBranch interventionBranch = strategyTree.getBranch(states.get(0));
+				// A states branch always has at least one state; an interval branch has none
+				TreeADDBranch interventionBranch = states != null ?
+						strategyTree.getBranch(states.get(0)) :
+						strategyTree.getIntervalBranch(branch.getLowerBound(), branch.getUpperBound());
 				stillEqual &= interventionBranch != null;
 				// Compare states
-				if (stillEqual) {
+				if (stillEqual && states != null) {
 					List<State> interventionBranchStates = interventionBranch.getStates();
 					stillEqual &= interventionBranchStates.size() == states.size() && interventionBranchStates
 							.containsAll(states);
@@ -543,6 +625,49 @@ public class StrategyTree extends TreeADDPotential {
 		return stillEqual;
 	}
 
+	/**
+	 * @return The interval branch with the given bounds, or null if there is none
+	 */
+	private TreeADDBranch getIntervalBranch(Threshold lowerBound, Threshold upperBound) {
+		for (TreeADDBranch branch : branches) {
+			if (branch.getStates() == null && equals(branch.getLowerBound(), lowerBound) && equals(
+					branch.getUpperBound(), upperBound)) {
+				return branch;
+			}
+		}
+		return null;
+	}
+
+	private static boolean equals(Threshold threshold1, Threshold threshold2) {
+		return threshold1 == null ? threshold2 == null : threshold2 != null && threshold1.equals(threshold2);
+	}
+
+	@Override public boolean equals(Object object) {
+		return object instanceof StrategyTree && equals((StrategyTree) object);
+	}
+
+	/**
+	 * @return A hash code consistent with {@link #equals(StrategyTree)}, which does not depend on the order of the
+	 * branches. It is computed only once for canonical trees.
+	 */
+	@Override public int hashCode() {
+		return canonical ? hashCode : computeHashCode();
+	}
+
+	private int computeHashCode() {
+		int hash = Objects.hashCode(topVariable);
+		for (TreeADDBranch branch : branches) {
+			int statesHash = 0;
+			if (branch.getStates() != null) {
+				for (State state : branch.getStates()) {
+					statesHash += state.getName().hashCode();
+				}
+			}
+			hash += 31 * statesHash + Objects.hashCode(branch.getPotential());
+		}
+		return hash;
+	}
+
 	/**
 	 * @return List of interventions contained in branches if they are not null.
 	 */
@@ -574,7 +699,7 @@ public class StrategyTree extends TreeADDPotential {
 	 */
 	public TreeADDBranch getBranch(State state) {
 		for (TreeADDBranch branch : branches) {
-			if (branch.getBranchStates().contains(state)) {
+			if (branch.getBranchStates() != null && branch.getBranchStates().contains(state)) {
 				return branch;
 			}
 		}
@@ -602,7 +727,7 @@ public class StrategyTree extends TreeADDPotential {
 
 		content = "digraph G {\n";
 
-		Map<StrategyTree, Integer> idNode = new Hashtable<>();
+		Map<StrategyTree, Integer> idNode = new IdentityHashMap<>();
 
 		Set<StrategyTree> nodes = this.getInterventions();
 		Set<StrategyTree> leaves = this.getInterventionsLeaves();
@@ -655,7 +780,8 @@ public class StrategyTree extends TreeADDPotential {
 	 */
 	private Set<StrategyTree> getInterventionsLeaves() {
 
-		Set<StrategyTree> auxSet = new HashSet<>();
+		// Distinct subtrees with the same structure are different nodes of the graph
+		Set<StrategyTree> auxSet = Collections.newSetFromMap(new IdentityHashMap<>());
 
 		if (branches.size() == 0) {
 			auxSet.add(this);
@@ -774,7 +900,7 @@ public class StrategyTree extends TreeADDPotential {
 	private Set<StrategyTree> auxGetInterventions() {
 		Set<StrategyTree> auxSet;
 
-		auxSet = new HashSet<>();
+		auxSet = Collections.newSetFromMap(new IdentityHashMap<>());
 		auxSet.add(this);
 
 		if (branches != null) {
@@ -857,4 +983,55 @@ public class StrategyTree extends TreeADDPotential {
 		}
 	}
 
+	/**
+	 * Weak table of canonical trees split into segments, each with its own lock, so that the threads that build
+	 * trees at the same time seldom wait for each other. A tree is always looked up in the same segment, so there is
+	 * still only one canonical instance of each tree in the JVM.
+	 */
+	private static final class CanonicalStrategyTrees {
+
+		private static final int NUM_SEGMENTS = 64;
+
+		private final List<Map<StrategyTree, WeakReference<StrategyTree>>> segments = new ArrayList<>(NUM_SEGMENTS);
+
+		private CanonicalStrategyTrees() {
+			for (int i = 0; i < NUM_SEGMENTS; i++) {
+				segments.add(new WeakHashMap<>());
+			}
+		}
+
+		/**
+		 * @param strategyTree tree of class {@code StrategyTree} with states branches, which is not modified
+		 * @return The canonical tree equal to {@code strategyTree}
+		 */
+		private StrategyTree intern(StrategyTree strategyTree) {
+			int hash = strategyTree.hashCode();
+			int segmentIndex = (hash ^ (hash >>> 16)) & (NUM_SEGMENTS - 1);
+			Map<StrategyTree, WeakReference<StrategyTree>> segment = segments.get(segmentIndex);
+			StrategyTree canonicalStrategyTree;
+			synchronized (segment) {
+				canonicalStrategyTree = get(segment, strategyTree);
+			}
+			if (canonicalStrategyTree == null) {
+				// The subtrees are interned out of the lock, because they may belong to other segments
+				StrategyTree copy = strategyTree.copyWithCanonicalSubtrees();
+				synchronized (segment) {
+					canonicalStrategyTree = get(segment, copy);
+					if (canonicalStrategyTree == null) {
+						copy.canonical = true;
+						segment.put(copy, new WeakReference<>(copy));
+						canonicalStrategyTree = copy;
+					}
+				}
+			}
+			return canonicalStrategyTree;
+		}
+
+		private static StrategyTree get(Map<StrategyTree, WeakReference<StrategyTree>> segment,
+				StrategyTree strategyTree) {
+			WeakReference<StrategyTree> reference = segment.get(strategyTree);
+			return (reference != null) ? reference.get() : null;
+		}
+	}
+
 }
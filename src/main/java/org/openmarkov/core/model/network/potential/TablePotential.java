@@ -22,6 +22,7 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.modelUncertainty.TablePotentialSampler;
 import org.openmarkov.core.model.network.modelUncertainty.UncertainValue;
+import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
 import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
@@ -120,7 +121,16 @@ import java.util.Random;
 	 * Condition: All variables must be discrete.
 	 */
 	public TablePotential(List<Variable> variables, PotentialRole role, double[] table) {
-		this(variables, role);
+		super(variables, role);
+		// The table is not initialized as uniform, because it is replaced by {@code table}
+		if (variables != null && !variables.isEmpty()) {
+			dimensions = TablePotential.calculateDimensions(variables);
+			offsets = TablePotential.calculateOffsets(dimensions);
+			tableSize = computeTableSize(variables);
+		} else {
+			tableSize = 1;
+			offsets = new int[0];
+		}
 		this.values = table;
 	}
 
@@ -970,6 +980,25 @@ import java.util.Random;
 		return tableSize;
 	}
 
+	/**
+	 * Deterministic potentials and potentials projected on evidence usually have many zeros. The table is scanned
+	 * only until the number of non-zero values exceeds the limit. The table is stored densely in any case; the
+	 * density is only used to decide whether the products can skip its zeros.
+	 *
+	 * @param maxDensity maximum fraction of the cells of the table whose value is not zero
+	 * @return {@code true} if the fraction of non-zero values of the table does not exceed {@code maxDensity}
+	 */
+	public boolean isSparse(double maxDensity) {
+		long maxNonZeroValues = (long) (maxDensity * tableSize);
+		long numNonZeroValues = 0;
+		for (int i = initialPosition; i < initialPosition + tableSize; i++) {
+			if (values[i] != 0.0 && ++numNonZeroValues > maxNonZeroValues) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// TODO revisar para que no use tableProject(...)
 	public Collection<Finding> getInducedFindings(EvidenceCase evidenceCase)
 			throws IncompatibleEvidenceException, WrongCriterionException {
@@ -1120,16 +1149,23 @@ import java.util.Random;
 	 * Generates a sampled potential
 	 */
 	public Potential sample(boolean isInsideOfExactDistrPotential) {
+		return sample(new XORShiftRandom(), isInsideOfExactDistrPotential);
+	}
+
+	/**
+	 * Generates a sampled potential with the given random generator
+	 */
+	public Potential sample(Random randomGenerator, boolean isInsideOfExactDistrPotential) {
 		Potential sampledPotential = this;
 		if (uncertainValues != null) {
 			TablePotentialSampler samplePotentialTable = new TablePotentialSampler();
-			sampledPotential = samplePotentialTable.sample(this, isInsideOfExactDistrPotential);
+			sampledPotential = samplePotentialTable.sample(this, isInsideOfExactDistrPotential, randomGenerator);
 		}
 		return sampledPotential;
 	}
-	
-	public Potential sample() {
-		return sample(false);
+
+	@Override public Potential sample(Random randomGenerator) {
+		return sample(randomGenerator, false);
 	}
 
 	@Override public boolean equals(Object arg0) {
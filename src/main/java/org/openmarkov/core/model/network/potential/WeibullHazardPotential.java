@@ -7,8 +7,6 @@
 
 package org.openmarkov.core.model.network.potential;
 
-import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
@@ -24,7 +22,6 @@ import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @PotentialType(name = "Hazard (Weibull)", family = "GLM") public class WeibullHazardPotential extends GLMPotential {
 
@@ -104,7 +101,7 @@ import java.util.Map;
 
 	@Override public List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		Variable conditionedVariable = getConditionedVariable();
 		// Fill arrays numericValues and evidencelessVariables
 
@@ -149,7 +146,14 @@ import java.util.Map;
 			ts[0] = t;
 		}
 		double shape = Math.exp(coefficients[gammaIndex]);
-		Evaluator evaluator = new Evaluator();
+		CovariateExpression[] compiledCovariates = CovariateExpression.compile(covariates);
+		int[] variableIndices = new int[projectedPotentialVariables.size()];
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = 1; j < projectedPotentialVariables.size(); ++j) {
+			Variable variable = projectedPotentialVariables.get(j);
+			variableIndices[j] = variables.indexOf(variable);
+			stateValues[j] = getStateValues(variable);
+		}
 		for (int timeVariableState = 0; timeVariableState < ts.length; ++timeVariableState) {
 			double t = ts[timeVariableState];
 			for (int i = 0; i < numConfigurations; i++) {
@@ -157,27 +161,12 @@ import java.util.Map;
 				// Set the values of variables without evidence
 				for (int j = 1; j < projectedPotentialVariables.size(); ++j) {
 					int index = (configBaseIndex / offsets[j]) % dimensions[j];
-					Variable variable = projectedPotentialVariables.get(j);
-					State[] states = variable.getStates();
-					double value = index;
-					try {
-						value = Double.parseDouble(states[index].getName());
-					} catch (NumberFormatException e) {
-						// ignore
-					}
-					variableValues.put("v" + variables.indexOf(variable), String.valueOf(value));
+					variableValues[variableIndices[j]] = stateValues[j][index];
 				}
-				evaluator.setVariables(variableValues);
 				double lambda = coefficients[constantIndex];
 				for (int j = 0; j < coefficients.length; ++j) {
-					double covariateValue = 0.0;
 					if (j != gammaIndex && j != constantIndex) {
-						try {
-							covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
-						} catch (NumberFormatException | EvaluationException e) {
-							throw new NonProjectablePotentialException(e.getMessage());
-						}
-						lambda += covariateValue * coefficients[j];
+						lambda += evaluateCovariate(compiledCovariates[j], variableValues) * coefficients[j];
 					}
 				}
 				if (log) {
@@ -194,6 +194,109 @@ public abstract class ICIPotential extends Potential {
 		return singleElementPotentialList;
 	}
 
+	/**
+	 * @return The potentials of {@link #getDivorcedPotentials()} projected onto the evidence. Their size grows
+	 * linearly with the number of parents, instead of exponentially as the size of the conditional probability table.
+	 */
+	@Override public List<TablePotential> tableProjectFactorized(EvidenceCase evidenceCase,
+			InferenceOptions inferenceOptions, List<TablePotential> alreadyProjectedPotentials)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		List<TablePotential> projectedPotentials = new ArrayList<>();
+		for (TablePotential divorcedPotential : getDivorcedPotentials()) {
+			projectedPotentials
+					.addAll(divorcedPotential.tableProject(evidenceCase, inferenceOptions, alreadyProjectedPotentials));
+		}
+		return projectedPotentials;
+	}
+
+	/**
+	 * Decomposes the family by parent divorcing. The auxiliary variable <i>A<sub>i</sub></i> accumulates the effect
+	 * of the leak and the links of the first <i>i</i> parents, so that
+	 * <i>P(a<sub>1</sub>|x<sub>1</sub>)</i>, <i>P(a<sub>i</sub>|a<sub>i-1</sub>,x<sub>i</sub>)</i> and
+	 * <i>P(y|a<sub>n-1</sub>,x<sub>n</sub>)</i> are obtained by summing out the <i>Z<sub>i</sub></i> variables
+	 * and the leak.
+	 *
+	 * @return A chain of <i>n</i> conditional probability tables whose product, after summing out the
+	 * <i>n-1</i> auxiliary variables, is the conditional probability table of this potential. When there are no
+	 * parents, a single table with the leak parameters.
+	 */
+	public List<TablePotential> getDivorcedPotentials() {
+		Variable conditionedVariable = variables.get(0);
+		int numParents = variables.size() - 1;
+		int numZStates = conditionedVariable.getNumStates();
+		double[] leak = leakyParameters != null ? leakyParameters : getDefaultLeakyParameters(numZStates);
+		if (numParents == 0) {
+			// Without links, the conditioned variable takes the state of the leak
+			List<TablePotential> leakPotential = new ArrayList<>(1);
+			leakPotential.add(new TablePotential(Arrays.asList(conditionedVariable),
+					PotentialRole.CONDITIONAL_PROBABILITY, leak.clone()));
+			return leakPotential;
+		}
+		List<TablePotential> divorcedPotentials = new ArrayList<>(numParents);
+		Variable accumulatedVariable = null;
+		for (int i = 1; i <= numParents; i++) {
+			Variable parent = variables.get(i);
+			double[] noisy = noisyParameters[i - 1];
+			Variable newVariable = (i == numParents) ?
+					conditionedVariable :
+					new Variable("accumulated_" + i + "_" + conditionedVariable.getName(),
+							getNumAccumulatedStates(i));
+			int numNewStates = newVariable.getNumStates();
+			TablePotential divorcedPotential;
+			if (accumulatedVariable == null) {
+				// The leak is accumulated in the first potential
+				divorcedPotential = new TablePotential(Arrays.asList(newVariable, parent),
+						PotentialRole.CONDITIONAL_PROBABILITY, new double[numNewStates * parent.getNumStates()]);
+				for (int x = 0; x < parent.getNumStates(); x++) {
+					for (int leakState = 0; leakState < leak.length; leakState++) {
+						for (int z = 0; z < numZStates; z++) {
+							int newState = accumulate(leakState, 0, z);
+							divorcedPotential.values[newState + numNewStates * x] +=
+									leak[leakState] * noisy[x * numZStates + z];
+						}
+					}
+				}
+			} else {
+				int numAccumulatedStates = accumulatedVariable.getNumStates();
+				divorcedPotential = new TablePotential(Arrays.asList(newVariable, accumulatedVariable, parent),
+						PotentialRole.CONDITIONAL_PROBABILITY,
+						new double[numNewStates * numAccumulatedStates * parent.getNumStates()]);
+				for (int x = 0; x < parent.getNumStates(); x++) {
+					for (int a = 0; a < numAccumulatedStates; a++) {
+						int offset = numNewStates * (a + numAccumulatedStates * x);
+						for (int z = 0; z < numZStates; z++) {
+							divorcedPotential.values[offset + accumulate(a, i - 1, z)] += noisy[x * numZStates + z];
+						}
+					}
+				}
+			}
+			divorcedPotentials.add(divorcedPotential);
+			accumulatedVariable = newVariable;
+		}
+		return divorcedPotentials;
+	}
+
+	/**
+	 * @param numLinks Number of links accumulated, between 0 (only the leak) and the number of parents minus one
+	 * @return Number of states of the auxiliary variable that accumulates the leak and {@code numLinks} links. By
+	 * default, the number of states of the conditioned variable, which suffices when the f function is associative.
+	 */
+	protected int getNumAccumulatedStates(int numLinks) {
+		return variables.get(0).getNumStates();
+	}
+
+	/**
+	 * @param accumulatedState State of the variable that accumulates the leak and {@code numLinks} links (with no
+	 *                         links, the state of the leak)
+	 * @param numLinks         Number of links accumulated in {@code accumulatedState}
+	 * @param zState           State of the <i>Z</i> variable of the next link
+	 * @return The state of the variable that accumulates {@code numLinks + 1} links or, if they are all the links,
+	 * the state of the conditioned variable. By default, the f function applied to both states.
+	 */
+	protected int accumulate(int accumulatedState, int numLinks, int zState) {
+		return computeFFunction(new int[] { accumulatedState, zState });
+	}
+
 	public double[] getNoisyParameters(Variable variable) {
 		return noisyParameters[variables.indexOf(variable) - 1];
 	}
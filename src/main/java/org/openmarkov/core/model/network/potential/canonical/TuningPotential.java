@@ -190,6 +190,28 @@ import java.util.List;
 		}
 	}
 
+	/**
+	 * The auxiliary variable stores the net number of increments, which is bounded both by the number of links
+	 * accumulated plus the leak and by the number of links remaining plus one, because beyond that bound the
+	 * remaining links cannot change the sign of the sum
+	 */
+	@Override protected int getNumAccumulatedStates(int numLinks) {
+		return 2 * getAccumulatedBound(numLinks) + 1;
+	}
+
+	@Override protected int accumulate(int accumulatedState, int numLinks, int zState) {
+		int netNumIncr = accumulatedState - getAccumulatedBound(numLinks) + zState - 1;
+		if (numLinks + 1 == variables.size() - 1) {
+			return (netNumIncr > 0) ? 2 : ((netNumIncr < 0) ? 0 : 1);
+		}
+		int bound = getAccumulatedBound(numLinks + 1);
+		return Math.max(-bound, Math.min(bound, netNumIncr)) + bound;
+	}
+
+	private int getAccumulatedBound(int numLinks) {
+		return Math.min(numLinks + 1, variables.size() - numLinks);
+	}
+
 	@Override protected int computeFFunction(int[] parentStates) {
 		int netNumIncr = 0;
 		for (int parentState : parentStates) {
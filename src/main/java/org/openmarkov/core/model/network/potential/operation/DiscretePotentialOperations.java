@@ -15,7 +15,7 @@ import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.NormalizeNullVectorException;
 import org.openmarkov.core.exception.PotentialOperationException;
 import org.openmarkov.core.exception.WrongCriterionException;
-import org.openmarkov.core.inference.Choice;
+import org.openmarkov.core.inference.ChoiceTable;
 import org.openmarkov.core.model.network.CEP;
 import org.openmarkov.core.model.network.Criterion;
 import org.openmarkov.core.model.network.EvidenceCase;
@@ -26,6 +26,7 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.modelUncertainty.UncertainValue;
 import org.openmarkov.core.model.network.potential.AugmentedTable;
 import org.openmarkov.core.model.network.potential.AugmentedTablePotential;
+import org.openmarkov.core.model.network.potential.CovariateExpression;
 import org.openmarkov.core.model.network.potential.ExactDistrPotential;
 import org.openmarkov.core.model.network.potential.FunctionPotential;
 import org.openmarkov.core.model.network.potential.GTablePotential;
@@ -43,7 +44,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -160,6 +160,15 @@ public final class DiscretePotentialOperations {
 
 		TablePotential potentialWithInterventions = findFirstPotentialWithInterventions(tablePotentials);
 		boolean thereAreInterventions = (potentialWithInterventions != null);
+		if (!thereAreInterventions && MultiplyAndMarginalizePlan.hasSparsePotential(potentials, tableSize)) {
+			// The plan only visits the configurations in which a sparse potential is not zero
+			List<TablePotential> factors = new ArrayList<>();
+			factors.add(buildConstantPotential(constantFactor, role));
+			factors.addAll(potentials);
+			MultiplyAndMarginalizePlan.getPlan(factors, resultVariables, Collections.<Variable>emptyList())
+					.execute(factors, resultValues);
+			return buildResultPotential(criterion, role, resultVariables, resultValues, false, null);
+		}
 		StrategyTree[] resultStrategyTrees = null;
 		StrategyTree strategyTree = null;
 		StrategyTree[] inputStrategyTrees = null;
@@ -413,7 +422,7 @@ public final class DiscretePotentialOperations {
 					if (resultStrategyTrees[i] == null) {
 						resultStrategyTrees[i] = constantPotentialsStrategyTree;
 					} else {
-						resultStrategyTrees[i].concatenate(constantPotentialsStrategyTree);
+						resultStrategyTrees[i] = resultStrategyTrees[i].concatenate(constantPotentialsStrategyTree);
 					}
 				}
 			}
@@ -714,121 +723,27 @@ public final class DiscretePotentialOperations {
 		// Constant potentials are those that do not depend on any variables.
 		// The product of all the constant potentials is the constant factor.
 		double constantFactor = 1.0;
-		// Non constant potentials are proper potentials.
-		List<TablePotential> nonConstantPotentials = new ArrayList<>();
+		boolean allConstant = true;
 		for (TablePotential potential : tablePotentials) {
 			if (potential.getNumVariables() != 0) {
-				nonConstantPotentials.add(potential);
+				allConstant = false;
 			} else {
 				constantFactor *= potential.values[potential.getInitialPosition()];
 			}
 		}
 
-		int numNonConstantPotentials = nonConstantPotentials.size();
-
-		if (numNonConstantPotentials == 0) {
+		if (allConstant) {
 			TablePotential resultingPotential = new TablePotential(variablesToKeep, getRole(tablePotentials));
 			resultingPotential.values[0] = constantFactor;
 			return resultingPotential;
 		}
 
-		// variables in the resulting potential
-		List<Variable> unionVariables = new ArrayList<>(variablesToEliminate);
-		unionVariables.addAll(variablesToKeep);
-		int numUnionVariables = unionVariables.size();
-
-		// current coordinate in the resulting potential
-		int[] unionCoordinate = new int[numUnionVariables];
-		int[] unionDimensions = TablePotential.calculateDimensions(unionVariables);
-
-		// Defines some arrays for the proper potentials...
-		double[][] tables = new double[numNonConstantPotentials][];
-		int[] initialPositions = new int[numNonConstantPotentials];
-		int[] currentPositions = new int[numNonConstantPotentials];
-		int[][] accumulatedOffsets = new int[numNonConstantPotentials][];
-		// ... and initializes them
-		for (int i = 0; i < numNonConstantPotentials; i++) {
-			TablePotential potential = nonConstantPotentials.get(i);
-			tables[i] = potential.values;
-			initialPositions[i] = potential.getInitialPosition();
-			currentPositions[i] = initialPositions[i];
-			accumulatedOffsets[i] = TablePotential.getAccumulatedOffsets(unionVariables, potential.getVariables());
-		}
-
-		// The result size is the product of the dimensions of the
-		// variables to keep
-		int resultSize = TablePotential.computeTableSize(variablesToKeep);
-		double[] resultValues = new double[resultSize];
-		// The elimination size is the product of the dimensions of the
-		// variables to eliminate
-		int eliminationSize = 1;
-		for (Variable variable : variablesToEliminate) {
-			eliminationSize *= variable.getNumStates();
-		}
-
-		// Auxiliary variables for the nested loops
-		double multiplicationResult; // product of the table values
-		double accumulator; // in general, the sum or the maximum
-		int increasedVariable = 0; // when computing the next configuration
-
-		// outer iterations correspond to the variables to keep
-		for (int outerIteration = 0; outerIteration < resultSize; outerIteration++) {
-			// Inner iterations correspond to the variables to eliminate
-			// accumulator summarizes the result of all inner iterations
-
-			// first inner iteration
-			multiplicationResult = constantFactor;
-			for (int i = 0; i < numNonConstantPotentials; i++) {
-				// multiply the numbers
-				multiplicationResult *= tables[i][currentPositions[i]];
-			}
-			accumulator = multiplicationResult;
-
-			// next inner iterations
-			for (int innerIteration = 1; innerIteration < eliminationSize; innerIteration++) {
-
-				// find the next configuration and the index of the
-				// increased variable
-				increasedVariable = findNextConfigurationAndIndexIncreasedVariable(unionDimensions, unionCoordinate,
-						increasedVariable);
-
-				// update the positions of the potentials we are multiplying
-				for (int i = 0; i < numNonConstantPotentials; i++) {
-					currentPositions[i] += accumulatedOffsets[i][increasedVariable];
-				}
-
-				// multiply the table values of the potentials
-				multiplicationResult = constantFactor;
-				for (int i = 0; i < numNonConstantPotentials; i++) {
-					multiplicationResult *= tables[i][currentPositions[i]];
-				}
-
-				// update the accumulator (for this inner iteration)
-				accumulator += multiplicationResult;
-				// accumulator =
-				// operator.combine(accumulator,multiplicationResult);
-
-			} // end of inner iteration
-
-			// when eliminationSize == 0 there is a multiplication without
-			// marginalization but we must find the next configuration
-			if (outerIteration < resultSize - 1) {
-				// find the next configuration and the index of the
-				// increased variable
-				increasedVariable = findNextConfigurationAndIndexIncreasedVariable(unionDimensions, unionCoordinate,
-						increasedVariable);
-
-				// update the positions of the potentials we are multiplying
-				for (int i = 0; i < numNonConstantPotentials; i++) {
-					currentPositions[i] += accumulatedOffsets[i][increasedVariable];
-				}
-			}
-
-			resultValues[outerIteration] = accumulator;
-
-		} // end of outer iteration
-
-		return new TablePotential(variablesToKeep, getRole(tablePotentials), resultValues);
+		// The offsets are computed once for each combination of variables and reused by the thread
+		List<TablePotential> potentials = tablePotentials instanceof List ?
+				(List<TablePotential>) tablePotentials :
+				new ArrayList<>(tablePotentials);
+		return MultiplyAndMarginalizePlan.getPlan(potentials, variablesToKeep, variablesToEliminate)
+				.execute(potentials);
 	}
 
 	/**
@@ -1327,11 +1242,12 @@ public final class DiscretePotentialOperations {
 	 * @param tablePotentials      {@code ArrayList} of {@code TablePotential}s.
 	 * @param fSVariablesToKeep    {@code ArrayList} of {@code Variable}s.
 	 * @param fSVariableToMaximize {@code Variable}.
-	 * @return Two potentials: 1) a {@code Potential} resulting of multiplication
+	 * @return Two objects: 1) a {@code Potential} resulting of multiplication
 	 *         and maximization of {@code variableToMaximize} and 2) a
-	 *         {@code GTablePotential} of {@code Choice} (same variables as
-	 *         preceding) with the value choosed for {@code variableToMaximize} in
-	 *         each configuration.
+	 *         {@code ChoiceTable} (same variables as preceding) with the
+	 *         values chosen for {@code variableToMaximize} in each
+	 *         configuration. The {@code Choice}s are created by the
+	 *         {@code ChoiceTable} when they are requested.
 	 */
 	@SuppressWarnings("unchecked")
 	public static Object[] multiplyAndMaximize(List<? extends Potential> tablePotentials,
@@ -1346,10 +1262,8 @@ public final class DiscretePotentialOperations {
 		// resultingPotential.setUtilityVariable(composeVariable(fSVariablesToKeep));
 		// }
 
-		GTablePotential<Choice> gResult = new GTablePotential<>(variablesToKeep, role);
-		int numStates = ((Variable) fSVariableToMaximize).getNumStates();
-		int[] statesChoosed;
-		Choice choice;
+		ChoiceTable choices = new ChoiceTable(fSVariableToMaximize, variablesToKeep);
+		int numStates = fSVariableToMaximize.getNumStates();
 
 		// Constant potentials are those that do not depend on any variables.
 		// The product of all the constant potentials is the constant factor.
@@ -1368,8 +1282,12 @@ public final class DiscretePotentialOperations {
 		int numProperPotentials = properPotentials.size();
 
 		if (numProperPotentials == 0) {
+			// The product does not depend on the variable, so all its states are optimal
 			resultingPotential.values[0] = constantFactor;
-			return new Object[] { resultingPotential, gResult };
+			for (int state = 0; state < numStates; state++) {
+				choices.addOptimalState(0, state);
+			}
+			return new Object[] { resultingPotential, choices };
 		}
 
 		// variables in the resulting potential
@@ -1388,13 +1306,12 @@ public final class DiscretePotentialOperations {
 		int[] currentPositions = new int[numProperPotentials];
 		int[][] accumulatedOffsets = new int[numProperPotentials][];
 		// ... and initializes them
-		TablePotential unionPotential = new TablePotential(unionVariables, null);
 		for (int i = 0; i < numProperPotentials; i++) {
 			TablePotential potential = (TablePotential) properPotentials.get(i);
 			tables[i] = potential.values;
 			initialPositions[i] = potential.getInitialPosition();
 			currentPositions[i] = initialPositions[i];
-			accumulatedOffsets[i] = unionPotential.getAccumulatedOffsets(potential.getVariables());
+			accumulatedOffsets[i] = TablePotential.getAccumulatedOffsets(unionVariables, potential.getVariables());
 		}
 
 		// The result size is the product of the dimensions of variables to keep
@@ -1420,11 +1337,8 @@ public final class DiscretePotentialOperations {
 				// multiply the numbers
 				multiplicationResult *= tables[i][currentPositions[i]];
 			}
-			statesChoosed = new int[numStates];
-			statesChoosed[0] = 0;
-			choice = new Choice(fSVariableToMaximize, statesChoosed);
 			maxValue = multiplicationResult;
-			choice.setValue(0); // because in first iteration we have a maximum
+			choices.setOptimalState(outerIteration, 0); // because in first iteration we have a maximum
 
 			// next inner iterations
 			for (int innerIteration = 1; innerIteration < eliminationSize; innerIteration++) {
@@ -1447,12 +1361,12 @@ public final class DiscretePotentialOperations {
 
 				// update the accumulator (for this inner iteration)
 				if (multiplicationResult > (maxValue + maxRoundErrorAllowed)) {
-					choice.setValue(innerIteration);
+					choices.setOptimalState(outerIteration, innerIteration);
 					maxValue = multiplicationResult;
 				} else {
 					if ((multiplicationResult < (maxValue + maxRoundErrorAllowed))
 							&& (multiplicationResult >= (maxValue - maxRoundErrorAllowed))) {
-						choice.addValue(innerIteration);
+						choices.addOptimalState(outerIteration, innerIteration);
 					}
 				}
 				// accumulator =
@@ -1475,12 +1389,10 @@ public final class DiscretePotentialOperations {
 			}
 
 			resultingPotential.values[outerIteration] = maxValue;
-			gResult.elementTable.add(choice);
 
 		} // end of outer iteration
 
-		// createInterventions(resultingPotential, gResult, fSVariableToMaximize);
-		Object[] resultPotentials = { resultingPotential, gResult };
+		Object[] resultPotentials = { resultingPotential, choices };
 		return resultPotentials;
 	}
 
@@ -1695,9 +1607,9 @@ public final class DiscretePotentialOperations {
 	 * @param variableToMaximize {@code Variable}.
 	 * @return Two potentials: 1) a {@code Potential} resulting of multiplication
 	 *         and maximization of {@code variableToMaximize} and 2) a
-	 *         {@code GTablePotential} of {@code Choice} (same variables as
-	 *         preceding) with the value chosen for {@code variableToMaximize} in
-	 *         each configuration.
+	 *         {@code ChoiceTable} (same variables as preceding) with the
+	 *         values chosen for {@code variableToMaximize} in each
+	 *         configuration.
 	 */
 	public static Object[] multiplyAndMaximize(List<? extends Potential> potentialsVariable,
 			Variable variableToMaximize) {
@@ -1744,9 +1656,9 @@ public final class DiscretePotentialOperations {
 	 * @param variableToMaximize {@code Variable}.
 	 * @return Two potentials: 1) a {@code Potential} resulting of multiplication
 	 *         and maximization of {@code variableToMaximize} and 2) a
-	 *         {@code GTablePotential} of {@code Choice} (same variables as
-	 *         preceding) with the value chosen for {@code variableToMaximize} in
-	 *         each configuration.
+	 *         {@code ChoiceTable} (same variables as preceding) with the
+	 *         values chosen for {@code variableToMaximize} in each
+	 *         configuration.
 	 */
 	public static Object[] maximize(Potential potential, Variable variableToMaximize) {
 		List<Potential> potentialsVariable = new ArrayList<>();
@@ -2442,10 +2354,12 @@ public final class DiscretePotentialOperations {
 
 		int indexPotentialWithInterventions = potentials.indexOf(potentialWithInterventions);
 
-		List<String> utilityVariablesNames = new ArrayList<>();
-		utilityVariables.forEach(x -> utilityVariablesNames.add(x.getName()));
-
-		// utilityPotential.
+		// The value of the potential i is the variable v(i + 1) of the function
+		CovariateExpression function = utilityPotential.compileFunction();
+		double[] assignment = new double[numPotentials + 1];
+		if (!function.hasValuesFor(1, assignment.length)) {
+			throw new EvaluationException("Unknown variable in function " + function);
+		}
 
 		for (int resultPosition = 0; resultPosition < tableSize; resultPosition++) {
 			// increment the result coordinate and find out which variable is to be
@@ -2462,13 +2376,10 @@ public final class DiscretePotentialOperations {
 				resultCoordinate[iVariable] = 0;
 			}
 
-			Map<String, String> assignment = new Hashtable<>();
 			// multiply
 			for (int iPotential = 0; iPotential < numPotentials; iPotential++) {
 				int potentialsPositionIPotential = potentialsPositions[iPotential];
-				String varNameInExpressionToEvaluate = "v" + (iPotential + 1);
-				// String varNameInExpressionToEvaluate = utilityVariablesNames.get(iPotential);
-				assignment.put(varNameInExpressionToEvaluate, "" + tables[iPotential][potentialsPositionIPotential]);
+				assignment[iPotential + 1] = tables[iPotential][potentialsPositionIPotential];
 				// Obtain the intervention
 				if (thereAreInterventions && indexPotentialWithInterventions == iPotential) {
 					strategyTree = inputStrategyTrees[potentialsPositionIPotential];
@@ -2478,7 +2389,7 @@ public final class DiscretePotentialOperations {
 					potentialsPositions[iPotential] += offsetAccumulate[iPotential][incrementedVariable];
 				}
 			}
-			resultValues[resultPosition] = Double.parseDouble(utilityPotential.getValue(assignment));
+			resultValues[resultPosition] = function.evaluate(assignment);
 			if (thereAreInterventions) {
 				resultStrategyTrees[resultPosition] = strategyTree;
 			}
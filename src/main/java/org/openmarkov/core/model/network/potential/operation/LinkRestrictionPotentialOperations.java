@@ -54,7 +54,7 @@ public class LinkRestrictionPotentialOperations {
 	public static List<Link<Node>> getParentLinksWithRestriction(Node node) {
 		List<Link<Node>> links = node.getLinks();
 		List<Link<Node>> linksWithRestriction = new ArrayList<>();
-		List<Node> parents = node.getParents();
+		List<Node> parents = node.getParentsView();
 
 		for (Link<Node> link : links) {
 			if (parents.contains(link.getNode1()) && link.hasRestrictions()) {
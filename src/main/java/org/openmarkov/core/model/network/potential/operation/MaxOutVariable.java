@@ -7,6 +7,7 @@
 
 package org.openmarkov.core.model.network.potential.operation;
 
+import org.openmarkov.core.inference.ChoiceTable;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.StrategyTree;
@@ -27,6 +28,8 @@ public class MaxOutVariable {
 
 	private TablePotential policy;
 
+	private ChoiceTable choices;
+
 	/**
 	 * Adds the additive potentials in order to have only one utility, then uses the next constructor.
 	 * @param decisionVariable Decision variable
@@ -73,14 +76,13 @@ public class MaxOutVariable {
 		int increasedVariable = 0;
 
 		double max;
-		ArrayList<Integer> optimalStatesIndexes = new ArrayList<>(decisionVariableSize);
+		boolean thereIsOptimalState;
 
 		double[] utilities = new double[decisionVariableSize];
 		StrategyTree[] strategyTrees = new StrategyTree[decisionVariableSize];
 
-		// initialize the policy
-		TablePotential policyPotential = new TablePotential(allVariables, PotentialRole.POLICY);
-		double[] policyValues = policyPotential.values;
+		// initialize the optimal states of the decision
+		ChoiceTable optimalChoices = new ChoiceTable(decisionVariable, outputVariables);
 
 		// outer iterations correspond to the variables to in the
 		// outputUtilityPotential
@@ -88,16 +90,18 @@ public class MaxOutVariable {
 		for (int outerIteration = 0; outerIteration < outputPotentialSize; outerIteration++) {
 			// reset auxiliary variables before entering the loop
 			max = Double.NEGATIVE_INFINITY;
-			optimalStatesIndexes.clear();
+			thereIsOptimalState = false;
 			// inner iterations correspond to the decision variable to eliminate
 			for (int innerIteration = 0; innerIteration < decisionVariableSize; innerIteration++) {
 				double auxInputUtilityPotentialValue = additivePotentialToMaximize.values[inputUtilityPotentialPosition];
 				if (auxInputUtilityPotentialValue >= max) {
-					if (auxInputUtilityPotentialValue > max) {
+					if (auxInputUtilityPotentialValue > max || !thereIsOptimalState) {
 						max = auxInputUtilityPotentialValue;
-						optimalStatesIndexes.clear();
+						optimalChoices.setOptimalState(outputUtilityPotentialPosition, innerIteration);
+						thereIsOptimalState = true;
+					} else {
+						optimalChoices.addOptimalState(outputUtilityPotentialPosition, innerIteration);
 					}
-					optimalStatesIndexes.add(innerIteration);
 				}
 				utilities[innerIteration] = auxInputUtilityPotentialValue;
 				if (additivePotentialToMaximize.strategyTrees != null) {
@@ -119,14 +123,6 @@ public class MaxOutVariable {
 			outputUtility.strategyTrees[outputUtilityPotentialPosition] = StrategyTree
 					.optimalInterventionTakingAllOptimal(decisionVariable, utilities, strategyTrees);
 
-			// set the values of policyPotential
-			int policyPotentialPosition = outputUtilityPotentialPosition * decisionVariableSize;
-			double probForOptimalStates = 1.0 / optimalStatesIndexes.size();
-			for (int i = 0; i < decisionVariableSize; i++) {
-				policyValues[policyPotentialPosition + i] = (optimalStatesIndexes.contains(i)) ?
-						probForOptimalStates :
-						0.0;
-			}
 			outputUtilityPotentialPosition++;
 
 		} // end of the outer loop
@@ -146,8 +142,8 @@ public class MaxOutVariable {
 
 		utility.setCriterion(inputAdditivePotential.getCriterion());
 
-		// Store output policy
-		policy = policyPotential;  // policy potential contains (decision) variable to remove + additivePotential variables
+		// Store the optimal states; the policy is built from them when it is requested
+		choices = optimalChoices;
 	}
 
 	/**
@@ -305,10 +301,24 @@ public class MaxOutVariable {
 		return utility;
 	}
 
+	/**
+	 * @return The policy, whose variables are the decision variable followed by the variables of the utility. It
+	 * distributes the probability uniformly among the optimal states of the decision.
+	 */
 	public TablePotential getPolicy() {
+		if (policy == null && choices != null) {
+			policy = choices.getPolicy();
+		}
 		return policy;
 	}
 
+	/**
+	 * @return The optimal states of the decision for each configuration of the variables of the utility
+	 */
+	public ChoiceTable getChoices() {
+		return choices;
+	}
+
 	protected void setPolicy(TablePotential policy) {
 		this.policy = policy;
 	}
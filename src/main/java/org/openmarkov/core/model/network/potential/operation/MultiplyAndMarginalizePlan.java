@@ -0,0 +1,743 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential.operation;
+
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan of the product of some potentials followed by the sum over some of their variables, for given lists of
+ * variables of the potentials. The strides of each potential and the accumulated offsets are computed when the plan
+ * is created; {@link #execute(List)} can then be called many times on potentials with the same variables, for
+ * example in each iteration of a sensitivity analysis, and only allocates the table of the result.
+ * <p>
+ * The configurations of the union of the variables are visited in the same order as in
+ * {@link DiscretePotentialOperations#multiplyAndMarginalize(Collection, List, List)}, so the results are identical,
+ * but the first variable, which varies fastest, is traversed in an inner loop with a constant stride per potential.
+ * <p>
+ * When some potential is mostly zeros, as deterministic potentials, link restrictions and potentials projected on
+ * evidence usually are, the plan only visits the configurations in which that potential is not zero. They are
+ * visited in the same order, so the results do not change. The tables are still stored densely: this only saves
+ * the traversal of the zeros, not memory. A zero times an infinite or NaN value is NaN, so the zeros are not
+ * skipped when some other factor has such values.
+ * <p>
+ * A plan keeps scratch buffers, so it must not be executed by several threads at the same time.
+ */
+public class MultiplyAndMarginalizePlan {
+
+	// Attributes
+	/**
+	 * Maximum number of plans cached by each thread in {@link #getPlan(Collection, List, List)}
+	 */
+	private static final int MAX_CACHED_PLANS = 64;
+
+	private static final ThreadLocal<Map<Key, MultiplyAndMarginalizePlan>> cachedPlans = new ThreadLocal<Map<Key,
+			MultiplyAndMarginalizePlan>>() {
+		@Override protected Map<Key, MultiplyAndMarginalizePlan> initialValue() {
+			return new LinkedHashMap<Key, MultiplyAndMarginalizePlan>(16, 0.75f, true) {
+				@Override protected boolean removeEldestEntry(Map.Entry<Key, MultiplyAndMarginalizePlan> eldest) {
+					return size() > MAX_CACHED_PLANS;
+				}
+			};
+		}
+	};
+
+	/**
+	 * Maximum fraction of non-zero values of a potential for it to drive the traversal of the configurations
+	 */
+	private static final double MAX_SPARSE_DENSITY = 0.1;
+
+	/**
+	 * Minimum number of configurations of the union of the variables for the density of the potentials to be checked
+	 */
+	private static final int MIN_SPARSE_SIZE = 1024;
+
+	/**
+	 * Variables of each potential
+	 */
+	private final List<List<Variable>> variablesOfPotentials;
+
+	private final List<Variable> variablesToKeep;
+
+	/**
+	 * Indices, in the list of potentials, of the potentials that depend on some variable
+	 */
+	private final int[] nonConstantPotentials;
+
+	/**
+	 * Number of states of the variables to eliminate followed by the variables to keep
+	 */
+	private final int[] unionDimensions;
+
+	/**
+	 * Stride of the first variable of the union in each non-constant potential (0 if it does not contain it)
+	 */
+	private final int[] innerStrides;
+
+	/**
+	 * Accumulated offsets of each non-constant potential for the variables of the union, except the first one,
+	 * which is traversed by the inner loop
+	 */
+	private final int[][] accumulatedOffsets;
+
+	private final int resultSize;
+
+	/**
+	 * Number of blocks of the inner loop summed in each value of the result; 0 when no variable is eliminated
+	 */
+	private final int blocksPerResult;
+
+	private final int numBlocks;
+
+	/**
+	 * Stride of each variable of the union in each non-constant potential (0 if it does not contain it)
+	 */
+	private final int[][] unionStrides;
+
+	/**
+	 * Offset of each variable of the union in the result (0 for the variables to eliminate)
+	 */
+	private final int[] resultStrides;
+
+	// Scratch buffers
+	private final double[][] tables;
+
+	private final int[] positions;
+
+	private final int[] coordinate;
+
+	// Constructor
+
+	/**
+	 * @param variablesOfPotentials variables of each of the potentials that will be multiplied
+	 * @param variablesToKeep       variables of the result
+	 * @param variablesToEliminate  variables summed out. Condition: variablesToKeep and variablesToEliminate are a
+	 *                              partition of the union of the variables of the potentials
+	 */
+	public MultiplyAndMarginalizePlan(List<List<Variable>> variablesOfPotentials, List<Variable> variablesToKeep,
+			List<Variable> variablesToEliminate) {
+		int numPotentials = variablesOfPotentials.size();
+		this.variablesOfPotentials = new ArrayList<>(numPotentials);
+		int numNonConstantPotentials = 0;
+		for (List<Variable> variables : variablesOfPotentials) {
+			this.variablesOfPotentials.add(new ArrayList<>(variables));
+			if (!variables.isEmpty()) {
+				numNonConstantPotentials++;
+			}
+		}
+		this.variablesToKeep = Collections.unmodifiableList(new ArrayList<>(variablesToKeep));
+		nonConstantPotentials = new int[numNonConstantPotentials];
+		for (int i = 0, j = 0; i < numPotentials; i++) {
+			if (!variablesOfPotentials.get(i).isEmpty()) {
+				nonConstantPotentials[j++] = i;
+			}
+		}
+
+		List<Variable> unionVariables = new ArrayList<>(variablesToEliminate);
+		unionVariables.addAll(variablesToKeep);
+		int numUnionVariables = unionVariables.size();
+		unionDimensions = TablePotential.calculateDimensions(unionVariables);
+		resultSize = TablePotential.computeTableSize(variablesToKeep);
+		int innerDimension = numUnionVariables == 0 ? 1 : unionDimensions[0];
+		int eliminationSize = 1;
+		for (Variable variable : variablesToEliminate) {
+			eliminationSize *= variable.getNumStates();
+		}
+		blocksPerResult = variablesToEliminate.isEmpty() ? 0 : eliminationSize / innerDimension;
+		numBlocks = resultSize * eliminationSize / innerDimension;
+
+		resultStrides = new int[numUnionVariables];
+		if (!variablesToKeep.isEmpty()) {
+			int[] resultOffsets = TablePotential.calculateOffsets(TablePotential.calculateDimensions(variablesToKeep));
+			for (int j = variablesToEliminate.size(); j < numUnionVariables; j++) {
+				resultStrides[j] = resultOffsets[j - variablesToEliminate.size()];
+			}
+		}
+
+		innerStrides = new int[numNonConstantPotentials];
+		accumulatedOffsets = new int[numNonConstantPotentials][];
+		unionStrides = new int[numNonConstantPotentials][];
+		for (int i = 0; i < numNonConstantPotentials; i++) {
+			List<Variable> variables = variablesOfPotentials.get(nonConstantPotentials[i]);
+			int[] strides = new int[numUnionVariables];
+			for (int j = 0; j < numUnionVariables; j++) {
+				int index = variables.indexOf(unionVariables.get(j));
+				if (index != -1) {
+					strides[j] = 1;
+					for (int k = 0; k < index; k++) {
+						strides[j] *= variables.get(k).getNumStates();
+					}
+				}
+			}
+			unionStrides[i] = strides;
+			innerStrides[i] = numUnionVariables == 0 ? 0 : strides[0];
+			// When the variable j is increased, the variables 1, ..., j - 1 go back to their first state
+			accumulatedOffsets[i] = new int[numUnionVariables];
+			int reset = 0;
+			for (int j = 1; j < numUnionVariables; j++) {
+				accumulatedOffsets[i][j] = strides[j] - reset;
+				reset += (unionDimensions[j] - 1) * strides[j];
+			}
+		}
+
+		tables = new double[numNonConstantPotentials][];
+		positions = new int[numNonConstantPotentials];
+		coordinate = new int[numUnionVariables];
+	}
+
+	// Methods
+
+	/**
+	 * @param tablePotentials      potentials
+	 * @param variablesToKeep      variables of the result
+	 * @param variablesToEliminate variables summed out
+	 * @return A plan for the variables of {@code tablePotentials}, taken from a cache of the current thread
+	 */
+	public static MultiplyAndMarginalizePlan getPlan(Collection<TablePotential> tablePotentials,
+			List<Variable> variablesToKeep, List<Variable> variablesToEliminate) {
+		Key key = new Key(tablePotentials, variablesToKeep, variablesToEliminate);
+		Map<Key, MultiplyAndMarginalizePlan> plans = cachedPlans.get();
+		MultiplyAndMarginalizePlan plan = plans.get(key);
+		if (plan == null) {
+			List<List<Variable>> variablesOfPotentials = new ArrayList<>(tablePotentials.size());
+			for (TablePotential potential : tablePotentials) {
+				variablesOfPotentials.add(potential.getVariables());
+			}
+			plan = new MultiplyAndMarginalizePlan(variablesOfPotentials, variablesToKeep, variablesToEliminate);
+			plans.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * @param tablePotentials potentials whose variables are, in the same order, those given to the plan
+	 * @return The product of {@code tablePotentials} marginalized onto the variables to keep
+	 */
+	public TablePotential execute(List<TablePotential> tablePotentials) {
+		double[] resultValues = new double[resultSize];
+		execute(tablePotentials, resultValues);
+		return new TablePotential(variablesToKeep, DiscretePotentialOperations.getRole(tablePotentials),
+				resultValues);
+	}
+
+	/**
+	 * @param tablePotentials potentials whose variables are, in the same order, those given to the plan
+	 * @param resultValues    array where the values of the result are written; its length must be the size of the
+	 *                        table of the variables to keep
+	 */
+	public void execute(List<TablePotential> tablePotentials, double[] resultValues) {
+		checkVariables(tablePotentials);
+		if (resultValues.length < resultSize) {
+			throw new IllegalArgumentException(
+					"The result needs " + resultSize + " values but the array has " + resultValues.length);
+		}
+		double constantFactor = 1.0;
+		for (int i = 0, j = 0; i < tablePotentials.size(); i++) {
+			TablePotential potential = tablePotentials.get(i);
+			if (j < nonConstantPotentials.length && nonConstantPotentials[j] == i) {
+				tables[j] = potential.values;
+				positions[j] = potential.getInitialPosition();
+				j++;
+			} else {
+				constantFactor *= potential.values[potential.getInitialPosition()];
+			}
+		}
+		if (nonConstantPotentials.length == 0) {
+			// As in DiscretePotentialOperations, only the first value is set
+			resultValues[0] = constantFactor;
+			return;
+		}
+		int sparsePotential = getSparsePotential(tablePotentials, constantFactor);
+		if (sparsePotential != -1) {
+			new SparseTraversal(sparsePotential, constantFactor, resultValues).run();
+			Arrays.fill(tables, null);
+			return;
+		}
+		Arrays.fill(coordinate, 0);
+		switch (nonConstantPotentials.length) {
+		case 1:
+			run1(constantFactor, resultValues);
+			break;
+		case 2:
+			run2(constantFactor, resultValues);
+			break;
+		default:
+			runN(constantFactor, resultValues);
+			break;
+		}
+		Arrays.fill(tables, null);
+	}
+
+	public List<Variable> getVariablesToKeep() {
+		return variablesToKeep;
+	}
+
+	/**
+	 * @return The number of values of the result
+	 */
+	public int getResultSize() {
+		return resultSize;
+	}
+
+	private void run1(double constantFactor, double[] resultValues) {
+		double[] table0 = tables[0];
+		int stride0 = innerStrides[0];
+		int innerDimension = unionDimensions[0];
+		int resultIndex = 0;
+		int blockInResult = 0;
+		double accumulator = 0.0;
+		for (int block = 0; block < numBlocks; block++) {
+			int position0 = positions[0];
+			if (blocksPerResult == 0) {
+				for (int k = 0; k < innerDimension; k++) {
+					resultValues[resultIndex++] = constantFactor * table0[position0 + k * stride0];
+				}
+			} else {
+				for (int k = 0; k < innerDimension; k++) {
+					accumulator += constantFactor * table0[position0 + k * stride0];
+				}
+				if (++blockInResult == blocksPerResult) {
+					resultValues[resultIndex++] = accumulator;
+					accumulator = 0.0;
+					blockInResult = 0;
+				}
+			}
+			nextBlock();
+		}
+	}
+
+	private void run2(double constantFactor, double[] resultValues) {
+		double[] table0 = tables[0];
+		double[] table1 = tables[1];
+		int stride0 = innerStrides[0];
+		int stride1 = innerStrides[1];
+		int innerDimension = unionDimensions[0];
+		int resultIndex = 0;
+		int blockInResult = 0;
+		double accumulator = 0.0;
+		for (int block = 0; block < numBlocks; block++) {
+			int position0 = positions[0];
+			int position1 = positions[1];
+			if (blocksPerResult == 0) {
+				for (int k = 0; k < innerDimension; k++) {
+					resultValues[resultIndex++] =
+							constantFactor * table0[position0 + k * stride0] * table1[position1 + k * stride1];
+				}
+			} else {
+				for (int k = 0; k < innerDimension; k++) {
+					accumulator += constantFactor * table0[position0 + k * stride0] * table1[position1 + k * stride1];
+				}
+				if (++blockInResult == blocksPerResult) {
+					resultValues[resultIndex++] = accumulator;
+					accumulator = 0.0;
+					blockInResult = 0;
+				}
+			}
+			nextBlock();
+		}
+	}
+
+	private void runN(double constantFactor, double[] resultValues) {
+		int numPotentials = tables.length;
+		int innerDimension = unionDimensions[0];
+		int resultIndex = 0;
+		int blockInResult = 0;
+		double accumulator = 0.0;
+		for (int block = 0; block < numBlocks; block++) {
+			for (int k = 0; k < innerDimension; k++) {
+				double product = constantFactor;
+				for (int i = 0; i < numPotentials; i++) {
+					product *= tables[i][positions[i] + k * innerStrides[i]];
+				}
+				if (blocksPerResult == 0) {
+					resultValues[resultIndex++] = product;
+				} else {
+					accumulator += product;
+				}
+			}
+			if (blocksPerResult != 0 && ++blockInResult == blocksPerResult) {
+				resultValues[resultIndex++] = accumulator;
+				accumulator = 0.0;
+				blockInResult = 0;
+			}
+			nextBlock();
+		}
+	}
+
+	/**
+	 * @param tablePotentials   potentials to multiply
+	 * @param numConfigurations number of configurations of the union of their variables
+	 * @return {@code true} if some of the potentials is sparse enough for a plan to skip its zeros and the others
+	 * have only finite values
+	 */
+	public static boolean hasSparsePotential(Collection<TablePotential> tablePotentials, long numConfigurations) {
+		if (isWorthCheckingDensity(numConfigurations)) {
+			for (TablePotential potential : tablePotentials) {
+				if (potential.getNumVariables() != 0 && potential.isSparse(MAX_SPARSE_DENSITY)) {
+					return othersHaveOnlyFiniteValues(tablePotentials, potential);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skipping the zeros of {@code sparsePotential} is only correct when the values by which they are multiplied are
+	 * finite, because a zero times an infinite or NaN value is NaN.
+	 *
+	 * @param tablePotentials potentials to multiply
+	 * @param sparsePotential potential whose zeros would be skipped
+	 * @return {@code true} if the potentials other than {@code sparsePotential} have only finite values
+	 */
+	private static boolean othersHaveOnlyFiniteValues(Collection<TablePotential> tablePotentials,
+			TablePotential sparsePotential) {
+		for (TablePotential potential : tablePotentials) {
+			if (potential != sparsePotential) {
+				int initialPosition = potential.getInitialPosition();
+				int end = initialPosition + Math.max(1, potential.getTableSize());
+				for (int i = initialPosition; i < end; i++) {
+					if (!Double.isFinite(potential.values[i])) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWorthCheckingDensity(long numConfigurations) {
+		return numConfigurations >= MIN_SPARSE_SIZE;
+	}
+
+	/**
+	 * @param tablePotentials potentials of the plan
+	 * @param constantFactor  product of the potentials without variables
+	 * @return The index, among the non-constant potentials, of the largest one whose density is low enough to skip
+	 * its zeros, or -1 when all the configurations must be visited
+	 */
+	private int getSparsePotential(List<TablePotential> tablePotentials, double constantFactor) {
+		if (!isWorthCheckingDensity((long) numBlocks * unionDimensions[0]) || !Double.isFinite(constantFactor)) {
+			return -1;
+		}
+		int sparsePotential = -1;
+		int maxTableSize = 0;
+		for (int i = 0; i < nonConstantPotentials.length; i++) {
+			TablePotential potential = tablePotentials.get(nonConstantPotentials[i]);
+			if (potential.getTableSize() > maxTableSize && potential.isSparse(MAX_SPARSE_DENSITY)) {
+				maxTableSize = potential.getTableSize();
+				sparsePotential = i;
+			}
+		}
+		if (sparsePotential != -1) {
+			List<TablePotential> factors = new ArrayList<>(nonConstantPotentials.length);
+			for (int index : nonConstantPotentials) {
+				factors.add(tablePotentials.get(index));
+			}
+			if (!othersHaveOnlyFiniteValues(factors, factors.get(sparsePotential))) {
+				return -1;
+			}
+		}
+		return sparsePotential;
+	}
+
+	/**
+	 * Moves the positions to the next configuration of the variables of the union except the first one
+	 */
+	private void nextBlock() {
+		for (int j = 1; j < coordinate.length; j++) {
+			if (++coordinate[j] < unionDimensions[j]) {
+				for (int i = 0; i < positions.length; i++) {
+					positions[i] += accumulatedOffsets[i][j];
+				}
+				return;
+			}
+			coordinate[j] = 0;
+		}
+	}
+
+	private void checkVariables(List<TablePotential> tablePotentials) {
+		boolean matches = tablePotentials.size() == variablesOfPotentials.size();
+		for (int i = 0; matches && i < tablePotentials.size(); i++) {
+			List<Variable> variables = tablePotentials.get(i).getVariables();
+			List<Variable> plannedVariables = variablesOfPotentials.get(i);
+			matches = variables.size() == plannedVariables.size();
+			for (int j = 0; matches && j < variables.size(); j++) {
+				matches = variables.get(j) == plannedVariables.get(j);
+			}
+		}
+		if (!matches) {
+			throw new IllegalArgumentException("The variables of the potentials do not match those of the plan");
+		}
+	}
+
+	/**
+	 * Visits, in increasing order, the configurations of the union in which a sparse potential is not zero. The
+	 * variables of the union are assigned from the last one, which varies slowest, to the first one, and a branch is
+	 * pruned as soon as the sparse potential is zero in all the configurations compatible with the states assigned
+	 * to its variables.
+	 */
+	private class SparseTraversal {
+
+		private final int sparsePotential;
+
+		private final double constantFactor;
+
+		private final double[] resultValues;
+
+		/**
+		 * Position of each variable of the union among the variables of the sparse potential sorted by decreasing
+		 * position in the union, or -1 if the sparse potential does not contain it
+		 */
+		private final int[] maskLevels;
+
+		/**
+		 * {@code masks[k]} tells, for each configuration of the first {@code k} variables of the sparse potential
+		 * in that order, whether the potential has some non-zero value compatible with it
+		 */
+		private final boolean[][] masks;
+
+		/**
+		 * Positions of the potentials when each variable of the union starts to be assigned
+		 */
+		private final int[][] basePositions;
+
+		/**
+		 * First variable of the union that belongs to the sparse potential
+		 */
+		private final int firstSparseVariable;
+
+		/**
+		 * Positions and coordinate of the traversal of the configurations of the variables before it
+		 */
+		private final int[] blockPositions;
+
+		private final int[] blockCoordinate;
+
+		private SparseTraversal(int sparsePotential, double constantFactor, double[] resultValues) {
+			this.sparsePotential = sparsePotential;
+			this.constantFactor = constantFactor;
+			this.resultValues = resultValues;
+			int numUnionVariables = unionDimensions.length;
+			int[] strides = unionStrides[sparsePotential];
+			maskLevels = new int[numUnionVariables];
+			List<Integer> sparseVariables = new ArrayList<>();
+			for (int j = numUnionVariables - 1; j >= 0; j--) {
+				maskLevels[j] = strides[j] != 0 ? sparseVariables.size() : -1;
+				if (strides[j] != 0) {
+					sparseVariables.add(j);
+				}
+			}
+			int numSparseVariables = sparseVariables.size();
+			masks = new boolean[numSparseVariables + 1][];
+			// Offset of each variable of the union in the last mask, and the variables in the order of the table
+			int[] maskOffsets = new int[numUnionVariables];
+			int tableSize = 1;
+			for (int k = numSparseVariables - 1; k >= 0; k--) {
+				maskOffsets[sparseVariables.get(k)] = tableSize;
+				tableSize *= unionDimensions[sparseVariables.get(k)];
+			}
+			int[] tableVariables = new int[numSparseVariables];
+			for (int k = 0; k < numSparseVariables; k++) {
+				// Insertion by increasing offset in the table
+				int variable = sparseVariables.get(k);
+				int position = k;
+				for (; position > 0 && strides[tableVariables[position - 1]] > strides[variable]; position--) {
+					tableVariables[position] = tableVariables[position - 1];
+				}
+				tableVariables[position] = variable;
+			}
+			boolean[] lastMask = new boolean[tableSize];
+			double[] table = tables[sparsePotential];
+			int initialPosition = positions[sparsePotential];
+			boolean sameOrder = true;
+			for (int k = 0; sameOrder && k < numSparseVariables; k++) {
+				sameOrder = strides[tableVariables[k]] == maskOffsets[tableVariables[k]];
+			}
+			if (sameOrder) {
+				// The configuration of the mask is the position in the table
+				for (int cell = 0; cell < tableSize; cell++) {
+					lastMask[cell] = table[initialPosition + cell] != 0.0;
+				}
+			} else {
+				int[] states = new int[numSparseVariables];
+				int maskIndex = 0;
+				for (int cell = 0; cell < tableSize; cell++) {
+					lastMask[maskIndex] = table[initialPosition + cell] != 0.0;
+					for (int k = 0; k < numSparseVariables; k++) {
+						int variable = tableVariables[k];
+						if (++states[k] < unionDimensions[variable]) {
+							maskIndex += maskOffsets[variable];
+							break;
+						}
+						states[k] = 0;
+						maskIndex -= (unionDimensions[variable] - 1) * maskOffsets[variable];
+					}
+				}
+			}
+			masks[numSparseVariables] = lastMask;
+			for (int k = numSparseVariables - 1; k >= 0; k--) {
+				int dimension = unionDimensions[sparseVariables.get(k)];
+				boolean[] nextMask = masks[k + 1];
+				boolean[] mask = new boolean[nextMask.length / dimension];
+				for (int index = 0, nextIndex = 0; index < mask.length; index++) {
+					boolean nonZero = false;
+					for (int state = 0; state < dimension; state++) {
+						nonZero |= nextMask[nextIndex++];
+					}
+					mask[index] = nonZero;
+				}
+				masks[k] = mask;
+			}
+			basePositions = new int[numUnionVariables][tables.length];
+			firstSparseVariable = sparseVariables.get(numSparseVariables - 1);
+			blockPositions = new int[tables.length];
+			blockCoordinate = new int[numUnionVariables];
+		}
+
+		private void run() {
+			// The configurations that are not visited have a zero in the sparse potential
+			Arrays.fill(resultValues, 0, resultSize, 0.0);
+			if (masks[0][0]) {
+				int last = unionDimensions.length - 1;
+				System.arraycopy(positions, 0, basePositions[last], 0, positions.length);
+				visit(last, 0, 0);
+			}
+		}
+
+		/**
+		 * @param j           variable of the union to assign, whose base positions are in {@code basePositions[j]}
+		 * @param maskIndex   configuration of the variables of the sparse potential already assigned
+		 * @param resultIndex position in the result of the variables to keep already assigned
+		 */
+		private void visit(int j, int maskIndex, int resultIndex) {
+			int[] base = basePositions[j];
+			int dimension = unionDimensions[j];
+			int maskLevel = maskLevels[j];
+			boolean[] mask = maskLevel != -1 ? masks[maskLevel + 1] : null;
+			int firstMaskIndex = maskIndex * dimension;
+			if (j < firstSparseVariable) {
+				visitAll(j, base, resultIndex);
+				return;
+			}
+			if (j == 0) {
+				visitInnerVariable(base, dimension, mask, firstMaskIndex, resultIndex);
+				return;
+			}
+			int[] nextBase = basePositions[j - 1];
+			for (int state = 0; state < dimension; state++) {
+				if (mask != null && !mask[firstMaskIndex + state]) {
+					continue;
+				}
+				for (int i = 0; i < nextBase.length; i++) {
+					nextBase[i] = base[i] + state * unionStrides[i][j];
+				}
+				visit(j - 1, mask != null ? firstMaskIndex + state : maskIndex, resultIndex + state * resultStrides[j]);
+			}
+		}
+
+		/**
+		 * Visits all the configurations of the variables of the union up to {@code j}, none of which belongs to the
+		 * sparse potential, as the traversal of all the configurations does
+		 */
+		private void visitAll(int j, int[] base, int resultIndex) {
+			int[] position = blockPositions;
+			System.arraycopy(base, 0, position, 0, base.length);
+			Arrays.fill(blockCoordinate, 0);
+			int innerDimension = unionDimensions[0];
+			int resultStride = resultStrides[0];
+			while (true) {
+				for (int k = 0; k < innerDimension; k++) {
+					double product = constantFactor;
+					for (int i = 0; i < position.length; i++) {
+						product *= tables[i][position[i] + k * innerStrides[i]];
+					}
+					if (blocksPerResult == 0) {
+						resultValues[resultIndex + k * resultStride] = product;
+					} else {
+						resultValues[resultIndex + k * resultStride] += product;
+					}
+				}
+				int variable = 1;
+				for (; variable <= j && ++blockCoordinate[variable] == unionDimensions[variable]; variable++) {
+					blockCoordinate[variable] = 0;
+					for (int i = 0; i < position.length; i++) {
+						position[i] -= (unionDimensions[variable] - 1) * unionStrides[i][variable];
+					}
+					resultIndex -= (unionDimensions[variable] - 1) * resultStrides[variable];
+				}
+				if (variable > j) {
+					return;
+				}
+				for (int i = 0; i < position.length; i++) {
+					position[i] += unionStrides[i][variable];
+				}
+				resultIndex += resultStrides[variable];
+			}
+		}
+
+		/**
+		 * Same products and sums, in the same order, as the traversal of all the configurations
+		 */
+		private void visitInnerVariable(int[] base, int dimension, boolean[] mask, int firstMaskIndex,
+				int resultIndex) {
+			int resultStride = resultStrides[0];
+			for (int state = 0; state < dimension; state++) {
+				if (mask != null && !mask[firstMaskIndex + state]) {
+					continue;
+				}
+				double product = constantFactor;
+				for (int i = 0; i < base.length; i++) {
+					product *= tables[i][base[i] + state * innerStrides[i]];
+				}
+				if (blocksPerResult == 0) {
+					resultValues[resultIndex + state * resultStride] = product;
+				} else {
+					resultValues[resultIndex + state * resultStride] += product;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Variables of the potentials and of the result, compared by identity
+	 */
+	private static class Key {
+
+		private final Variable[][] variables;
+
+		private final int hashCode;
+
+		private Key(Collection<TablePotential> tablePotentials, List<Variable> variablesToKeep,
+				List<Variable> variablesToEliminate) {
+			variables = new Variable[tablePotentials.size() + 2][];
+			int i = 0;
+			for (TablePotential potential : tablePotentials) {
+				variables[i++] = potential.getVariables().toArray(new Variable[0]);
+			}
+			variables[i++] = variablesToKeep.toArray(new Variable[0]);
+			variables[i] = variablesToEliminate.toArray(new Variable[0]);
+			hashCode = Arrays.deepHashCode(variables);
+		}
+
+		@Override public boolean equals(Object object) {
+			return object instanceof Key && Arrays.deepEquals(variables, ((Key) object).variables);
+		}
+
+		@Override public int hashCode() {
+			return hashCode;
+		}
+	}
+}
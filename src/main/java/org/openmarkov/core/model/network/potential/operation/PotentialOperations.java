@@ -292,7 +292,7 @@ public class PotentialOperations {
 
 		List<Variable> variables = new ArrayList<>();
 		variables.add(variable);
-		for (Node node : probNet.getParents(probNet.getNode(variable))) {
+		for (Node node : probNet.getParentsView(probNet.getNode(variable))) {
 			variables.add(node.getVariable());
 		}
 		PotentialRole role = PotentialRole.CONDITIONAL_PROBABILITY;
@@ -7,38 +7,38 @@
 
 package org.openmarkov.core.model.network.potential.operation.concurrent;
 
-import org.openmarkov.core.model.network.potential.TablePotential;
-
+/**
+ * Computes the configurations [{@code from}, {@code to}) of the quotient of
+ * the potentials of a {@link SharedDataDivide}.
+ */
 public class DiscreteDivide implements Runnable {
 
-	int[] dimension;
-	int[] potentialsPositions;
-	private TablePotential quotient;
-	private int numVariables;
-	private int[] quotientCoordinate;
-	private int[] quotientDimension;
-	private TablePotential numerator;
-	private TablePotential denominator;
-	private int[] offset;
-	private int[][] offsetsAccumulate;
+	private final SharedDataDivide sdd;
+
+	private final int from;
+
+	private final int to;
 
-	public DiscreteDivide(SharedDataDivide sdd, int logicalProcessor) {
-		this.numerator = sdd.numerator;
-		this.denominator = sdd.denominator;
-		this.quotientCoordinate = sdd.quotientCoordinate;
-		this.quotientDimension = sdd.quotientDimension;
-		this.offsetsAccumulate = sdd.offsetAccumulate;
-		this.quotient = sdd.result;
+	public DiscreteDivide(SharedDataDivide sdd, int from, int to) {
+		this.sdd = sdd;
+		this.from = from;
+		this.to = to;
 	}
 
 	public void run() {
-		int tamTable = 1; // If numVariables == 0 the potential is a constant
-		if (numVariables > 0) {
-			tamTable = dimension[numVariables - 1] * offset[numVariables - 1];
-		}
+		int[] quotientDimension = sdd.quotientDimension;
+		int[] quotientCoordinate = new int[quotientDimension.length];
+		int[] potentialsPositions = new int[2];
+		DiscretePotentialOperations.locate(from, quotientDimension, sdd.initialPositions, sdd.strides,
+				quotientCoordinate, potentialsPositions);
+		double[] numeratorTable = sdd.tables[0];
+		double[] denominatorTable = sdd.tables[1];
+		int[][] offsetAccumulate = sdd.offsetAccumulate;
+		double[] quotientTable = sdd.result.values;
 
+		// Divide
 		int incrementedVariable = 0;
-		for (int quotientPosition = 0; quotientPosition < tamTable; quotientPosition++) {
+		for (int quotientPosition = from; quotientPosition < to; quotientPosition++) {
 			/* increment the result coordinate and
 			   find out which variable is to be incremented */
 			for (int iVariable = 0; iVariable < quotientCoordinate.length; iVariable++) {
@@ -58,16 +58,14 @@ public class DiscreteDivide implements Runnable {
 			}
 
 			// divide
-			if (denominator.values[potentialsPositions[1]] == 0.0) {
-				quotient.values[quotientPosition] = 0.0;
-			} else {
-				quotient.values[quotientPosition] = numerator.values[potentialsPositions[0]]
-						/ denominator.values[potentialsPositions[1]];
-			}
+			double denominator = denominatorTable[potentialsPositions[1]];
+			quotientTable[quotientPosition] = denominator == 0.0 ? 0.0
+					: numeratorTable[potentialsPositions[0]] / denominator;
 			for (int iPotential = 0; iPotential < 2; iPotential++) {
 				// update the current position in each potential table
-				potentialsPositions[iPotential] += offsetsAccumulate[iPotential][incrementedVariable];
+				potentialsPositions[iPotential] += offsetAccumulate[iPotential][incrementedVariable];
 			}
 		}
 	}
+
 }
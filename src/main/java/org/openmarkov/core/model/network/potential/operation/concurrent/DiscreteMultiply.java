@@ -7,62 +7,53 @@
 
 package org.openmarkov.core.model.network.potential.operation.concurrent;
 
+/**
+ * Computes the configurations [{@code from}, {@code to}) of the product of
+ * the potentials of a {@link SharedDataMultiply}.
+ */
 public class DiscreteMultiply implements Runnable {
 
-	volatile protected SharedDataMultiply sdm;
-
-	protected int logicalProcessor;
-
-	protected int[] resultDimension;
+	protected final int from;
 
-	protected int[] resultCoordinate;
+	protected final int to;
 
-	protected double[] resultTable;
+	protected final int[] potentialsPositions;
 
-	protected int[] potentialsPositions;
+	protected final double[][] tables;
 
-	protected double[][] tables;
+	protected final int[][] offAccPotentials;
 
-	protected int[][] offAccPotentials;
+	protected final int numPotentials;
 
-	protected int numPotentials;
+	protected final double constantFactor;
 
-	protected double constantFactor;
+	private final SharedDataMultiply sdm;
 
-	public DiscreteMultiply(SharedDataMultiply sdm, int logicalProcessor) {
+	public DiscreteMultiply(SharedDataMultiply sdm, int from, int to) {
 		this.sdm = sdm;
-		this.logicalProcessor = logicalProcessor;
-		potentialsPositions = sdm.potentialsPositions[logicalProcessor];
-		resultDimension = sdm.result.getDimensions();
-		resultCoordinate = sdm.resultIntervals[logicalProcessor];
+		this.from = from;
+		this.to = to;
 		tables = sdm.tables;
 		offAccPotentials = sdm.offAccPotentials;
-		resultTable = sdm.result.values;
 		numPotentials = sdm.numPotentials;
 		constantFactor = sdm.constantFactor;
+		potentialsPositions = new int[numPotentials];
 	}
 
 	public void run() {
+		int[] resultDimension = sdm.resultDimensions;
+		int[] resultCoordinate = new int[resultDimension.length];
+		DiscretePotentialOperations.locate(from, resultDimension, sdm.initialPositions, sdm.strides,
+				resultCoordinate, potentialsPositions);
+		double[] resultTable = sdm.result.values;
+
 		// Multiply
 		int incrementedVariable = 0;
 		double mulResult;
-
-		int initialPosition = sdm.resultPositionIntervals[logicalProcessor];
-		int finalPosition = initialPosition + sdm.lengthResultIntervals[logicalProcessor];
-		
-		/*
-		System.out.println("Logical processor: " + logicalProcessor + 
-			", Initial position: " + initialPosition + ", Final position: " +
-			finalPosition + ". Total iterations: " 
-			+ (finalPosition - initialPosition) + "\n" 
-			+ "First resultCoordinate: " 
-			+ openmarkov.UtilTestMethods.printArrayOfIntegers(resultCoordinate));
-		*/
-
-		for (int resultPosition = initialPosition; resultPosition < finalPosition; resultPosition++) {
+		for (int resultPosition = from; resultPosition < to; resultPosition++) {
 			mulResult = constantFactor;
 
-          /* increment the result coordinate and
+			/* increment the result coordinate and
 			   find out which variable is to be incremented */
 			for (int iVariable = 0; iVariable < resultCoordinate.length; iVariable++) {
 				// try by incrementing the current variable (given by iVariable)
@@ -83,28 +74,12 @@ public class DiscreteMultiply implements Runnable {
 			// multiply
 			for (int iPotential = 0; iPotential < numPotentials; iPotential++) {
 				// multiply the numbers
-				try {
-					mulResult = mulResult * tables[iPotential][potentialsPositions[iPotential]];
-				} catch (Exception e) {
-					System.err.println(getErrorMsg(e, iPotential));
-				}
+				mulResult = mulResult * tables[iPotential][potentialsPositions[iPotential]];
 				// update the current position in each potential table
 				potentialsPositions[iPotential] += offAccPotentials[iPotential][incrementedVariable];
-
 			}
 			resultTable[resultPosition] = mulResult;
 		}
 	}
 
-	private String getErrorMsg(Exception e, int iPotential) {
-		String error = new String();
-		error = error + e.getMessage();
-		error = error + "Logical processor: " + logicalProcessor + "\n";
-		error = error + "iPotential: " + iPotential + "\n";
-		error = error + "potentialsPositions.length: " + potentialsPositions.length + "\n";
-		error = error + "tables[iPotential].length: " + sdm.tables[iPotential].length + "\n";
-		error = error + "potentialsPositions[iPotential]: " + potentialsPositions[iPotential] + "\n";
-
-		return error;
-	}
 }
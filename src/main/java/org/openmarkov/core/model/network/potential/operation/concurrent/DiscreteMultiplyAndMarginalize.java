@@ -7,55 +7,44 @@
 
 package org.openmarkov.core.model.network.potential.operation.concurrent;
 
-public class DiscreteMultiplyAndMarginalize extends DiscreteMultiply implements Runnable {
-
-	private SharedDataMultiplyAndMarginalize sdm;
-
-	private int resultSize;
-
-	private int[] currentPositions;
-
-	private int eliminationSize;
-
-	private int[] unionCoordinate;
+/**
+ * Computes the configurations [{@code from}, {@code to}) of the result of
+ * multiplying the potentials of a {@link SharedDataMultiplyAndMarginalize}
+ * and summing out its variables to eliminate.
+ */
+public class DiscreteMultiplyAndMarginalize extends DiscreteMultiply {
 
-	private int[] unionDimensions;
+	private final SharedDataMultiplyAndMarginalize sdm;
 
-	public DiscreteMultiplyAndMarginalize(SharedDataMultiplyAndMarginalize sdm, int logicalProcessor) {
-		super(sdm, logicalProcessor);
-		resultSize = sdm.result.values.length;
-		eliminationSize = sdm.eliminationSize;
-		unionCoordinate = sdm.unionCoordinate;
-		unionDimensions = sdm.unionDimensions;
+	public DiscreteMultiplyAndMarginalize(SharedDataMultiplyAndMarginalize sdm, int from, int to) {
+		super(sdm, from, to);
+		this.sdm = sdm;
 	}
 
 	public void run() {
+		int eliminationSize = sdm.eliminationSize;
+		int[] unionDimensions = sdm.unionDimensions;
+		int[] unionCoordinate = new int[unionDimensions.length];
+		// Each configuration of the result is the sum of eliminationSize
+		// consecutive configurations of the product
+		DiscretePotentialOperations.locate(from * eliminationSize, unionDimensions, sdm.initialPositions,
+				sdm.strides, unionCoordinate, potentialsPositions);
+		double[] resultTable = sdm.result.values;
+
 		// Auxiliary variables for the nested loops
 		double multiplicationResult; // product of the table values
 		double accumulator; // in general, the sum or the maximum
 		int increasedVariable = 0; // when computing the next configuration
 
 		// outer iterations correspond to the variables to keep
-		int initialPosition = sdm.resultPositionIntervals[logicalProcessor];
-		int finalPosition = initialPosition + sdm.lengthResultIntervals[logicalProcessor];
-		for (int outerIteration = initialPosition; outerIteration < finalPosition; outerIteration++) {
+		for (int outerIteration = from; outerIteration < to; outerIteration++) {
 			// Inner iterations correspond to the variables to eliminate
 			// accumulator summarizes the result of all inner iterations
+			accumulator = 0.0;
+			for (int innerIteration = 0; innerIteration < eliminationSize; innerIteration++) {
 
-			// first inner iteration
-			multiplicationResult = constantFactor;
-			for (int i = 0; i < numPotentials; i++) {
-				// multiply the numbers
-				multiplicationResult *= tables[i][currentPositions[i]];
-			}
-			accumulator = multiplicationResult;
-
-			// next inner iterations
-			for (int innerIteration = 1; innerIteration < eliminationSize; innerIteration++) {
-
-				// find the next configuration and the index of	 the
-				// increased
-				// variable
+				// find the next configuration and the index of the
+				// increased variable
 				for (int j = 0; j < unionCoordinate.length; j++) {
 					unionCoordinate[j]++;
 					if (unionCoordinate[j] < unionDimensions[j]) {
@@ -65,48 +54,19 @@ public class DiscreteMultiplyAndMarginalize extends DiscreteMultiply implements
 					unionCoordinate[j] = 0;
 				}
 
-				// update the positions of the potentials we are multiplying
-				for (int i = 0; i < numPotentials; i++) {
-					currentPositions[i] += offAccPotentials[i][increasedVariable];
-				}
-
-				// multiply the table values of the potentials
+				// multiply the table values of the potentials and update
+				// their positions
 				multiplicationResult = constantFactor;
 				for (int i = 0; i < numPotentials; i++) {
-					multiplicationResult = multiplicationResult * tables[i][currentPositions[i]];
+					multiplicationResult *= tables[i][potentialsPositions[i]];
+					potentialsPositions[i] += offAccPotentials[i][increasedVariable];
 				}
 
 				// update the accumulator (for this inner iteration)
 				accumulator += multiplicationResult;
-				// accumulator =
-				// operator.combine(accumlator,multiplicationResult);
-
-			} // end of inner iteration
-
-			// when eliminationSize == 0 there is a multiplication without
-			// marginalization but we must find the next configuration
-			if (outerIteration < resultSize - 1) {
-				// find the next configuration and the index of the
-				// increased
-				// variable
-				for (int j = 0; j < unionCoordinate.length; j++) {
-					unionCoordinate[j]++;
-					if (unionCoordinate[j] < unionDimensions[j]) {
-						increasedVariable = j;
-						break;
-					}
-					unionCoordinate[j] = 0;
-				}
-
-				// update the positions of the potentials we are multiplying
-				for (int i = 0; i < numPotentials; i++) {
-					currentPositions[i] += offAccPotentials[i][increasedVariable];
-				}
 			}
-
-			resultTable[outerIteration] = accumulator / eliminationSize;
-
-		} // end of outer iteration
-
+			resultTable[outerIteration] = accumulator;
+		}
 	}
+
 }
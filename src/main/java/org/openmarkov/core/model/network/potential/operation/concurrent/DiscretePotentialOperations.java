@@ -11,8 +11,19 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.TablePotential;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Parallel versions of some of the operations in
+ * {@link org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations}.
+ * The result table is split in chunks of consecutive configurations that are computed by the tasks of a shared
+ * {@code ForkJoinPool}; operations whose amount of work is below {@code parallelThreshold} run in the calling thread.
+ */
 public class DiscretePotentialOperations {
 
 	// Attributes
@@ -23,6 +34,27 @@ public class DiscretePotentialOperations {
 	 */
 	public static int numLogicalProcessors = java.lang.Runtime.getRuntime().availableProcessors();
 
+	/**
+	 * Pool that runs the chunks of every operation. By default, the common pool.
+	 */
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Operations that need fewer elementary steps (multiplications or divisions) than this threshold are computed
+	 * sequentially, because splitting them costs more than it saves.
+	 */
+	private static volatile int parallelThreshold = 1 << 15;
+
+	/**
+	 * Minimum number of elementary steps of each chunk.
+	 */
+	private static volatile int minChunkWork = 1 << 13;
+
+	/**
+	 * Maximum number of chunks per thread of the pool, to balance the load when some chunks finish earlier.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
 	// Constructor. Don't let anyone instantiate this class because in contains 
 	// only static methods.
 	private DiscretePotentialOperations() {
@@ -33,39 +65,30 @@ public class DiscretePotentialOperations {
 	 *
 	 * @param potentials ArrayList of Potentials
 	 * @return The multiplied potentials
-	 * @throws Exception Exception
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the result
 	 */
-	public static TablePotential multiply(List<TablePotential> potentials) throws Exception {
+	public static TablePotential multiply(List<TablePotential> potentials) throws InterruptedException {
 		// Sequential part
 		SharedDataMultiply sdm = new SharedDataMultiply(potentials);
 		sdm.initialize();
 
 		// Concurrent part
-		// Starts concurrency
-		Thread[] multipliers = new Thread[numLogicalProcessors];
-		DiscreteMultiply[] cdm = new DiscreteMultiply[numLogicalProcessors];
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			cdm[i] = new DiscreteMultiply(sdm, i);
-			multipliers[i] = new Thread(cdm[i]);
-			multipliers[i].start();
-			//cdm[i].run();
-		}
-
-		// Synchronization. The current thread waits until all 
-		// concurrent operations finish
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			try {
-				multipliers[i].join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
+		int resultSize = sdm.result.values.length;
+		execute(resultSize, (long) resultSize * Math.max(1, sdm.numPotentials),
+				(from, to) -> new DiscreteMultiply(sdm, from, to));
 
 		return sdm.result;
 	}
 
+	/**
+	 * @param tablePotentials        potentials to multiply
+	 * @param fSVariablesToKeep      variables of the result
+	 * @param fSVariablesToEliminate variables summed out
+	 * @return The product of the potentials, marginalized onto {@code fSVariablesToKeep}
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the result
+	 */
 	public static TablePotential multiplyAndMarginalize(List<TablePotential> tablePotentials,
-			List<Variable> fSVariablesToKeep, List<Variable> fSVariablesToEliminate) throws Exception {
+			List<Variable> fSVariablesToKeep, List<Variable> fSVariablesToEliminate) throws InterruptedException {
 
 		// Sequential part
 		SharedDataMultiplyAndMarginalize sdm = new SharedDataMultiplyAndMarginalize(tablePotentials, fSVariablesToKeep,
@@ -73,24 +96,9 @@ public class DiscretePotentialOperations {
 		sdm.initializeMultiplyAndMarginalize();
 
 		// Concurrent part
-		// Starts concurrency
-		Thread[] multipliers = new Thread[numLogicalProcessors];
-		DiscreteMultiplyAndMarginalize[] cdm = new DiscreteMultiplyAndMarginalize[numLogicalProcessors];
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			cdm[i] = new DiscreteMultiplyAndMarginalize(sdm, i);
-			multipliers[i] = new Thread(cdm[i]);
-			multipliers[i].start();
-		}
-
-		// Synchronization. The current thread waits until all 
-		// concurrent operations finish
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			try {
-				multipliers[i].join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
+		int resultSize = sdm.result.values.length;
+		execute(resultSize, (long) resultSize * sdm.eliminationSize * Math.max(1, sdm.numPotentials),
+				(from, to) -> new DiscreteMultiplyAndMarginalize(sdm, from, to));
 
 		return sdm.result;
 	}
@@ -99,110 +107,163 @@ public class DiscretePotentialOperations {
 	 * @param numeratorPotential   {@code Potential}
 	 * @param denominatorPotential {@code Potential}
 	 * @return numeratorPotential / denominatorPotential {@code TablePotential}
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the result
 	 */
-	public static TablePotential divide(Potential numeratorPotential, Potential denominatorPotential) {
+	public static TablePotential divide(Potential numeratorPotential, Potential denominatorPotential)
+			throws InterruptedException {
 		// Sequential part
 		SharedDataDivide sdd = new SharedDataDivide(numeratorPotential, denominatorPotential);
 		sdd.initialize();
 
 		// Concurrent part
-		// Starts concurrency
-		Thread[] multipliers = new Thread[numLogicalProcessors];
-		DiscreteDivide[] cdd = new DiscreteDivide[numLogicalProcessors];
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			cdd[i] = new DiscreteDivide(sdd, i);
-			multipliers[i] = new Thread(cdd[i]);
-			multipliers[i].start();
-		}
-
-		// Synchronization. The current thread waits until all 
-		// concurrent operations finish
-		for (int i = 0; i < numLogicalProcessors; i++) {
-			try {
-				multipliers[i].join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
+		int resultSize = sdd.result.values.length;
+		execute(resultSize, resultSize, (from, to) -> new DiscreteDivide(sdd, from, to));
 
 		return sdd.result;
 	}
 
 	/**
-	 * Calculates potentialPositions for each interval
+	 * @param pool pool used by the next operations
 	 */
-	static void splitOperatorsPotentials(List<TablePotential> potentials, TablePotential result,
-			int[][] resultIntervals, int[][] potentialsPositions) {
-
-		List<Variable> resultVariables = result.getVariables();
-
-		int aux;
-		int numIntervals = org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations.numLogicalProcessors;
-
-		for (int i = 0; i < numIntervals; i++) {
-			for (int j = 0; j < potentials.size(); j++) {
-				TablePotential potential = potentials.get(j);
-				int[] offsetsPotential = potential.getOffsets();
-				List<Variable> potentialVariables = potential.getVariables();
-				aux = 0;
-
-				// This is different for each operation (marginalization, etc)
-				for (int k = 0; k < potentialVariables.size(); k++) {
-					Variable variable = potentialVariables.get(k);
-					// gets the variable coordinate value in the 
-					// potentialPosition
-					int indexResult = resultVariables.indexOf(variable);
-					int valueResult = resultIntervals[i][indexResult];
-					aux += offsetsPotential[k] * valueResult;
-				}
-				potentialsPositions[i][j] = aux;
-			}
-		}
+	public static void setPool(ForkJoinPool pool) {
+		DiscretePotentialOperations.pool = pool;
+	}
+
+	public static ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @param parallelThreshold minimum number of elementary steps for an operation to be parallelized
+	 */
+	public static void setParallelThreshold(int parallelThreshold) {
+		DiscretePotentialOperations.parallelThreshold = parallelThreshold;
+	}
+
+	public static int getParallelThreshold() {
+		return parallelThreshold;
 	}
 
 	/**
-	 * Divides an operation in {@code numLogicalProcessors} parts by
-	 * computing the following arrays {@code resultIntervals},
-	 * {@code lengthResultIntervals} and
-	 * {@code variableToIncrement}.
+	 * @param minChunkWork minimum number of elementary steps of each parallel chunk
 	 */
-	static void splitResultPotential(TablePotential result, int[][] resultIntervals, int[] lengthResultIntervals,
-			int[] resultPositionIntervals) {
-		int[] offsetsResult = result.getOffsets();
-		int[] dimensions = result.getDimensions();
-		int numIntervals = org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations.numLogicalProcessors;
-		int numResultVariables = offsetsResult.length;
-		int lastVariable = numResultVariables - 1;
-		int resultSize = offsetsResult[lastVariable] * dimensions[lastVariable];
-
-		int intervalLength = resultSize / numIntervals;
-
-		int remainderConfigurations = resultSize % numIntervals;
-
-		// Calculate length of each interval
-		resultPositionIntervals[0] = 0;
-		for (int i = 0; i < numIntervals; i++) {
-			lengthResultIntervals[i] = intervalLength;
-			if (i < remainderConfigurations) {
-				lengthResultIntervals[i]++;
+	public static void setMinChunkWork(int minChunkWork) {
+		DiscretePotentialOperations.minChunkWork = Math.max(1, minChunkWork);
+	}
+
+	public static int getMinChunkWork() {
+		return minChunkWork;
+	}
+
+	/**
+	 * Computes the configurations [0, {@code resultSize}) of a result, either in the calling thread or split in
+	 * chunks whose number depends on {@code work} and on the parallelism of the pool.
+	 * Exceptions thrown by a chunk are rethrown in the calling thread.
+	 */
+	private static void execute(int resultSize, long work, ChunkFactory chunkFactory) throws InterruptedException {
+		ForkJoinPool currentPool = pool;
+		long maxChunks = Math.min((long) currentPool.getParallelism() * CHUNKS_PER_THREAD, work / minChunkWork);
+		int numChunks = (int) Math.min(maxChunks, resultSize);
+		if (work < parallelThreshold || numChunks < 2) {
+			chunkFactory.create(0, resultSize).run();
+			return;
+		}
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(numChunks);
+		int chunkSize = resultSize / numChunks;
+		int remainder = resultSize % numChunks;
+		int from = 0;
+		for (int i = 0; i < numChunks; i++) {
+			int to = from + chunkSize + (i < remainder ? 1 : 0);
+			tasks.add(ForkJoinTask.adapt(chunkFactory.create(from, to)));
+			from = to;
+		}
+
+		if (ForkJoinTask.getPool() == currentPool) {
+			// Joining from a worker thread of the pool helps with the pending tasks instead of blocking it. Workers of
+			// other pools submit the chunks, so that they run with the parallelism of this pool.
+			ForkJoinTask.invokeAll(tasks);
+			return;
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			currentPool.execute(task);
+		}
+		try {
+			for (ForkJoinTask<?> task : tasks) {
+				task.get();
+			}
+		} catch (InterruptedException e) {
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
 			}
-			if (i > 0) {
-				resultPositionIntervals[i] = resultPositionIntervals[i - 1] + lengthResultIntervals[i];
+			throw e;
+		} catch (ExecutionException e) {
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
 			}
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (CancellationException e) {
+			throw new IllegalStateException("Potential operation cancelled", e);
+		}
+	}
+
+	/**
+	 * For each variable of {@code resultVariables}, computes the distance in the table of a potential whose
+	 * variables are {@code potentialVariables} between two configurations that differ by one in that variable
+	 * (zero when the potential does not depend on it).
+	 */
+	static int[] getStrides(List<Variable> resultVariables, List<Variable> potentialVariables) {
+		int numPotentialVariables = potentialVariables.size();
+		int[] potentialOffsets = new int[numPotentialVariables];
+		int offset = 1;
+		for (int i = 0; i < numPotentialVariables; i++) {
+			potentialOffsets[i] = offset;
+			offset *= potentialVariables.get(i).getNumStates();
+		}
+		int[] strides = new int[resultVariables.size()];
+		for (int i = 0; i < strides.length; i++) {
+			int index = potentialVariables.indexOf(resultVariables.get(i));
+			strides[i] = index == -1 ? 0 : potentialOffsets[index];
 		}
+		return strides;
+	}
 
-		int actualPosition = 0;
-		// Calculate intervals
-		// First configuration starts with (0,0,...,0).  
-		int i;
-		for (i = 1; i < numIntervals; i++) {
-			actualPosition += lengthResultIntervals[i - 1];
-			int remainder = actualPosition;
-			for (int j = lastVariable; j >= 0; j--) {
-				resultIntervals[i][j] = remainder / offsetsResult[j];
-				remainder = remainder % offsetsResult[j];
+	/**
+	 * Computes the coordinate of the configuration {@code position} of a table with the given dimensions and the
+	 * positions that correspond to it in the tables of the operands.
+	 *
+	 * @param position         position in the table being iterated
+	 * @param dimensions       dimensions of the table being iterated
+	 * @param initialPositions position of the first configuration in each operand
+	 * @param strides          strides of each operand (see {@link #getStrides(List, List)})
+	 * @param coordinate       output: the coordinate of {@code position}
+	 * @param positions        output: the position in each operand
+	 */
+	static void locate(int position, int[] dimensions, int[] initialPositions, int[][] strides, int[] coordinate,
+			int[] positions) {
+		System.arraycopy(initialPositions, 0, positions, 0, positions.length);
+		int remainder = position;
+		for (int i = 0; i < dimensions.length; i++) {
+			coordinate[i] = remainder % dimensions[i];
+			remainder /= dimensions[i];
+			for (int j = 0; j < positions.length; j++) {
+				positions[j] += coordinate[i] * strides[j][i];
 			}
 		}
 	}
 
+	/**
+	 * Creates the task that computes the configurations [from, to) of a result.
+	 */
+	private interface ChunkFactory {
+		Runnable create(int from, int to);
+	}
+
 }
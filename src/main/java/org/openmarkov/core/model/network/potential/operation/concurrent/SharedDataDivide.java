@@ -18,8 +18,9 @@ import java.util.List;
 
 /**
  * Contains shared data used concurrently by a set of threads computing an
- * operation. This class is not synchronized because the set of threads
- * accomplish the three conditions of Bernstein
+ * operation. This class is not synchronized because the data are written
+ * before the threads start and each thread writes a disjoint interval of the
+ * result table.
  * All data have package access because they will be used outside this class,
  * only in this package and the access must be efficient (there is not getX or
  * setX)
@@ -30,19 +31,15 @@ public class SharedDataDivide {
 
 	TablePotential denominator;
 
-	int numVariables;
-
 	double[][] tables;
 
-	int[] quotientDimension;
+	int[] initialPositions;
 
-	int[] quotientCoordinate;
+	int[] quotientDimension;
 
 	int[][] offsetAccumulate;
 
-	int[][] potentialPositions;
-
-	int tamTable;
+	int[][] strides;
 
 	TablePotential result;
 
@@ -52,42 +49,32 @@ public class SharedDataDivide {
 	}
 
 	public void initialize() {
-		List<Variable> quotientVariables = numerator.getVariables();
-		TablePotential quotient = null;
-		try {
-			quotient = new TablePotential(quotientVariables, PotentialRole.JOINT_PROBABILITY);
-		} catch (Exception e) {
-			e.printStackTrace();
+		// Quotient potential variables = numerator potential variables union
+		// denominator potential variables
+		List<Variable> quotientVariables = new ArrayList<>(numerator.getVariables());
+		for (Variable variable : denominator.getVariables()) {
+			if (!quotientVariables.contains(variable)) {
+				quotientVariables.add(variable);
+			}
 		}
-
-		int numVariables = quotient.getVariables().size();
+		result = new TablePotential(quotientVariables, PotentialRole.JOINT_PROBABILITY);
 
 		// Gets the tables of each TablePotential
-		double[][] tables = new double[2][];
-		tables[0] = numerator.values;
-		tables[1] = denominator.values;
+		tables = new double[][] { numerator.values, denominator.values };
+		initialPositions = new int[] { numerator.getInitialPosition(), denominator.getInitialPosition() };
 
 		// Gets dimension
-		quotientDimension = quotient.getDimensions();
+		quotientDimension = TablePotential.calculateDimensions(quotientVariables);
 
 		// Gets offset accumulate
-		ArrayList<TablePotential> potentials = new ArrayList<>();
+		List<TablePotential> potentials = new ArrayList<>();
 		potentials.add(numerator);
 		potentials.add(denominator);
-		offsetAccumulate = DiscretePotentialOperations.getAccumulatedOffsets(potentials, quotient);
-
-		// Gets coordinate
-		if (numVariables != 0) {
-			quotientCoordinate = new int[numVariables];
-		} else {
-			quotientCoordinate = new int[1];
-			quotientCoordinate[0] = 0;
-		}
-
-		// Position in each table potential
-		int[] potentialsPositions = new int[2];
+		offsetAccumulate = DiscretePotentialOperations.getAccumulatedOffsets(potentials, result);
+		strides = new int[2][];
 		for (int i = 0; i < 2; i++) {
-			potentialsPositions[i] = 0;
+			strides[i] = org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
+					.getStrides(quotientVariables, potentials.get(i).getVariables());
 		}
 	}
 
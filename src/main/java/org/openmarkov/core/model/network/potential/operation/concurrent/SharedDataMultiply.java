@@ -18,8 +18,9 @@ import java.util.List;
 
 /**
  * Contains shared data used concurrently by a set of threads computing an
- * operation. This class is not synchronized because the set of threads
- * accomplish the three conditions of Bernstein
+ * operation. This class is not synchronized because the data are written
+ * before the threads start and each thread writes a disjoint interval of the
+ * result table.
  * All data have package access because they will be used outside this class,
  * only in this package and the access must be efficient (there is not getX or
  * setX)
@@ -27,38 +28,34 @@ import java.util.List;
 public class SharedDataMultiply {
 
 	// Attributes related to the arguments
-	volatile List<TablePotential> potentials;
+	List<TablePotential> potentials;
 
-	volatile int numPotentials;
+	int numPotentials;
 
-	volatile int[][] offAccPotentials;
+	int[][] offAccPotentials;
 
 	/**
 	 * Probability tables of potentials
 	 */
-	volatile double[][] tables;
+	double[][] tables;
 
-	// Attributes related to result
-	volatile TablePotential result;
+	/**
+	 * Position of the first configuration in each table
+	 */
+	int[] initialPositions;
 
-	volatile int numResultVariables;
+	// Attributes related to result
+	TablePotential result;
 
-	volatile int[] resultDimensions;
+	int[] resultDimensions;
 
-	volatile int[] offsetsResult;
+	/**
+	 * Strides of the result variables in each potential
+	 */
+	int[][] strides;
 
 	// Product of constant potentials (1 if none)
-	volatile double constantFactor;
-
-	// Attributes related to splitted potentials. 
-	// First coordinate = numLogicalProcessors
-	volatile int[] resultPositionIntervals;
-
-	volatile int[][] resultIntervals;
-
-	volatile int[] lengthResultIntervals;
-
-	volatile int[][] potentialsPositions;
+	double constantFactor;
 
 	// Constructor
 	public SharedDataMultiply(List<TablePotential> potentials) {
@@ -68,56 +65,44 @@ public class SharedDataMultiply {
 	// Methods
 
 	/**
-	 * Initialize the attributes using the potentials and the number of logical
-	 * processors
-	 *
-	 * @throws Exception Exception
+	 * Initialize the attributes using the potentials
 	 */
-	public void initialize() throws Exception {
+	public void initialize() {
 		// Sort the potentials according to the table size
 		Collections.sort(potentials);
 
 		// Gets constant factor: The product of constant potentials
-		constantFactor = org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations
-				.getConstantFactor(potentials);
+		constantFactor = DiscretePotentialOperations.getConstantFactor(potentials);
 
-		//nonConstantPotentials may be redundant, but since potentials may be modified by other threads,
-		// separating declaration and assignment avoids that other threads mess with "potentials" while this
-		// thread is updating it.
-		List<TablePotential> nonConstantPotentials = AuxiliaryOperations.getNonConstantPotentials(potentials);
-		potentials = nonConstantPotentials;
-
-		numPotentials = potentials.size();
+		potentials = AuxiliaryOperations.getNonConstantPotentials(potentials);
 
 		// Gets the union
 		result = new TablePotential(AuxiliaryOperations.getUnionVariables(potentials), PotentialRole.JOINT_PROBABILITY);
+		resultDimensions = TablePotential.calculateDimensions(result.getVariables());
 
-		numResultVariables = result.getVariables().size();
+		initializePotentials(result);
+	}
 
-		// Gets the tables of each TablePotential
+	/**
+	 * Gets the tables, initial positions, accumulated offsets and strides of
+	 * the potentials with respect to the table {@code iterated}, that is
+	 * traversed by the threads
+	 *
+	 * @param iterated {@code TablePotential}
+	 */
+	void initializePotentials(TablePotential iterated) {
+		numPotentials = potentials.size();
 		tables = new double[numPotentials][];
+		initialPositions = new int[numPotentials];
+		strides = new int[numPotentials][];
 		for (int i = 0; i < numPotentials; i++) {
-			tables[i] = potentials.get(i).values;
+			TablePotential potential = potentials.get(i);
+			tables[i] = potential.values;
+			initialPositions[i] = potential.getInitialPosition();
+			strides[i] = org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
+					.getStrides(iterated.getVariables(), potential.getVariables());
 		}
-
-		// Gets offset accumulate
-		offAccPotentials = DiscretePotentialOperations.getAccumulatedOffsets(potentials, result);
-
-		// Position in each table potential
-		potentialsPositions = new int[org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations.numLogicalProcessors][numPotentials];
-
-		// splits potentials
-		offsetsResult = result.getOffsets();
-		int numIntervals = org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations.numLogicalProcessors;
-		int numResultVariables = offsetsResult.length;
-		resultIntervals = new int[numIntervals][numResultVariables];
-		lengthResultIntervals = new int[numIntervals];
-		resultPositionIntervals = new int[numIntervals];
-
-		org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
-				.splitResultPotential(result, resultIntervals, lengthResultIntervals, resultPositionIntervals);
-		org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
-				.splitOperatorsPotentials(potentials, result, resultIntervals, potentialsPositions);
+		offAccPotentials = DiscretePotentialOperations.getAccumulatedOffsets(potentials, iterated);
 	}
 
 }
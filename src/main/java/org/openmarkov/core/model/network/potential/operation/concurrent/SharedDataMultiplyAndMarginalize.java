@@ -9,8 +9,11 @@ package org.openmarkov.core.model.network.potential.operation.concurrent;
 
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.AuxiliaryOperations;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class SharedDataMultiplyAndMarginalize extends SharedDataMultiply {
@@ -20,56 +23,39 @@ public class SharedDataMultiplyAndMarginalize extends SharedDataMultiply {
 	List<Variable> variablesToEliminate;
 
 	// Attributes related to the product potential that will be marginalized
-	List<Variable> unionVariables;
-
-	int[] unionCoordinate;
-
 	int[] unionDimensions;
 
 	int eliminationSize;
 
-	@SuppressWarnings("unchecked") public SharedDataMultiplyAndMarginalize(List<TablePotential> potentials,
-			List<Variable> fSVariablesToKeep, List<Variable> fSVariablesToEliminate) {
+	public SharedDataMultiplyAndMarginalize(List<TablePotential> potentials, List<Variable> fSVariablesToKeep,
+			List<Variable> fSVariablesToEliminate) {
 
 		super(potentials);
 
 		this.variablesToKeep = fSVariablesToKeep;
 
-		this.variablesToEliminate = (ArrayList<Variable>) ((Object) fSVariablesToEliminate);
+		this.variablesToEliminate = fSVariablesToEliminate;
 	}
 
 	/**
 	 * Does some previous not parallel operations
-	 *
-	 * @throws Exception Exception
 	 */
-	public void initializeMultiplyAndMarginalize() throws Exception {
-		super.initialize();
-		// variables in the resulting potential
+	public void initializeMultiplyAndMarginalize() {
+		// Sort the potentials according to the table size
+		Collections.sort(potentials);
+		result = new TablePotential(variablesToKeep, DiscretePotentialOperations.getRole(potentials));
+		resultDimensions = TablePotential.calculateDimensions(result.getVariables());
+
+		constantFactor = DiscretePotentialOperations.getConstantFactor(potentials);
+		potentials = AuxiliaryOperations.getNonConstantPotentials(potentials);
+
+		// The product is traversed in the order of the variables to eliminate
+		// followed by the variables to keep, so each configuration of the
+		// result corresponds to eliminationSize consecutive configurations
 		List<Variable> unionVariables = new ArrayList<>(variablesToEliminate);
 		unionVariables.addAll(variablesToKeep);
-		int numUnionVariables = unionVariables.size();
-
-		// current coordinate in the resulting potential
-		unionCoordinate = new int[numUnionVariables];
 		unionDimensions = TablePotential.calculateDimensions(unionVariables);
-
-		// Defines some arrays for the proper potentials...
-		double[][] tables = new double[numPotentials][];
-		int[] initialPositions = new int[numPotentials];
-		int[] currentPositions = new int[numPotentials];
-		int[][] accumulatedOffsets = new int[numPotentials][];
-		// ... and initializes them
-		TablePotential unionPotential = new TablePotential(unionVariables, null);
-		for (int i = 0; i < numPotentials; i++) {
-			TablePotential potential = (TablePotential) potentials.get(i);
-			tables[i] = potential.values;
-			initialPositions[i] = potential.getInitialPosition();
-			currentPositions[i] = initialPositions[i];
-			accumulatedOffsets[i] = unionPotential
-					//.getAccumulatedOffsets(potential.getOriginalVariables());
-					.getAccumulatedOffsets(potential.getVariables());
-		}
+		initializePotentials(new TablePotential(unionVariables, null));
 
 		// The elimination size is the product of the dimensions of the
 		// variables to eliminate
@@ -77,7 +63,6 @@ public class SharedDataMultiplyAndMarginalize extends SharedDataMultiply {
 		for (Variable variable : variablesToEliminate) {
 			eliminationSize *= variable.getNumStates();
 		}
-
 	}
 
 }
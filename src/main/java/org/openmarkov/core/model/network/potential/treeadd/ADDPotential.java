@@ -0,0 +1,608 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential.treeadd;
+
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.InferenceOptions;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@code ADDPotential} is an algebraic decision diagram: a function of discrete variables represented by a rooted
+ * acyclic graph whose inner nodes test a variable and have a child for each of its states, and whose leaves contain
+ * the values of the function. Unlike a {@code TablePotential}, a diagram only tests a variable in the contexts in
+ * which the function depends on it, so it keeps the context-specific independence of a {@code TreeADDPotential}.
+ * <p>
+ * The diagrams are immutable. The product, the sum out and the max out of a variable are computed directly on them,
+ * without building any table, and the equal subgraphs that an operation creates are shared. No variable is tested
+ * twice in the same path.
+ */
+public class ADDPotential extends Potential {
+
+	/**
+	 * Approximate memory of a node of the diagram, measured in cells of a table
+	 */
+	public static final int NODE_COST = 4;
+
+	// Attributes
+	private DiagramNode root;
+
+	// Constructor
+	/**
+	 * @param variables Variables of the potential. They must contain the variables tested by {@code root}.
+	 * @param role      Potential role
+	 * @param root      Root of the diagram
+	 */
+	private ADDPotential(List<Variable> variables, PotentialRole role, DiagramNode root) {
+		super(variables, role);
+		this.root = root;
+	}
+
+	/**
+	 * Copy constructor. The diagram is shared, since it is immutable.
+	 *
+	 * @param potential ADD potential
+	 */
+	public ADDPotential(ADDPotential potential) {
+		super(potential);
+		this.criterion = potential.getCriterion();
+		this.root = potential.root;
+	}
+
+	// Methods
+	/**
+	 * @param tablePotential Table potential. Its uncertain values and strategy trees are ignored.
+	 * @return The diagram of the function represented by {@code tablePotential}
+	 */
+	public static ADDPotential fromTable(TablePotential tablePotential) {
+		DiagramNode root = new DiagramBuilder()
+				.fromTable(tablePotential, Collections.<Variable, Integer>emptyMap());
+		return new ADDPotential(tablePotential.getVariables(), tablePotential.getPotentialRole(), root);
+	}
+
+	/**
+	 * Projects a tree of finite states variables on the evidence without blending its branches into a table. The
+	 * leaves of the tree are projected into tables, which are converted into diagrams in the context of their
+	 * branches.
+	 *
+	 * @param tree             Tree potential
+	 * @param evidenceCase     Evidence
+	 * @param inferenceOptions Inference options
+	 * @return The diagram of {@code tree} projected on {@code evidenceCase}
+	 * @throws NonProjectablePotentialException When a leaf cannot be projected, it has uncertain values or strategy
+	 *                                          trees, or some state of a top variable is not covered by any branch
+	 * @throws WrongCriterionException          WrongCriterionException
+	 */
+	public static ADDPotential project(TreeADDPotential tree, EvidenceCase evidenceCase,
+			InferenceOptions inferenceOptions) throws NonProjectablePotentialException, WrongCriterionException {
+		Set<Variable> diagramVariables = new LinkedHashSet<>();
+		DiagramNode root = new DiagramBuilder()
+				.fromTree(tree, evidenceCase, inferenceOptions, new HashMap<Variable, Integer>(), diagramVariables);
+		// The conditioned variable first and then the other variables in the order of the tree
+		List<Variable> variables = new ArrayList<>();
+		for (Variable variable : tree.getVariables()) {
+			if (diagramVariables.remove(variable)) {
+				variables.add(variable);
+			}
+		}
+		variables.addAll(diagramVariables);
+		return new ADDPotential(variables, tree.getPotentialRole(), root);
+	}
+
+	/**
+	 * @param other Another diagram
+	 * @return The product of this diagram and {@code other}
+	 */
+	public ADDPotential multiply(ADDPotential other) {
+		Set<Variable> variables = new LinkedHashSet<>(this.variables);
+		variables.addAll(other.variables);
+		DiagramNode product = new DiagramBuilder()
+				.combine(root, other.root, new HashMap<Variable, Integer>(), Operation.PRODUCT);
+		return new ADDPotential(new ArrayList<>(variables),
+				DiscretePotentialOperations.getRole(Arrays.asList(this, other)), product);
+	}
+
+	/**
+	 * @param variable Variable to eliminate
+	 * @return The sum of this diagram over the states of {@code variable}
+	 */
+	public ADDPotential sumOut(Variable variable) {
+		return eliminate(variable, Operation.SUM);
+	}
+
+	/**
+	 * @param variable Variable to eliminate
+	 * @return The maximum of this diagram over the states of {@code variable}
+	 */
+	public ADDPotential maxOut(Variable variable) {
+		return eliminate(variable, Operation.MAX);
+	}
+
+	private ADDPotential eliminate(Variable variable, Operation operation) {
+		List<Variable> remainingVariables = new ArrayList<>(variables);
+		remainingVariables.remove(variable);
+		DiagramNode result = new DiagramBuilder()
+				.eliminate(root, variable, operation, new IdentityHashMap<DiagramNode, DiagramNode>());
+		ADDPotential potential = new ADDPotential(remainingVariables, role, result);
+		potential.criterion = criterion;
+		return potential;
+	}
+
+	/**
+	 * @return The number of distinct nodes of the diagram, including the leaves
+	 */
+	public int getNumNodes() {
+		Set<DiagramNode> visited = Collections.newSetFromMap(new IdentityHashMap<DiagramNode, Boolean>());
+		List<DiagramNode> pending = new ArrayList<>();
+		pending.add(root);
+		while (!pending.isEmpty()) {
+			DiagramNode node = pending.remove(pending.size() - 1);
+			if (visited.add(node) && node.variable != null) {
+				pending.addAll(Arrays.asList(node.children));
+			}
+		}
+		return visited.size();
+	}
+
+	/**
+	 * @return The approximate memory of the diagram, measured in cells of a table
+	 */
+	public long getCost() {
+		return (long) getNumNodes() * NODE_COST;
+	}
+
+	/**
+	 * @param variables Variables of a table
+	 * @return The number of cells of a table of {@code variables}, saturated at {@code Long.MAX_VALUE}
+	 */
+	public static long getTableCost(Iterable<Variable> variables) {
+		long tableSize = 1;
+		for (Variable variable : variables) {
+			int numStates = variable.getNumStates();
+			tableSize = tableSize > Long.MAX_VALUE / numStates ? Long.MAX_VALUE : tableSize * numStates;
+		}
+		return tableSize;
+	}
+
+	/**
+	 * @return {@code true} if the diagram needs less memory than the equivalent {@code TablePotential}
+	 */
+	public boolean isCheaperThanTable() {
+		return getCost() < getTableCost(variables);
+	}
+
+	/**
+	 * @return The table of this diagram, whose variables are those of this potential in the same order
+	 */
+	public TablePotential toTablePotential() {
+		TablePotential tablePotential = new TablePotential(variables, role,
+				new double[TablePotential.computeTableSize(variables)]);
+		tablePotential.setCriterion(criterion);
+		Map<Variable, Integer> positions = new IdentityHashMap<>();
+		for (int i = 0; i < variables.size(); i++) {
+			positions.put(variables.get(i), i);
+		}
+		int[] dimensions = tablePotential.getDimensions();
+		int[] coordinates = new int[variables.size()];
+		double[] values = tablePotential.values;
+		for (int position = 0; position < values.length; position++) {
+			DiagramNode node = root;
+			while (node.variable != null) {
+				Integer variablePosition = positions.get(node.variable);
+				if (variablePosition == null) {
+					throw new IllegalStateException(
+							"Variable " + node.variable.getName() + " is tested by the diagram but it is not one of "
+									+ "the variables of the potential");
+				}
+				node = node.children[coordinates[variablePosition]];
+			}
+			values[position] = node.value;
+			// Next configuration
+			for (int i = 0; i < coordinates.length && ++coordinates[i] == dimensions[i]; i++) {
+				coordinates[i] = 0;
+			}
+		}
+		return tablePotential;
+	}
+
+	@Override public List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
+			List<TablePotential> projectedPotentials) throws NonProjectablePotentialException, WrongCriterionException {
+		return toTablePotential().tableProject(evidenceCase, inferenceOptions, projectedPotentials);
+	}
+
+	@Override public Potential copy() {
+		return new ADDPotential(this);
+	}
+
+	@Override public boolean isUncertain() {
+		return false;
+	}
+
+	@Override public void scalePotential(double scale) {
+		root = new DiagramBuilder().scale(root, scale, new IdentityHashMap<DiagramNode, DiagramNode>());
+	}
+
+	@Override public Potential reorder(List<Variable> newOrderOfVariables) {
+		ADDPotential potential = new ADDPotential(newOrderOfVariables, role, root);
+		potential.criterion = criterion;
+		return potential;
+	}
+
+	@Override public Potential reorder(Variable variable, State[] newOrder) {
+		int[] oldIndices = new int[newOrder.length];
+		for (int i = 0; i < newOrder.length; i++) {
+			oldIndices[i] = variable.getStateIndex(newOrder[i]);
+		}
+		ADDPotential potential = new ADDPotential(variables, role, new DiagramBuilder()
+				.reorderStates(root, variable, oldIndices, new IdentityHashMap<DiagramNode, DiagramNode>()));
+		potential.criterion = criterion;
+		return potential;
+	}
+
+	@Override public String toString() {
+		return super.toString() + " = ADD (" + getNumNodes() + " nodes)";
+	}
+
+	/**
+	 * Operations that combine the values of two leaves
+	 */
+	private enum Operation {
+		PRODUCT, SUM, MAX;
+
+		double apply(double value1, double value2) {
+			switch (this) {
+			case PRODUCT:
+				return value1 * value2;
+			case SUM:
+				return value1 + value2;
+			default:
+				return Math.max(value1, value2);
+			}
+		}
+	}
+
+	/**
+	 * Node of a diagram. Leaves have no variable. The equality is shallow: two inner nodes are equal when they test
+	 * the same variable and have the same children.
+	 */
+	private static final class DiagramNode {
+
+		private final Variable variable;
+
+		private final DiagramNode[] children;
+
+		private final double value;
+
+		private final int hashCode;
+
+		private DiagramNode(double value) {
+			this.variable = null;
+			this.children = null;
+			this.value = value;
+			this.hashCode = Double.hashCode(value);
+		}
+
+		private DiagramNode(Variable variable, DiagramNode[] children) {
+			this.variable = variable;
+			this.children = children;
+			this.value = Double.NaN;
+			int hash = System.identityHashCode(variable);
+			for (DiagramNode child : children) {
+				hash = 31 * hash + System.identityHashCode(child);
+			}
+			this.hashCode = hash;
+		}
+
+		@Override public int hashCode() {
+			return hashCode;
+		}
+
+		@Override public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof DiagramNode)) {
+				return false;
+			}
+			DiagramNode node = (DiagramNode) object;
+			if (variable == null) {
+				return node.variable == null && Double.compare(value, node.value) == 0;
+			}
+			if (variable != node.variable) {
+				return false;
+			}
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] != node.children[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Creates the nodes of the diagrams, removing the tests whose children are all equal and sharing equal nodes
+	 */
+	private static final class DiagramBuilder {
+
+		private final Map<DiagramNode, DiagramNode> uniqueTable = new HashMap<>();
+
+		/**
+		 * Variables tested by each node or its descendants
+		 */
+		private final Map<DiagramNode, Set<Variable>> supports = new IdentityHashMap<>();
+
+		/**
+		 * Results of {@link #combine}, indexed by the nodes and the states of the context that they test
+		 */
+		private final Map<List<Object>, DiagramNode> combinations = new HashMap<>();
+
+		private DiagramNode leaf(double value) {
+			return canonical(new DiagramNode(value));
+		}
+
+		private DiagramNode node(Variable variable, DiagramNode[] children) {
+			DiagramNode firstChild = canonical(children[0]);
+			boolean allEqual = true;
+			for (int i = 0; i < children.length; i++) {
+				children[i] = canonical(children[i]);
+				allEqual &= children[i] == firstChild;
+			}
+			return allEqual ? firstChild : canonical(new DiagramNode(variable, children));
+		}
+
+		private DiagramNode canonical(DiagramNode node) {
+			DiagramNode canonicalNode = uniqueTable.get(node);
+			if (canonicalNode == null) {
+				uniqueTable.put(node, node);
+				canonicalNode = node;
+			}
+			return canonicalNode;
+		}
+
+		/**
+		 * Builds the diagram of a table, testing its variables from the last one to the first one and fixing the
+		 * variables of {@code context} to their states
+		 */
+		private DiagramNode fromTable(TablePotential tablePotential, Map<Variable, Integer> context) {
+			List<Variable> variables = tablePotential.getVariables();
+			int[] offsets = tablePotential.getOffsets();
+			return fromTable(tablePotential.values, variables, offsets, variables.size() - 1,
+					tablePotential.getInitialPosition(), context);
+		}
+
+		private DiagramNode fromTable(double[] values, List<Variable> variables, int[] offsets, int index,
+				int position, Map<Variable, Integer> context) {
+			if (index < 0) {
+				return leaf(values[position]);
+			}
+			Variable variable = variables.get(index);
+			Integer state = context.get(variable);
+			if (state != null) {
+				return fromTable(values, variables, offsets, index - 1, position + state * offsets[index], context);
+			}
+			DiagramNode[] children = new DiagramNode[variable.getNumStates()];
+			for (int i = 0; i < children.length; i++) {
+				children[i] = fromTable(values, variables, offsets, index - 1, position + i * offsets[index],
+						context);
+			}
+			return node(variable, children);
+		}
+
+		private DiagramNode fromTree(TreeADDPotential tree, EvidenceCase evidenceCase,
+				InferenceOptions inferenceOptions, Map<Variable, Integer> context, Set<Variable> diagramVariables)
+				throws NonProjectablePotentialException, WrongCriterionException {
+			Variable topVariable = tree.getRootVariable();
+			if (topVariable.getVariableType() == VariableType.NUMERIC) {
+				// The tree selects a branch by the finding of the numeric variable
+				return fromLeaf(tree, evidenceCase, inferenceOptions, context, diagramVariables);
+			}
+			Integer topState = context.get(topVariable);
+			if (topState == null && evidenceCase != null && evidenceCase.contains(topVariable)) {
+				topState = evidenceCase.getFinding(topVariable).getStateIndex();
+			}
+			if (topState != null) {
+				return fromBranch(getBranch(tree, topState), evidenceCase, inferenceOptions, context,
+						diagramVariables);
+			}
+			diagramVariables.add(topVariable);
+			DiagramNode[] children = new DiagramNode[topVariable.getNumStates()];
+			for (int i = 0; i < children.length; i++) {
+				context.put(topVariable, i);
+				children[i] = fromBranch(getBranch(tree, i), evidenceCase, inferenceOptions, context,
+						diagramVariables);
+			}
+			context.remove(topVariable);
+			return node(topVariable, children);
+		}
+
+		private DiagramNode fromBranch(TreeADDBranch branch, EvidenceCase evidenceCase,
+				InferenceOptions inferenceOptions, Map<Variable, Integer> context, Set<Variable> diagramVariables)
+				throws NonProjectablePotentialException, WrongCriterionException {
+			Potential potential = branch.getPotential();
+			return potential instanceof TreeADDPotential ?
+					fromTree((TreeADDPotential) potential, evidenceCase, inferenceOptions, context,
+							diagramVariables) :
+					fromLeaf(potential, evidenceCase, inferenceOptions, context, diagramVariables);
+		}
+
+		private DiagramNode fromLeaf(Potential potential, EvidenceCase evidenceCase,
+				InferenceOptions inferenceOptions, Map<Variable, Integer> context, Set<Variable> diagramVariables)
+				throws NonProjectablePotentialException, WrongCriterionException {
+			TablePotential tablePotential = potential.tableProject(evidenceCase, inferenceOptions).get(0);
+			if (tablePotential.uncertainValues != null || tablePotential.strategyTrees != null) {
+				throw new NonProjectablePotentialException(
+						"The potential " + potential.toShortString() + " cannot be represented by a diagram");
+			}
+			diagramVariables.addAll(tablePotential.getVariables());
+			return fromTable(tablePotential, context);
+		}
+
+		private static TreeADDBranch getBranch(TreeADDPotential tree, int stateIndex)
+				throws NonProjectablePotentialException {
+			Variable topVariable = tree.getRootVariable();
+			for (TreeADDBranch branch : tree.getBranches()) {
+				for (State branchState : branch.getBranchStates()) {
+					if (topVariable.getStateIndex(branchState) == stateIndex) {
+						return branch;
+					}
+				}
+			}
+			throw new NonProjectablePotentialException(
+					"No branch of the tree " + tree.toShortString() + " covers the state " + topVariable
+							.getStates()[stateIndex].getName() + " of " + topVariable.getName());
+		}
+
+		/**
+		 * Combines two diagrams leaf by leaf. The variables of {@code context} have been fixed by the tests above
+		 * the current nodes, so only the corresponding child of the nodes that test them is followed.
+		 */
+		private DiagramNode combine(DiagramNode node1, DiagramNode node2, Map<Variable, Integer> context,
+				Operation operation) {
+			if (node1.variable == null) {
+				if (operation == Operation.PRODUCT && node1.value == 0.0) {
+					return leaf(0.0);
+				}
+				if (node2.variable == null) {
+					return leaf(operation.apply(node1.value, node2.value));
+				}
+			}
+			// The result only depends on the states of the context that the nodes test
+			Map<Variable, Integer> relevantContext = new HashMap<>();
+			for (Map.Entry<Variable, Integer> entry : context.entrySet()) {
+				if (getSupport(node1).contains(entry.getKey()) || getSupport(node2).contains(entry.getKey())) {
+					relevantContext.put(entry.getKey(), entry.getValue());
+				}
+			}
+			List<Object> key = Arrays.<Object>asList(node1, node2, relevantContext);
+			DiagramNode result = combinations.get(key);
+			if (result == null) {
+				result = node1.variable != null ?
+						expand(node1, node2, node1, true, context, operation) :
+						expand(node1, node2, node2, false, context, operation);
+				combinations.put(key, result);
+			}
+			return result;
+		}
+
+		private Set<Variable> getSupport(DiagramNode node) {
+			if (node.variable == null) {
+				return Collections.emptySet();
+			}
+			Set<Variable> support = supports.get(node);
+			if (support == null) {
+				support = Collections.newSetFromMap(new IdentityHashMap<Variable, Boolean>());
+				support.add(node.variable);
+				for (DiagramNode child : node.children) {
+					support.addAll(getSupport(child));
+				}
+				supports.put(node, support);
+			}
+			return support;
+		}
+
+		private DiagramNode expand(DiagramNode node1, DiagramNode node2, DiagramNode tested, boolean first,
+				Map<Variable, Integer> context, Operation operation) {
+			Variable variable = tested.variable;
+			Integer state = context.get(variable);
+			if (state != null) {
+				DiagramNode child = tested.children[state];
+				return first ?
+						combine(child, node2, context, operation) :
+						combine(node1, child, context, operation);
+			}
+			DiagramNode[] children = new DiagramNode[tested.children.length];
+			for (int i = 0; i < children.length; i++) {
+				context.put(variable, i);
+				children[i] = first ?
+						combine(tested.children[i], node2, context, operation) :
+						combine(node1, tested.children[i], context, operation);
+			}
+			context.remove(variable);
+			return node(variable, children);
+		}
+
+		private DiagramNode eliminate(DiagramNode node, Variable variable, Operation operation,
+				Map<DiagramNode, DiagramNode> cache) {
+			DiagramNode result = cache.get(node);
+			if (result != null) {
+				return result;
+			}
+			if (node.variable == null) {
+				// The function does not depend on the variable in this context
+				result = operation == Operation.SUM ? leaf(node.value * variable.getNumStates()) : node;
+			} else if (node.variable == variable) {
+				result = node.children[0];
+				for (int i = 1; i < node.children.length; i++) {
+					result = combine(result, node.children[i], new HashMap<Variable, Integer>(), operation);
+				}
+			} else {
+				DiagramNode[] children = new DiagramNode[node.children.length];
+				for (int i = 0; i < children.length; i++) {
+					children[i] = eliminate(node.children[i], variable, operation, cache);
+				}
+				result = node(node.variable, children);
+			}
+			cache.put(node, result);
+			return result;
+		}
+
+		private DiagramNode scale(DiagramNode node, double scale, Map<DiagramNode, DiagramNode> cache) {
+			DiagramNode result = cache.get(node);
+			if (result == null) {
+				if (node.variable == null) {
+					result = leaf(node.value * scale);
+				} else {
+					DiagramNode[] children = new DiagramNode[node.children.length];
+					for (int i = 0; i < children.length; i++) {
+						children[i] = scale(node.children[i], scale, cache);
+					}
+					result = node(node.variable, children);
+				}
+				cache.put(node, result);
+			}
+			return result;
+		}
+
+		private DiagramNode reorderStates(DiagramNode node, Variable variable, int[] oldIndices,
+				Map<DiagramNode, DiagramNode> cache) {
+			DiagramNode result = cache.get(node);
+			if (result == null) {
+				if (node.variable == null) {
+					result = node;
+				} else {
+					DiagramNode[] children = new DiagramNode[node.children.length];
+					for (int i = 0; i < children.length; i++) {
+						int childIndex = node.variable == variable ? oldIndices[i] : i;
+						children[i] = reorderStates(node.children[childIndex], variable, oldIndices, cache);
+					}
+					result = node(node.variable, children);
+				}
+				cache.put(node, result);
+			}
+			return result;
+		}
+	}
+}
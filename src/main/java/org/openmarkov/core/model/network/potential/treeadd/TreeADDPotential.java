@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Stack;
 
 /**
@@ -408,6 +409,23 @@ public class TreeADDPotential extends Potential {
 		return Arrays.asList(projected);
 	}
 
+	/**
+	 * Projects a conditional probability tree into an {@code ADDPotential}, which keeps the context-specific
+	 * independences of the tree, when the diagram is smaller than the table.
+	 */
+	@Override public Potential compactProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions) {
+		if (role != PotentialRole.CONDITIONAL_PROBABILITY) {
+			return null;
+		}
+		try {
+			ADDPotential diagram = ADDPotential.project(this, evidenceCase, inferenceOptions);
+			return diagram.isCheaperThanTable() ? diagram : null;
+		} catch (NonProjectablePotentialException | WrongCriterionException e) {
+			// tableProject either copes with it or reports it
+			return null;
+		}
+	}
+
 	/**
 	 * Eliminates the nodes whose variable name is equal to the parameter 'variableName'
 	 * and grafts the daughter branches of that node in the parent node.
@@ -493,10 +511,10 @@ public class TreeADDPotential extends Potential {
 	/**
 	 * Generates a sampled potential
 	 */
-	@Override public Potential sample() {
+	@Override public Potential sample(Random randomGenerator) {
 		TreeADDPotential sampledTree = (TreeADDPotential) this.copy();
 		for (TreeADDBranch branch : sampledTree.getBranches()) {
-			branch.setPotential(branch.getPotential().sample());
+			branch.setPotential(branch.getPotential().sample(randomGenerator));
 		}
 		return sampledTree;
 	}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.heuristic.costModel;
+
+import org.openmarkov.core.inference.heuristic.EliminationHeuristic;
+import org.openmarkov.core.inference.heuristic.GraphEliminationHeuristic;
+import org.openmarkov.core.inference.heuristic.HeuristicFactory;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.inference.heuristic.minFill.MinFill;
+import org.openmarkov.inference.heuristic.minWeight.MinWeight;
+import org.openmarkov.inference.heuristic.stochasticElimination.StochasticElimination;
+import org.openmarkov.inference.heuristic.weightedMinFill.WeightedMinFill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the min-weight, min-fill and weighted-min-fill heuristics, and optionally the stochastic one, and returns
+ * the one whose order creates the smallest tables in total, as predicted before the elimination. Ties are broken by
+ * the size of the largest table.
+ */
+public class CostModelHeuristicFactory implements HeuristicFactory {
+
+	// Attributes
+	private final boolean useStochasticSearch;
+
+	// Constructors
+	public CostModelHeuristicFactory() {
+		this(false);
+	}
+
+	/**
+	 * @param useStochasticSearch if true, {@link StochasticElimination} is also a candidate
+	 */
+	public CostModelHeuristicFactory(boolean useStochasticSearch) {
+		this.useStochasticSearch = useStochasticSearch;
+	}
+
+	// Methods
+	@Override public EliminationHeuristic getHeuristic(ProbNet probNet, List<List<Variable>> variables) {
+		List<GraphEliminationHeuristic> candidates = new ArrayList<>();
+		candidates.add(new MinWeight(probNet, variables));
+		candidates.add(new MinFill(probNet, variables));
+		candidates.add(new WeightedMinFill(probNet, variables));
+		if (useStochasticSearch) {
+			candidates.add(new StochasticElimination(probNet, variables));
+		}
+		GraphEliminationHeuristic bestHeuristic = null;
+		for (GraphEliminationHeuristic candidate : candidates) {
+			if (bestHeuristic == null
+					|| candidate.getPredictedTotalCliqueSize() < bestHeuristic.getPredictedTotalCliqueSize()
+					|| candidate.getPredictedTotalCliqueSize() == bestHeuristic.getPredictedTotalCliqueSize()
+					&& candidate.getPredictedMaxCliqueSize() < bestHeuristic.getPredictedMaxCliqueSize()) {
+				bestHeuristic = candidate;
+			}
+		}
+		return bestHeuristic;
+	}
+
+	@Override public String getCacheKey() {
+		return getClass().getName() + (useStochasticSearch ? ":stochastic" : "");
+	}
+
+}
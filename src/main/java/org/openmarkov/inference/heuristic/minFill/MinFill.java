@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.heuristic.minFill;
+
+import org.openmarkov.core.inference.heuristic.EliminationCriterion;
+import org.openmarkov.core.inference.heuristic.GraphEliminationHeuristic;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import java.util.List;
+
+/**
+ * This heuristic chooses the variable whose elimination adds the fewest links between its neighbours.
+ */
+public class MinFill extends GraphEliminationHeuristic {
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 */
+	public MinFill(ProbNet probNet, List<List<Variable>> variablesToEliminate) {
+		super(probNet, variablesToEliminate, EliminationCriterion.MIN_FILL);
+	}
+
+}
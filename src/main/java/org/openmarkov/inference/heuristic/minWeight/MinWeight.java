@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.heuristic.minWeight;
+
+import org.openmarkov.core.inference.heuristic.EliminationCriterion;
+import org.openmarkov.core.inference.heuristic.GraphEliminationHeuristic;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import java.util.List;
+
+/**
+ * This heuristic chooses the variable whose elimination creates the smallest table, i.e. the one with the fewest
+ * configurations of the variable and its neighbours.
+ */
+public class MinWeight extends GraphEliminationHeuristic {
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 */
+	public MinWeight(ProbNet probNet, List<List<Variable>> variablesToEliminate) {
+		super(probNet, variablesToEliminate, EliminationCriterion.MIN_WEIGHT);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.heuristic.stochasticElimination;
+
+import org.openmarkov.core.inference.heuristic.EliminationCriterion;
+import org.openmarkov.core.inference.heuristic.EliminationGraph;
+import org.openmarkov.core.inference.heuristic.GraphEliminationHeuristic;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This heuristic searches for an elimination order by running the greedy heuristic of a criterion several times; in
+ * each step of a run, the variable is chosen at random among the best candidates, with probability inversely
+ * proportional to their rank. The order that creates the smallest tables in total is kept, and the variables are
+ * eliminated in that order.
+ * <p>
+ * The number of runs is bounded and the random generator is seeded, so the order found for a network is always the
+ * same. The first run is the deterministic greedy one, so the result is never worse than the greedy heuristic.
+ */
+public class StochasticElimination extends GraphEliminationHeuristic {
+
+	// Attributes
+	public static final int DEFAULT_NUM_TRIALS = 20;
+
+	public static final int DEFAULT_NUM_CANDIDATES = 3;
+
+	public static final long DEFAULT_SEED = 0;
+
+	private final List<Variable> order;
+
+	/**
+	 * Position in {@code order} of the next variable to eliminate
+	 */
+	private int position;
+
+	// Constructors
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 */
+	public StochasticElimination(ProbNet probNet, List<List<Variable>> variablesToEliminate) {
+		this(probNet, variablesToEliminate, EliminationCriterion.WEIGHTED_MIN_FILL, DEFAULT_NUM_TRIALS,
+				DEFAULT_NUM_CANDIDATES, DEFAULT_SEED);
+	}
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 * @param criterion            criterion used to rank the candidates
+	 * @param numTrials            number of randomized runs, besides the greedy one
+	 * @param numCandidates        number of best variables among which each step chooses
+	 * @param seed                 seed of the random generator
+	 */
+	public StochasticElimination(ProbNet probNet, List<List<Variable>> variablesToEliminate,
+			EliminationCriterion criterion, int numTrials, int numCandidates, long seed) {
+		super(probNet, variablesToEliminate, criterion);
+		List<Variable> bestOrder = getPredictedOrder();
+		double bestMaxCliqueSize = getPredictedMaxCliqueSize();
+		double bestTotalCliqueSize = getPredictedTotalCliqueSize();
+		Random random = new Random(seed);
+		for (int trial = 0; trial < numTrials; trial++) {
+			EliminationGraph simulation = new EliminationGraph(graph);
+			List<Variable> trialOrder = new ArrayList<>();
+			double maxCliqueSize = 0;
+			double totalCliqueSize = 0;
+			List<Integer> candidates;
+			while (!(candidates = simulation.getBestNodes(numCandidates)).isEmpty()
+					&& totalCliqueSize < bestTotalCliqueSize) {
+				int node = candidates.get(chooseRank(random, candidates.size()));
+				double cliqueSize = simulation.eliminate(node);
+				maxCliqueSize = Math.max(maxCliqueSize, cliqueSize);
+				totalCliqueSize += cliqueSize;
+				trialOrder.add(simulation.getVariable(node));
+			}
+			if (candidates.isEmpty() && (totalCliqueSize < bestTotalCliqueSize
+					|| totalCliqueSize == bestTotalCliqueSize && maxCliqueSize < bestMaxCliqueSize)) {
+				bestOrder = trialOrder;
+				bestMaxCliqueSize = maxCliqueSize;
+				bestTotalCliqueSize = totalCliqueSize;
+			}
+		}
+		order = bestOrder;
+		setPrediction(bestOrder, bestMaxCliqueSize, bestTotalCliqueSize);
+	}
+
+	// Methods
+	@Override public Variable getVariableToDelete() {
+		while (position < order.size() && graph.isEliminated(graph.getIndex(order.get(position)))) {
+			position++;
+		}
+		return position < order.size() ? order.get(position) : null;
+	}
+
+	/**
+	 * @return A rank between 0 and {@code numCandidates} - 1, with probability inversely proportional to rank + 1
+	 */
+	private static int chooseRank(Random random, int numCandidates) {
+		double sum = 0;
+		for (int rank = 0; rank < numCandidates; rank++) {
+			sum += 1.0 / (rank + 1);
+		}
+		double threshold = random.nextDouble() * sum;
+		for (int rank = 0; rank < numCandidates - 1; rank++) {
+			threshold -= 1.0 / (rank + 1);
+			if (threshold < 0) {
+				return rank;
+			}
+		}
+		return numCandidates - 1;
+	}
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.heuristic.weightedMinFill;
+
+import org.openmarkov.core.inference.heuristic.EliminationCriterion;
+import org.openmarkov.core.inference.heuristic.GraphEliminationHeuristic;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+
+import java.util.List;
+
+/**
+ * This heuristic chooses the variable whose elimination adds the fewest links between its neighbours, each link
+ * weighted by the product of the number of states of the variables it joins.
+ */
+public class WeightedMinFill extends GraphEliminationHeuristic {
+
+	/**
+	 * @param probNet              probNet
+	 * @param variablesToEliminate variablesToEliminate
+	 */
+	public WeightedMinFill(ProbNet probNet, List<List<Variable>> variablesToEliminate) {
+		super(probNet, variablesToEliminate, EliminationCriterion.WEIGHTED_MIN_FILL);
+	}
+
+}
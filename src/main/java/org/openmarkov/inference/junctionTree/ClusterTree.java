@@ -0,0 +1,582 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.junctionTree;
+
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clique tree (junction tree) of a set of probability potentials, propagated with the Shenoy-Shafer architecture.
+ * <p>
+ * The domain graph of the potentials is triangulated once with the minimum weight heuristic, the maximal cliques
+ * are joined by a maximum spanning tree over the size of the separators (a forest when the graph is not connected)
+ * and each potential is assigned to the smallest clique that contains its domain. After {@link #propagate()}, which
+ * sends one message in each direction of every edge, the marginal of any variable is obtained from a single clique.
+ * <p>
+ * Evidence can also be entered as likelihoods with {@link #setLikelihood(Variable, TablePotential)}. Changing a
+ * likelihood only invalidates the messages that flow away from the clique of its variable, and the messages are
+ * recomputed lazily, so a query after a change only recomputes the messages on the path between both cliques.
+ */
+public class ClusterTree {
+
+	// Attributes
+	/**
+	 * Variables of the potentials, in order of appearance. Their indices are the bits of the cliques.
+	 */
+	private final List<Variable> variables;
+
+	private final Map<Variable, Integer> variableIndices;
+
+	private final List<BitSet> cliques;
+
+	/**
+	 * Potentials assigned to each clique
+	 */
+	private final List<List<TablePotential>> cliquePotentials;
+
+	/**
+	 * Parent of each clique in the tree, -1 for the roots of the forest
+	 */
+	private final int[] parents;
+
+	private final List<List<Integer>> children;
+
+	/**
+	 * Cliques in an order in which each parent precedes its children
+	 */
+	private final int[] topologicalOrder;
+
+	/**
+	 * Smallest clique that contains each variable, indexed by variable index
+	 */
+	private final int[] homeCliques;
+
+	/**
+	 * Message from each clique to its parent, indexed by the clique (null if unity)
+	 */
+	private TablePotential[] upwardMessages;
+
+	/**
+	 * Message from the parent of each clique to it, indexed by the clique (null if unity)
+	 */
+	private TablePotential[] downwardMessages;
+
+	private boolean[] validUpwardMessages;
+
+	private boolean[] validDownwardMessages;
+
+	/**
+	 * Likelihood potentials (evidence) of each variable
+	 */
+	private final Map<Variable, TablePotential> likelihoods = new HashMap<>();
+
+	// Constructor
+
+	/**
+	 * Builds the clique tree. Potentials that do not depend on any variable are ignored.
+	 *
+	 * @param potentials probability potentials
+	 */
+	public ClusterTree(Collection<TablePotential> potentials) {
+		variables = new ArrayList<>();
+		variableIndices = new HashMap<>();
+		List<TablePotential> properPotentials = new ArrayList<>();
+		for (TablePotential potential : potentials) {
+			if (potential.getNumVariables() == 0) {
+				continue;
+			}
+			properPotentials.add(potential);
+			for (Variable variable : potential.getVariables()) {
+				if (!variableIndices.containsKey(variable)) {
+					variableIndices.put(variable, variables.size());
+					variables.add(variable);
+				}
+			}
+		}
+
+		cliques = triangulate(properPotentials);
+		int numCliques = cliques.size();
+		parents = new int[numCliques];
+		children = new ArrayList<>(numCliques);
+		for (int i = 0; i < numCliques; i++) {
+			children.add(new ArrayList<>());
+		}
+		topologicalOrder = buildTree();
+
+		cliquePotentials = new ArrayList<>(numCliques);
+		for (int i = 0; i < numCliques; i++) {
+			cliquePotentials.add(new ArrayList<>());
+		}
+		for (TablePotential potential : properPotentials) {
+			cliquePotentials.get(getSmallestClique(getDomain(potential.getVariables()))).add(potential);
+		}
+
+		homeCliques = new int[variables.size()];
+		for (int i = 0; i < homeCliques.length; i++) {
+			BitSet domain = new BitSet();
+			domain.set(i);
+			homeCliques[i] = getSmallestClique(domain);
+		}
+
+		upwardMessages = new TablePotential[numCliques];
+		downwardMessages = new TablePotential[numCliques];
+		validUpwardMessages = new boolean[numCliques];
+		validDownwardMessages = new boolean[numCliques];
+	}
+
+	// Methods
+
+	/**
+	 * Computes the messages of the collect (from the leaves to the roots) and distribute (from the roots to the
+	 * leaves) phases that are not up to date.
+	 */
+	public void propagate() {
+		// Collect
+		for (int i = topologicalOrder.length - 1; i >= 0; i--) {
+			int clique = topologicalOrder[i];
+			if (parents[clique] != -1 && !validUpwardMessages[clique]) {
+				updateUpwardMessage(clique);
+			}
+		}
+		// Distribute
+		for (int clique : topologicalOrder) {
+			if (parents[clique] != -1 && !validDownwardMessages[clique]) {
+				updateDownwardMessage(clique);
+			}
+		}
+	}
+
+	/**
+	 * @param variable a variable of the potentials
+	 * @return The marginal, not normalized, of {@code variable}
+	 */
+	public TablePotential getMarginal(Variable variable) {
+		Integer variableIndex = variableIndices.get(variable);
+		if (variableIndex == null) {
+			throw new IllegalArgumentException("Variable " + variable.getName() + " is not in the cluster tree");
+		}
+		int clique = homeCliques[variableIndex];
+		updateIncomingMessages(clique);
+		List<TablePotential> factors = collectFactors(clique, -1, true);
+		List<Variable> variablesToKeep = Collections.singletonList(variable);
+		TablePotential marginal;
+		if (getUnionDomain(factors).get(variableIndex)) {
+			marginal = DiscretePotentialOperations
+					.multiplyAndMarginalize(factors, variablesToKeep, getVariablesToEliminate(factors, variablesToKeep));
+		} else {
+			marginal = new TablePotential(variablesToKeep, PotentialRole.JOINT_PROBABILITY);
+			Arrays.fill(marginal.values, 1.0);
+		}
+		return marginal;
+	}
+
+	/**
+	 * Sets the likelihood of a variable, replacing the previous one, if any.
+	 *
+	 * @param variable   a variable of the potentials
+	 * @param likelihood potential whose only variable is {@code variable}
+	 */
+	public void setLikelihood(Variable variable, TablePotential likelihood) {
+		Integer variableIndex = variableIndices.get(variable);
+		if (variableIndex == null) {
+			throw new IllegalArgumentException("Variable " + variable.getName() + " is not in the cluster tree");
+		}
+		likelihoods.put(variable, likelihood);
+		invalidateMessagesFrom(homeCliques[variableIndex]);
+	}
+
+	/**
+	 * @param variable a variable of the potentials
+	 * @return The likelihood of {@code variable} that has been removed, or null if it had none
+	 */
+	public TablePotential removeLikelihood(Variable variable) {
+		TablePotential likelihood = likelihoods.remove(variable);
+		if (likelihood != null) {
+			invalidateMessagesFrom(homeCliques[variableIndices.get(variable)]);
+		}
+		return likelihood;
+	}
+
+	/**
+	 * Sets the likelihood of {@code variable} to 1 for the state {@code stateIndex} and 0 for the others.
+	 *
+	 * @param variable   a variable of the potentials
+	 * @param stateIndex index of the observed state
+	 */
+	public void setFinding(Variable variable, int stateIndex) {
+		TablePotential likelihood = new TablePotential(Collections.singletonList(variable),
+				PotentialRole.CONDITIONAL_PROBABILITY);
+		Arrays.fill(likelihood.values, 0.0);
+		likelihood.values[stateIndex] = 1.0;
+		setLikelihood(variable, likelihood);
+	}
+
+	/**
+	 * Marks as not up to date the messages that depend on the potentials of {@code clique}: the upward messages of
+	 * the clique and its ancestors and the downward messages of the other cliques.
+	 */
+	private void invalidateMessagesFrom(int clique) {
+		boolean[] isAncestor = new boolean[parents.length];
+		for (int ancestor = clique; ancestor != -1; ancestor = parents[ancestor]) {
+			validUpwardMessages[ancestor] = false;
+			isAncestor[ancestor] = true;
+		}
+		for (int i = 0; i < validDownwardMessages.length; i++) {
+			validDownwardMessages[i] &= isAncestor[i];
+		}
+	}
+
+	/**
+	 * Updates the messages that {@code clique} receives: the upward messages of the subtrees that hang from the
+	 * path between the root and the clique, and then the downward messages along that path.
+	 */
+	private void updateIncomingMessages(int clique) {
+		List<Integer> path = new ArrayList<>();
+		for (int ancestor = clique; ancestor != -1; ancestor = parents[ancestor]) {
+			path.add(ancestor);
+		}
+		Collections.reverse(path);
+		for (int i = 0; i < path.size(); i++) {
+			int next = i + 1 < path.size() ? path.get(i + 1) : -1;
+			for (int child : children.get(path.get(i))) {
+				if (child != next) {
+					updateUpwardMessages(child);
+				}
+			}
+		}
+		for (int i = 1; i < path.size(); i++) {
+			if (!validDownwardMessages[path.get(i)]) {
+				updateDownwardMessage(path.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Updates the upward messages of the subtree rooted at {@code clique}. Subtrees whose message is up to date are
+	 * not visited.
+	 */
+	private void updateUpwardMessages(int clique) {
+		List<Integer> pending = new ArrayList<>();
+		Deque<Integer> stack = new ArrayDeque<>();
+		stack.push(clique);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			if (!validUpwardMessages[current]) {
+				pending.add(current);
+				for (int child : children.get(current)) {
+					stack.push(child);
+				}
+			}
+		}
+		// Children are computed before their parents
+		for (int i = pending.size() - 1; i >= 0; i--) {
+			updateUpwardMessage(pending.get(i));
+		}
+	}
+
+	private void updateUpwardMessage(int clique) {
+		upwardMessages[clique] = computeMessage(clique, parents[clique], -1, false);
+		validUpwardMessages[clique] = true;
+	}
+
+	private void updateDownwardMessage(int clique) {
+		downwardMessages[clique] = computeMessage(parents[clique], clique, clique, true);
+		validDownwardMessages[clique] = true;
+	}
+
+	/**
+	 * @param variable variable
+	 * @return True if some potential of the tree depends on {@code variable}
+	 */
+	public boolean contains(Variable variable) {
+		return variableIndices.containsKey(variable);
+	}
+
+	/**
+	 * @return The variables of each clique
+	 */
+	public List<List<Variable>> getCliques() {
+		List<List<Variable>> cliqueVariables = new ArrayList<>(cliques.size());
+		for (BitSet clique : cliques) {
+			cliqueVariables.add(getVariables(clique));
+		}
+		return cliqueVariables;
+	}
+
+	/**
+	 * @return The number of configurations of the largest clique
+	 */
+	public double getMaxCliqueSize() {
+		double maxSize = 0;
+		for (BitSet clique : cliques) {
+			maxSize = Math.max(maxSize, getWeight(clique));
+		}
+		return maxSize;
+	}
+
+	/**
+	 * Eliminates the variables one by one choosing each time the one whose family (the variable and its neighbours)
+	 * has fewer configurations, adding fill-in links between its neighbours.
+	 *
+	 * @return The maximal cliques of the triangulated graph
+	 */
+	private List<BitSet> triangulate(List<TablePotential> potentials) {
+		int numVariables = variables.size();
+		BitSet[] neighbours = new BitSet[numVariables];
+		for (int i = 0; i < numVariables; i++) {
+			neighbours[i] = new BitSet(numVariables);
+		}
+		for (TablePotential potential : potentials) {
+			BitSet domain = getDomain(potential.getVariables());
+			for (int i = domain.nextSetBit(0); i >= 0; i = domain.nextSetBit(i + 1)) {
+				neighbours[i].or(domain);
+				neighbours[i].clear(i);
+			}
+		}
+
+		List<BitSet> maximalCliques = new ArrayList<>();
+		BitSet remaining = new BitSet(numVariables);
+		remaining.set(0, numVariables);
+		while (!remaining.isEmpty()) {
+			int bestVariable = -1;
+			double bestWeight = Double.POSITIVE_INFINITY;
+			for (int i = remaining.nextSetBit(0); i >= 0; i = remaining.nextSetBit(i + 1)) {
+				double weight = variables.get(i).getNumStates() * getWeight(neighbours[i]);
+				if (weight < bestWeight) {
+					bestVariable = i;
+					bestWeight = weight;
+				}
+			}
+			BitSet family = (BitSet) neighbours[bestVariable].clone();
+			family.set(bestVariable);
+			boolean isMaximal = true;
+			for (BitSet clique : maximalCliques) {
+				if (isSubset(family, clique)) {
+					isMaximal = false;
+					break;
+				}
+			}
+			if (isMaximal) {
+				maximalCliques.add(family);
+			}
+			// Connect the neighbours and remove the variable
+			BitSet bestNeighbours = neighbours[bestVariable];
+			for (int i = bestNeighbours.nextSetBit(0); i >= 0; i = bestNeighbours.nextSetBit(i + 1)) {
+				neighbours[i].or(bestNeighbours);
+				neighbours[i].clear(i);
+				neighbours[i].clear(bestVariable);
+			}
+			remaining.clear(bestVariable);
+		}
+		return maximalCliques;
+	}
+
+	/**
+	 * Joins the cliques with a maximum spanning tree (Kruskal) whose weights are the sizes of the separators, then
+	 * orients it from the first clique of each component.
+	 *
+	 * @return The cliques in an order in which each parent precedes its children
+	 */
+	private int[] buildTree() {
+		int numCliques = cliques.size();
+		List<int[]> candidateEdges = new ArrayList<>();
+		for (int i = 0; i < numCliques; i++) {
+			for (int j = i + 1; j < numCliques; j++) {
+				if (cliques.get(i).intersects(cliques.get(j))) {
+					BitSet separator = (BitSet) cliques.get(i).clone();
+					separator.and(cliques.get(j));
+					candidateEdges.add(new int[] { separator.cardinality(), i, j });
+				}
+			}
+		}
+		// Stable sort: ties keep the order of elimination
+		candidateEdges.sort((edge1, edge2) -> Integer.compare(edge2[0], edge1[0]));
+
+		int[] components = new int[numCliques];
+		for (int i = 0; i < numCliques; i++) {
+			components[i] = i;
+		}
+		List<List<Integer>> adjacency = new ArrayList<>(numCliques);
+		for (int i = 0; i < numCliques; i++) {
+			adjacency.add(new ArrayList<>());
+		}
+		for (int[] edge : candidateEdges) {
+			int component1 = findComponent(components, edge[1]);
+			int component2 = findComponent(components, edge[2]);
+			if (component1 != component2) {
+				components[component1] = component2;
+				adjacency.get(edge[1]).add(edge[2]);
+				adjacency.get(edge[2]).add(edge[1]);
+			}
+		}
+
+		int[] order = new int[numCliques];
+		boolean[] visited = new boolean[numCliques];
+		int head = 0;
+		int tail = 0;
+		for (int root = 0; root < numCliques; root++) {
+			if (visited[root]) {
+				continue;
+			}
+			visited[root] = true;
+			parents[root] = -1;
+			order[tail++] = root;
+			while (head < tail) {
+				int clique = order[head++];
+				for (int neighbour : adjacency.get(clique)) {
+					if (!visited[neighbour]) {
+						visited[neighbour] = true;
+						parents[neighbour] = clique;
+						children.get(clique).add(neighbour);
+						order[tail++] = neighbour;
+					}
+				}
+			}
+		}
+		return order;
+	}
+
+	private static int findComponent(int[] components, int clique) {
+		while (components[clique] != clique) {
+			components[clique] = components[components[clique]];
+			clique = components[clique];
+		}
+		return clique;
+	}
+
+	/**
+	 * @param from    clique that sends the message
+	 * @param to      clique that receives the message
+	 * @param exclude child of {@code from} whose message is not included, or -1
+	 * @param includeParent whether the message from the parent of {@code from} is included
+	 * @return The message, normalized to avoid underflows, or null if it is unity
+	 */
+	private TablePotential computeMessage(int from, int to, int exclude, boolean includeParent) {
+		List<TablePotential> factors = collectFactors(from, exclude, includeParent);
+		if (factors.isEmpty()) {
+			return null;
+		}
+		BitSet separator = (BitSet) cliques.get(from).clone();
+		separator.and(cliques.get(to));
+		separator.and(getUnionDomain(factors));
+		List<Variable> variablesToKeep = getVariables(separator);
+		TablePotential message = DiscretePotentialOperations
+				.multiplyAndMarginalize(factors, variablesToKeep, getVariablesToEliminate(factors, variablesToKeep));
+		double sum = DiscretePotentialOperations.sum(message.values);
+		if (sum > 0.0) {
+			for (int i = 0; i < message.values.length; i++) {
+				message.values[i] /= sum;
+			}
+		}
+		return message;
+	}
+
+	/**
+	 * @param clique  clique
+	 * @param exclude child whose message is not included, or -1
+	 * @param includeParent whether the message from the parent is included
+	 * @return The potentials assigned to {@code clique} and the messages it has received
+	 */
+	private List<TablePotential> collectFactors(int clique, int exclude, boolean includeParent) {
+		List<TablePotential> factors = new ArrayList<>(cliquePotentials.get(clique));
+		if (!likelihoods.isEmpty()) {
+			for (Map.Entry<Variable, TablePotential> likelihood : likelihoods.entrySet()) {
+				if (homeCliques[variableIndices.get(likelihood.getKey())] == clique) {
+					factors.add(likelihood.getValue());
+				}
+			}
+		}
+		if (includeParent && downwardMessages[clique] != null) {
+			factors.add(downwardMessages[clique]);
+		}
+		for (int child : children.get(clique)) {
+			if (child != exclude && upwardMessages[child] != null) {
+				factors.add(upwardMessages[child]);
+			}
+		}
+		return factors;
+	}
+
+	private List<Variable> getVariablesToEliminate(List<TablePotential> factors, List<Variable> variablesToKeep) {
+		BitSet domain = getUnionDomain(factors);
+		for (Variable variable : variablesToKeep) {
+			domain.clear(variableIndices.get(variable));
+		}
+		return getVariables(domain);
+	}
+
+	private BitSet getUnionDomain(List<TablePotential> factors) {
+		BitSet domain = new BitSet(variables.size());
+		for (TablePotential factor : factors) {
+			domain.or(getDomain(factor.getVariables()));
+		}
+		return domain;
+	}
+
+	private int getSmallestClique(BitSet domain) {
+		int bestClique = -1;
+		double bestWeight = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < cliques.size(); i++) {
+			if (isSubset(domain, cliques.get(i))) {
+				double weight = getWeight(cliques.get(i));
+				if (weight < bestWeight) {
+					bestClique = i;
+					bestWeight = weight;
+				}
+			}
+		}
+		return bestClique;
+	}
+
+	private BitSet getDomain(List<Variable> domainVariables) {
+		BitSet domain = new BitSet(variables.size());
+		for (Variable variable : domainVariables) {
+			domain.set(variableIndices.get(variable));
+		}
+		return domain;
+	}
+
+	private List<Variable> getVariables(BitSet domain) {
+		List<Variable> domainVariables = new ArrayList<>(domain.cardinality());
+		for (int i = domain.nextSetBit(0); i >= 0; i = domain.nextSetBit(i + 1)) {
+			domainVariables.add(variables.get(i));
+		}
+		return domainVariables;
+	}
+
+	/**
+	 * @return The number of configurations of the variables in {@code domain}
+	 */
+	private double getWeight(BitSet domain) {
+		double weight = 1.0;
+		for (int i = domain.nextSetBit(0); i >= 0; i = domain.nextSetBit(i + 1)) {
+			weight *= variables.get(i).getNumStates();
+		}
+		return weight;
+	}
+
+	private static boolean isSubset(BitSet subset, BitSet superset) {
+		BitSet difference = (BitSet) subset.clone();
+		difference.andNot(superset);
+		return difference.isEmpty();
+	}
+
+}
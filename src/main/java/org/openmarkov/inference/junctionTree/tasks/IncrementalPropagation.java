@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.junctionTree.tasks;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.exception.NoFindingException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NormalizeNullVectorException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.MulticriteriaOptions;
+import org.openmarkov.core.inference.tasks.Propagation;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openmarkov.inference.junctionTree.ClusterTree;
+import org.openmarkov.inference.variableElimination.tasks.VEPropagation;
+import org.openmarkov.inference.variableElimination.tasks.VariableElimination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Propagation session on a cluster tree compiled once, in which the findings can be added, changed and retracted
+ * one at a time.
+ * <p>
+ * The cluster tree is built from the potentials of the network without evidence and each finding is entered as a
+ * likelihood in the clique of its variable. A change in the evidence only invalidates the messages that flow away
+ * from that clique, and the next query only recomputes those on the path to the clique of the variable queried.
+ * <p>
+ * The findings of the session are post-resolution evidence: in influence diagrams, the optimal policies are
+ * computed once, with the pre-resolution evidence set before the first finding or query, which cannot be changed
+ * afterwards.
+ * The utilities of the utility nodes are computed by {@link VEPropagation} with the current findings.
+ */
+public class IncrementalPropagation extends VariableElimination implements Propagation {
+
+	// Attributes
+	private final EvidenceCase findings = new EvidenceCase();
+
+	private List<Variable> variablesOfInterest;
+
+	private ClusterTree clusterTree;
+
+	/**
+	 * Network received, before preprocessing, used to compute the utilities
+	 */
+	private final ProbNet originalProbNet;
+
+	/**
+	 * @param network Probabilistic network to be resolved
+	 * @throws NotEvaluableNetworkException Constructor
+	 */
+	public IncrementalPropagation(ProbNet network) throws NotEvaluableNetworkException {
+		super(network);
+		probNet.getInferenceOptions().getMultiCriteriaOptions()
+				.setMulticriteriaType(MulticriteriaOptions.Type.UNICRITERION);
+		originalProbNet = probNet.copy();
+	}
+
+	// Methods
+
+	/**
+	 * @param finding a finding of a variable without finding
+	 * @throws InvalidStateException         if the state of the finding is not valid
+	 * @throws IncompatibleEvidenceException if the variable already has a finding
+	 * @throws UnexpectedInferenceException  if the network cannot be compiled
+	 * @throws NotEvaluableNetworkException  if the network cannot be compiled
+	 */
+	public void addFinding(Finding finding) throws InvalidStateException, IncompatibleEvidenceException,
+			UnexpectedInferenceException, NotEvaluableNetworkException {
+		Finding compiledFinding = compileFinding(finding);
+		findings.addFinding(compiledFinding);
+		clusterTree.setFinding(compiledFinding.getVariable(), compiledFinding.getStateIndex());
+	}
+
+	/**
+	 * @param finding a finding that replaces the one of its variable, if any
+	 * @throws InvalidStateException         if the state of the finding is not valid
+	 * @throws IncompatibleEvidenceException if the finding is not compatible with the evidence
+	 * @throws UnexpectedInferenceException  if the network cannot be compiled
+	 * @throws NotEvaluableNetworkException  if the network cannot be compiled
+	 */
+	public void changeFinding(Finding finding) throws InvalidStateException, IncompatibleEvidenceException,
+			UnexpectedInferenceException, NotEvaluableNetworkException {
+		Finding compiledFinding = compileFinding(finding);
+		findings.changeFinding(compiledFinding);
+		clusterTree.setFinding(compiledFinding.getVariable(), compiledFinding.getStateIndex());
+	}
+
+	/**
+	 * @param variable variable whose finding is retracted
+	 * @return The finding removed
+	 * @throws NoFindingException if {@code variable} has no finding
+	 */
+	public Finding removeFinding(Variable variable) throws NoFindingException {
+		Variable compiledVariable = clusterTree == null ? variable : getCompiledVariable(variable);
+		Finding finding = findings.removeFinding(compiledVariable);
+		if (clusterTree != null) {
+			clusterTree.removeLikelihood(compiledVariable);
+		}
+		return finding;
+	}
+
+	/**
+	 * @return A copy of the current findings
+	 */
+	public EvidenceCase getFindings() {
+		return new EvidenceCase(findings);
+	}
+
+	/**
+	 * @param variable a chance or decision variable
+	 * @return The posterior probability of {@code variable} given the current findings
+	 * @throws IncompatibleEvidenceException if the findings are incompatible
+	 * @throws UnexpectedInferenceException  if the network cannot be compiled
+	 * @throws NotEvaluableNetworkException  if the network cannot be compiled
+	 */
+	public TablePotential getPosteriorValue(Variable variable)
+			throws IncompatibleEvidenceException, UnexpectedInferenceException, NotEvaluableNetworkException {
+		compile();
+		Variable compiledVariable = getCompiledVariable(variable);
+		TablePotential posterior;
+		if (clusterTree.contains(compiledVariable)) {
+			posterior = clusterTree.getMarginal(compiledVariable);
+		} else {
+			posterior = new TablePotential(Collections.singletonList(compiledVariable),
+					PotentialRole.CONDITIONAL_PROBABILITY);
+			Arrays.fill(posterior.values, 1.0);
+		}
+		posterior.setPotentialRole(PotentialRole.CONDITIONAL_PROBABILITY);
+		try {
+			DiscretePotentialOperations.normalize(posterior);
+		} catch (NormalizeNullVectorException e) {
+			throw new IncompatibleEvidenceException("Incompatible Evidence");
+		}
+		return posterior;
+	}
+
+	/**
+	 * @return The posterior values of the variables of interest given the current findings
+	 */
+	@Override public HashMap<Variable, TablePotential> getPosteriorValues()
+			throws IncompatibleEvidenceException, UnexpectedInferenceException, NotEvaluableNetworkException {
+		HashMap<Variable, TablePotential> posteriorValues = new HashMap<>();
+		if (variablesOfInterest == null) {
+			return posteriorValues;
+		}
+		List<Variable> utilityVariables = new ArrayList<>();
+		for (Variable variable : variablesOfInterest) {
+			if (originalProbNet.containsVariable(variable)
+					&& originalProbNet.getNode(variable).getNodeType() == NodeType.UTILITY) {
+				utilityVariables.add(variable);
+			} else {
+				posteriorValues.put(variable, getPosteriorValue(variable));
+			}
+		}
+		if (!utilityVariables.isEmpty()) {
+			VEPropagation vePropagation = new VEPropagation(originalProbNet);
+			vePropagation.setPreResolutionEvidence(getPreResolutionEvidence());
+			vePropagation.setPostResolutionEvidence(getFindings());
+			vePropagation.setVariablesOfInterest(utilityVariables);
+			posteriorValues.putAll(vePropagation.getPosteriorValues());
+		}
+		return posteriorValues;
+	}
+
+	/**
+	 * Replaces the findings of the session. Only the findings that differ from the current ones are changed.
+	 *
+	 * @param postResolutionEvidence new findings
+	 */
+	@Override public void setPostResolutionEvidence(EvidenceCase postResolutionEvidence) {
+		try {
+			for (Finding finding : new ArrayList<>(findings.getFindings())) {
+				if (postResolutionEvidence == null || !postResolutionEvidence.contains(finding.getVariable())) {
+					removeFinding(finding.getVariable());
+				}
+			}
+			if (postResolutionEvidence != null) {
+				for (Finding finding : postResolutionEvidence.getFindings()) {
+					Finding current = findings.getFinding(finding.getVariable());
+					if (current == null || current.getStateIndex() != finding.getStateIndex()) {
+						changeFinding(finding);
+					}
+				}
+			}
+		} catch (NoFindingException | InvalidStateException | IncompatibleEvidenceException |
+				UnexpectedInferenceException | NotEvaluableNetworkException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	@Override public void setVariablesOfInterest(List<Variable> variablesOfInterest) {
+		this.variablesOfInterest = variablesOfInterest;
+	}
+
+	public List<Variable> getVariablesOfInterest() {
+		return variablesOfInterest;
+	}
+
+	/**
+	 * @return The cluster tree, or null if the network has not been compiled yet
+	 */
+	public ClusterTree getClusterTree() {
+		return clusterTree;
+	}
+
+	/**
+	 * Preprocesses the network and builds the cluster tree, the first time it is called
+	 */
+	private void compile() throws NotEvaluableNetworkException, IncompatibleEvidenceException,
+			UnexpectedInferenceException {
+		if (clusterTree != null) {
+			return;
+		}
+		JunctionTreePropagation.imposeOptimalPolicies(probNet, getPreResolutionEvidence(), null);
+		generalPreprocessing();
+		exactAlgorithmsPreprocessing();
+		clusterTree = JunctionTreePropagation.buildClusterTree(probNet, new EvidenceCase());
+		EvidenceCase preResolutionEvidence = getPreResolutionEvidence();
+		if (preResolutionEvidence != null) {
+			for (Finding finding : preResolutionEvidence.getFindings()) {
+				Variable variable = getCompiledVariable(finding.getVariable());
+				if (clusterTree.contains(variable)) {
+					clusterTree.setFinding(variable, finding.getStateIndex());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The finding of the corresponding variable in the compiled network
+	 */
+	private Finding compileFinding(Finding finding) throws InvalidStateException, IncompatibleEvidenceException,
+			UnexpectedInferenceException, NotEvaluableNetworkException {
+		compile();
+		Variable variable = getCompiledVariable(finding.getVariable());
+		if (!clusterTree.contains(variable)) {
+			throw new IncompatibleEvidenceException(
+					"Variable " + variable.getName() + " cannot have findings in this network");
+		}
+		if (getPreResolutionEvidence() != null && getPreResolutionEvidence().contains(variable)) {
+			throw new IncompatibleEvidenceException(
+					"Variable " + variable.getName() + " already has a pre-resolution finding");
+		}
+		return new Finding(variable, finding.getStateIndex());
+	}
+
+	private Variable getCompiledVariable(Variable variable) {
+		try {
+			return probNet.getVariable(variable.getName());
+		} catch (NodeNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.junctionTree.tasks;
+
+import org.apache.logging.log4j.LogManager;
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.NormalizeNullVectorException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.MulticriteriaOptions;
+import org.openmarkov.core.inference.tasks.Propagation;
+import org.openmarkov.core.inference.tasks.TaskUtilities;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.DeltaPotential;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openmarkov.inference.junctionTree.ClusterTree;
+import org.openmarkov.inference.variableElimination.tasks.VEEvaluation;
+import org.openmarkov.inference.variableElimination.tasks.VEPropagation;
+import org.openmarkov.inference.variableElimination.tasks.VariableElimination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Task: propagation, by clustering
+ * This task returns the probability of each chance variable and the utility of each utility node.
+ * <p>
+ * Unlike {@link VEPropagation}, which runs a variable elimination for each variable of interest, the network is
+ * triangulated once and the posterior probabilities of all the chance variables are obtained from a single
+ * propagation in a {@link ClusterTree}. The utilities of the utility nodes, and all the posterior values when there
+ * are conditioning variables, are still computed by {@link VEPropagation}.
+ * <p>
+ * Input: a symmetric network and a list of variables of interest.
+ * Optional input: post-resolution evidence.
+ * <p>
+ * Output: a table for each utility or chance node
+ */
+public class JunctionTreePropagation extends VariableElimination implements Propagation {
+
+	// Attributes
+	private HashMap<Variable, TablePotential> posteriorValues;
+
+	/**
+	 * Evidence when the network has been resolved.
+	 * In influence diagrams this is Luque and Diez's evidence.
+	 */
+	private EvidenceCase postResolutionEvidence;
+
+	private List<Variable> variablesOfInterest;
+
+	private HashMap<Variable, Potential> optimalPolicies;
+
+	private ClusterTree clusterTree;
+
+	/**
+	 * @param network Probabilistic network to be resolved
+	 * @throws NotEvaluableNetworkException Constructor
+	 */
+	public JunctionTreePropagation(ProbNet network) throws NotEvaluableNetworkException {
+		super(network);
+		probNet.getInferenceOptions().getMultiCriteriaOptions()
+				.setMulticriteriaType(MulticriteriaOptions.Type.UNICRITERION);
+	}
+
+	public JunctionTreePropagation(ProbNet network, HashMap<Variable, Potential> optimalPolicies)
+			throws NotEvaluableNetworkException {
+		this(network);
+		this.optimalPolicies = optimalPolicies;
+	}
+
+	private void resolve()
+			throws IncompatibleEvidenceException, NotEvaluableNetworkException, UnexpectedInferenceException {
+		LogManager.getLogger(getClass()).trace("Resolving JunctionTreePropagation");
+		posteriorValues = new HashMap<>();
+		if (variablesOfInterest == null) {
+			return;
+		}
+
+		// Utilities and conditioned probabilities are computed by variable elimination, on the original network
+		List<Variable> variablesForVE = new ArrayList<>();
+		for (Variable variable : variablesOfInterest) {
+			try {
+				if (probNet.getNode(variable.getName()).getNodeType() == NodeType.UTILITY) {
+					variablesForVE.add(variable);
+				}
+			} catch (NodeNotFoundException e) {
+				throw new UnexpectedInferenceException(e.getMessage(), e);
+			}
+		}
+		boolean isConditioned = getConditioningVariables() != null && !getConditioningVariables().isEmpty();
+		if (isConditioned) {
+			variablesForVE = variablesOfInterest;
+		}
+		if (!variablesForVE.isEmpty()) {
+			VEPropagation vePropagation = optimalPolicies == null ?
+					new VEPropagation(probNet) :
+					new VEPropagation(probNet, optimalPolicies);
+			vePropagation.setPreResolutionEvidence(getPreResolutionEvidence());
+			vePropagation.setPostResolutionEvidence(postResolutionEvidence);
+			vePropagation.setConditioningVariables(getConditioningVariables());
+			vePropagation.setVariablesOfInterest(variablesForVE);
+			posteriorValues.putAll(vePropagation.getPosteriorValues());
+			if (isConditioned) {
+				return;
+			}
+		}
+
+		optimalPolicies = imposeOptimalPolicies(probNet, getPreResolutionEvidence(), optimalPolicies);
+		generalPreprocessing();
+		exactAlgorithmsPreprocessing();
+		probNet = TaskUtilities.extendPostResolutionEvidence(probNet, getPostResolutionEvidence());
+		EvidenceCase evidence = getAllEvidence();
+
+		for (Variable variableOfInterest : variablesOfInterest) {
+			if (variablesForVE.contains(variableOfInterest)) {
+				continue;
+			}
+			Variable variable;
+			try {
+				variable = probNet.getVariable(variableOfInterest.getName());
+			} catch (NodeNotFoundException e) {
+				throw new UnexpectedInferenceException(e.getMessage(), e);
+			}
+			if (evidence.contains(variable)) {
+				posteriorValues.put(variable, getEvidencePotential(variable, evidence.getFinding(variable).getState()));
+			} else {
+				posteriorValues.put(variableOfInterest, getPosterior(variable, evidence));
+			}
+		}
+	}
+
+	/**
+	 * Computes the optimal policies of the decisions without imposed policies, if they are not given, and sets them
+	 * as the potentials of the decisions.
+	 *
+	 * @return The optimal policies
+	 */
+	static HashMap<Variable, Potential> imposeOptimalPolicies(ProbNet probNet, EvidenceCase preResolutionEvidence,
+			HashMap<Variable, Potential> optimalPolicies)
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		if (optimalPolicies == null) {
+			if (TaskUtilities.hasDecisionsWithoutImposedPolicy(probNet)) {
+				VEEvaluation veEvaluation = new VEEvaluation(probNet);
+				veEvaluation.setPreResolutionEvidence(preResolutionEvidence);
+				optimalPolicies = veEvaluation.getOptimalPolicies();
+			} else {
+				optimalPolicies = new HashMap<>();
+			}
+		}
+		for (Node decisionNode : probNet.getNodes(NodeType.DECISION)) {
+			Potential policy = optimalPolicies.get(decisionNode.getVariable());
+			if (policy != null) { // A null policy means that the user has imposed one
+				decisionNode.setPotential(policy);
+			}
+		}
+		return optimalPolicies;
+	}
+
+	/**
+	 * @param variable variable of the preprocessed network that does not belong to the evidence
+	 * @param evidence all the evidence
+	 * @return The normalized posterior probability of {@code variable}
+	 */
+	private TablePotential getPosterior(Variable variable, EvidenceCase evidence)
+			throws IncompatibleEvidenceException {
+		if (clusterTree == null) {
+			clusterTree = buildClusterTree(probNet, evidence);
+			clusterTree.propagate();
+		}
+		TablePotential posterior;
+		if (clusterTree.contains(variable)) {
+			posterior = clusterTree.getMarginal(variable);
+		} else {
+			posterior = new TablePotential(Collections.singletonList(variable), PotentialRole.JOINT_PROBABILITY);
+			Arrays.fill(posterior.values, 1.0);
+		}
+		posterior.setPotentialRole(PotentialRole.CONDITIONAL_PROBABILITY);
+		try {
+			DiscretePotentialOperations.normalize(posterior);
+		} catch (NormalizeNullVectorException e) {
+			throw new IncompatibleEvidenceException("Incompatible Evidence");
+		}
+		return posterior;
+	}
+
+	/**
+	 * Projects the probability potentials of the network on the evidence and builds the cluster tree
+	 */
+	static ClusterTree buildClusterTree(ProbNet probNet, EvidenceCase evidence) throws IncompatibleEvidenceException {
+		List<TablePotential> projectedPotentials;
+		try {
+			projectedPotentials = probNet.tableProjectPotentials(evidence);
+		} catch (NonProjectablePotentialException | WrongCriterionException e) {
+			throw new IncompatibleEvidenceException("Unexpected inference exception :" + e.getMessage());
+		}
+		List<TablePotential> probPotentials = new ArrayList<>();
+		for (TablePotential potential : projectedPotentials) {
+			if (!potential.isAdditive() && potential.getNumVariables() != 0) {
+				probPotentials.add(potential);
+			}
+		}
+		return new ClusterTree(probPotentials);
+	}
+
+	/**
+	 * @return A potential that assigns probability 1 to the observed state of {@code variable}
+	 */
+	private TablePotential getEvidencePotential(Variable variable, String observedState)
+			throws UnexpectedInferenceException {
+		DeltaPotential deltaPotential = new DeltaPotential(Collections.singletonList(variable),
+				PotentialRole.CONDITIONAL_PROBABILITY, new State(observedState));
+		try {
+			TablePotential probPotential = deltaPotential.tableProject(new EvidenceCase(), null).get(0);
+			probPotential.setPotentialRole(PotentialRole.CONDITIONAL_PROBABILITY);
+			return probPotential;
+		} catch (NonProjectablePotentialException | WrongCriterionException e) {
+			throw new UnexpectedInferenceException(e.getMessage(), e);
+		}
+	}
+
+	@Override public HashMap<Variable, TablePotential> getPosteriorValues()
+			throws IncompatibleEvidenceException, UnexpectedInferenceException, NotEvaluableNetworkException {
+		if (posteriorValues == null) {
+			resolve();
+		}
+		return posteriorValues;
+	}
+
+	/**
+	 * @return The cluster tree used in the last propagation, or null if it has not been built yet
+	 */
+	public ClusterTree getClusterTree() {
+		return clusterTree;
+	}
+
+	public EvidenceCase getPostResolutionEvidence() {
+		return postResolutionEvidence;
+	}
+
+	@Override public void setPostResolutionEvidence(EvidenceCase postResolutionEvidence) {
+		this.postResolutionEvidence = postResolutionEvidence;
+	}
+
+	public EvidenceCase getAllEvidence() throws IncompatibleEvidenceException {
+		EvidenceCase evidence = new EvidenceCase(getPreResolutionEvidence());
+		try {
+			if (postResolutionEvidence != null) {
+				evidence.addFindings(postResolutionEvidence.getFindings());
+			}
+		} catch (InvalidStateException e) {
+			throw new IncompatibleEvidenceException(e.getMessage());
+		}
+		return evidence;
+	}
+
+	public List<Variable> getVariablesOfInterest() {
+		return variablesOfInterest;
+	}
+
+	@Override public void setVariablesOfInterest(List<Variable> variablesOfInterest) {
+		this.variablesOfInterest = variablesOfInterest;
+	}
+}
@@ -8,6 +8,7 @@
 package org.openmarkov.inference.variableElimination;
 
 import org.openmarkov.core.exception.PotentialOperationException;
+import org.openmarkov.core.inference.ChoiceTable;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.GTablePotential;
 import org.openmarkov.core.model.network.potential.TablePotential;
@@ -25,6 +26,7 @@ public class DecisionVariableElimination {
 	TablePotential projectedProbability;
 	TablePotential utility;
 	TablePotential optimalPolicy;
+	ChoiceTable optimalChoices;
 
 	public DecisionVariableElimination(Variable variableToDelete, List<TablePotential> probPotentials,
 			List<TablePotential> inputUtilityPotentials) throws PotentialOperationException {
@@ -48,7 +50,7 @@ public class DecisionVariableElimination {
 			MaxOutVariable max = new MaxOutVariable(variableToDelete,
 					DiscretePotentialOperations.createUnityProbabilityPotential(), totalUtility);
 			utility = max.getUtility();
-			optimalPolicy = max.getPolicy();
+			optimalChoices = max.getChoices();
 		}
 	}
 
@@ -60,8 +62,23 @@ public class DecisionVariableElimination {
 		return utility;
 	}
 
+	/**
+	 * @return The policy built from the optimal states of the decision, or {@code null} in cost-effectiveness
+	 * analysis
+	 */
 	public TablePotential getOptimalPolicy() {
+		if (optimalPolicy == null && optimalChoices != null) {
+			optimalPolicy = optimalChoices.getPolicy();
+		}
 		return optimalPolicy;
 	}
 
+	/**
+	 * @return The optimal states of the decision for each configuration of the variables of the utility, or
+	 * {@code null} in cost-effectiveness analysis
+	 */
+	public ChoiceTable getOptimalChoices() {
+		return optimalChoices;
+	}
+
 }
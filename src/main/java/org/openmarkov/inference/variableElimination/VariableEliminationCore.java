@@ -15,6 +15,7 @@ import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.PotentialOperationException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
 import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.ChoiceTable;
 import org.openmarkov.core.inference.heuristic.EliminationHeuristic;
 import org.openmarkov.core.model.network.Criterion;
 import org.openmarkov.core.model.network.NodeType;
@@ -25,12 +26,15 @@ import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.TablePotential;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openmarkov.core.model.network.potential.treeadd.ADDPotential;
 import org.openmarkov.inference.variableElimination.action.CreatePotentialUtility;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Essential variable elimination algorithm for Bayesian networks and influence diagrams.
@@ -67,7 +71,12 @@ public class VariableEliminationCore {
 	private EliminationHeuristic heuristic;
 
 	/**
-	 * Decision variables with their policies.
+	 * Decision variables with their optimal states, in the order of elimination.
+	 */
+	private Map<Variable, ChoiceTable> optimalChoices;
+
+	/**
+	 * Decision variables with their policies, built from {@code optimalChoices} when they are requested.
 	 */
 	private Map<Variable, TablePotential> optimalPolicies;
 
@@ -152,9 +161,9 @@ public class VariableEliminationCore {
 		}
 
 		// Extract the potentials that depend on the variable
-		List<TablePotential> probPotentials = new ArrayList<>();
+		List<Potential> probPotentials = new ArrayList<>();
 		for (Potential potential : markovDecisionNetwork.getProbPotentials(variableToDelete)) {
-			probPotentials.add((TablePotential) potential);
+			probPotentials.add(potential);
 			markovDecisionNetwork.removePotential(potential);
 		}
 		List<TablePotential> utilityPotentials = new ArrayList<>();
@@ -164,21 +173,81 @@ public class VariableEliminationCore {
 		}
 		RemoveNodeEdit removeNodeEdit = new RemoveNodeEdit(markovDecisionNetwork, variableToDelete);
 		pneSupport.doEdit(removeNodeEdit);
-		if (nodeType == NodeType.CHANCE) {
-			ChanceVariableElimination elimination = new ChanceVariableElimination(variableToDelete, probPotentials,
-					utilityPotentials);
+		if (nodeType == NodeType.CHANCE && utilityPotentials.isEmpty() && isDiagramEliminationCheaper(
+				probPotentials)) {
+			markovDecisionNetwork.addPotential(sumOutInDiagrams(variableToDelete, probPotentials));
+		} else if (nodeType == NodeType.CHANCE) {
+			ChanceVariableElimination elimination = new ChanceVariableElimination(variableToDelete,
+					toTablePotentials(probPotentials), utilityPotentials);
 			markovDecisionNetwork.addPotential(elimination.getMarginalProbability());
 			for (Potential potential : elimination.getUtilityPotentials()) {
 				markovDecisionNetwork.addPotential(potential);
 			}
 
 		} else {
-			DecisionVariableElimination elimination = new DecisionVariableElimination(variableToDelete, probPotentials,
-					utilityPotentials);
+			DecisionVariableElimination elimination = new DecisionVariableElimination(variableToDelete,
+					toTablePotentials(probPotentials), utilityPotentials);
 			markovDecisionNetwork.addPotential(elimination.getProjectedProbability());
 			markovDecisionNetwork.addPotential(elimination.getUtility());
-			optimalPolicies.put(variableToDelete, elimination.getOptimalPolicy());
+			optimalChoices.put(variableToDelete, elimination.getOptimalChoices());
+		}
+	}
+
+	/**
+	 * @param probPotentials Probability potentials that depend on the variable to eliminate
+	 * @return {@code true} if some of them is a decision diagram and the diagrams, the ones received and those of
+	 * the tables, are smaller than the table of their product
+	 */
+	private static boolean isDiagramEliminationCheaper(List<Potential> probPotentials) {
+		boolean containsDiagrams = false;
+		long diagramCost = 0;
+		Set<Variable> variables = new LinkedHashSet<>();
+		for (Potential potential : probPotentials) {
+			if (potential instanceof ADDPotential) {
+				containsDiagrams = true;
+				diagramCost += ((ADDPotential) potential).getCost();
+			} else {
+				// The diagram of a table without regularities has about a node per cell
+				diagramCost += Math.min(ADDPotential.getTableCost(potential.getVariables()),
+						Long.MAX_VALUE / ADDPotential.NODE_COST) * ADDPotential.NODE_COST;
+			}
+			variables.addAll(potential.getVariables());
 		}
+		return containsDiagrams && diagramCost < ADDPotential.getTableCost(variables);
+	}
+
+	/**
+	 * Multiplies the potentials and sums out the variable without leaving the diagrams, which keeps the
+	 * context-specific independences. The result is converted into a table when the table is smaller.
+	 *
+	 * @param variableToDelete Chance variable
+	 * @param probPotentials   Probability potentials that depend on {@code variableToDelete}
+	 * @return The marginal probability
+	 */
+	private static Potential sumOutInDiagrams(Variable variableToDelete, List<Potential> probPotentials) {
+		ADDPotential product = null;
+		for (Potential potential : probPotentials) {
+			ADDPotential diagram = potential instanceof ADDPotential ?
+					(ADDPotential) potential :
+					ADDPotential.fromTable((TablePotential) potential);
+			product = product == null ? diagram : product.multiply(diagram);
+		}
+		ADDPotential marginal = product.sumOut(variableToDelete);
+		return marginal.isCheaperThanTable() ? marginal : marginal.toTablePotential();
+	}
+
+	/**
+	 * @param potentials Potentials of the Markov network, which may be decision diagrams
+	 * @return The potentials, with the decision diagrams converted into tables
+	 */
+	private static List<TablePotential> toTablePotentials(List<? extends Potential> potentials) {
+		List<TablePotential> tablePotentials = new ArrayList<>();
+		for (Potential potential : potentials) {
+			tablePotentials.add(potential instanceof ADDPotential ?
+					((ADDPotential) potential).toTablePotential() :
+					(TablePotential) potential);
+		}
+		return tablePotentials;
 	}
 
 	//TODO Revisar quitar (Manolo)
@@ -230,15 +299,28 @@ public class VariableEliminationCore {
 	 * @return <code>Map</code> with key = <code>Variable</code> and value = <code>Potential</code>
 	 */
 	public Map<? extends Variable, ? extends Potential> getOptimalPolicies() {
+		for (Map.Entry<Variable, ChoiceTable> choices : optimalChoices.entrySet()) {
+			if (!optimalPolicies.containsKey(choices.getKey())) {
+				optimalPolicies.put(choices.getKey(), choices.getValue() == null ? null : choices.getValue().getPolicy());
+			}
+		}
 		return optimalPolicies;
 	}
 
+	/**
+	 * @return <code>Map</code> with key = decision <code>Variable</code> and value = its optimal states for each
+	 * configuration of its informational predecessors, or <code>null</code> in cost-effectiveness analysis
+	 */
+	public Map<Variable, ChoiceTable> getOptimalChoices() {
+		return optimalChoices;
+	}
+
 	/**
 	 * @param decisionVariable
 	 * @return The policy of <code>decisionVariable</code>. <code>Potential</code>
 	 */
 	public Potential getOptimalPolicy(Variable decisionVariable) {
-		return optimalPolicies.get(decisionVariable);
+		return getOptimalPolicies().get(decisionVariable);
 	}
 
 	
@@ -309,14 +391,14 @@ public class VariableEliminationCore {
 	 * of all the probability potentials.
 	 */
 	public TablePotential getProbability() {
-		List<TablePotential> probPotentials = new ArrayList<>();
+		List<Potential> probPotentials = new ArrayList<>();
 		List<Potential> allPotentials = markovDecisionNetwork.getPotentials();
 		for (Potential potential : allPotentials) {
 			if (!potential.isAdditive()) {
-				probPotentials.add((TablePotential) potential);
+				probPotentials.add(potential);
 			}
 		}
-		TablePotential probability = DiscretePotentialOperations.multiply(probPotentials);
+		TablePotential probability = DiscretePotentialOperations.multiply(toTablePotentials(probPotentials));
 		if (probability == null) {
 			probability = new TablePotential(null, PotentialRole.CONDITIONAL_PROBABILITY);
 		}
@@ -345,6 +427,7 @@ public class VariableEliminationCore {
 			lambdaMin = defLambdaMin;
 			lambdaMax = defLambdaMax;
 		}
+		optimalChoices = new LinkedHashMap<>();
 		optimalPolicies = new LinkedHashMap<Variable, TablePotential>();
 		// The iterators through LinkedHashMap follows the insertion order, which can be useful later
 	}
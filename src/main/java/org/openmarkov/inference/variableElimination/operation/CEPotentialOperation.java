@@ -384,7 +384,7 @@ public class CEPotentialOperation {
 		// Get parents of cost and effectiveness potentials
 		HashSet<Node> parents = new HashSet<Node>();
 		for (Node costAndEffecivenessNode : costAndEffectivenessNodes) {
-			parents.addAll(costAndEffecivenessNode.getParents());
+			parents.addAll(costAndEffecivenessNode.getParentsView());
 		}
 
 		// Remove cost and effectiveness potentials
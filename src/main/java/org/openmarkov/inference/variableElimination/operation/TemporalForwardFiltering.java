@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.variableElimination.operation;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.NormalizeNullVectorException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.InferenceOptions;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.TemporalNetOperations;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.AuxiliaryOperations;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Computes the evolution of a temporal chance variable in a network without decisions nor evidence by forward
+ * filtering. Instead of unrolling the network up to the horizon, the slices are generated one at a time and a belief
+ * state is carried over the interface of the network, i.e., the atemporal variables and the variables of the last
+ * slices on which the potentials of the next slice depend. The slices that leave the interface are removed from the
+ * network, so the memory needed does not depend on the horizon and the time grows linearly with it.
+ */
+public class TemporalForwardFiltering {
+
+	// Attributes
+	/**
+	 * Compact copy of the network, which only contains the slices of the interface
+	 */
+	private final ProbNet probNet;
+
+	/**
+	 * Nodes of the network classified by slices. The slices removed from the network are replaced by empty lists.
+	 */
+	private final List<List<Node>> classifiedNodes;
+
+	/**
+	 * Maximum difference between the slice of a node and the slices of the variables of its potentials
+	 */
+	private final int maxLag;
+
+	private final InferenceOptions inferenceOptions;
+
+	// Constructor
+	/**
+	 * @param network Temporal network. It is not modified.
+	 */
+	public TemporalForwardFiltering(ProbNet network) {
+		probNet = network.copy();
+		classifiedNodes = TemporalNetOperations.compactNetwork(probNet);
+		maxLag = getMaxLag(probNet);
+		inferenceOptions = new InferenceOptions(probNet, null);
+	}
+
+	// Methods
+	/**
+	 * @param network  Temporal network
+	 * @param evidence Pre-resolution evidence
+	 * @return {@code true} if the evolution of the chance variables of {@code network} can be computed by forward
+	 * filtering: there is no evidence, no decision and no numeric chance variable, and the potentials of the
+	 * atemporal chance variables do not depend on temporal variables
+	 */
+	public static boolean canBeApplied(ProbNet network, EvidenceCase evidence) {
+		if (evidence != null && !evidence.isEmpty()) {
+			return false;
+		}
+		for (Node node : network.getNodes()) {
+			if (node.getNodeType() == NodeType.DECISION) {
+				return false;
+			}
+			if (node.getNodeType() == NodeType.CHANCE) {
+				Variable variable = node.getVariable();
+				if (variable.getVariableType() == VariableType.NUMERIC) {
+					return false;
+				}
+				if (!variable.isTemporal()) {
+					for (Potential potential : node.getPotentials()) {
+						for (Variable potentialVariable : potential.getVariables()) {
+							if (potentialVariable.isTemporal()) {
+								return false;
+							}
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param baseName Base name of a temporal chance variable
+	 * @param horizon  Last slice
+	 * @return The probability of the variable in each slice from 0 to {@code horizon} in which it exists
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException          WrongCriterionException
+	 * @throws IncompatibleEvidenceException    IncompatibleEvidenceException
+	 */
+	public HashMap<Variable, TablePotential> getTemporalEvolution(String baseName, int horizon)
+			throws NonProjectablePotentialException, WrongCriterionException, IncompatibleEvidenceException {
+		HashMap<Variable, TablePotential> temporalEvolution = new HashMap<>();
+		int window = Math.max(maxLag, 1);
+		TablePotential belief = new TablePotential(new ArrayList<>(), PotentialRole.JOINT_PROBABILITY);
+		belief.values[0] = 1.0;
+		List<TablePotential> potentials = new ArrayList<>();
+		for (Node node : probNet.getNodes(NodeType.CHANCE)) {
+			if (!node.getVariable().isTemporal()) {
+				addProbabilityPotentials(node, potentials);
+			}
+		}
+		for (int slice = 0; slice <= horizon; slice++) {
+			while (classifiedNodes.size() <= slice) {
+				TemporalNetOperations.generateNextSlice(probNet, classifiedNodes);
+			}
+			for (Node node : classifiedNodes.get(slice)) {
+				if (node.getNodeType() == NodeType.CHANCE) {
+					addProbabilityPotentials(node, potentials);
+				}
+			}
+			potentials.add(belief);
+
+			// The joint probability of the interface of the next slice and the variable of this slice
+			List<Variable> interfaceVariables = new ArrayList<>();
+			for (Variable variable : AuxiliaryOperations.getUnionVariables(potentials)) {
+				if (!variable.isTemporal() || variable.getTimeSlice() > slice - maxLag) {
+					interfaceVariables.add(variable);
+				}
+			}
+			Variable variable = null;
+			try {
+				variable = probNet.getVariable(baseName, slice);
+			} catch (NodeNotFoundException e) {
+				// The variable does not exist in this slice
+			}
+			List<Variable> variablesToKeep = new ArrayList<>(interfaceVariables);
+			if (variable != null && !variablesToKeep.contains(variable)) {
+				variablesToKeep.add(variable);
+			}
+			TablePotential joint = DiscretePotentialOperations.multiplyAndMarginalize(potentials, variablesToKeep);
+
+			if (variable != null) {
+				temporalEvolution.put(variable, getPosterior(joint, variable));
+			}
+			belief = joint.getNumVariables() == interfaceVariables.size() ?
+					joint :
+					DiscretePotentialOperations.marginalize(joint, interfaceVariables);
+			potentials = new ArrayList<>();
+			if (slice - window >= 0) {
+				removeSlice(slice - window);
+			}
+		}
+		return temporalEvolution;
+	}
+
+	/**
+	 * Adds to {@code potentials} the projections of the potentials of {@code node} that are neither additive nor
+	 * constant, as the junction tree does
+	 */
+	private void addProbabilityPotentials(Node node, List<TablePotential> potentials)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		for (Potential potential : node.getPotentials()) {
+			for (TablePotential projectedPotential : potential
+					.tableProject(new EvidenceCase(), inferenceOptions, potentials)) {
+				if (!projectedPotential.isAdditive() && projectedPotential.getNumVariables() != 0) {
+					potentials.add(projectedPotential);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The normalized probability of {@code variable}, uniform if {@code joint} does not contain it
+	 */
+	private TablePotential getPosterior(TablePotential joint, Variable variable) throws IncompatibleEvidenceException {
+		TablePotential posterior;
+		if (joint.getVariables().contains(variable)) {
+			posterior = DiscretePotentialOperations.marginalize(joint, Collections.singletonList(variable));
+		} else {
+			posterior = new TablePotential(Collections.singletonList(variable), PotentialRole.JOINT_PROBABILITY);
+			Arrays.fill(posterior.values, 1.0);
+		}
+		posterior.setPotentialRole(PotentialRole.CONDITIONAL_PROBABILITY);
+		try {
+			DiscretePotentialOperations.normalize(posterior);
+		} catch (NormalizeNullVectorException e) {
+			throw new IncompatibleEvidenceException("Incompatible Evidence");
+		}
+		return posterior;
+	}
+
+	/**
+	 * Removes from the network the nodes of a slice that no potential of the following slices refers to
+	 */
+	private void removeSlice(int slice) {
+		for (Node node : classifiedNodes.get(slice)) {
+			probNet.removeNode(node);
+		}
+		classifiedNodes.set(slice, Collections.<Node>emptyList());
+	}
+
+	/**
+	 * @return The maximum difference between the slice of a temporal node and the slices of the temporal
+	 * variables of its potentials
+	 */
+	private static int getMaxLag(ProbNet probNet) {
+		int maxLag = 0;
+		for (Node node : probNet.getNodes()) {
+			Variable variable = node.getVariable();
+			if (variable.isTemporal()) {
+				for (Potential potential : node.getPotentials()) {
+					for (Variable potentialVariable : potential.getVariables()) {
+						if (potentialVariable.isTemporal()) {
+							maxLag = Math.max(maxLag, variable.getTimeSlice() - potentialVariable.getTimeSlice());
+						}
+					}
+				}
+			}
+		}
+		return maxLag;
+	}
+}
@@ -10,36 +10,64 @@ package org.openmarkov.inference.variableElimination.tasks;
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.psa.PSAResultSink;
 import org.openmarkov.core.inference.tasks.CEAnalysis;
 import org.openmarkov.core.inference.tasks.CE_PSA;
+import org.openmarkov.core.model.network.CEP;
 import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
 import org.openmarkov.core.model.network.potential.GTablePotential;
 import org.openmarkov.core.model.network.potential.Potential;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Probabilistic sensitivity analysis of a cost-effectiveness analysis: the potentials of the network are sampled
+ * {@code numSimulations} times and each sampled network is evaluated with {@link VECEAnalysis}.
+ * <p>
+ * Simulation i draws its values from its own {@link XORShiftRandom} stream, derived from the seed and from i, and
+ * each thread evaluates the simulations on its own copy of the network. Therefore, the results for a given seed are
+ * the same whatever the number of threads.
+ * <p>
+ * {@link #runSimulations(PSAResultSink...)} passes the result of each simulation to the sinks as soon as it is
+ * available, in the order of the simulations, and does not keep it; {@link #getCEPPotentials()} keeps all of them.
+ *
  * @author jperez-martin
  */
 public class VECEPSA extends VariableElimination implements CE_PSA {
 
 	private Collection<GTablePotential> ceaResults;
 
-	private int progress;
+	/**
+	 * Number of simulations evaluated in the current resolution
+	 */
+	private final AtomicInteger numEvaluatedSimulations = new AtomicInteger();
+
+	private volatile boolean cancelled;
 
 	private boolean useMultithreading;
 
+	private int numThreads = Runtime.getRuntime().availableProcessors();
+
 	private int numSimulations;
 
+	private long seed = System.nanoTime();
+
 	private Variable decisionVariable;
 
 	/**
@@ -50,50 +78,80 @@ public class VECEPSA extends VariableElimination implements CE_PSA {
 
 	}
 
-	private void resolve()
+	/**
+	 * Evaluates the simulations and passes their results to the sinks in the order of the simulations.
+	 *
+	 * @param sinks receivers of the results of the simulations
+	 * @throws NotEvaluableNetworkException NotEvaluableNetworkException
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	@Override public void runSimulations(PSAResultSink... sinks)
 			throws NotEvaluableNetworkException, UnexpectedInferenceException, IncompatibleEvidenceException {
-		List<GTablePotential> results = new ArrayList<>();
-		progress = 0;
-		if (useMultithreading) {
-			int numThreads = Runtime.getRuntime().availableProcessors();
-			boolean success = false;
-			while (!success && numThreads > 0) {
-				ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-				List<Future<GTablePotential>> list = new ArrayList<>();
-				for (int i = 0; i < numSimulations; ++i) {
-					Simulation simulation = new Simulation(probNet);
-					list.add(executor.submit(simulation));
+		cancelled = false;
+		numEvaluatedSimulations.set(0);
+		AtomicInteger nextSimulation = new AtomicInteger();
+		int numWorkers = useMultithreading ? Math.min(numThreads, numSimulations) : 1;
+		ResultDispatcher results = new ResultDispatcher(sinks, Math.max(numWorkers, 1));
+		if (numWorkers > 1) {
+			ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+			List<Future<Void>> futures = new ArrayList<>();
+			try {
+				for (int i = 0; i < numWorkers; i++) {
+					futures.add(executor.submit(new SimulationWorker(nextSimulation, results)));
 				}
-				int simulationIndex = 0;
-				try {
-					for (Future<GTablePotential> result : list) {
-						results.add(result.get());
-						progress = simulationIndex * 100 / numSimulations;
-						simulationIndex++;
-					}
-					success = true;
-				} catch (InterruptedException | ExecutionException e) {
-					System.out.println("WARNING: PSA failed with " + numThreads + " threads.");
-					e.printStackTrace();
-					System.out.println(e.getMessage());
-					results.clear();
-					numThreads /= 2;
+				for (Future<Void> future : futures) {
+					future.get();
 				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				cancelled = true;
+			} catch (ExecutionException e) {
+				cancelled = true;
+				rethrow(e.getCause());
+			} finally {
+				executor.shutdownNow();
 			}
-			this.ceaResults = results;
-			progress = 100;
 		} else {
-			for (int i = 0; i < numSimulations; ++i) {
-				sampleNetworkPotentials(probNet);
-				CEAnalysis veEvaluation;
-				veEvaluation = new VECEAnalysis(probNet);
-				veEvaluation.setPreResolutionEvidence(getPreResolutionEvidence());
-				veEvaluation.setDecisionVariable(this.decisionVariable);
-				results.add(veEvaluation.getUtility());
-				progress = i * 100 / numSimulations;
+			try {
+				new SimulationWorker(nextSimulation, results).call();
+			} catch (Exception e) {
+				rethrow(e);
 			}
-			this.ceaResults = results;
-			progress = 100;
+		}
+		if (cancelled) {
+			throw new CancellationException("Probabilistic sensitivity analysis cancelled");
+		}
+	}
+
+	private static void rethrow(Throwable e)
+			throws NotEvaluableNetworkException, UnexpectedInferenceException, IncompatibleEvidenceException {
+		if (e instanceof NotEvaluableNetworkException) {
+			throw (NotEvaluableNetworkException) e;
+		} else if (e instanceof IncompatibleEvidenceException) {
+			throw (IncompatibleEvidenceException) e;
+		} else if (e instanceof UnexpectedInferenceException) {
+			throw (UnexpectedInferenceException) e;
+		} else if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		throw new UnexpectedInferenceException("Probabilistic sensitivity analysis failed", e);
+	}
+
+	/**
+	 * Samples the potentials of the network for a simulation and sets them in {@code view}, a copy of the network
+	 * that belongs to the thread running the simulation; the potentials of the network are not modified.
+	 *
+	 * @param view            copy of {@code probNet}
+	 * @param randomGenerator random stream of the simulation
+	 */
+	private void sampleNetworkPotentials(ProbNet view, Random randomGenerator) {
+		for (Node node : probNet.getNodes()) {
+			List<Potential> sampledPotentials = new ArrayList<>();
+			for (Potential potential : node.getPotentials()) {
+				sampledPotentials.add(potential.sample(randomGenerator));
+			}
+			view.getNode(node.getVariable()).setPotentials(sampledPotentials);
 		}
 	}
 
@@ -101,25 +159,56 @@ public class VECEPSA extends VariableElimination implements CE_PSA {
 		this.useMultithreading = useMultithreading;
 	}
 
+	/**
+	 * @param numThreads number of threads used when multithreading is enabled. By default, the number of processors.
+	 */
+	public void setNumThreads(int numThreads) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive: " + numThreads);
+		}
+		this.numThreads = numThreads;
+	}
+
 	public void setNumSimulations(int numSimulations) {
 		this.numSimulations = numSimulations;
 	}
 
-	private void sampleNetworkPotentials(ProbNet probNet) {
-		for (Node node : probNet.getNodes()) {
-			List<Potential> sampledPotentials = new ArrayList<>();
-			for (Potential potential : node.getPotentials()) {
-				sampledPotentials.add(potential.sample());
-			}
-			node.setPotentials(sampledPotentials);
-		}
+	/**
+	 * @param seed seed of the random streams of the simulations. Two analyses with the same seed and the same
+	 *             number of simulations give the same results.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
 
+	/**
+	 * @return The seed of the random streams of the simulations, so that the analysis can be reproduced
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return Percentage of the simulations that have been evaluated
+	 */
+	public int getProgress() {
+		return numSimulations == 0 ? 100 : numEvaluatedSimulations.get() * 100 / numSimulations;
+	}
+
+	/**
+	 * Stops the running analysis: the simulations that have not started are not evaluated and the analysis
+	 * throws a {@link CancellationException}. A later analysis runs normally.
+	 */
+	public void cancel() {
+		cancelled = true;
 	}
 
 	public Collection<GTablePotential> getCEPPotentials()
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
 		if (ceaResults == null) {
-			resolve();
+			GTablePotential[] results = new GTablePotential[numSimulations];
+			runSimulations((simulationIndex, simulationResult) -> results[simulationIndex] = simulationResult);
+			ceaResults = Arrays.asList(results);
 		}
 		return ceaResults;
 	}
@@ -128,28 +217,137 @@ public class VECEPSA extends VariableElimination implements CE_PSA {
 		this.decisionVariable = decisionSelected;
 	}
 
-	private class Simulation implements Callable<GTablePotential> {
+	/**
+	 * Passes the results of the simulations to the sinks in order. The results that arrive before the ones of
+	 * previous simulations wait in {@code pendingResults}; a simulation does not start until it is less than
+	 * {@code maxPendingResults} simulations ahead of the next one to dispatch, so that the buffer is bounded even when
+	 * a simulation is much slower than the others. The sinks are called by one thread at a time, out of the lock, so
+	 * that the other workers go on evaluating simulations meanwhile.
+	 */
+	private static class ResultDispatcher {
+
+		private final PSAResultSink[] sinks;
+
+		private final int maxPendingResults;
+
+		private final Map<Integer, GTablePotential<CEP>> pendingResults = new HashMap<>();
+
+		private int nextSimulation;
+
+		/**
+		 * True while a thread is passing results to the sinks
+		 */
+		private boolean dispatching;
+
+		/**
+		 * True when a worker or a sink has failed, so that the workers waiting for their turn stop
+		 */
+		private boolean aborted;
+
+		ResultDispatcher(PSAResultSink[] sinks, int maxPendingResults) {
+			this.sinks = sinks;
+			this.maxPendingResults = maxPendingResults;
+		}
+
+		/**
+		 * Waits until the simulation is less than {@code maxPendingResults} simulations ahead of the next one to
+		 * dispatch
+		 *
+		 * @param simulationIndex index of the simulation
+		 * @return false if the analysis has been aborted
+		 * @throws InterruptedException InterruptedException
+		 */
+		synchronized boolean awaitTurn(int simulationIndex) throws InterruptedException {
+			while (!aborted && simulationIndex - nextSimulation >= maxPendingResults) {
+				wait();
+			}
+			return !aborted;
+		}
+
+		void add(int simulationIndex, GTablePotential<CEP> simulationResult) {
+			synchronized (this) {
+				pendingResults.put(simulationIndex, simulationResult);
+				if (dispatching) {
+					// The thread that is dispatching will take it
+					return;
+				}
+				dispatching = true;
+			}
+			boolean finished = false;
+			try {
+				while (true) {
+					GTablePotential<CEP> result;
+					int index;
+					synchronized (this) {
+						index = nextSimulation;
+						result = pendingResults.remove(index);
+						if (result == null) {
+							dispatching = false;
+							finished = true;
+							return;
+						}
+					}
+					for (PSAResultSink sink : sinks) {
+						sink.addSimulation(index, result);
+					}
+					synchronized (this) {
+						nextSimulation++;
+						notifyAll();
+					}
+				}
+			} finally {
+				if (!finished) {
+					abort();
+				}
+			}
+		}
+
+		synchronized void abort() {
+			aborted = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Evaluates simulations, taking their indexes from a counter shared by the workers, until all of them have been
+	 * evaluated or the analysis is cancelled.
+	 */
+	private class SimulationWorker implements Callable<Void> {
+
+		private final AtomicInteger nextSimulation;
+
+		private final ResultDispatcher results;
 
-		ProbNet probNet;
+		private final ProbNet view;
 
-		Simulation(ProbNet probNet) {
-			super();
-			this.probNet = probNet;
+		SimulationWorker(AtomicInteger nextSimulation, ResultDispatcher results) {
+			this.nextSimulation = nextSimulation;
+			this.results = results;
+			this.view = probNet.copy();
 		}
 
-		@Override public GTablePotential call() throws Exception {
-			sampleNetworkPotentials(probNet);
-			GTablePotential result = null;
-			CEAnalysis veEvaluation;
+		@Override public Void call() throws Exception {
 			try {
-				veEvaluation = new VECEAnalysis(probNet);
-				veEvaluation.setPreResolutionEvidence(getPreResolutionEvidence());
-				veEvaluation.setDecisionVariable(decisionVariable);
-				result = veEvaluation.getUtility();
-			} catch (NotEvaluableNetworkException | IncompatibleEvidenceException e) {
-				e.printStackTrace();
+				int simulationIndex;
+				while (!cancelled && (simulationIndex = nextSimulation.getAndIncrement()) < numSimulations) {
+					if (!results.awaitTurn(simulationIndex)) {
+						break;
+					}
+					sampleNetworkPotentials(view,
+							new XORShiftRandom(XORShiftRandom.getStreamSeed(seed, simulationIndex)));
+					CEAnalysis veEvaluation = new VECEAnalysis(view);
+					veEvaluation.setPreResolutionEvidence(getPreResolutionEvidence());
+					veEvaluation.setDecisionVariable(decisionVariable);
+					@SuppressWarnings("unchecked") GTablePotential<CEP> utility = veEvaluation.getUtility();
+					results.add(simulationIndex, utility);
+					numEvaluatedSimulations.incrementAndGet();
+				}
+			} catch (Exception | Error e) {
+				// The simulations after this one would never be dispatched
+				results.abort();
+				throw e;
 			}
-			return result;
+			return null;
 		}
 	}
 
@@ -53,7 +53,7 @@ public class VEOptimalIntervention implements OptimalIntervention {
 	 */
 	public VEOptimalIntervention(ProbNet network, EvidenceCase preResolutionEvidence)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		probNet = network.copy();
+		probNet = network;
 
 		veEvaluation = new VEEvaluation(network);
 		veEvaluation.setPreResolutionEvidence(preResolutionEvidence);
@@ -75,6 +75,18 @@ public class VEPropagation extends VariableElimination implements Propagation {
 
 	private HashMap<Variable,Potential> optimalPolicies;
 
+	/**
+	 * Whether the potentials of the ICI families enter the elimination decomposed by parent divorcing instead of
+	 * as conditional probability tables
+	 */
+	private boolean factorizedICIPotentials = false;
+
+	/**
+	 * Whether the tree-structured potentials enter the elimination as decision diagrams, which are only converted
+	 * into tables when the tables are smaller
+	 */
+	private boolean compactTreeADDPotentials = false;
+
 	/**
 	 * @param network Probabilistic network to be resolved
 	 * @throws NotEvaluableNetworkException  Constructor
@@ -150,9 +162,10 @@ public class VEPropagation extends VariableElimination implements Propagation {
 					if (evidenceVariables.contains(variableOfInterestInProbnet)) {
 						variablesOfInterestBelongingToEvidence.add(variableOfInterestInProbnet);
 					} else {
-						ProbNet preprocessedNetwork = pruneNetwork(probNet.copy(), variableOfInterest);
+						ProbNet preprocessedNetwork = pruneNetwork(probNet, variableOfInterest);
 						ProbNet markovNetwork = TaskUtilities
-								.projectTablesAndBuildMarkovDecisionNetwork(preprocessedNetwork, evidence);
+								.projectTablesAndBuildMarkovDecisionNetwork(preprocessedNetwork, evidence,
+										factorizedICIPotentials, compactTreeADDPotentials);
 						InvokeVariableEliminationCore(markovNetwork, evidence, variableOfInterest);
 					}
 				} catch (NodeNotFoundException e) {
@@ -190,6 +203,12 @@ public class VEPropagation extends VariableElimination implements Propagation {
 		// Build list of variables to eliminate
 		List<Variable> variablesToEliminate = probNet.getChanceAndDecisionVariables();
 		variablesToEliminate.remove(variableOfInterest);
+		// Auxiliary variables of the factorized potentials
+		for (Variable variable : network.getChanceAndDecisionVariables()) {
+			if (probNet.getNode(variable) == null) {
+				variablesToEliminate.add(variable);
+			}
+		}
 		//TODO: eliminate the observable variables (DANs)
 
 		// Create heuristic instance
@@ -290,6 +309,34 @@ public class VEPropagation extends VariableElimination implements Propagation {
 		return evidence;
 	}
 
+	/**
+	 * @param factorizedICIPotentials Whether the potentials of the ICI families (OR/MAX, AND/MIN and tuning) enter
+	 *                                the elimination as a chain of small potentials with auxiliary variables,
+	 *                                so that their conditional probability tables, whose size grows exponentially
+	 *                                with the number of parents, are never built
+	 */
+	public void setFactorizedICIPotentials(boolean factorizedICIPotentials) {
+		this.factorizedICIPotentials = factorizedICIPotentials;
+	}
+
+	public boolean isFactorizedICIPotentials() {
+		return factorizedICIPotentials;
+	}
+
+	/**
+	 * @param compactTreeADDPotentials Whether the conditional probabilities given by trees (TreeADDPotential) enter
+	 *                                 the elimination as decision diagrams, on which the chance variables are summed
+	 *                                 out while the diagrams are smaller than the tables, so the context-specific
+	 *                                 independences of the trees are exploited
+	 */
+	public void setCompactTreeADDPotentials(boolean compactTreeADDPotentials) {
+		this.compactTreeADDPotentials = compactTreeADDPotentials;
+	}
+
+	public boolean isCompactTreeADDPotentials() {
+		return compactTreeADDPotentials;
+	}
+
 	public List<Variable> getVariablesOfInterest() {
 		return variablesOfInterest;
 	}
@@ -44,7 +44,8 @@ public class VESensAnMap implements SensAnMap {
 			int numberOfIntervals, Variable decisionVariable)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
 
-		this.probNet = probNet.copy();
+		// The sampled network is a copy, so this network is never modified
+		this.probNet = probNet;
 		uncertainParametersPotentials = new HashMap<>();
 
 		String iterationFirstVariableName = "***Iteration***";
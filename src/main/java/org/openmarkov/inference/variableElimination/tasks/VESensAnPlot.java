@@ -46,7 +46,8 @@ public class VESensAnPlot implements SensAnPlot {
 	public VESensAnPlot(ProbNet probNet, EvidenceCase preResolutionEvidence, UncertainParameter uncertainParameter,
 			AxisVariation axisVariation, int numberOfIntervals, Variable decisionVariable)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		this.probNet = probNet.copy();
+		// The sampled network is a copy, so this network is never modified
+		this.probNet = probNet;
 		uncertainParametersPotentials = new HashMap<>();
 
 		String iterationVariableName = "***Iteration***";
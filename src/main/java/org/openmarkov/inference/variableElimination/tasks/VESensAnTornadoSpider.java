@@ -8,7 +8,6 @@
 package org.openmarkov.inference.variableElimination.tasks;
 
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
-import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
 import org.openmarkov.core.inference.tasks.SensAnTornadoSpider;
@@ -19,18 +18,36 @@ import org.openmarkov.core.model.network.modelUncertainty.AxisVariation;
 import org.openmarkov.core.model.network.modelUncertainty.DomainInterval;
 import org.openmarkov.core.model.network.modelUncertainty.SystematicSampling;
 import org.openmarkov.core.model.network.modelUncertainty.UncertainParameter;
+import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.TablePotential;
-import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
+ * Tornado and spider diagrams: for each uncertain parameter, the network is expanded with a variable whose states
+ * are equally distant values of the parameter, and the global utility is computed conditioned on that variable.
+ * <p>
+ * The parameters are grouped by the potential where they appear and the groups are evaluated concurrently on a
+ * bounded pool of threads. The parameters of a group are evaluated one after another with the same iteration
+ * variable, so their expanded networks have the same structure and all but the first reuse the elimination order
+ * and the operation plans; only the sampled table changes.
+ *
  * @author jperez-martin
  */
 public class VESensAnTornadoSpider implements SensAnTornadoSpider {
 
+	private static final String ITERATION_VARIABLE_NAME = "***Iteration***";
+
 	/**
 	 * Potentials of each <code> UncertainParameter </code> conditioned on a dummy
 	 * variable
@@ -39,65 +56,96 @@ public class VESensAnTornadoSpider implements SensAnTornadoSpider {
 	private ProbNet probNet;
 	private HashMap<UncertainParameter, DomainInterval> sampledInterval;
 
-	
+	/**
+	 * Time spent evaluating each parameter, in nanoseconds
+	 */
+	private HashMap<UncertainParameter, Long> evaluationTimes;
 
 	public VESensAnTornadoSpider(ProbNet network, EvidenceCase preResolutionEvidence,
 			List<UncertainParameter> uncertainParameters, AxisVariation axisVariation, int numberOfIntervals)
-			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
 		this(network, preResolutionEvidence, uncertainParameters, axisVariation, numberOfIntervals, null);
 	}
 
 	public VESensAnTornadoSpider(ProbNet network, EvidenceCase preResolutionEvidence,
 			List<UncertainParameter> uncertainParameters, AxisVariation axisVariation, int numberOfIntervals,
-			Variable decisionVariable) throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		this.probNet = network.copy();
+			Variable decisionVariable)
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		this(network, preResolutionEvidence, uncertainParameters, axisVariation, numberOfIntervals, decisionVariable,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param numThreads maximum number of parameter groups evaluated at the same time
+	 */
+	public VESensAnTornadoSpider(ProbNet network, EvidenceCase preResolutionEvidence,
+			List<UncertainParameter> uncertainParameters, AxisVariation axisVariation, int numberOfIntervals,
+			Variable decisionVariable, int numThreads)
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive: " + numThreads);
+		}
+		// Each sampled network is a copy, so this network is only read, also by several threads at a time
+		this.probNet = network;
 		uncertainParametersPotentials = new HashMap<>();
-		
 		sampledInterval = new HashMap<>();
+		evaluationTimes = new HashMap<>();
 
-		String iterationVariableName = "***Iteration***";
+		// Groups the parameters by potential, keeping the order in which the potentials appear
+		Map<Potential, List<UncertainParameter>> groupsByPotential = new IdentityHashMap<>();
+		List<List<UncertainParameter>> groups = new ArrayList<>();
 		for (UncertainParameter uncertainParameter : uncertainParameters) {
-			VEEvaluation veEvaluation = null;
-			double hMin = axisVariation.getMinValue(uncertainParameter);
-			double hMax = axisVariation.getMaxValue(uncertainParameter);
-			sampledInterval.put(uncertainParameter, new DomainInterval(hMin,hMax));
-			 
-			ProbNet sampledProbNet = SystematicSampling.sampleNetwork(this.probNet, uncertainParameter, hMin, hMax,
-					numberOfIntervals, iterationVariableName);
-
-			List<Variable> conditioningVariables = new ArrayList<>();
-			Variable conditionedVariable;
-			try {
-				conditionedVariable = sampledProbNet.getVariable(iterationVariableName);
-				conditioningVariables.add(conditionedVariable);
-			} catch (NodeNotFoundException e) {
-				e.printStackTrace();
+			List<UncertainParameter> group = groupsByPotential.get(uncertainParameter.getPotential());
+			if (group == null) {
+				group = new ArrayList<>();
+				groupsByPotential.put(uncertainParameter.getPotential(), group);
+				groups.add(group);
 			}
+			group.add(uncertainParameter);
+		}
 
-			if (decisionVariable != null) {
-				conditioningVariables.add(decisionVariable);
+		List<ParameterGroupEvaluation> evaluations = new ArrayList<>();
+		for (List<UncertainParameter> group : groups) {
+			evaluations.add(new ParameterGroupEvaluation(group, preResolutionEvidence, axisVariation,
+					numberOfIntervals, decisionVariable));
+		}
+		int poolSize = Math.min(numThreads, evaluations.size());
+		if (poolSize <= 1) {
+			for (ParameterGroupEvaluation evaluation : evaluations) {
+				evaluation.call();
 			}
-
-			veEvaluation = new VEEvaluation(sampledProbNet);
-			veEvaluation.setPreResolutionEvidence(preResolutionEvidence);
-			veEvaluation.setConditioningVariables(conditioningVariables);
-
-			// Collect the conditional potential
-			TablePotential globalUtility = null;
-
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(poolSize);
 			try {
-				if (veEvaluation != null) {
-					globalUtility = veEvaluation.getUtility();
+				List<Future<Void>> futures = executor.invokeAll(evaluations);
+				for (Future<Void> future : futures) {
+					future.get();
 				}
-
-				if (decisionVariable != null && globalUtility != null) {
-					globalUtility = (TablePotential) globalUtility.reorder(conditioningVariables);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Sensitivity analysis interrupted");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof NotEvaluableNetworkException) {
+					throw (NotEvaluableNetworkException) cause;
+				} else if (cause instanceof IncompatibleEvidenceException) {
+					throw (IncompatibleEvidenceException) cause;
+				} else if (cause instanceof UnexpectedInferenceException) {
+					throw (UnexpectedInferenceException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
 				}
-			} catch (UnexpectedInferenceException e) {
-				e.printStackTrace();
+				throw new IllegalStateException(cause);
+			} finally {
+				executor.shutdownNow();
 			}
-
-			uncertainParametersPotentials.put(uncertainParameter, globalUtility);
+		}
+		for (ParameterGroupEvaluation evaluation : evaluations) {
+			uncertainParametersPotentials.putAll(evaluation.potentials);
+			sampledInterval.putAll(evaluation.intervals);
+			evaluationTimes.putAll(evaluation.times);
 		}
 	}
 
@@ -119,4 +167,76 @@ public class VESensAnTornadoSpider implements SensAnTornadoSpider {
 	public HashMap<UncertainParameter, DomainInterval> getSampledInterval() {
 		return sampledInterval;
 	}
+
+	/**
+	 * @return For each parameter, the time spent building its expanded network and evaluating it, in nanoseconds.
+	 * The first parameter of each potential also includes the computation of the elimination order.
+	 */
+	public HashMap<UncertainParameter, Long> getEvaluationTimes() {
+		return evaluationTimes;
+	}
+
+	/**
+	 * Evaluates, one after another, the parameters that appear in the same potential. The results are kept in the
+	 * maps of the group and merged when all the groups have finished.
+	 */
+	private class ParameterGroupEvaluation implements Callable<Void> {
+
+		private final List<UncertainParameter> parameters;
+
+		private final EvidenceCase preResolutionEvidence;
+
+		private final AxisVariation axisVariation;
+
+		private final Variable decisionVariable;
+
+		private final Variable iterationVariable;
+
+		private final Map<UncertainParameter, TablePotential> potentials = new HashMap<>();
+
+		private final Map<UncertainParameter, DomainInterval> intervals = new HashMap<>();
+
+		private final Map<UncertainParameter, Long> times = new HashMap<>();
+
+		ParameterGroupEvaluation(List<UncertainParameter> parameters, EvidenceCase preResolutionEvidence,
+				AxisVariation axisVariation, int numberOfIntervals, Variable decisionVariable) {
+			this.parameters = parameters;
+			this.preResolutionEvidence = preResolutionEvidence;
+			this.axisVariation = axisVariation;
+			this.decisionVariable = decisionVariable;
+			this.iterationVariable = new Variable(ITERATION_VARIABLE_NAME, numberOfIntervals + 1);
+		}
+
+		@Override public Void call()
+				throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
+			for (UncertainParameter uncertainParameter : parameters) {
+				long startTime = System.nanoTime();
+				double hMin = axisVariation.getMinValue(uncertainParameter);
+				double hMax = axisVariation.getMaxValue(uncertainParameter);
+				intervals.put(uncertainParameter, new DomainInterval(hMin, hMax));
+
+				ProbNet sampledProbNet = SystematicSampling.sampleNetwork(probNet, uncertainParameter, hMin, hMax,
+						iterationVariable);
+
+				List<Variable> conditioningVariables = new ArrayList<>();
+				conditioningVariables.add(iterationVariable);
+				if (decisionVariable != null) {
+					conditioningVariables.add(decisionVariable);
+				}
+
+				VEEvaluation veEvaluation = new VEEvaluation(sampledProbNet);
+				veEvaluation.setPreResolutionEvidence(preResolutionEvidence);
+				veEvaluation.setConditioningVariables(conditioningVariables);
+
+				// Collect the conditional potential
+				TablePotential globalUtility = veEvaluation.getUtility();
+				if (decisionVariable != null && globalUtility != null) {
+					globalUtility = (TablePotential) globalUtility.reorder(conditioningVariables);
+				}
+				potentials.put(uncertainParameter, globalUtility);
+				times.put(uncertainParameter, System.nanoTime() - startTime);
+			}
+			return null;
+		}
+	}
 }
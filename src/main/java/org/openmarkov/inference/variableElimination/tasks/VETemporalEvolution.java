@@ -9,17 +9,25 @@ package org.openmarkov.inference.variableElimination.tasks;
 
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.tasks.TaskUtilities;
 import org.openmarkov.core.inference.tasks.TemporalEvolution;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.inference.junctionTree.tasks.JunctionTreePropagation;
+import org.openmarkov.inference.variableElimination.operation.TemporalForwardFiltering;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author jperez-martin
@@ -32,6 +40,12 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 
 	private Variable decisionVariable;
 
+	/**
+	 * Whether {@code probNet} has been expanded up to the horizon. The forward filtering does not expand it, so it
+	 * is only expanded when {@link #getExpandedNetwork()} is invoked.
+	 */
+	private boolean isExpanded = false;
+
 	/**
 	 * @param network The network used in the inference
 	 */
@@ -40,12 +54,25 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 		this.temporalVariable = temporalVariable;
 	}
 
-	private void resolve() throws NotEvaluableNetworkException, IncompatibleEvidenceException {
+	private void resolve()
+			throws NotEvaluableNetworkException, IncompatibleEvidenceException, UnexpectedInferenceException {
 
-		this.probNet = TaskUtilities.expandNetwork(this.probNet, true);
+		int horizon = probNet.getInferenceOptions().getTemporalOptions().getHorizon();
+		if (decisionVariable == null && isChanceVariable(temporalVariable) && TemporalForwardFiltering
+				.canBeApplied(probNet, getPreResolutionEvidence())) {
+			try {
+				temporalEvolution = new TemporalForwardFiltering(probNet)
+						.getTemporalEvolution(temporalVariable.getBaseName(), horizon);
+				return;
+			} catch (NonProjectablePotentialException | WrongCriterionException e) {
+				// Some potential needs the preprocessing of the expanded network
+			}
+		}
+
+		expandNetwork();
 
 		List<Variable> variablesOfInterest = new ArrayList<>();
-		for (int i = 0; i <= probNet.getInferenceOptions().getTemporalOptions().getHorizon(); i++) {
+		for (int i = 0; i <= horizon; i++) {
 			Variable variableInSlice;
 			try {
 				// if the variable exists in this slice add to variables of intereset
@@ -58,22 +85,41 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 			}
 		}
 
-		VEPropagation vePosteriorValues;
 		if (decisionVariable != null) {
-			vePosteriorValues = new VEPropagation(this.probNet);
+			VEPropagation vePosteriorValues = new VEPropagation(this.probNet);
 			vePosteriorValues.setVariablesOfInterest(variablesOfInterest);
 			vePosteriorValues.setPreResolutionEvidence(getPreResolutionEvidence());
 			vePosteriorValues.setConditioningVariables(Collections.singletonList(decisionVariable));
+			temporalEvolution = vePosteriorValues.getPosteriorValues();
 		} else {
-			vePosteriorValues = new VEPropagation(this.probNet);
-			vePosteriorValues.setVariablesOfInterest(variablesOfInterest);
-			vePosteriorValues.setPreResolutionEvidence(getPreResolutionEvidence());
+			// A single propagation gives the posteriors of all the slices
+			JunctionTreePropagation jtPosteriorValues = new JunctionTreePropagation(this.probNet);
+			jtPosteriorValues.setVariablesOfInterest(variablesOfInterest);
+			jtPosteriorValues.setPreResolutionEvidence(getPreResolutionEvidence());
+			temporalEvolution = jtPosteriorValues.getPosteriorValues();
+		}
+	}
+
+	/**
+	 * @return {@code true} if the node of {@code variable} is a chance node
+	 */
+	private boolean isChanceVariable(Variable variable) {
+		try {
+			return probNet.getNode(variable.getName()).getNodeType() == NodeType.CHANCE;
+		} catch (NodeNotFoundException e) {
+			return false;
+		}
+	}
+
+	private void expandNetwork() {
+		if (!isExpanded) {
+			this.probNet = TaskUtilities.expandNetwork(this.probNet, true);
+			isExpanded = true;
 		}
-		temporalEvolution = vePosteriorValues.getPosteriorValues();
 	}
 
 	@Override public HashMap<Variable, TablePotential> getTemporalEvolution()
-			throws IncompatibleEvidenceException, NotEvaluableNetworkException {
+			throws IncompatibleEvidenceException, UnexpectedInferenceException, NotEvaluableNetworkException {
 		if (temporalEvolution == null) {
 			resolve();
 		}
@@ -84,7 +130,28 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 		this.decisionVariable = decisionVariable;
 	}
 
+	/**
+	 * When the evolution has been computed by forward filtering, the network is expanded now and the evolution is
+	 * expressed in terms of the variables of the expanded network.
+	 */
 	@Override public ProbNet getExpandedNetwork() {
+		if (temporalEvolution != null && !isExpanded) {
+			expandNetwork();
+			HashMap<Variable, TablePotential> expandedEvolution = new HashMap<>();
+			for (Map.Entry<Variable, TablePotential> entry : temporalEvolution.entrySet()) {
+				Variable variable = entry.getKey();
+				try {
+					Node node = probNet.getNode(variable.getName());
+					TablePotential potential = new TablePotential(entry.getValue());
+					potential.replaceVariable(variable, node.getVariable());
+					expandedEvolution.put(node.getVariable(), potential);
+				} catch (NodeNotFoundException e) {
+					expandedEvolution.put(variable, entry.getValue());
+				}
+			}
+			temporalEvolution.clear();
+			temporalEvolution.putAll(expandedEvolution);
+		}
 		return probNet;
 	}
 }
@@ -11,6 +11,7 @@ import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.inference.BasicOperations;
 import org.openmarkov.core.inference.InferenceAlgorithm;
 import org.openmarkov.core.inference.heuristic.EliminationHeuristic;
+import org.openmarkov.core.inference.heuristic.EliminationOrderCache;
 import org.openmarkov.core.inference.heuristic.HeuristicFactory;
 import org.openmarkov.core.inference.tasks.TaskUtilities;
 import org.openmarkov.core.model.network.ProbNet;
@@ -35,6 +36,11 @@ public abstract class VariableElimination extends InferenceAlgorithm {
 	 **/
 	private HeuristicFactory heuristicFactory;
 
+	/**
+	 * Cache of elimination orders, null if the heuristic must always be run
+	 */
+	private EliminationOrderCache eliminationOrderCache = EliminationOrderCache.getSharedInstance();
+
 	/*
 	 * Policies set by the user. The optimal policy would only be calculated for the decisions
 	 * without imposed policies.
@@ -53,13 +59,17 @@ public abstract class VariableElimination extends InferenceAlgorithm {
 			@Override public EliminationHeuristic getHeuristic(ProbNet probNet, List<List<Variable>> variables) {
 				return new SimpleElimination(probNet, variables);
 			}
+
+			@Override public String getCacheKey() {
+				return SimpleElimination.class.getName();
+			}
 		});
 	}
 
 	/**
 	 * This operations transform a PGM into another PGM of the same type that can be evaluated by the algorithm
 	 */
-	void generalPreprocessing() {
+	protected void generalPreprocessing() {
 		boolean isTemporal = !probNet.hasConstraint(OnlyAtemporalVariables.class);
 
 		// 2. If the network has temporal nodes, expand the network to the specified horizon.
@@ -87,7 +97,7 @@ public abstract class VariableElimination extends InferenceAlgorithm {
 	 * 2. Discretize the non-observed numeric variables.
 	 * 3. Extend of the pre-resolution evidence for the new potentials.
 	 */
-	void exactAlgorithmsPreprocessing() {
+	protected void exactAlgorithmsPreprocessing() {
 		probNet = TaskUtilities.discretizeNonObservedNumericVariables(probNet, getPreResolutionEvidence());
 		probNet = TaskUtilities.absorbAllIntermediateNumericNodes(probNet, getPreResolutionEvidence());
 		// TODO - Implement: Extend ALL the evidence for the new potentials.
@@ -126,17 +136,54 @@ public abstract class VariableElimination extends InferenceAlgorithm {
 		return constraints;
 	}
 
-	private void setHeuristicFactory(HeuristicFactory heuristicFactory) {
+	/**
+	 * @param heuristicFactory factory of the heuristic that chooses the elimination order
+	 */
+	public void setHeuristicFactory(HeuristicFactory heuristicFactory) {
 		this.heuristicFactory = heuristicFactory;
 	}
 
+	public HeuristicFactory getHeuristicFactory() {
+		return heuristicFactory;
+	}
+
+	/**
+	 * @param eliminationOrderCache cache of elimination orders; null to run the heuristic in every elimination
+	 */
+	public void setEliminationOrderCache(EliminationOrderCache eliminationOrderCache) {
+		this.eliminationOrderCache = eliminationOrderCache;
+	}
+
+	public EliminationOrderCache getEliminationOrderCache() {
+		return eliminationOrderCache;
+	}
+
 	protected EliminationHeuristic heuristicFactory(ProbNet markovNetworkInference, List<Variable> queryVariables,
 			List<Variable> evidenceVariables, List<Variable> conditioningVariables,
 			List<Variable> variablesToEliminate) {
 		List<List<Variable>> projectedOrderVariables = BasicOperations
 				.projectPartialOrder(this.probNet, queryVariables, evidenceVariables, conditioningVariables,
 						variablesToEliminate);
-		return heuristicFactory.getHeuristic(markovNetworkInference, projectedOrderVariables);
+		// The auxiliary variables of the factorized potentials are not in the partial order of the network.
+		// They are eliminated with the variables that are eliminated first.
+		List<Variable> auxiliaryVariables = new ArrayList<>();
+		for (Variable variable : variablesToEliminate) {
+			if (this.probNet.getNode(variable) == null && markovNetworkInference.getNode(variable) != null) {
+				auxiliaryVariables.add(variable);
+			}
+		}
+		if (!auxiliaryVariables.isEmpty()) {
+			if (projectedOrderVariables.isEmpty()) {
+				projectedOrderVariables.add(auxiliaryVariables);
+			} else {
+				projectedOrderVariables.get(projectedOrderVariables.size() - 1).addAll(auxiliaryVariables);
+			}
+		}
+		if (eliminationOrderCache == null) {
+			return heuristicFactory.getHeuristic(markovNetworkInference, projectedOrderVariables);
+		}
+		return eliminationOrderCache.getHeuristic(heuristicFactory, markovNetworkInference, projectedOrderVariables,
+				evidenceVariables, conditioningVariables);
 	}
 
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import org.jdom2.Element;
+
+/**
+ * Element whose text is a list of numbers, which are parsed from the characters of the document as they are read
+ * instead of being kept as text. Built by {@link PGMXStAXReader} for the tables of the potentials.
+ * <p>
+ * The numbers are separated by white space. The usual decimal numbers are converted with exact arithmetic; any
+ * other token is converted with {@link Double#parseDouble(String)}, so the result is always the same as parsing
+ * the text.
+ */
+@SuppressWarnings("serial") class NumericElement extends Element {
+
+	// Attributes
+	/**
+	 * Powers of ten that are exactly representable as doubles
+	 */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Maximum number of significant digits of a mantissa that is exactly representable as a double
+	 */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	private double[] numbers = new double[16];
+
+	private int numNumbers;
+
+	/**
+	 * Characters of the number being read, which can be split between several calls to {@link #parse}
+	 */
+	private char[] token = new char[32];
+
+	private int tokenLength;
+
+	// Constructor
+	NumericElement(String name) {
+		super(name);
+	}
+
+	// Methods
+
+	/**
+	 * @param characters buffer with characters of the text of the element
+	 * @param start      position of the first character
+	 * @param length     number of characters
+	 * @throws NumberFormatException if a token is not a number
+	 */
+	void parse(char[] characters, int start, int length) {
+		int end = start + length;
+		for (int i = start; i < end; i++) {
+			char character = characters[i];
+			if (character == ' ' || character == '\n' || character == '\t' || character == '\r') {
+				endToken();
+			} else {
+				if (tokenLength == token.length) {
+					char[] newToken = new char[2 * token.length];
+					System.arraycopy(token, 0, newToken, 0, tokenLength);
+					token = newToken;
+				}
+				token[tokenLength++] = character;
+			}
+		}
+	}
+
+	/**
+	 * Called at the end of the element
+	 *
+	 * @throws NumberFormatException if the last token is not a number
+	 */
+	void end() {
+		endToken();
+		if (numNumbers < numbers.length) {
+			double[] trimmedNumbers = new double[numNumbers];
+			System.arraycopy(numbers, 0, trimmedNumbers, 0, numNumbers);
+			numbers = trimmedNumbers;
+		}
+		token = null;
+	}
+
+	/**
+	 * @return The numbers of the element. The array is not copied.
+	 */
+	double[] getNumbers() {
+		return numbers;
+	}
+
+	@Override public String getText() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < numNumbers; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			text.append(numbers[i]);
+		}
+		return text.toString();
+	}
+
+	private void endToken() {
+		if (tokenLength > 0) {
+			if (numNumbers == numbers.length) {
+				double[] newNumbers = new double[2 * numbers.length];
+				System.arraycopy(numbers, 0, newNumbers, 0, numNumbers);
+				numbers = newNumbers;
+			}
+			numbers[numNumbers++] = parseToken();
+			tokenLength = 0;
+		}
+	}
+
+	/**
+	 * Converts decimal numbers whose mantissa has at most 15 significant digits and whose exponent is at most 22 in
+	 * absolute value with one exact operation (Clinger's fast path), whose result is the correctly rounded value
+	 * returned by {@link Double#parseDouble(String)}.
+	 */
+	private double parseToken() {
+		int i = 0;
+		boolean negative = false;
+		if (token[0] == '-' || token[0] == '+') {
+			negative = token[0] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int numSignificantDigits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		boolean isFraction = false;
+		for (; i < tokenLength; i++) {
+			char character = token[i];
+			if (character >= '0' && character <= '9') {
+				hasDigits = true;
+				if (mantissa != 0 || character != '0') {
+					if (++numSignificantDigits > MAX_EXACT_DIGITS) {
+						return parseTokenText();
+					}
+					mantissa = 10 * mantissa + (character - '0');
+				}
+				if (isFraction) {
+					exponent--;
+				}
+			} else if (character == '.' && !isFraction) {
+				isFraction = true;
+			} else {
+				break;
+			}
+		}
+		if (!hasDigits) {
+			return parseTokenText();
+		}
+		if (i < tokenLength) {
+			if (token[i] != 'e' && token[i] != 'E' || ++i == tokenLength) {
+				return parseTokenText();
+			}
+			boolean negativeExponent = false;
+			if (token[i] == '-' || token[i] == '+') {
+				negativeExponent = token[i] == '-';
+				if (++i == tokenLength) {
+					return parseTokenText();
+				}
+			}
+			int explicitExponent = 0;
+			for (; i < tokenLength; i++) {
+				char character = token[i];
+				if (character < '0' || character > '9' || explicitExponent > 1000) {
+					return parseTokenText();
+				}
+				explicitExponent = 10 * explicitExponent + (character - '0');
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+			value = mantissa * POWERS_OF_TEN[exponent];
+		} else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			return parseTokenText();
+		}
+		return negative ? -value : value;
+	}
+
+	private double parseTokenText() {
+		return Double.parseDouble(new String(token, 0, tokenLength));
+	}
+
+}
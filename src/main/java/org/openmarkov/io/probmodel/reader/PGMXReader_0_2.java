@@ -121,7 +121,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
      * @return root Element
      * @throws ParserException
      */
-    private Element getRootElement(InputStream stream, String netName) throws ParserException {
+    protected Element getRootElement(InputStream stream, String netName) throws ParserException {
         SAXBuilder builder = new SAXBuilder();
         builder.setJDOMFactory( new LocatedJDOMFactory() );
         Document document = null;
@@ -1528,7 +1528,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
     protected TablePotential getTablePotential(Element xmlPotential, ProbNet probNet, PotentialRole xmlRole,
                                                List<Variable> variables ) {
         Element xmlRootTable = getXMLRootTable( xmlPotential );
-        double[] table = parseDoubles( xmlRootTable.getTextNormalize() );
+        double[] table = parseDoubles( xmlRootTable );
         TablePotential tablePotential = new TablePotential( variables, xmlRole, table );
 
         Element xmlRootUncertainValues = xmlPotential.getChild( XMLTags.UNCERTAIN_VALUES.toString() );
@@ -1548,7 +1548,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
     protected ExactDistrPotential getExactDistrPotential( Element xmlPotential, ProbNet probNet, PotentialRole xmlRole,
                                                           List<Variable> variables ) {
         Element xmlRootTable = getXMLRootTable( xmlPotential );
-        double[] table = parseDoubles( xmlRootTable.getTextNormalize() );
+        double[] table = parseDoubles( xmlRootTable );
         ExactDistrPotential exactDistrPotential = new ExactDistrPotential( variables, xmlRole, table );
 
         Element xmlRootUncertainValues = xmlPotential.getChild( XMLTags.UNCERTAIN_VALUES.toString() );
@@ -1802,7 +1802,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
         for ( Element subpotential : xmlPotential.getChild( XMLTags.SUBPOTENTIALS.toString() ).getChildren() )
         {
             List<Element> subpotentialVariables = subpotential.getChild( XMLTags.VARIABLES.toString() ).getChildren();
-            double[] values = parseDoubles( subpotential.getChild( XMLTags.VALUES.toString() ).getTextNormalize() );
+            double[] values = parseDoubles( subpotential.getChild( XMLTags.VALUES.toString() ) );
             if ( subpotentialVariables.size() > 1 )
             {
                 Variable variable = getVariable( subpotentialVariables.get( 1 ), probNet );
@@ -1881,7 +1881,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
     protected void getRegressionPotential( Element xmlPotential, GLMPotential potential )
     {
         Element xmlCoefficients = xmlPotential.getChild( XMLTags.COEFFICIENTS.toString() );
-        potential.setCoefficients( parseDoubles( xmlCoefficients.getText() ) );
+        potential.setCoefficients( parseDoubles( xmlCoefficients ) );
 
         Element xmlCovariates = xmlPotential.getChild( XMLTags.COVARIATES.toString() );
         if ( xmlCovariates != null )
@@ -1893,11 +1893,11 @@ public class PGMXReader_0_2 implements ProbNetReader {
         Element xmlCholeskyDecomposition = xmlPotential.getChild( XMLTags.CHOLESKY_DECOMPOSITION.toString() );
         if ( xmlCovarianceMatrix != null )
         {
-            potential.setCovarianceMatrix( parseDoubles( xmlCovarianceMatrix.getText() ) );
+            potential.setCovarianceMatrix( parseDoubles( xmlCovarianceMatrix ) );
         }
         else if ( xmlCholeskyDecomposition != null )
         {
-            potential.setCholeskyDecomposition( parseDoubles( xmlCholeskyDecomposition.getText() ) );
+            potential.setCholeskyDecomposition( parseDoubles( xmlCholeskyDecomposition ) );
         }
     }
 
@@ -2085,6 +2085,18 @@ public class PGMXReader_0_2 implements ProbNetReader {
         return cycleLengthShift;
     }
 
+    /**
+     * @param element element whose text is a list of numbers separated by spaces
+     * @return The numbers. If the element was built by {@link PGMXStAXReader}, they have already been parsed.
+     */
+    protected double[] parseDoubles( Element element )
+    {
+        if ( element instanceof NumericElement ) {
+            return ( (NumericElement) element ).getNumbers();
+        }
+        return parseDoubles( element.getTextNormalize() );
+    }
+
     protected double[] parseDoubles( String string )
     {
         String[] sValues = string.split( " " );
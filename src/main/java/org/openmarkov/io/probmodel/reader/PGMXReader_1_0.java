@@ -148,7 +148,7 @@ public class PGMXReader_1_0 extends PGMXReader_0_2 implements ProbNetReader {
 		String univariateName = xmlPotential.getAttributeValue(XMLAttributes.DISTRIBUTION.toString());
 		String parametrization = xmlPotential.getAttributeValue(XMLAttributes.PARAMETRIZATION.toString());
 		Element xmlRootTable = xmlPotential.getChild(XMLTags.PARAMETERS.toString());
-		double[] table = parseDoubles(xmlRootTable.getTextNormalize());
+		double[] table = parseDoubles(xmlRootTable);
 
 		UnivariateDistrPotential potential;
 		try {
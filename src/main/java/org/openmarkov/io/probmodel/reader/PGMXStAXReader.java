@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import org.jdom2.CDATA;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.Text;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.io.ProbNetInfo;
+import org.openmarkov.core.io.format.annotation.FormatType;
+import org.openmarkov.io.probmodel.exception.PGMXParserException;
+import org.openmarkov.io.probmodel.strings.XMLTags;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads PGMX files with a StAX stream instead of a SAX builder that records the position of every element. The
+ * tables of numbers (values of the potentials and coefficients of the regressions) are parsed into arrays of
+ * doubles while the document is read, without building their text. The rest of the document is read into the same
+ * elements as {@link PGMXReader_0_2}, so the networks read are the same.
+ * <p>
+ * Since the elements do not keep their positions, when a file cannot be interpreted it is read again with
+ * {@link PGMXReader_0_2} to report where the error is.
+ * <p>
+ * It is registered in the {@code FormatManager} with version "stax":
+ * {@code FormatManager.getInstance().getProbNetReader("pgmx", "stax")}.
+ */
+@FormatType(name = "PGMXStAXReader", version = "stax", extension = "pgmx", description = "OpenMarkov (StAX)", role = "Reader")
+public class PGMXStAXReader extends PGMXReader_0_2 {
+
+	// Attributes
+	/**
+	 * Elements whose text is a list of numbers
+	 */
+	private static final Set<String> NUMERIC_ELEMENTS = new HashSet<>(Arrays
+			.asList(XMLTags.VALUES.toString(), XMLTags.COEFFICIENTS.toString(), XMLTags.COVARIANCE_MATRIX.toString(),
+					XMLTags.CHOLESKY_DECOMPOSITION.toString()));
+
+	private static final XMLInputFactory inputFactory = createInputFactory();
+
+	// Methods
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	@Override public ProbNetInfo loadProbNetInfo(String netName, InputStream... inputStream) throws ParserException {
+		try {
+			return super.loadProbNetInfo(netName, inputStream);
+		} catch (PGMXParserException e) {
+			if (inputStream.length == 0) {
+				// Reads the file again keeping the positions of the elements, which are included in the message
+				return new PGMXReader_0_2().loadProbNetInfo(netName);
+			}
+			throw e;
+		}
+	}
+
+	@Override protected Element getRootElement(InputStream stream, String netName) throws ParserException {
+		XMLStreamReader reader = null;
+		try {
+			reader = inputFactory.createXMLStreamReader(stream);
+			Element root = null;
+			Deque<Element> openElements = new ArrayDeque<>();
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					Element element = createElement(reader);
+					if (openElements.isEmpty()) {
+						root = element;
+					} else {
+						openElements.peek().addContent(element);
+					}
+					openElements.push(element);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					Element closedElement = openElements.pop();
+					if (closedElement instanceof NumericElement) {
+						parseNumbers(reader, netName, (NumericElement) closedElement, true);
+					}
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+				case XMLStreamConstants.CDATA:
+					Element parent = openElements.peek();
+					if (parent instanceof NumericElement) {
+						parseNumbers(reader, netName, (NumericElement) parent, false);
+					} else if (parent != null) {
+						parent.addContent(reader.getEventType() == XMLStreamConstants.CDATA ?
+								new CDATA(reader.getText()) :
+								new Text(reader.getText()));
+					}
+					break;
+				default:
+					break;
+				}
+			}
+			if (root == null) {
+				throw new ParserException("Can not parse XML document " + netName + ": it has no root element");
+			}
+			new Document(root);
+			return root;
+		} catch (XMLStreamException e) {
+			throw new ParserException("Can not parse XML document " + netName + ":" + e.getMessage());
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// The document has already been read
+				}
+			}
+		}
+	}
+
+	private static Element createElement(XMLStreamReader reader) {
+		String name = reader.getLocalName();
+		Element element = NUMERIC_ELEMENTS.contains(name) ? new NumericElement(name) : new Element(name);
+		String namespaceURI = reader.getNamespaceURI();
+		if (namespaceURI != null && !namespaceURI.isEmpty()) {
+			element.setNamespace(Namespace.getNamespace(reader.getPrefix(), namespaceURI));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	/**
+	 * @param end true at the end of the element, false to parse the current characters
+	 */
+	private static void parseNumbers(XMLStreamReader reader, String netName, NumericElement element, boolean end)
+			throws ParserException {
+		try {
+			if (end) {
+				element.end();
+			} else {
+				element.parse(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			}
+		} catch (NumberFormatException e) {
+			Location location = reader.getLocation();
+			throw new ParserException(
+					"Can not parse XML document " + netName + ": wrong number in " + element.getName() + " (at line "
+							+ location.getLineNumber() + ", column " + location.getColumnNumber() + "): " + e
+							.getMessage());
+		}
+	}
+
+}
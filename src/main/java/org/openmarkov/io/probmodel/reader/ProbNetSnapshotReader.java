@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.inference.MulticriteriaOptions;
+import org.openmarkov.core.io.ProbNetInfo;
+import org.openmarkov.core.io.ProbNetReader;
+import org.openmarkov.core.io.format.annotation.FormatType;
+import org.openmarkov.core.model.network.Criterion;
+import org.openmarkov.core.model.network.CycleLength;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.PartitionedInterval;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.StringWithProperties;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.modelUncertainty.ProbDensFunctionManager;
+import org.openmarkov.core.model.network.modelUncertainty.UncertainValue;
+import org.openmarkov.core.model.network.potential.ExactDistrPotential;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.UniformPotential;
+import org.openmarkov.core.model.network.type.NetworkType;
+import org.openmarkov.core.model.network.type.plugin.NetworkTypeManager;
+import org.openmarkov.io.probmodel.writer.ProbNetSnapshotWriter;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the networks written by {@link ProbNetSnapshotWriter}. The file is mapped into memory, so it is read by the
+ * operating system in large blocks, and the values of each table are copied with a single bulk transfer from the
+ * mapped array of doubles. Nothing is parsed from text.
+ * <p>
+ * The file is rejected when its magic number, its version or the CRC-32 of its contents do not match, which
+ * happens when the snapshot was written by another version of the format, was truncated or was corrupted.
+ */
+@FormatType(name = "ProbNetSnapshotReader", version = "1", extension = ProbNetSnapshotWriter.EXTENSION, description = "OpenMarkov snapshot.1", role = "Reader")
+public class ProbNetSnapshotReader implements ProbNetReader {
+
+	// Attributes
+	/**
+	 * Shared by all the readers because looking for the network types in the class path takes longer than reading
+	 * a snapshot
+	 */
+	private static final NetworkTypeManager networkTypeManager = new NetworkTypeManager();
+
+	private ByteBuffer structure;
+
+	// Methods
+
+	/**
+	 * @param netName = path + network name + extension. <code>String</code>
+	 * @param file    stream of the snapshot; when it is not given, the file {@code netName} is read
+	 * @return The <code>ProbNet</code> read
+	 * @throws ParserException if the file can not be read or it is not a valid snapshot
+	 */
+	public ProbNet loadProbNet(String netName, InputStream... file) throws ParserException {
+		return loadProbNetInfo(netName, file).getProbNet();
+	}
+
+	/**
+	 * @param netName = path + network name + extension. <code>String</code>
+	 * @param file    stream of the snapshot; when it is not given, the file {@code netName} is read
+	 * @return The <code>ProbNet</code> read, without evidence
+	 * @throws ParserException if the file can not be read or it is not a valid snapshot
+	 */
+	public ProbNetInfo loadProbNetInfo(String netName, InputStream... file) throws ParserException {
+		ByteBuffer snapshot;
+		try {
+			snapshot = map(netName, file);
+		} catch (IOException e) {
+			throw new ParserException("Can not read " + netName + ": " + e.getMessage());
+		}
+		try {
+			return new ProbNetInfo(readSnapshot(snapshot.order(ByteOrder.LITTLE_ENDIAN), netName), new ArrayList<>());
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new ParserException("Snapshot " + netName + " is corrupt: " + e);
+		} finally {
+			structure = null;
+		}
+	}
+
+	private ByteBuffer map(String netName, InputStream... file) throws IOException {
+		if (file.length == 0) {
+			try (FileChannel channel = FileChannel.open(Paths.get(netName), StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		} else if (file[0] instanceof FileInputStream) {
+			FileChannel channel = ((FileInputStream) file[0]).getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), channel.size() - channel.position());
+		}
+		return ByteBuffer.wrap(IOUtils.toByteArray(file[0]));
+	}
+
+	private ProbNet readSnapshot(ByteBuffer snapshot, String netName) throws ParserException {
+		if (snapshot.remaining() < ProbNetSnapshotWriter.HEADER_LENGTH
+				|| snapshot.getLong() != ProbNetSnapshotWriter.MAGIC) {
+			throw new ParserException(netName + " is not a network snapshot");
+		}
+		int version = snapshot.getInt();
+		if (version != ProbNetSnapshotWriter.FORMAT_VERSION) {
+			throw new ParserException("Snapshot " + netName + " has version " + version + " but version "
+					+ ProbNetSnapshotWriter.FORMAT_VERSION + " is required");
+		}
+		int structureLength = snapshot.getInt();
+		long numValues = snapshot.getLong();
+		long checksum = snapshot.getLong();
+		int valuesOffset = ProbNetSnapshotWriter.HEADER_LENGTH + structureLength;
+		valuesOffset += (8 - valuesOffset % 8) % 8;
+		if (structureLength < 0 || numValues < 0 || valuesOffset + numValues * Double.BYTES != snapshot.limit()) {
+			throw new ParserException("Snapshot " + netName + " is truncated");
+		}
+		CRC32 crc = new CRC32();
+		crc.update(snapshot.duplicate());
+		if (crc.getValue() != checksum) {
+			throw new ParserException("Snapshot " + netName + " is corrupt: wrong checksum");
+		}
+
+		structure = snapshot.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		structure.limit(ProbNetSnapshotWriter.HEADER_LENGTH + structureLength);
+		snapshot.position(valuesOffset);
+		DoubleBuffer values = snapshot.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+		String networkTypeName = getString();
+		NetworkType networkType;
+		synchronized (networkTypeManager) {
+			networkType = networkTypeManager.getNetworkType(networkTypeName);
+		}
+		if (networkType == null) {
+			throw new ParserException("Unknown network type: " + networkTypeName);
+		}
+		ProbNet probNet = new ProbNet(networkType);
+		probNet.setName(FilenameUtils.getName(netName));
+		probNet.setComment(getString());
+
+		List<Criterion> criteria = readCriteria();
+		if (criteria != null) {
+			probNet.setDecisionCriteria(criteria);
+		}
+		String multicriteriaType = getString();
+		String mainUnit = getString();
+		if (multicriteriaType != null) {
+			MulticriteriaOptions multicriteriaOptions = probNet.getInferenceOptions().getMultiCriteriaOptions();
+			multicriteriaOptions.setMulticriteriaType(MulticriteriaOptions.Type.valueOf(multicriteriaType));
+			multicriteriaOptions.setMainUnit(mainUnit);
+		}
+
+		Node[] nodes = new Node[structure.getInt()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = readNode(probNet, criteria);
+		}
+
+		int numLinks = structure.getInt();
+		for (int i = 0; i < numLinks; i++) {
+			Variable variable1 = nodes[structure.getInt()].getVariable();
+			Variable variable2 = nodes[structure.getInt()].getVariable();
+			try {
+				probNet.addLink(variable1, variable2, getBoolean());
+			} catch (NodeNotFoundException e) {
+				throw new ParserException("Snapshot " + netName + " is corrupt: " + e.getMessage());
+			}
+		}
+
+		int numPotentials = structure.getInt();
+		for (int i = 0; i < numPotentials; i++) {
+			Node node = nodes[structure.getInt()];
+			node.addPotential(readPotential(nodes, values));
+		}
+		if (structure.hasRemaining()) {
+			throw new ParserException("Snapshot " + netName + " is corrupt: unread structure");
+		}
+		return probNet;
+	}
+
+	private List<Criterion> readCriteria() {
+		int numCriteria = structure.getInt();
+		if (numCriteria < 0) {
+			return null;
+		}
+		List<Criterion> criteria = new ArrayList<>(numCriteria);
+		for (int i = 0; i < numCriteria; i++) {
+			Criterion criterion = new Criterion(getString(), getString());
+			criterion.setUnicriterizationScale(structure.getDouble());
+			criterion.setCeScale(structure.getDouble());
+			String ceCriterion = getString();
+			criterion.setCECriterion(ceCriterion == null ? null : Criterion.CECriterion.valueOf(ceCriterion));
+			criterion.setDiscount(structure.getDouble());
+			String discountUnit = getString();
+			criterion.setDiscountUnit(discountUnit == null ? null : CycleLength.DiscountUnit.valueOf(discountUnit));
+			criteria.add(criterion);
+		}
+		return criteria;
+	}
+
+	private Node readNode(ProbNet probNet, List<Criterion> criteria) {
+		String name = getString();
+		VariableType variableType = VariableType.valueOf(getString());
+		NodeType nodeType = NodeType.valueOf(getString());
+		State[] states = new State[structure.getInt()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = new State(getString());
+		}
+		PartitionedInterval partitionedInterval = null;
+		int numLimits = structure.getInt();
+		if (numLimits >= 0) {
+			double[] limits = new double[numLimits];
+			boolean[] belongsToLeftSide = new boolean[numLimits];
+			for (int i = 0; i < numLimits; i++) {
+				limits[i] = structure.getDouble();
+				belongsToLeftSide[i] = getBoolean();
+			}
+			partitionedInterval = new PartitionedInterval(limits, belongsToLeftSide);
+		}
+		Variable variable = new Variable(name, states);
+		// setVariableType replaces the states and the interval by default ones
+		variable.setVariableType(variableType);
+		variable.setStates(states);
+		variable.setPartitionedInterval(partitionedInterval);
+		variable.setPrecision(structure.getDouble());
+		String unit = getString();
+		if (unit != null) {
+			variable.setUnit(new StringWithProperties(unit));
+		}
+		int criterionIndex = structure.getInt();
+		if (criterionIndex >= 0) {
+			variable.setDecisionCriterion(criteria.get(criterionIndex));
+		}
+
+		Node node = probNet.addNode(variable, nodeType);
+		node.setComment(getString());
+		node.setPurpose(getString());
+		node.setRelevance(structure.getDouble());
+		node.setCoordinateX(structure.getDouble());
+		node.setCoordinateY(structure.getDouble());
+		node.setAlwaysObserved(getBoolean());
+		node.setInput(getBoolean());
+		int numProperties = structure.getInt();
+		for (int i = 0; i < numProperties; i++) {
+			node.additionalProperties.put(getString(), getString());
+		}
+		return node;
+	}
+
+	private Potential readPotential(Node[] nodes, DoubleBuffer values) {
+		byte kind = structure.get();
+		PotentialRole role = PotentialRole.valueOf(getString());
+		String comment = getString();
+		List<Variable> variables = new ArrayList<>();
+		int numVariables = structure.getInt();
+		for (int i = 0; i < numVariables; i++) {
+			variables.add(nodes[structure.getInt()].getVariable());
+		}
+		Potential potential;
+		if (kind == ProbNetSnapshotWriter.UNIFORM_POTENTIAL) {
+			potential = new UniformPotential(variables, role);
+		} else if (kind == ProbNetSnapshotWriter.TABLE_POTENTIAL || kind == ProbNetSnapshotWriter.EXACT_POTENTIAL) {
+			long offset = structure.getLong();
+			double[] table = new double[structure.getInt()];
+			values.position((int) offset);
+			values.get(table);
+			UncertainValue[] uncertainValues = readUncertainValues();
+			TablePotential tablePotential;
+			if (kind == ProbNetSnapshotWriter.TABLE_POTENTIAL) {
+				tablePotential = new TablePotential(variables, role, table);
+				potential = tablePotential;
+			} else {
+				ExactDistrPotential exactDistrPotential = new ExactDistrPotential(variables, role, table);
+				tablePotential = exactDistrPotential.getTablePotential();
+				potential = exactDistrPotential;
+			}
+			if (uncertainValues != null) {
+				tablePotential.setUncertainValues(uncertainValues);
+			}
+		} else {
+			throw new IllegalArgumentException("unknown kind of potential " + kind);
+		}
+		potential.setComment(comment);
+		return potential;
+	}
+
+	private UncertainValue[] readUncertainValues() {
+		int numUncertainValues = structure.getInt();
+		if (numUncertainValues < 0) {
+			return null;
+		}
+		UncertainValue[] uncertainValues = new UncertainValue[numUncertainValues];
+		for (int i = 0; i < numUncertainValues; i++) {
+			if (getBoolean()) {
+				String functionName = getString();
+				String name = getString();
+				double[] parameters = new double[structure.getInt()];
+				for (int j = 0; j < parameters.length; j++) {
+					parameters[j] = structure.getDouble();
+				}
+				uncertainValues[i] = new UncertainValue(
+						ProbDensFunctionManager.getUniqueInstance().newInstance(functionName, parameters), name);
+			}
+		}
+		return uncertainValues;
+	}
+
+	private boolean getBoolean() {
+		return structure.get() != 0;
+	}
+
+	private String getString() {
+		int length = structure.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		structure.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network;
+
+import org.junit.jupiter.api.Test;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.type.BayesianNetworkType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Several threads search the potentials of a network that is not being changed, while its potential index is
+ * still to be built.
+ */
+class ProbNetConcurrentReadTest {
+
+	private static final int NUM_VARIABLES = 200;
+
+	private static final int NUM_THREADS = 8;
+
+	private static final int NUM_ROUNDS = 50;
+
+	@Test
+	void concurrentSearchesSeeTheCompleteIndex() throws Exception {
+		ProbNet net = buildNetwork();
+		List<Variable> variables = net.getVariables();
+		int[] expectedSizes = new int[variables.size()];
+		ProbNet reference = net.copy();
+		for (int i = 0; i < expectedSizes.length; i++) {
+			expectedSizes[i] = reference.getPotentials(variables.get(i)).size();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try {
+			for (int round = 0; round < NUM_ROUNDS; round++) {
+				// Each copy starts without index, so the threads race to build it
+				ProbNet copy = net.copy();
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<int[]>> futures = new ArrayList<>();
+				for (int thread = 0; thread < NUM_THREADS; thread++) {
+					int offset = thread;
+					futures.add(executor.submit(() -> {
+						start.await();
+						int[] sizes = new int[variables.size()];
+						for (int i = 0; i < sizes.length; i++) {
+							int index = (i + offset * 17) % sizes.length;
+							sizes[index] = copy.getPotentials(variables.get(index)).size();
+						}
+						return sizes;
+					}));
+				}
+				start.countDown();
+				for (Future<int[]> future : futures) {
+					int[] sizes = future.get();
+					for (int i = 0; i < sizes.length; i++) {
+						assertEquals(expectedSizes[i], sizes[i], "Potentials of " + variables.get(i));
+					}
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void concurrentSearchesOfProbabilityPotentials() throws Exception {
+		ProbNet net = buildNetwork();
+		List<Variable> variables = net.getVariables();
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try {
+			for (int round = 0; round < NUM_ROUNDS; round++) {
+				ProbNet copy = net.copy();
+				List<Callable<Integer>> searches = new ArrayList<>();
+				for (int thread = 0; thread < NUM_THREADS; thread++) {
+					searches.add(() -> {
+						int numPotentials = 0;
+						for (Variable variable : variables) {
+							numPotentials += copy.getProbPotentials(variable).size();
+						}
+						return numPotentials;
+					});
+				}
+				// Each variable is in its own potential and in those of its two next variables, if any
+				int expected = 3 * NUM_VARIABLES - 3;
+				for (Future<Integer> future : executor.invokeAll(searches)) {
+					assertEquals(expected, (int) future.get());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return A network in which each variable has as parents the two previous ones
+	 */
+	private static ProbNet buildNetwork() {
+		ProbNet net = new ProbNet(BayesianNetworkType.getUniqueInstance());
+		List<Variable> variables = new ArrayList<>();
+		for (int i = 0; i < NUM_VARIABLES; i++) {
+			Variable variable = new Variable("X" + i, 2);
+			variables.add(variable);
+			Node node = net.addNode(variable, NodeType.CHANCE);
+			List<Variable> potentialVariables = new ArrayList<>();
+			potentialVariables.add(variable);
+			for (int parent = Math.max(0, i - 2); parent < i; parent++) {
+				net.addLink(net.getNode(variables.get(parent)), node, true);
+				potentialVariables.add(variables.get(parent));
+			}
+			node.setPotential(new TablePotential(potentialVariables, PotentialRole.CONDITIONAL_PROBABILITY));
+		}
+		return net;
+	}
+}
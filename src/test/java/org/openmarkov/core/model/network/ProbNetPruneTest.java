@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network;
+
+import org.junit.jupiter.api.Test;
+import org.openmarkov.core.model.graph.Link;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.type.BayesianNetworkType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Pruning a network copies only the nodes that are kept, and gives the same network as removing the barren and
+ * unreachable nodes from a full copy.
+ */
+class ProbNetPruneTest {
+
+	private static final int NUM_NETWORKS = 200;
+
+	private static final int NUM_VARIABLES = 12;
+
+	@Test
+	void pruningGivesTheSameNetworkAsRemovingNodesFromACopy() throws Exception {
+		Random random = new Random(7);
+		for (int i = 0; i < NUM_NETWORKS; i++) {
+			ProbNet net = buildNetwork(random);
+			List<Variable> variables = net.getVariables();
+			Set<Variable> variablesOfInterest = new HashSet<>();
+			variablesOfInterest.add(variables.get(random.nextInt(variables.size())));
+			EvidenceCase evidence = new EvidenceCase();
+			for (Variable variable : variables) {
+				if (!variablesOfInterest.contains(variable) && random.nextInt(4) == 0) {
+					evidence.addFinding(new Finding(variable, random.nextInt(2)));
+				}
+			}
+			int numLinks = countLinks(net);
+
+			ProbNet expected = ProbNetOperations.removeUnreachableNodes(
+					ProbNetOperations.removeBarrenNodes(net.copy(), variablesOfInterest,
+							new HashSet<>(evidence.getVariables())), variablesOfInterest,
+					new HashSet<>(evidence.getVariables()));
+			ProbNet pruned = ProbNetOperations.getPruned(net, variablesOfInterest, evidence);
+
+			assertSameStructure(expected, pruned);
+			assertEquals(variables, net.getVariables());
+			assertEquals(numLinks, countLinks(net));
+		}
+	}
+
+	@Test
+	void copyOfSomeNodesKeepsTheirExplicitLinks() {
+		ProbNet net = buildNetwork(new Random(11));
+		net.makeLinksExplicit(false);
+		Set<Node> nodes = new HashSet<>();
+		List<Node> allNodes = net.getNodes();
+		for (int i = 0; i < allNodes.size(); i += 2) {
+			nodes.add(allNodes.get(i));
+		}
+		ProbNet expected = net.copy();
+		for (Node node : allNodes) {
+			if (!nodes.contains(node)) {
+				expected.removeNode(expected.getNode(node.getVariable()));
+			}
+		}
+
+		ProbNet copy = net.copy(nodes);
+
+		assertSameStructure(expected, copy);
+		assertEquals(expected.getLinks().size(), copy.getLinks().size());
+		for (Link<Node> link : copy.getLinks()) {
+			assertSame(copy, link.getNode1().getProbNet());
+			assertSame(copy, link.getNode2().getProbNet());
+		}
+	}
+
+	private static void assertSameStructure(ProbNet expected, ProbNet actual) {
+		assertEquals(expected.getVariables(), actual.getVariables());
+		for (Node expectedNode : expected.getNodes()) {
+			Node node = actual.getNode(expectedNode.getVariable());
+			assertSame(actual, node.getProbNet());
+			assertEquals(ProbNet.getVariables(expectedNode.getParents()), ProbNet.getVariables(node.getParents()));
+			assertEquals(ProbNet.getVariables(expectedNode.getChildren()), ProbNet.getVariables(node.getChildren()));
+			assertEquals(expectedNode.getPotentials(), node.getPotentials());
+		}
+	}
+
+	private static int countLinks(ProbNet net) {
+		int numLinks = 0;
+		for (Node node : net.getNodes()) {
+			numLinks += node.getNumChildren();
+		}
+		return numLinks;
+	}
+
+	/**
+	 * @return A random network in which the parents of each variable are among the previous ones
+	 */
+	private static ProbNet buildNetwork(Random random) {
+		ProbNet net = new ProbNet(BayesianNetworkType.getUniqueInstance());
+		List<Variable> variables = new ArrayList<>();
+		for (int i = 0; i < NUM_VARIABLES; i++) {
+			Variable variable = new Variable("X" + i, 2);
+			Node node = net.addNode(variable, NodeType.CHANCE);
+			List<Variable> potentialVariables = new ArrayList<>();
+			potentialVariables.add(variable);
+			List<Variable> candidates = new ArrayList<>(variables);
+			Collections.shuffle(candidates, random);
+			for (Variable parent : candidates.subList(0, Math.min(candidates.size(), random.nextInt(3)))) {
+				net.addLink(net.getNode(parent), node, true);
+				potentialVariables.add(parent);
+			}
+			node.setPotential(new TablePotential(potentialVariables, PotentialRole.CONDITIONAL_PROBABILITY));
+			variables.add(variable);
+		}
+		return net;
+	}
+}
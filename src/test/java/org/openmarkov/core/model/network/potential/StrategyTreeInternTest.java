@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential;
+
+import org.junit.jupiter.api.Test;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Interning a strategy tree does not modify it, and equal trees interned by several threads share one instance.
+ */
+class StrategyTreeInternTest {
+
+	private static final int NUM_THREADS = 8;
+
+	private final Variable decision = new Variable("D", "d1", "d2");
+
+	private final Variable chance = new Variable("X", "x1", "x2", "x3");
+
+	@Test
+	void internDoesNotModifyTheTree() {
+		StrategyTree tree = buildTree(0);
+		List<TreeADDBranch> branches = new ArrayList<>(tree.getBranches());
+		List<Object> subtrees = new ArrayList<>();
+		for (TreeADDBranch branch : branches) {
+			subtrees.add(branch.getPotential());
+		}
+
+		StrategyTree canonicalTree = StrategyTree.intern(tree);
+
+		assertNotSame(tree, canonicalTree);
+		assertEquals(tree, canonicalTree);
+		assertEquals(branches, tree.getBranches());
+		for (int i = 0; i < branches.size(); i++) {
+			assertSame(subtrees.get(i), tree.getBranches().get(i).getPotential());
+		}
+		assertSame(canonicalTree, StrategyTree.intern(tree));
+		assertSame(canonicalTree, StrategyTree.intern(buildTree(0)));
+	}
+
+	@Test
+	void equalTreesInternedByDifferentThreadsAreTheSameInstance() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try {
+			for (int round = 0; round < 20; round++) {
+				int decisionState = round % 2;
+				List<Callable<StrategyTree>> interns = new ArrayList<>();
+				for (int thread = 0; thread < NUM_THREADS; thread++) {
+					interns.add(() -> StrategyTree.intern(buildTree(decisionState)));
+				}
+				List<Future<StrategyTree>> results = executor.invokeAll(interns);
+				StrategyTree first = results.get(0).get();
+				for (Future<StrategyTree> result : results) {
+					assertSame(first, result.get());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return A tree in which each state of the chance variable leads to a decision, with new subtrees
+	 */
+	private StrategyTree buildTree(int decisionState) {
+		List<State> states = new ArrayList<>();
+		List<StrategyTree> subtrees = new ArrayList<>();
+		for (int i = 0; i < chance.getNumStates(); i++) {
+			states.add(chance.getStates()[i]);
+			State optimalState = decision.getStates()[(i + decisionState) % 2];
+			subtrees.add(new StrategyTree(decision, Collections.singletonList(optimalState)));
+		}
+		return new StrategyTree(chance, states, subtrees);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential.operation;
+
+import org.junit.jupiter.api.Test;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The products that skip the zeros of a sparse potential give the same values as multiplying every configuration,
+ * also when the other factors have infinite or NaN values.
+ */
+class SparseProductTest {
+
+	private static final int NUM_STATES = 4;
+
+	private static final double DELTA = 1E-12;
+
+	private final List<Variable> variables = new ArrayList<>();
+
+	SparseProductTest() {
+		// 4^5 configurations, enough for the products to check the density of the potentials
+		for (int i = 0; i < 5; i++) {
+			variables.add(new Variable("X" + i, NUM_STATES));
+		}
+	}
+
+	@Test
+	void sparseProductMatchesDenseProduct() {
+		TablePotential sparse = buildSparsePotential();
+		TablePotential dense = buildDensePotential();
+		assertTrue(sparse.isSparse(0.1));
+
+		assertProduct(sparse, dense);
+		assertMarginal(sparse, dense);
+	}
+
+	@Test
+	void sparseProductKeepsInfiniteAndNaNValues() {
+		TablePotential sparse = buildSparsePotential();
+		TablePotential dense = buildDensePotential();
+		// Both configurations have zeros of the sparse potential, whose product with these values is NaN
+		dense.values[0] = Double.POSITIVE_INFINITY;
+		dense.values[1 + 2 * NUM_STATES] = Double.NaN;
+		dense.values[3 + 3 * NUM_STATES] = Double.NEGATIVE_INFINITY;
+
+		TablePotential product = assertProduct(sparse, dense);
+		assertTrue(Arrays.stream(product.values).anyMatch(Double::isNaN));
+		TablePotential marginal = assertMarginal(sparse, dense);
+		assertTrue(Double.isNaN(marginal.values[0]));
+	}
+
+	@Test
+	void sparseProductKeepsAnInfiniteConstantFactor() {
+		TablePotential sparse = buildSparsePotential();
+		TablePotential constant = new TablePotential(Collections.<Variable>emptyList(),
+				PotentialRole.CONDITIONAL_PROBABILITY);
+		constant.values[0] = Double.POSITIVE_INFINITY;
+		List<TablePotential> potentials = Arrays.asList(constant, sparse);
+
+		TablePotential result = MultiplyAndMarginalizePlan.getPlan(potentials, variables,
+				Collections.<Variable>emptyList()).execute(potentials);
+
+		for (int i = 0; i < result.values.length; i++) {
+			assertEquals(Double.POSITIVE_INFINITY * sparse.values[i], result.values[i], 0.0);
+		}
+	}
+
+	private TablePotential assertProduct(TablePotential sparse, TablePotential dense) {
+		TablePotential product = DiscretePotentialOperations.multiply(sparse, dense);
+		List<Variable> productVariables = product.getVariables();
+		for (int i = 0; i < product.values.length; i++) {
+			int[] configuration = product.getConfiguration(i);
+			double expected = sparse.getValue(productVariables, configuration) * dense.getValue(productVariables,
+					configuration);
+			assertEquals(expected, product.values[i], DELTA);
+		}
+		return product;
+	}
+
+	private TablePotential assertMarginal(TablePotential sparse, TablePotential dense) {
+		List<Variable> variablesToKeep = Collections.singletonList(variables.get(0));
+		List<Variable> variablesToEliminate = variables.subList(1, variables.size());
+		TablePotential marginal = DiscretePotentialOperations.multiplyAndMarginalize(Arrays.asList(sparse, dense),
+				variablesToKeep, variablesToEliminate);
+		double[] expected = new double[NUM_STATES];
+		for (int i = 0; i < sparse.values.length; i++) {
+			int[] configuration = sparse.getConfiguration(i);
+			expected[configuration[0]] += sparse.values[i] * dense.getValue(variables, configuration);
+		}
+		for (int state = 0; state < NUM_STATES; state++) {
+			assertEquals(expected[state], marginal.values[state], DELTA);
+		}
+		return marginal;
+	}
+
+	/**
+	 * @return A potential of all the variables with 3% of non-zero values
+	 */
+	private TablePotential buildSparsePotential() {
+		TablePotential potential = new TablePotential(variables, PotentialRole.CONDITIONAL_PROBABILITY);
+		Random random = new Random(3);
+		for (int i = 0; i < potential.values.length; i++) {
+			potential.values[i] = random.nextInt(100) < 3 ? random.nextDouble() : 0.0;
+		}
+		return potential;
+	}
+
+	/**
+	 * @return A potential of the first two variables without zeros
+	 */
+	private TablePotential buildDensePotential() {
+		TablePotential potential = new TablePotential(variables.subList(0, 2), PotentialRole.CONDITIONAL_PROBABILITY);
+		Random random = new Random(5);
+		for (int i = 0; i < potential.values.length; i++) {
+			potential.values[i] = 0.5 + random.nextDouble();
+		}
+		return potential;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential.treeadd;
+
+import org.junit.jupiter.api.Test;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The product, the sum out and the max out of algebraic decision diagrams give the same values as the same
+ * operations on the equivalent tables, and a projected tree gives the same values as its projected table.
+ */
+class ADDPotentialTest {
+
+	private static final int NUM_CASES = 200;
+
+	private static final double DELTA = 1E-12;
+
+	private final List<Variable> variables = new ArrayList<>();
+
+	ADDPotentialTest() {
+		for (int i = 0; i < 5; i++) {
+			variables.add(new Variable("X" + i, 2 + i % 2));
+		}
+	}
+
+	@Test
+	void conversionKeepsTheValuesOfTheTable() {
+		Random random = new Random(1);
+		for (int i = 0; i < NUM_CASES; i++) {
+			TablePotential table = buildTable(random);
+			assertSameValues(table, ADDPotential.fromTable(table).toTablePotential());
+		}
+	}
+
+	@Test
+	void operationsMatchTheOperationsOnTables() {
+		Random random = new Random(2);
+		for (int i = 0; i < NUM_CASES; i++) {
+			TablePotential table1 = buildTable(random);
+			TablePotential table2 = buildTable(random);
+			ADDPotential product = ADDPotential.fromTable(table1).multiply(ADDPotential.fromTable(table2));
+			TablePotential denseProduct = DiscretePotentialOperations.multiply(table1, table2);
+			assertSameValues(denseProduct, product.toTablePotential());
+
+			Variable variable = denseProduct.getVariables().get(random.nextInt(denseProduct.getVariables().size()));
+			assertSameValues(DiscretePotentialOperations.marginalize(denseProduct, variable),
+					product.sumOut(variable).toTablePotential());
+			assertSameValues((TablePotential) DiscretePotentialOperations.maximize(denseProduct, variable)[0],
+					product.maxOut(variable).toTablePotential());
+		}
+	}
+
+	@Test
+	void equalSubfunctionsAreShared() {
+		// The values depend only on the first variable, so the diagram needs a node and a leaf for each state
+		TablePotential table = new TablePotential(variables, PotentialRole.CONDITIONAL_PROBABILITY);
+		for (int i = 0; i < table.values.length; i++) {
+			table.values[i] = table.getConfiguration(i)[0];
+		}
+		ADDPotential diagram = ADDPotential.fromTable(table);
+
+		assertEquals(1 + variables.get(0).getNumStates(), diagram.getNumNodes());
+		assertTrue(diagram.isCheaperThanTable());
+		assertSameValues(table, diagram.toTablePotential());
+	}
+
+	@Test
+	void projectedTreeMatchesTheProjectedTable() throws Exception {
+		Random random = new Random(3);
+		Variable child = new Variable("Y", 3);
+		List<Variable> family = new ArrayList<>();
+		family.add(child);
+		family.addAll(variables);
+		for (int i = 0; i < NUM_CASES; i++) {
+			TreeADDPotential tree = buildTree(random, child, family, variables);
+			EvidenceCase evidence = new EvidenceCase();
+			if (random.nextBoolean()) {
+				Variable observed = variables.get(random.nextInt(variables.size()));
+				evidence.addFinding(new Finding(observed, random.nextInt(observed.getNumStates())));
+			}
+
+			TablePotential projectedTable = tree.tableProject(evidence, null).get(0);
+			TablePotential projectedDiagram = ADDPotential.project(tree, evidence, null).toTablePotential();
+
+			// The diagram may omit the variables that the tree does not test, so both are compared on all of them
+			List<Variable> allVariables = new ArrayList<>(projectedTable.getVariables());
+			for (Variable variable : projectedDiagram.getVariables()) {
+				if (!allVariables.contains(variable)) {
+					allVariables.add(variable);
+				}
+			}
+			TablePotential ones = new TablePotential(allVariables, PotentialRole.JOINT_PROBABILITY);
+			Arrays.fill(ones.values, 1.0);
+			assertSameValues(DiscretePotentialOperations.multiply(projectedTable, ones),
+					DiscretePotentialOperations.multiply(projectedDiagram, ones));
+		}
+	}
+
+	/**
+	 * Compares the values of both potentials configuration by configuration, whatever the order of their variables
+	 */
+	private static void assertSameValues(TablePotential expected, TablePotential actual) {
+		List<Variable> expectedVariables = expected.getVariables();
+		assertEquals(expectedVariables.size(), actual.getVariables().size());
+		assertTrue(actual.getVariables().containsAll(expectedVariables));
+		for (int i = 0; i < expected.values.length; i++) {
+			int[] configuration = expected.getConfiguration(i);
+			assertEquals(expected.values[i], actual.getValue(expectedVariables, configuration), DELTA);
+		}
+	}
+
+	/**
+	 * @return A table of some of the variables whose values repeat often, so that the diagrams share nodes
+	 */
+	private TablePotential buildTable(Random random) {
+		List<Variable> tableVariables = new ArrayList<>(variables);
+		Collections.shuffle(tableVariables, random);
+		tableVariables = tableVariables.subList(0, 1 + random.nextInt(tableVariables.size()));
+		TablePotential table = new TablePotential(tableVariables, PotentialRole.CONDITIONAL_PROBABILITY);
+		double[] leaves = { 0.0, 0.25, random.nextDouble() };
+		for (int i = 0; i < table.values.length; i++) {
+			table.values[i] = leaves[random.nextInt(leaves.length)];
+		}
+		return table;
+	}
+
+	/**
+	 * @return A tree whose top variable is one of {@code free}, with a branch for each state or for each pair of
+	 * states, and whose leaves are tables of the child and, sometimes, one of the variables not yet tested
+	 */
+	private static TreeADDPotential buildTree(Random random, Variable child, List<Variable> family,
+			List<Variable> free) {
+		Variable topVariable = free.get(random.nextInt(free.size()));
+		List<Variable> remaining = new ArrayList<>(free);
+		remaining.remove(topVariable);
+		List<TreeADDBranch> branches = new ArrayList<>();
+		State[] states = topVariable.getStates();
+		for (int i = 0; i < states.length; ) {
+			List<State> branchStates = new ArrayList<>();
+			branchStates.add(states[i++]);
+			if (i < states.length && random.nextBoolean()) {
+				branchStates.add(states[i++]);
+			}
+			Potential subtree = !remaining.isEmpty() && random.nextInt(3) > 0 ?
+					buildTree(random, child, family, remaining) :
+					buildLeaf(random, child, remaining);
+			branches.add(new TreeADDBranch(branchStates, topVariable, subtree, family));
+		}
+		return new TreeADDPotential(family, topVariable, PotentialRole.CONDITIONAL_PROBABILITY, branches);
+	}
+
+	private static TablePotential buildLeaf(Random random, Variable child, List<Variable> free) {
+		List<Variable> leafVariables = new ArrayList<>();
+		leafVariables.add(child);
+		if (!free.isEmpty() && random.nextBoolean()) {
+			leafVariables.add(free.get(random.nextInt(free.size())));
+		}
+		TablePotential leaf = new TablePotential(leafVariables, PotentialRole.CONDITIONAL_PROBABILITY);
+		for (int i = 0; i < leaf.values.length; i++) {
+			leaf.values[i] = random.nextDouble();
+		}
+		return leaf;
+	}
+}
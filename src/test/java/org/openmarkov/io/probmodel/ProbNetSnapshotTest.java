@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.io.probmodel.reader.PGMXReader_0_2;
+import org.openmarkov.io.probmodel.reader.ProbNetSnapshotReader;
+import org.openmarkov.io.probmodel.writer.PGMXWriter_0_2;
+import org.openmarkov.io.probmodel.writer.ProbNetSnapshotWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A network written in a snapshot and read again is the same network that was read from its PGMX file, and the
+ * snapshots that have been modified or truncated are rejected.
+ */
+class ProbNetSnapshotTest {
+
+	private static final String NETWORK = "20220203 - AID-HF.pgmx";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void snapshotGivesTheSameNetworkAsThePGMXFile() throws Exception {
+		ProbNet reference = new PGMXReader_0_2().loadProbNet(NETWORK);
+		Path snapshot = writeSnapshot(reference);
+
+		ProbNet mapped = new ProbNetSnapshotReader().loadProbNet(snapshot.toString());
+		ProbNet fromFileStream;
+		try (InputStream stream = new FileInputStream(snapshot.toFile())) {
+			fromFileStream = new ProbNetSnapshotReader().loadProbNet(snapshot.toString(), stream);
+		}
+		ProbNet fromBytes = new ProbNetSnapshotReader()
+				.loadProbNet(snapshot.toString(), new ByteArrayInputStream(Files.readAllBytes(snapshot)));
+
+		String expected = writePGMX(reference, "reference.pgmx");
+		for (ProbNet net : Arrays.asList(mapped, fromFileStream, fromBytes)) {
+			assertSameNetwork(reference, net);
+			assertEquals(expected, writePGMX(net, "snapshot.pgmx"));
+		}
+	}
+
+	@Test
+	void modifiedSnapshotIsRejected() throws Exception {
+		byte[] bytes = Files.readAllBytes(writeSnapshot(new PGMXReader_0_2().loadProbNet(NETWORK)));
+		// A byte of the structure and a byte of the values of the potentials
+		for (int position : new int[] { ProbNetSnapshotWriter.HEADER_LENGTH + 1, bytes.length - 5 }) {
+			byte[] modified = bytes.clone();
+			modified[position] ^= 1;
+			ParserException exception = assertThrows(ParserException.class, () -> read(modified));
+			assertTrue(exception.getToken().contains("checksum"), exception.getToken());
+		}
+	}
+
+	@Test
+	void truncatedSnapshotIsRejected() throws Exception {
+		byte[] bytes = Files.readAllBytes(writeSnapshot(new PGMXReader_0_2().loadProbNet(NETWORK)));
+		for (int length : new int[] { bytes.length - 3, bytes.length - Double.BYTES, bytes.length / 2 }) {
+			byte[] truncated = Arrays.copyOf(bytes, length);
+			ParserException exception = assertThrows(ParserException.class, () -> read(truncated));
+			assertTrue(exception.getToken().contains("truncated"), exception.getToken());
+		}
+		// Without a complete header the file can not be recognized as a snapshot
+		assertThrows(ParserException.class,
+				() -> read(Arrays.copyOf(bytes, ProbNetSnapshotWriter.HEADER_LENGTH - 1)));
+	}
+
+	private Path writeSnapshot(ProbNet net) throws Exception {
+		Path snapshot = directory.resolve("network." + ProbNetSnapshotWriter.EXTENSION);
+		new ProbNetSnapshotWriter().writeProbNet(snapshot.toString(), net);
+		return snapshot;
+	}
+
+	private String writePGMX(ProbNet net, String fileName) throws Exception {
+		Path file = directory.resolve(fileName);
+		new PGMXWriter_0_2().writeProbNet(file.toString(), net, null);
+		return new String(Files.readAllBytes(file), "UTF-8");
+	}
+
+	private static ProbNet read(byte[] bytes) throws ParserException {
+		return new ProbNetSnapshotReader().loadProbNet("network.pgmxb", new ByteArrayInputStream(bytes));
+	}
+
+	private static void assertSameNetwork(ProbNet expected, ProbNet actual) throws NodeNotFoundException {
+		assertEquals(expected.getNetworkType(), actual.getNetworkType());
+		assertEquals(expected.getNumNodes(), actual.getNumNodes());
+		assertEquals(expected.getLinks().size(), actual.getLinks().size());
+		for (Node expectedNode : expected.getNodes()) {
+			Node node = actual.getNode(expectedNode.getName());
+			assertEquals(expectedNode.getNodeType(), node.getNodeType());
+			assertEquals(Arrays.toString(expectedNode.getVariable().getStates()),
+					Arrays.toString(node.getVariable().getStates()));
+			assertEquals(ProbNet.getVariables(expectedNode.getParents()).toString(),
+					ProbNet.getVariables(node.getParents()).toString());
+			List<Potential> expectedPotentials = expectedNode.getPotentials();
+			List<Potential> potentials = node.getPotentials();
+			assertEquals(expectedPotentials.size(), potentials.size());
+			for (int i = 0; i < potentials.size(); i++) {
+				Potential expectedPotential = expectedPotentials.get(i);
+				Potential potential = potentials.get(i);
+				assertEquals(expectedPotential.getClass(), potential.getClass());
+				assertEquals(expectedPotential.getPotentialRole(), potential.getPotentialRole());
+				assertEquals(expectedPotential.getVariables().toString(), potential.getVariables().toString());
+				if (expectedPotential instanceof TablePotential) {
+					assertArrayEquals(((TablePotential) expectedPotential).getValues(),
+							((TablePotential) potential).getValues(), 0.0);
+				}
+			}
+		}
+	}
+}